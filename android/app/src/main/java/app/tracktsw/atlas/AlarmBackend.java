@@ -0,0 +1,22 @@
+package app.tracktsw.atlas;
+
+import android.content.Context;
+
+/**
+ * A way to wake the app at the next reminder's trigger time. ReminderScheduler picks one
+ * from the exact-alarm permission each time it arms and cancels the one used before, so
+ * at most one backend has anything pending.
+ */
+public interface AlarmBackend {
+    /** ReminderDeliveryLog.BACKEND_* id, recorded with each delivery. */
+    int getId();
+
+    /**
+     * Wake the app at triggerAt (epoch millis), replacing whatever this backend had armed.
+     *
+     * @return false if it couldn't be armed
+     */
+    boolean arm(Context context, long triggerAt);
+
+    void cancel(Context context);
+}
@@ -0,0 +1,120 @@
+package app.tracktsw.atlas;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Local SQLite mirror of the user's Supabase data, so the app can render without
+ * waiting on the network.
+ *
+ * Each synced table keeps the PostgREST row as JSON plus the columns needed to query
+ * it: user_id and ts, the epoch millis the row is filed under (see LocalStore.Table).
+ *
+ * sync_outbox holds local mutations waiting to be pushed and sync_state the per-table
+ * pull watermarks (see SyncEngine).
+ */
+public class AtlasDatabase extends SQLiteOpenHelper {
+    private static final String DATABASE_NAME = "atlas.db";
+    private static final int DATABASE_VERSION = 2;
+
+    private static volatile AtlasDatabase instance;
+
+    public static AtlasDatabase getInstance(Context context) {
+        if (instance == null) {
+            synchronized (AtlasDatabase.class) {
+                if (instance == null) {
+                    instance = new AtlasDatabase(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private AtlasDatabase(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        // Readers (UI queries) shouldn't block behind background sync writes
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        for (LocalStore.Table table : LocalStore.Table.values()) {
+            db.execSQL("CREATE TABLE " + table.localName + " ("
+                + "id TEXT PRIMARY KEY NOT NULL, "
+                + "user_id TEXT NOT NULL, "
+                + "ts INTEGER NOT NULL, "
+                + "json TEXT NOT NULL)");
+            db.execSQL("CREATE INDEX idx_" + table.localName + "_user_ts ON " + table.localName + " (user_id, ts)");
+        }
+        db.execSQL("CREATE TABLE user_settings ("
+            + "user_id TEXT PRIMARY KEY NOT NULL, "
+            + "json TEXT NOT NULL)");
+        createSyncTables(db);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion < 2) {
+            refileCheckIns(db);
+            createSyncTables(db);
+        }
+    }
+
+    /**
+     * v1 filed check-ins under logged_at (submit time) instead of created_at (the day
+     * logged for). Recompute ts from the stored row rather than dropping the mirror.
+     */
+    private static void refileCheckIns(SQLiteDatabase db) {
+        LocalStore.Table table = LocalStore.Table.CHECK_INS;
+        ContentValues values = new ContentValues(1);
+        try (Cursor cursor = db.query(table.localName, new String[] { "id", "json" }, null, null, null, null, null)) {
+            while (cursor.moveToNext()) {
+                String id = cursor.getString(0);
+                Long ts;
+                try {
+                    ts = table.timestampOf(new JSONObject(cursor.getString(1)));
+                } catch (JSONException e) {
+                    ts = null;
+                }
+                if (ts == null) {
+                    // Unreadable or undated: the next sync brings it back if it still exists
+                    db.delete(table.localName, "id = ?", new String[] { id });
+                    continue;
+                }
+                values.put("ts", ts);
+                db.update(table.localName, values, "id = ?", new String[] { id });
+            }
+        }
+    }
+
+    private static void createSyncTables(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE sync_outbox ("
+            + "id INTEGER PRIMARY KEY AUTOINCREMENT, "
+            + "user_id TEXT NOT NULL, "
+            + "table_name TEXT NOT NULL, "
+            + "op TEXT NOT NULL, "
+            + "row_id TEXT NOT NULL, "
+            + "client_request_id TEXT, "
+            + "payload TEXT, "
+            + "created_at INTEGER NOT NULL)");
+        db.execSQL("CREATE TABLE sync_rejected ("
+            + "id INTEGER PRIMARY KEY, "
+            + "table_name TEXT NOT NULL, "
+            + "op TEXT NOT NULL, "
+            + "row_id TEXT NOT NULL, "
+            + "payload TEXT, "
+            + "error TEXT, "
+            + "rejected_at INTEGER NOT NULL)");
+        db.execSQL("CREATE TABLE sync_state ("
+            + "user_id TEXT NOT NULL, "
+            + "table_name TEXT NOT NULL, "
+            + "watermark TEXT, "
+            + "PRIMARY KEY (user_id, table_name))");
+    }
+}
@@ -0,0 +1,52 @@
+package app.tracktsw.atlas;
+
+import android.net.Uri;
+import android.util.Log;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
+import android.webkit.WebView;
+
+import com.getcapacitor.Bridge;
+import com.getcapacitor.BridgeWebViewClient;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bridge WebViewClient that serves photos-bucket images from ThumbnailCache, so the
+ * photo diary doesn't depend on the WebView HTTP cache and keeps working offline.
+ * Everything else goes to Capacitor's local server as usual, and so do photos until the
+ * cache has finished opening (ThumbnailCache.openAsync).
+ */
+public class AtlasWebViewClient extends BridgeWebViewClient {
+    private static final String TAG = "AtlasWebViewClient";
+
+    public AtlasWebViewClient(Bridge bridge) {
+        super(bridge);
+    }
+
+    @Override
+    public WebResourceResponse shouldInterceptRequest(WebView view, WebResourceRequest request) {
+        Uri uri = request.getUrl();
+        ThumbnailCache cache = ThumbnailCache.getIfOpen();
+        if (cache != null && "GET".equals(request.getMethod()) && ThumbnailCache.isCacheable(uri)) {
+            try {
+                // Called on a WebView worker thread, so a miss can block on the download
+                InputStream in = cache.open(uri);
+                return new WebResourceResponse("image/webp", null, 200, "OK", responseHeaders(), in);
+            } catch (Exception e) {
+                // Offline miss or server error: let the WebView try its own cache/network
+                Log.w(TAG, "Cache fallback for " + uri.getPath() + ": " + e.getMessage());
+            }
+        }
+        return super.shouldInterceptRequest(view, request);
+    }
+
+    private static Map<String, String> responseHeaders() {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Cache-Control", "max-age=31536000, immutable");
+        headers.put("Access-Control-Allow-Origin", "*");
+        return headers;
+    }
+}
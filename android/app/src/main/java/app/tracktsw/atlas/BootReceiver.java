@@ -3,20 +3,88 @@ package app.tracktsw.atlas;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
+import android.content.SharedPreferences;
+import android.os.SystemClock;
+import android.provider.Settings;
 import android.util.Log;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 /**
  * BroadcastReceiver to reschedule reminders after device reboot.
- * WorkManager handles this automatically, but this ensures immediate rescheduling.
+ *
+ * Direct-boot aware: LOCKED_BOOT_COMPLETED re-arms the alarm from device-protected
+ * storage (ReminderStore) as soon as the system is up, before the user unlocks and
+ * before the BOOT_COMPLETED rush. BOOT_COMPLETED re-arms again, which is a single
+ * AlarmManager call: an alarm that fired while locked never reached
+ * ReminderAlarmReceiver, which isn't direct-boot aware.
+ *
+ * The boot-to-armed latency (elapsedRealtime when the first alarm of a boot was armed)
+ * is kept for ReminderPlugin.getDeliveryStats.
  */
 public class BootReceiver extends BroadcastReceiver {
     private static final String TAG = "BootReceiver";
+    // Device-protected, like ReminderStore
+    private static final String PREFS_NAME = "tsw_boot_stats";
+    private static final String KEY_BOOT_COUNT = "boot_count";
+    private static final String KEY_LATENCY = "armed_latency_ms";
+    private static final String KEY_BEFORE_UNLOCK = "armed_before_unlock";
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
 
     @Override
     public void onReceive(Context context, Intent intent) {
-        if (Intent.ACTION_BOOT_COMPLETED.equals(intent.getAction())) {
-            Log.d(TAG, "Device booted, rescheduling reminders");
-            ReminderScheduler.rescheduleAfterBoot(context);
+        String action = intent.getAction();
+        boolean locked = Intent.ACTION_LOCKED_BOOT_COMPLETED.equals(action);
+        if (!locked && !Intent.ACTION_BOOT_COMPLETED.equals(action)) {
+            return;
+        }
+
+        Log.d(TAG, "Device booted (" + action + "), rescheduling reminders");
+        Context appContext = context.getApplicationContext();
+        PendingResult pendingResult = goAsync();
+        executor.execute(() -> {
+            try {
+                if (ReminderScheduler.rescheduleAfterBoot(appContext)) {
+                    recordArmed(appContext, SystemClock.elapsedRealtime(), locked);
+                }
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Error rescheduling reminders: " + e.getMessage());
+            } finally {
+                pendingResult.finish();
+            }
+        });
+    }
+
+    /**
+     * { latencyMs, armedBeforeUnlock (0/1) } for the last boot that had reminders to
+     * re-arm, or null if none was recorded yet.
+     */
+    static long[] getLastBootStats(Context context) {
+        SharedPreferences prefs = prefs(context);
+        if (!prefs.contains(KEY_LATENCY)) {
+            return null;
         }
+        return new long[] { prefs.getLong(KEY_LATENCY, 0), prefs.getBoolean(KEY_BEFORE_UNLOCK, false) ? 1 : 0 };
+    }
+
+    // Only the first arm of each boot counts
+    private static synchronized void recordArmed(Context context, long latencyMs, boolean beforeUnlock) {
+        int bootCount = Settings.Global.getInt(context.getContentResolver(), Settings.Global.BOOT_COUNT, -1);
+        SharedPreferences prefs = prefs(context);
+        if (bootCount != -1 && prefs.getInt(KEY_BOOT_COUNT, -1) == bootCount) {
+            return;
+        }
+        prefs.edit()
+            .putInt(KEY_BOOT_COUNT, bootCount)
+            .putLong(KEY_LATENCY, latencyMs)
+            .putBoolean(KEY_BEFORE_UNLOCK, beforeUnlock)
+            .apply();
+        Log.d(TAG, "Reminder alarm armed " + latencyMs + "ms after boot" + (beforeUnlock ? " (before unlock)" : ""));
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.createDeviceProtectedStorageContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
     }
 }
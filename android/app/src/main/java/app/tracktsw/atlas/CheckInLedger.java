@@ -0,0 +1,172 @@
+package app.tracktsw.atlas;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import app.tracktsw.atlas.core.ReminderTimeModel;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * The last day the user checked in, per slot (morning/evening), so ReminderAlarmReceiver
+ * can skip the check-in reminder without starting the WebView. JS records each check-in
+ * through ReminderPlugin.recordCheckIn.
+ *
+ * Days are kept in memory as epoch days after the first read, so the check on the alarm
+ * path is a couple of comparisons. Also counts delivered and suppressed reminders.
+ *
+ * The time of the first check-in of each day feeds a ReminderTimeModel, which
+ * ReminderScheduler uses for the check-in reminder when adaptive timing is on.
+ */
+public class CheckInLedger {
+    private static final String PREFS_NAME = "tsw_checkin_ledger";
+    private static final String KEY_DELIVERED = "delivered";
+    private static final String KEY_SUPPRESSED = "suppressed";
+    private static final String KEY_TIME_MODEL = "time_model";
+
+    public static final String SLOT_MORNING = "morning";
+    public static final String SLOT_EVENING = "evening";
+
+    /** The slot a check-in logged at this local time belongs to: morning before noon. */
+    public static String slotAt(LocalTime time) {
+        return time.getHour() < 12 ? SLOT_MORNING : SLOT_EVENING;
+    }
+
+    private static final Object lock = new Object();
+    private static volatile long[] lastDays;
+    private static ReminderTimeModel timeModel;
+
+    /**
+     * Record a check-in for the given local date and slot. Older dates (backfills) never
+     * move the ledger backwards.
+     */
+    public static void recordCheckIn(Context context, LocalDate date, String slot) {
+        recordCheckIn(context, date, slot, -1);
+    }
+
+    /**
+     * Same, also learning from the local minute of day it was logged at (-1 if unknown)
+     * when it is the first check-in of that day.
+     *
+     * @return true if the check-in time was learned
+     */
+    public static boolean recordCheckIn(Context context, LocalDate date, String slot, int minuteOfDay) {
+        int index = indexOf(slot);
+        synchronized (lock) {
+            long[] days = load(context).clone();
+            if (date.toEpochDay() <= days[index]) {
+                return false;
+            }
+            boolean firstOfDay = !hasCheckedIn(context, date);
+            days[index] = date.toEpochDay();
+            lastDays = days;
+
+            SharedPreferences.Editor editor = prefs(context).edit().putLong(slot, days[index]);
+            boolean learned = firstOfDay && minuteOfDay >= 0;
+            if (learned) {
+                ReminderTimeModel model = loadTimeModel(context);
+                model.observe(minuteOfDay);
+                editor.putString(KEY_TIME_MODEL, model.encode());
+            }
+            editor.apply();
+            return learned;
+        }
+    }
+
+    /**
+     * The learned check-in reminder time as a minute of day, or -1 if there's no clear habit yet.
+     */
+    public static int getLearnedMinute(Context context) {
+        synchronized (lock) {
+            return loadTimeModel(context).getLearnedMinute();
+        }
+    }
+
+    /**
+     * True if any slot was checked in on the given day.
+     */
+    public static boolean hasCheckedIn(Context context, LocalDate date) {
+        long day = date.toEpochDay();
+        for (long lastDay : load(context)) {
+            if (lastDay == day) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static boolean hasCheckedIn(Context context, LocalDate date, String slot) {
+        return load(context)[indexOf(slot)] == date.toEpochDay();
+    }
+
+    public static void countDelivered(Context context) {
+        increment(context, KEY_DELIVERED);
+    }
+
+    public static void countSuppressed(Context context) {
+        increment(context, KEY_SUPPRESSED);
+    }
+
+    /** [delivered, suppressed] */
+    public static long[] getCounts(Context context) {
+        SharedPreferences prefs = prefs(context);
+        return new long[] { prefs.getLong(KEY_DELIVERED, 0), prefs.getLong(KEY_SUPPRESSED, 0) };
+    }
+
+    public static void resetCounts(Context context) {
+        prefs(context).edit().remove(KEY_DELIVERED).remove(KEY_SUPPRESSED).apply();
+    }
+
+    /** Forget all check-ins and the learned time, e.g. on sign-out. */
+    public static void clear(Context context) {
+        synchronized (lock) {
+            lastDays = new long[] { Long.MIN_VALUE, Long.MIN_VALUE };
+            timeModel = new ReminderTimeModel();
+            prefs(context).edit().remove(SLOT_MORNING).remove(SLOT_EVENING).remove(KEY_TIME_MODEL).apply();
+        }
+    }
+
+    private static long[] load(Context context) {
+        long[] days = lastDays;
+        if (days == null) {
+            synchronized (lock) {
+                days = lastDays;
+                if (days == null) {
+                    SharedPreferences prefs = prefs(context);
+                    days = new long[] {
+                        prefs.getLong(SLOT_MORNING, Long.MIN_VALUE),
+                        prefs.getLong(SLOT_EVENING, Long.MIN_VALUE)
+                    };
+                    lastDays = days;
+                }
+            }
+        }
+        return days;
+    }
+
+    // Callers hold lock
+    private static ReminderTimeModel loadTimeModel(Context context) {
+        if (timeModel == null) {
+            timeModel = ReminderTimeModel.decode(prefs(context).getString(KEY_TIME_MODEL, null));
+        }
+        return timeModel;
+    }
+
+    private static void increment(Context context, String key) {
+        synchronized (lock) {
+            SharedPreferences prefs = prefs(context);
+            prefs.edit().putLong(key, prefs.getLong(key, 0) + 1).apply();
+        }
+    }
+
+    private static int indexOf(String slot) {
+        if (SLOT_MORNING.equals(slot)) return 0;
+        if (SLOT_EVENING.equals(slot)) return 1;
+        throw new IllegalArgumentException("Unknown slot: " + slot);
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
@@ -0,0 +1,63 @@
+package app.tracktsw.atlas;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+import app.tracktsw.atlas.core.ReminderDeliveryLog;
+
+/**
+ * setExactAndAllowWhileIdle alarm to ReminderAlarmReceiver: fires on time even in Doze,
+ * but needs the exact-alarm permission on Android 12+.
+ */
+public class ExactAlarmBackend implements AlarmBackend {
+    private static final String TAG = "ExactAlarmBackend";
+    private static final int ALARM_REQUEST_CODE = 1001;
+
+    @Override
+    public int getId() {
+        return ReminderDeliveryLog.BACKEND_EXACT_ALARM;
+    }
+
+    @Override
+    public boolean arm(Context context, long triggerAt) {
+        AlarmManager alarmManager = context.getSystemService(AlarmManager.class);
+        if (alarmManager == null) {
+            Log.e(TAG, "AlarmManager is null, cannot schedule reminder");
+            return false;
+        }
+
+        try {
+            alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAt, alarmIntent(context));
+            Log.d(TAG, "Exact alarm scheduled for " + new java.util.Date(triggerAt));
+            return true;
+        } catch (SecurityException e) {
+            // Permission revoked between the check and the call
+            Log.e(TAG, "SecurityException scheduling alarm: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void cancel(Context context) {
+        AlarmManager alarmManager = context.getSystemService(AlarmManager.class);
+        if (alarmManager != null) {
+            // Also cancels the inexact alarms older versions fell back to
+            alarmManager.cancel(alarmIntent(context));
+        }
+    }
+
+    private static PendingIntent alarmIntent(Context context) {
+        Intent intent = new Intent(context, ReminderAlarmReceiver.class);
+        intent.setAction(ReminderAlarmReceiver.ACTION_SHOW_REMINDER);
+
+        return PendingIntent.getBroadcast(
+            context,
+            ALARM_REQUEST_CODE,
+            intent,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+    }
+}
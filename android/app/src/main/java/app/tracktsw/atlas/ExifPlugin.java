@@ -0,0 +1,177 @@
+package app.tracktsw.atlas;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+import android.os.ParcelFileDescriptor;
+import android.util.Log;
+
+import androidx.exifinterface.media.ExifInterface;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import org.json.JSONObject;
+
+import java.io.File;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Capacitor plugin that reads photo capture dates natively.
+ * Uses androidx ExifInterface on a seekable file descriptor, so only the metadata
+ * segment is read instead of the whole file being loaded into JS memory.
+ *
+ * Mirrors extractExifDateWithSource in src/utils/exifExtractor.ts: dates are LOCAL
+ * device time and returned as timezone-less "YYYY-MM-DDTHH:MM:SS" strings.
+ */
+@CapacitorPlugin(name = "Exif")
+public class ExifPlugin extends Plugin {
+    private static final String TAG = "ExifPlugin";
+
+    // Metadata reads are I/O bound, so a few more threads than cores is fine
+    private static final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    // Priority order: when taken > when digitized > last modified
+    private static final String[] DATE_TAGS = {
+        ExifInterface.TAG_DATETIME_ORIGINAL,
+        ExifInterface.TAG_DATETIME_DIGITIZED,
+        ExifInterface.TAG_DATETIME
+    };
+
+    private static final Pattern EXIF_DATE = Pattern.compile("^(\\d{4})[:-](\\d{2})[:-](\\d{2})[ T](\\d{2}):(\\d{2}):(\\d{2})");
+    private static final DateTimeFormatter OUTPUT_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    /**
+     * Extract dates for a batch of URIs in one bridge call.
+     * Resolves { results: [{ uri, date, source }] } in the same order as the input.
+     */
+    @PluginMethod
+    public void extractDates(PluginCall call) {
+        JSArray uris = call.getArray("uris");
+        if (uris == null) {
+            call.reject("uris is required");
+            return;
+        }
+
+        // Checked here: a bad element failing inside a task would leave the call unresolved
+        List<String> uriList = new ArrayList<>(uris.length());
+        for (int i = 0; i < uris.length(); i++) {
+            Object uri = uris.opt(i);
+            if (!(uri instanceof String)) {
+                call.reject("uris must be an array of strings");
+                return;
+            }
+            uriList.add((String) uri);
+        }
+        if (uriList.isEmpty()) {
+            call.resolve(toResult(uriList, new String[0]));
+            return;
+        }
+
+        // Fan out one read per URI; the last one to finish resolves the call
+        long start = System.currentTimeMillis();
+        String[] dates = new String[uriList.size()];
+        AtomicInteger remaining = new AtomicInteger(uriList.size());
+        for (int i = 0; i < uriList.size(); i++) {
+            int index = i;
+            executor.execute(() -> {
+                try {
+                    dates[index] = readDate(uriList.get(index));
+                } catch (RuntimeException e) {
+                    // The date stays null; the call must still resolve
+                    Log.w(TAG, "Error reading date: " + e.getMessage());
+                } finally {
+                    if (remaining.decrementAndGet() == 0) {
+                        call.resolve(toResult(uriList, dates));
+                        Log.d(TAG, "Extracted " + uriList.size() + " dates in " + (System.currentTimeMillis() - start) + "ms");
+                    }
+                }
+            });
+        }
+    }
+
+    private JSObject toResult(List<String> uris, String[] dates) {
+        JSArray results = new JSArray();
+        for (int i = 0; i < uris.size(); i++) {
+            JSObject item = new JSObject();
+            item.put("uri", uris.get(i));
+            item.put("date", dates[i] != null ? dates[i] : JSONObject.NULL);
+            item.put("source", dates[i] != null ? "exif" : "missing");
+            results.put(item);
+        }
+
+        JSObject ret = new JSObject();
+        ret.put("results", results);
+        return ret;
+    }
+
+    private String readDate(String uriString) {
+        Uri uri = Uri.parse(uriString);
+        try {
+            ExifInterface exif;
+            if (ContentResolver.SCHEME_FILE.equals(uri.getScheme()) || uri.getScheme() == null) {
+                exif = new ExifInterface(new File(uri.getPath()));
+            } else {
+                try (ParcelFileDescriptor pfd = getContext().getContentResolver().openFileDescriptor(uri, "r")) {
+                    if (pfd == null) return null;
+                    exif = new ExifInterface(pfd.getFileDescriptor());
+                }
+            }
+
+            for (String tag : DATE_TAGS) {
+                String parsed = parseExifDate(exif.getAttribute(tag));
+                if (parsed != null) {
+                    return parsed;
+                }
+            }
+        } catch (Exception e) {
+            // Unreadable or unsupported file - same as "missing" on the JS side
+            Log.w(TAG, "Could not read EXIF from " + uriString + ": " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Parse "YYYY:MM:DD HH:MM:SS" (or "YYYY-MM-DD HH:MM:SS") and validate it is a
+     * plausible photo date: not before 1990 and at most one day in the future.
+     */
+    static String parseExifDate(String value) {
+        if (value == null) return null;
+
+        Matcher match = EXIF_DATE.matcher(value.trim());
+        if (!match.find()) return null;
+
+        try {
+            LocalDateTime date = LocalDateTime.of(
+                Integer.parseInt(match.group(1)),
+                Integer.parseInt(match.group(2)),
+                Integer.parseInt(match.group(3)),
+                Integer.parseInt(match.group(4)),
+                Integer.parseInt(match.group(5)),
+                Integer.parseInt(match.group(6))
+            );
+
+            // Allow 1 day in future for timezone edge cases
+            LocalDateTime maxDate = LocalDateTime.now().plusDays(1);
+            LocalDateTime minDate = LocalDateTime.of(1990, 1, 1, 0, 0);
+            if (date.isBefore(minDate) || date.isAfter(maxDate)) return null;
+
+            return date.format(OUTPUT_FORMAT);
+        } catch (DateTimeException e) {
+            // e.g. Feb 30 or 25:00
+            return null;
+        }
+    }
+}
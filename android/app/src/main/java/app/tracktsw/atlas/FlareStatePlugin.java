@@ -0,0 +1,113 @@
+package app.tracktsw.atlas;
+
+import android.util.Log;
+
+import app.tracktsw.atlas.core.FlareStateEngine;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Capacitor plugin exposing the native FlareStateEngine.
+ * Returns the same dailyFlareStates / flareEpisodes shape as analyzeFlareState in
+ * src/utils/flareStateEngine.ts, computed in a single O(n) pass.
+ */
+@CapacitorPlugin(name = "FlareState")
+public class FlareStatePlugin extends Plugin {
+    private static final String TAG = "FlareStatePlugin";
+
+    @PluginMethod
+    public void analyze(PluginCall call) {
+        JSArray checkIns = call.getArray("checkIns");
+        if (checkIns == null) {
+            call.reject("checkIns is required");
+            return;
+        }
+
+        try {
+            long start = System.nanoTime();
+
+            // Group by calendar day, keeping the WORST skin reading of the day
+            TreeMap<String, double[]> byDate = new TreeMap<>();
+            for (int i = 0; i < checkIns.length(); i++) {
+                JSONObject checkIn = checkIns.getJSONObject(i);
+                String date = checkIn.getString("created_at").split("T")[0];
+                double skinFeeling = checkIn.getDouble("skinFeeling");
+
+                double[] day = byDate.get(date);
+                if (day == null) {
+                    byDate.put(date, new double[] { skinFeeling, 1 });
+                } else {
+                    day[0] = Math.min(day[0], skinFeeling);
+                    day[1]++;
+                }
+            }
+
+            FlareStateEngine engine = new FlareStateEngine();
+            for (Map.Entry<String, double[]> entry : byDate.entrySet()) {
+                double[] day = entry.getValue();
+                engine.appendDay(
+                    entry.getKey(),
+                    FlareStateEngine.getSkinSeverityFromFeeling(Math.min(5, day[0])),
+                    (int) day[1]
+                );
+            }
+
+            call.resolve(toResult(engine));
+            Log.d(TAG, "Analyzed " + checkIns.length() + " check-ins over " + engine.getDayCount()
+                + " days in " + ((System.nanoTime() - start) / 1000) + "us");
+        } catch (JSONException e) {
+            Log.e(TAG, "Invalid check-in payload: " + e.getMessage());
+            call.reject("Invalid check-in payload", e);
+        }
+    }
+
+    private JSObject toResult(FlareStateEngine engine) {
+        JSArray states = new JSArray();
+        for (FlareStateEngine.DailyFlareState state : engine.getDailyFlareStates()) {
+            JSObject item = new JSObject();
+            item.put("date", state.date);
+            item.put("burdenScore", state.burdenScore);
+            item.put("rollingAverage3", JSONObject.NULL);
+            item.put("flareState", state.flareState.value);
+            item.put("isInFlareEpisode", state.isInFlareEpisode);
+            item.put("explanation", state.explanation);
+            states.put(item);
+        }
+
+        JSArray episodes = new JSArray();
+        for (FlareStateEngine.FlareEpisode episode : engine.getFlareEpisodes()) {
+            JSObject item = new JSObject();
+            item.put("startDate", episode.startDate);
+            item.put("endDate", episode.endDate != null ? episode.endDate : JSONObject.NULL);
+            item.put("peakDate", episode.getPeakDate());
+            item.put("durationDays", episode.durationDays);
+            item.put("peakBurdenScore", episode.getPeakBurdenScore());
+            item.put("isActive", episode.isActive);
+            item.put("isPaused", false);
+            episodes.put(item);
+        }
+
+        FlareStateEngine.FlareState currentState = engine.getCurrentState();
+        int currentFlareDuration = engine.getCurrentFlareDuration();
+
+        JSObject result = new JSObject();
+        result.put("baselineConfidence", engine.getBaselineConfidence().value);
+        result.put("dailyFlareStates", states);
+        result.put("flareEpisodes", episodes);
+        result.put("currentState", currentState.value);
+        result.put("isInActiveFlare", currentState == FlareStateEngine.FlareState.ACTIVE_FLARE);
+        result.put("currentFlareDuration", currentFlareDuration >= 0 ? currentFlareDuration : JSONObject.NULL);
+        return result;
+    }
+}
@@ -0,0 +1,203 @@
+package app.tracktsw.atlas;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import app.tracktsw.atlas.core.Timestamps;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.time.ZoneId;
+
+/**
+ * Reads and writes the local mirror in AtlasDatabase. Rows go in and come out in the
+ * same shape as select('*') from PostgREST, so the JS mapping code is shared.
+ */
+public class LocalStore {
+
+    public enum Table {
+        // Check-ins are filed under the day they are for (created_at; logged_at is submit time)
+        CHECK_INS("check_ins", "user_check_ins", "created_at", null),
+        // Photos are filed under the EXIF date when known, like the photo diary shows them
+        PHOTOS("photos", "user_photos", "taken_at", "created_at"),
+        JOURNAL("journal_entries", "user_journal_entries", "created_at", null);
+
+        public final String localName;
+        public final String remoteName;
+        private final String timestampColumn;
+        private final String fallbackColumn;
+
+        Table(String localName, String remoteName, String timestampColumn, String fallbackColumn) {
+            this.localName = localName;
+            this.remoteName = remoteName;
+            this.timestampColumn = timestampColumn;
+            this.fallbackColumn = fallbackColumn;
+        }
+
+        public static Table fromName(String name) {
+            for (Table table : values()) {
+                if (table.localName.equals(name) || table.remoteName.equals(name)) {
+                    return table;
+                }
+            }
+            return null;
+        }
+
+        Long timestampOf(JSONObject row) {
+            Long ts = Timestamps.parseMillis(row.optString(timestampColumn, null), ZoneId.systemDefault());
+            if (ts == null && fallbackColumn != null) {
+                ts = Timestamps.parseMillis(row.optString(fallbackColumn, null), ZoneId.systemDefault());
+            }
+            return ts;
+        }
+    }
+
+    private final AtlasDatabase database;
+
+    AtlasDatabase getDatabase() {
+        return database;
+    }
+
+    public LocalStore(Context context) {
+        this.database = AtlasDatabase.getInstance(context);
+    }
+
+    /**
+     * Insert or replace rows by id. Rows without an id, user_id or timestamp are skipped.
+     * Returns the number of rows written.
+     */
+    public int upsert(Table table, JSONArray rows) {
+        SQLiteDatabase db = database.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            int written = insertRows(db, table, rows);
+            db.setTransactionSuccessful();
+            return written;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Replace everything stored for a user in one table with a full snapshot
+     * (rows deleted remotely disappear locally too). Rows with unpushed outbox
+     * mutations are kept. Atomic for readers.
+     */
+    public int replaceAll(Table table, String userId, JSONArray rows) {
+        SQLiteDatabase db = database.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            // Keep rows that are still waiting in the sync outbox (e.g. quick check-ins)
+            db.delete(table.localName, "user_id = ? AND id NOT IN "
+                    + "(SELECT row_id FROM sync_outbox WHERE user_id = ? AND table_name = ?)",
+                new String[] { userId, userId, table.remoteName });
+            int written = insertRows(db, table, rows);
+            db.setTransactionSuccessful();
+            return written;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    static int insertRows(SQLiteDatabase db, Table table, JSONArray rows) {
+        int written = 0;
+        ContentValues values = new ContentValues(4);
+        for (int i = 0; i < rows.length(); i++) {
+            JSONObject row = rows.optJSONObject(i);
+            if (row == null) continue;
+
+            String id = row.optString("id", null);
+            String userId = row.optString("user_id", null);
+            Long ts = table.timestampOf(row);
+            if (id == null || userId == null || ts == null) continue;
+
+            values.clear();
+            values.put("id", id);
+            values.put("user_id", userId);
+            values.put("ts", ts);
+            values.put("json", row.toString());
+            db.insertWithOnConflict(table.localName, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            written++;
+        }
+        return written;
+    }
+
+    /**
+     * Rows for a user with fromMs <= ts < toMs (either bound may be null), ordered by ts.
+     */
+    public JSONArray query(Table table, String userId, Long fromMs, Long toMs, boolean descending, int limit)
+            throws JSONException {
+        StringBuilder where = new StringBuilder("user_id = ?");
+        int argCount = 1 + (fromMs != null ? 1 : 0) + (toMs != null ? 1 : 0);
+        String[] args = new String[argCount];
+        int arg = 0;
+        args[arg++] = userId;
+        if (fromMs != null) {
+            where.append(" AND ts >= ?");
+            args[arg++] = Long.toString(fromMs);
+        }
+        if (toMs != null) {
+            where.append(" AND ts < ?");
+            args[arg] = Long.toString(toMs);
+        }
+
+        JSONArray rows = new JSONArray();
+        try (Cursor cursor = database.getReadableDatabase().query(table.localName, new String[] { "json" },
+                where.toString(), args, null, null, "ts " + (descending ? "DESC" : "ASC"),
+                limit > 0 ? Integer.toString(limit) : null)) {
+            while (cursor.moveToNext()) {
+                rows.put(new JSONObject(cursor.getString(0)));
+            }
+        }
+        return rows;
+    }
+
+    public int count(Table table, String userId) {
+        try (Cursor cursor = database.getReadableDatabase().rawQuery(
+                "SELECT COUNT(*) FROM " + table.localName + " WHERE user_id = ?", new String[] { userId })) {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        }
+    }
+
+    public void delete(Table table, String id) {
+        database.getWritableDatabase().delete(table.localName, "id = ?", new String[] { id });
+    }
+
+    public JSONObject getSettings(String userId) throws JSONException {
+        try (Cursor cursor = database.getReadableDatabase().query("user_settings", new String[] { "json" },
+                "user_id = ?", new String[] { userId }, null, null, null)) {
+            return cursor.moveToFirst() ? new JSONObject(cursor.getString(0)) : null;
+        }
+    }
+
+    public void putSettings(String userId, JSONObject settings) {
+        ContentValues values = new ContentValues(2);
+        values.put("user_id", userId);
+        values.put("json", settings.toString());
+        database.getWritableDatabase().insertWithOnConflict("user_settings", null, values,
+            SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    /**
+     * Remove everything stored for a user (sign-out).
+     */
+    public void clearUser(String userId) {
+        SQLiteDatabase db = database.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (Table table : Table.values()) {
+                db.delete(table.localName, "user_id = ?", new String[] { userId });
+            }
+            db.delete("user_settings", "user_id = ?", new String[] { userId });
+            db.delete("sync_outbox", "user_id = ?", new String[] { userId });
+            db.delete("sync_state", "user_id = ?", new String[] { userId });
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package app.tracktsw.atlas;
+
+import android.util.Log;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import app.tracktsw.atlas.core.Timestamps;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.time.ZoneId;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Capacitor plugin for the local SQLite mirror (LocalStore).
+ * Tables are addressed by their Supabase names: user_check_ins, user_photos,
+ * user_journal_entries. Rows use the same snake_case shape as PostgREST.
+ */
+@CapacitorPlugin(name = "LocalStore")
+public class LocalStorePlugin extends Plugin {
+    private static final String TAG = "LocalStorePlugin";
+
+    // Single thread keeps writes ordered; WAL lets it read while sync writes elsewhere
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private LocalStore store;
+
+    @Override
+    public void load() {
+        store = new LocalStore(getContext());
+    }
+
+    /**
+     * Options: { table, userId, from?, to?, order = 'desc', limit? }.
+     * from/to are ISO timestamps or dates; the range is [from, to).
+     * Resolves { rows }.
+     */
+    @PluginMethod
+    public void query(PluginCall call) {
+        LocalStore.Table table = LocalStore.Table.fromName(call.getString("table", ""));
+        String userId = call.getString("userId");
+        if (table == null || userId == null) {
+            call.reject("A valid table and userId are required");
+            return;
+        }
+        Long from = Timestamps.parseMillis(call.getString("from"), ZoneId.systemDefault());
+        Long to = Timestamps.parseMillis(call.getString("to"), ZoneId.systemDefault());
+        boolean descending = !"asc".equals(call.getString("order", "desc"));
+        int limit = call.getInt("limit", 0);
+
+        executor.execute(() -> {
+            try {
+                long start = System.currentTimeMillis();
+                JSONArray rows = store.query(table, userId, from, to, descending, limit);
+                JSObject ret = new JSObject();
+                ret.put("rows", rows);
+                call.resolve(ret);
+                Log.d(TAG, "Queried " + rows.length() + " " + table.localName + " in "
+                    + (System.currentTimeMillis() - start) + "ms");
+            } catch (Exception e) {
+                Log.e(TAG, "Error querying " + table.localName + ": " + e.getMessage());
+                call.reject("Failed to query local data", e);
+            }
+        });
+    }
+
+    /**
+     * Options: { table, rows }. Resolves { written }.
+     */
+    @PluginMethod
+    public void upsert(PluginCall call) {
+        LocalStore.Table table = LocalStore.Table.fromName(call.getString("table", ""));
+        JSArray rows = call.getArray("rows");
+        if (table == null || rows == null) {
+            call.reject("A valid table and rows are required");
+            return;
+        }
+
+        executor.execute(() -> {
+            try {
+                JSObject ret = new JSObject();
+                ret.put("written", store.upsert(table, rows));
+                call.resolve(ret);
+            } catch (Exception e) {
+                Log.e(TAG, "Error writing " + table.localName + ": " + e.getMessage());
+                call.reject("Failed to write local data", e);
+            }
+        });
+    }
+
+    /**
+     * Options: { table, userId, rows }. Replaces all of the user's rows in the table
+     * with rows, e.g. after a full download. Resolves { written }.
+     */
+    @PluginMethod
+    public void replaceAll(PluginCall call) {
+        LocalStore.Table table = LocalStore.Table.fromName(call.getString("table", ""));
+        String userId = call.getString("userId");
+        JSArray rows = call.getArray("rows");
+        if (table == null || userId == null || rows == null) {
+            call.reject("A valid table, userId and rows are required");
+            return;
+        }
+
+        executor.execute(() -> {
+            try {
+                JSObject ret = new JSObject();
+                ret.put("written", store.replaceAll(table, userId, rows));
+                call.resolve(ret);
+            } catch (Exception e) {
+                Log.e(TAG, "Error replacing " + table.localName + ": " + e.getMessage());
+                call.reject("Failed to write local data", e);
+            }
+        });
+    }
+
+    /**
+     * Options: { table, ids }.
+     */
+    @PluginMethod
+    public void remove(PluginCall call) {
+        LocalStore.Table table = LocalStore.Table.fromName(call.getString("table", ""));
+        JSArray ids = call.getArray("ids");
+        if (table == null || ids == null) {
+            call.reject("A valid table and ids are required");
+            return;
+        }
+
+        executor.execute(() -> {
+            try {
+                for (int i = 0; i < ids.length(); i++) {
+                    String id = ids.optString(i, null);
+                    if (id != null) {
+                        store.delete(table, id);
+                    }
+                }
+                call.resolve();
+            } catch (Exception e) {
+                Log.e(TAG, "Error deleting from " + table.localName + ": " + e.getMessage());
+                call.reject("Failed to delete local data", e);
+            }
+        });
+    }
+
+    @PluginMethod
+    public void getSettings(PluginCall call) {
+        String userId = call.getString("userId");
+        if (userId == null) {
+            call.reject("userId is required");
+            return;
+        }
+
+        executor.execute(() -> {
+            try {
+                JSONObject settings = store.getSettings(userId);
+                JSObject ret = new JSObject();
+                ret.put("settings", settings != null ? settings : JSONObject.NULL);
+                call.resolve(ret);
+            } catch (Exception e) {
+                call.reject("Failed to read local settings", e);
+            }
+        });
+    }
+
+    @PluginMethod
+    public void putSettings(PluginCall call) {
+        String userId = call.getString("userId");
+        JSObject settings = call.getObject("settings");
+        if (userId == null || settings == null) {
+            call.reject("userId and settings are required");
+            return;
+        }
+
+        executor.execute(() -> {
+            try {
+                store.putSettings(userId, settings);
+                call.resolve();
+            } catch (Exception e) {
+                Log.e(TAG, "Error writing settings: " + e.getMessage());
+                call.reject("Failed to write local settings", e);
+            }
+        });
+    }
+
+    @PluginMethod
+    public void clear(PluginCall call) {
+        String userId = call.getString("userId");
+        if (userId == null) {
+            call.reject("userId is required");
+            return;
+        }
+
+        executor.execute(() -> {
+            try {
+                store.clearUser(userId);
+                call.resolve();
+            } catch (Exception e) {
+                Log.e(TAG, "Error clearing local data: " + e.getMessage());
+                call.reject("Failed to clear local data", e);
+            }
+        });
+    }
+}
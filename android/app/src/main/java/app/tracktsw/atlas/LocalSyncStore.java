@@ -0,0 +1,172 @@
+package app.tracktsw.atlas;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import app.tracktsw.atlas.core.SyncEngine;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SyncEngine.Store over AtlasDatabase for one user: pulled rows go into the LocalStore
+ * tables, and mutations made while offline (or from native code such as notification
+ * actions) wait in sync_outbox.
+ */
+public class LocalSyncStore implements SyncEngine.Store {
+    private final LocalStore localStore;
+    private final String userId;
+
+    public LocalSyncStore(Context context, String userId) {
+        this.localStore = new LocalStore(context);
+        this.userId = userId;
+    }
+
+    /**
+     * Apply a mutation locally and queue it for push in one transaction (write-behind).
+     * A mutation whose clientRequestId is already queued is ignored, so callers can
+     * retry safely. Returns false if it was a duplicate.
+     */
+    public boolean enqueue(LocalStore.Table table, SyncEngine.Op op, String rowId, String clientRequestId,
+                           JSONObject row) {
+        SQLiteDatabase db = db();
+        db.beginTransaction();
+        try {
+            if (clientRequestId != null && isQueued(db, clientRequestId)) {
+                return false;
+            }
+
+            if (op == SyncEngine.Op.DELETE) {
+                db.delete(table.localName, "id = ?", new String[] { rowId });
+            } else {
+                LocalStore.insertRows(db, table, new JSONArray().put(row));
+            }
+
+            ContentValues values = new ContentValues(7);
+            values.put("user_id", userId);
+            values.put("table_name", table.remoteName);
+            values.put("op", op.value);
+            values.put("row_id", rowId);
+            values.put("client_request_id", clientRequestId);
+            values.put("payload", row != null ? row.toString() : null);
+            values.put("created_at", System.currentTimeMillis());
+            db.insertOrThrow("sync_outbox", null, values);
+
+            db.setTransactionSuccessful();
+            return true;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    public int getPendingCount() {
+        try (Cursor cursor = db().rawQuery("SELECT COUNT(*) FROM sync_outbox WHERE user_id = ?",
+                new String[] { userId })) {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        }
+    }
+
+    @Override
+    public String getWatermark(String table) {
+        try (Cursor cursor = db().query("sync_state", new String[] { "watermark" },
+                "user_id = ? AND table_name = ?", new String[] { userId, table }, null, null, null)) {
+            return cursor.moveToFirst() ? cursor.getString(0) : null;
+        }
+    }
+
+    @Override
+    public void applyRows(String table, JSONArray rows, String newWatermark) {
+        LocalStore.Table localTable = LocalStore.Table.fromName(table);
+        SQLiteDatabase db = db();
+        db.beginTransaction();
+        try {
+            if (localTable != null) {
+                LocalStore.insertRows(db, localTable, rows);
+            }
+            setWatermark(db, table, newWatermark);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    @Override
+    public void applyDeletes(Map<String, List<String>> idsByTable, String newWatermark) {
+        SQLiteDatabase db = db();
+        db.beginTransaction();
+        try {
+            for (Map.Entry<String, List<String>> entry : idsByTable.entrySet()) {
+                LocalStore.Table localTable = LocalStore.Table.fromName(entry.getKey());
+                if (localTable == null) continue;
+                for (String id : entry.getValue()) {
+                    db.delete(localTable.localName, "id = ?", new String[] { id });
+                }
+            }
+            setWatermark(db, SyncEngine.TOMBSTONE_TABLE, newWatermark);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    @Override
+    public List<SyncEngine.OutboxEntry> peekOutbox(int limit) {
+        List<SyncEngine.OutboxEntry> entries = new ArrayList<>();
+        try (Cursor cursor = db().query("sync_outbox",
+                new String[] { "id", "table_name", "op", "row_id", "client_request_id", "payload" },
+                "user_id = ?", new String[] { userId }, null, null, "id ASC", Integer.toString(limit))) {
+            while (cursor.moveToNext()) {
+                entries.add(new SyncEngine.OutboxEntry(cursor.getLong(0), cursor.getString(1),
+                    SyncEngine.Op.fromValue(cursor.getString(2)), cursor.getString(3), cursor.getString(4),
+                    cursor.getString(5)));
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public void removeOutbox(long id) {
+        db().delete("sync_outbox", "id = ?", new String[] { Long.toString(id) });
+    }
+
+    @Override
+    public void rejectOutbox(long id, String error) {
+        SQLiteDatabase db = db();
+        db.beginTransaction();
+        try {
+            // Keep a copy for diagnostics; the local optimistic row is corrected by the next pull
+            db.execSQL("INSERT OR REPLACE INTO sync_rejected (id, table_name, op, row_id, payload, error, rejected_at) "
+                    + "SELECT id, table_name, op, row_id, payload, ?, ? FROM sync_outbox WHERE id = ?",
+                new Object[] { error, System.currentTimeMillis(), id });
+            db.delete("sync_outbox", "id = ?", new String[] { Long.toString(id) });
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private boolean isQueued(SQLiteDatabase db, String clientRequestId) {
+        try (Cursor cursor = db.rawQuery("SELECT 1 FROM sync_outbox WHERE user_id = ? AND client_request_id = ?",
+                new String[] { userId, clientRequestId })) {
+            return cursor.moveToFirst();
+        }
+    }
+
+    private void setWatermark(SQLiteDatabase db, String table, String watermark) {
+        ContentValues values = new ContentValues(3);
+        values.put("user_id", userId);
+        values.put("table_name", table);
+        values.put("watermark", watermark);
+        db.insertWithOnConflict("sync_state", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    private SQLiteDatabase db() {
+        return localStore.getDatabase().getWritableDatabase();
+    }
+}
@@ -6,7 +6,6 @@ import android.view.WindowManager;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.content.pm.Signature;
-import android.webkit.WebView;
 import androidx.core.view.WindowCompat;
 import com.getcapacitor.BridgeActivity;
 import com.facebook.FacebookSdk;
@@ -16,20 +15,34 @@ import android.util.Base64;
 
 public class MainActivity extends BridgeActivity {
     private static final String TAG = "TrackTSW_Meta";
-    private AppEventsLogger metaLogger;
     
     @Override
     protected void onCreate(Bundle savedInstanceState) {
-        super.onCreate(savedInstanceState);
-        
-        // Register custom plugins
+        // Register custom plugins before super.onCreate, which builds the bridge and loads
+        // the plugins registered by then
         registerPlugin(InAppReviewPlugin.class);
         registerPlugin(ReminderPlugin.class);
+        registerPlugin(FlareStatePlugin.class);
+        registerPlugin(PhotoProcessorPlugin.class);
+        registerPlugin(ExifPlugin.class);
+        registerPlugin(UploadQueuePlugin.class);
+        registerPlugin(ThumbnailCachePlugin.class);
+        registerPlugin(LocalStorePlugin.class);
+        registerPlugin(SyncPlugin.class);
+        registerPlugin(MetaAnalyticsPlugin.class);
+        
+        super.onCreate(savedInstanceState);
+        
+        // Serve photos-bucket images from the native cache once it is open; opening
+        // scans the cache directory, so it happens off the main thread
+        ThumbnailCache.openAsync(this);
+        getBridge().setWebViewClient(new AtlasWebViewClient(getBridge()));
         
         // Initialize Meta SDK for Facebook Ads Attribution
         FacebookSdk.sdkInitialize(getApplicationContext());
         AppEventsLogger.activateApp(getApplication());
-        metaLogger = AppEventsLogger.newLogger(this);
+        // Process-wide sink, so not tied to this activity
+        MetaAnalyticsPlugin.markReady(this, AppEventsLogger.newLogger(getApplicationContext()));
         
         // Debug: Log SDK initialization status
         Log.d(TAG, "=== META SDK DEBUG ===");
@@ -53,19 +66,6 @@ public class MainActivity extends BridgeActivity {
         // No need to manually apply padding - this was causing the gap
     }
     
-    @Override
-    public void onStart() {
-        super.onStart();
-        
-        // Add JavaScript interface for Meta Analytics after bridge is ready
-        getBridge().getWebView().post(() -> {
-            WebView webView = getBridge().getWebView();
-            MetaAnalyticsPlugin metaPlugin = new MetaAnalyticsPlugin(metaLogger);
-            webView.addJavascriptInterface(metaPlugin, "MetaAnalytics");
-            Log.d(TAG, "=== Meta Analytics JS bridge installed ===");
-        });
-    }
-    
     private void printKeyHash() {
         try {
             PackageInfo info = getPackageManager().getPackageInfo(
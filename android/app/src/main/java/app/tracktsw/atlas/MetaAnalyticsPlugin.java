@@ -1,91 +1,497 @@
 package app.tracktsw.atlas;
 
-import android.os.Bundle;
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.util.JsonReader;
+import android.util.JsonToken;
 import android.util.Log;
-import android.webkit.JavascriptInterface;
 
-import com.facebook.appevents.AppEventsConstants;
 import com.facebook.appevents.AppEventsLogger;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
 
-import org.json.JSONException;
-import org.json.JSONObject;
+import app.tracktsw.atlas.core.AnalyticsEvent;
+import app.tracktsw.atlas.core.AnalyticsQueue;
+import app.tracktsw.atlas.core.EventDispatcher;
+import app.tracktsw.atlas.core.EventJournal;
+import app.tracktsw.atlas.core.RollingFileEventSink;
 
-import java.util.Iterator;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * JavaScript bridge for Meta (Facebook) App Events.
- * Receives events from Capacitor webview and logs them via Facebook SDK.
+ * Capacitor plugin for Meta (Facebook) App Events.
+ * Receives events from the webview and logs them via Facebook SDK.
+ *
+ * Registered in MainActivity.onCreate before the bridge is built, so it exists before the
+ * page loads. logEvent and logEvents take their payload as a JSON string, which JS
+ * serializes, and only enqueue it untouched. A single background thread
+ * parses it with a streaming JsonReader and hands the events to an EventDispatcher in
+ * batches: MetaEventSink, plus a rolling file of the events in debuggable builds. A
+ * logEvents array takes one queue slot per event and is capped at MAX_EVENTS_PER_CALL;
+ * bursts beyond QUEUE_CAPACITY events are dropped and counted rather than stalling the
+ * bridge.
+ *
+ * Each drained batch is appended to an EventJournal in app storage with a single fsync
+ * before it is dispatched, and acknowledged once dispatched, so events survive process
+ * death. Until MainActivity calls markReady after initializing FacebookSdk, events stay
+ * in the journal (or in memory if it can't be written) and are forwarded then.
  */
-public class MetaAnalyticsPlugin {
+@CapacitorPlugin(name = "MetaAnalytics")
+public class MetaAnalyticsPlugin extends Plugin {
     private static final String TAG = "MetaAnalytics";
-    private final AppEventsLogger logger;
+    private static final int QUEUE_CAPACITY = 512;
+    private static final int BATCH_SIZE = 64;
+    // Larger logEvents arrays are rejected; metaAnalytics.ts sends at most this many
+    private static final int MAX_EVENTS_PER_CALL = 64;
 
-    public MetaAnalyticsPlugin(AppEventsLogger logger) {
-        this.logger = logger;
+    /**
+     * One bridge call as received: a single event, or a JSON array of count events
+     * (eventsJson). Parsed on the consumer thread.
+     */
+    private static final class PendingEvent {
+        final String eventName;
+        final String parametersJson;
+        final String eventsJson;
+        final int count;
+        final long enqueuedAt;
+
+        PendingEvent(String eventName, String parametersJson, String eventsJson, int count, long enqueuedAt) {
+            this.eventName = eventName;
+            this.parametersJson = parametersJson;
+            this.eventsJson = eventsJson;
+            this.count = count;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    // Process-wide: the plugin instance goes with the bridge, the backlog doesn't
+    private static final AnalyticsQueue<PendingEvent> queue = new AnalyticsQueue<>(QUEUE_CAPACITY);
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private static final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    private static final String JOURNAL_FILE = "analytics-journal.bin";
+    // About a thousand batches; past that the SDK has been unavailable for too long to matter
+    private static final long JOURNAL_MAX_BYTES = 1024 * 1024;
+    private static final byte KIND_SINGLE = 0;
+    private static final byte KIND_BATCH = 1;
+    // Opened on the consumer thread
+    private static EventJournal sharedJournal;
+    private static boolean journalFailed;
+    private static volatile long journalPendingBytes;
+
+    private static final String EVENT_LOG_FILE = "analytics/events.log";
+    private static final long EVENT_LOG_MAX_BYTES = 256 * 1024;
+    private static final int EVENT_LOG_FILES = 3;
+    // Every parsed event goes through here; sinks are installed once per process
+    private static final EventDispatcher dispatcher = new EventDispatcher();
+    private static boolean sinksInstalled;
+
+    // Set by markReady once the SDK is initialized and the sinks are installed
+    private static volatile boolean ready;
+    private static volatile Context appContext;
+    // Calls that couldn't be journaled while not ready; consumer thread only
+    private static final List<PendingEvent> preReady = new ArrayList<>();
+    private static int preReadyEvents;
+
+    @Override
+    public void load() {
+        appContext = getContext().getApplicationContext();
+    }
+
+    /**
+     * Called once FacebookSdk is initialized: installs the sinks (once per process) and
+     * forwards everything logged before, from this process or journaled by an earlier one.
+     */
+    public static void markReady(Context context, AppEventsLogger logger) {
+        appContext = context.getApplicationContext();
+        installSinks(appContext, logger);
+        ready = true;
+        executor.execute(MetaAnalyticsPlugin::flushPreReady);
+    }
+
+    private static synchronized void installSinks(Context context, AppEventsLogger logger) {
+        if (sinksInstalled) {
+            return;
+        }
+        dispatcher.addSink(new MetaEventSink(logger));
+        if ((context.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            // A local copy of what was sent, for checking events without Meta's dashboard
+            dispatcher.addSink(new RollingFileEventSink(new File(context.getFilesDir(), EVENT_LOG_FILE),
+                EVENT_LOG_MAX_BYTES, EVENT_LOG_FILES, Clock.systemUTC()));
+        }
+        sinksInstalled = true;
+    }
+
+    /** Where parsed events go, for native code that wants to add a sink. */
+    public static EventDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * Log one event: { eventName, parameters? } with parameters a JSON object string.
+     */
+    @PluginMethod
+    public void logEvent(PluginCall call) {
+        String eventName = call.getString("eventName");
+        if (eventName == null || eventName.isEmpty()) {
+            call.reject("eventName is required");
+            return;
+        }
+        enqueue(new PendingEvent(eventName, call.getString("parameters"), null, 1, System.nanoTime()));
+        call.resolve();
+    }
+
+    /**
+     * Log up to MAX_EVENTS_PER_CALL events with one bridge call: { events, count }, with
+     * events the JSON string of [{ eventName, parameters? }, ...] and count its length.
+     * count only sizes the queue slot; the array isn't parsed here.
+     */
+    @PluginMethod
+    public void logEvents(PluginCall call) {
+        String events = call.getString("events");
+        Integer count = call.getInt("count");
+        if (events == null || count == null || count < 0) {
+            call.reject("events and count are required");
+            return;
+        }
+        if (count > MAX_EVENTS_PER_CALL) {
+            call.reject("At most " + MAX_EVENTS_PER_CALL + " events per call");
+            return;
+        }
+        if (count > 0) {
+            enqueue(new PendingEvent(null, null, events, count, System.nanoTime()));
+        }
+        call.resolve();
+    }
+
+    /**
+     * Queue depth and drops, counted in events, and how long logEvent or logEvents calls
+     * waited before reaching the sinks:
+     * { depth, capacity, enqueued, dropped, delivered, p50LatencyUs, p95LatencyUs, maxLatencyUs,
+     * journalBytes, sinkFailures, ready }; journalBytes is what the journal holds for the
+     * SDK, and sinkFailures counts events or flushes an EventSink threw on.
+     */
+    @PluginMethod
+    public void getStats(PluginCall call) {
+        AnalyticsQueue.Stats stats = queue.getStats();
+        JSObject result = new JSObject();
+        result.put("depth", stats.depth);
+        result.put("capacity", stats.capacity);
+        result.put("enqueued", stats.enqueued);
+        result.put("dropped", stats.dropped);
+        result.put("delivered", stats.delivered);
+        result.put("p50LatencyUs", stats.p50LatencyUs);
+        result.put("p95LatencyUs", stats.p95LatencyUs);
+        result.put("maxLatencyUs", stats.maxLatencyUs);
+        result.put("journalBytes", journalPendingBytes);
+        result.put("sinkFailures", dispatcher.getFailures());
+        result.put("ready", ready);
+        call.resolve(result);
+    }
+
+    private static void enqueue(PendingEvent entry) {
+        if (!queue.offer(entry, entry.count)) {
+            Log.w(TAG, "Analytics queue full, dropped " + (entry.eventName != null ? "event: " + entry.eventName : entry.count + " events"));
+            return;
+        }
+        // One pending drain at a time; it picks up everything offered before it runs
+        if (drainScheduled.compareAndSet(false, true)) {
+            executor.execute(MetaAnalyticsPlugin::drain);
+        }
+    }
+
+    private static void drain() {
+        drainScheduled.set(false);
+        EventJournal journal = getJournal();
+        List<PendingEvent> batch = new ArrayList<>(BATCH_SIZE);
+        boolean[] journaled = new boolean[BATCH_SIZE];
+        while (queue.drainTo(batch, BATCH_SIZE) > 0) {
+            boolean backlog = journal != null && journal.hasPending();
+            if (journal != null) {
+                try {
+                    for (int i = 0; i < batch.size(); i++) {
+                        journaled[i] = journal.append(encode(batch.get(i)));
+                    }
+                    // One fsync for the whole batch
+                    journal.sync();
+                    journalPendingBytes = journal.pendingBytes();
+                } catch (IOException e) {
+                    Log.e(TAG, "Failed to journal events: " + e.getMessage());
+                    Arrays.fill(journaled, false);
+                }
+            }
+
+            boolean isReady = ready;
+            if (isReady && backlog) {
+                // Older events first
+                replayJournal();
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                if (isReady && (!backlog || !journaled[i])) {
+                    logSafely(batch.get(i));
+                } else if (!journaled[i]) {
+                    // Journaled events wait in the journal; the rest in memory
+                    PendingEvent entry = batch.get(i);
+                    if (preReadyEvents + entry.count <= QUEUE_CAPACITY) {
+                        preReady.add(entry);
+                        preReadyEvents += entry.count;
+                    } else {
+                        Log.w(TAG, "Too many events before the SDK was ready, dropping " + entry.count);
+                    }
+                }
+            }
+            if (isReady && !backlog && journal != null) {
+                acknowledge(journal, journal.endOffset());
+            }
+
+            long now = System.nanoTime();
+            for (PendingEvent entry : batch) {
+                queue.complete(entry.count, now - entry.enqueuedAt);
+            }
+            dispatcher.flush();
+            batch.clear();
+            Arrays.fill(journaled, false);
+        }
+    }
+
+    /** Forward what was held back until markReady. Consumer thread only. */
+    private static void flushPreReady() {
+        replayJournal();
+        for (PendingEvent entry : preReady) {
+            logSafely(entry);
+        }
+        if (!preReady.isEmpty()) {
+            Log.d(TAG, "Logged " + preReadyEvents + " events held before the SDK was ready");
+            preReady.clear();
+            preReadyEvents = 0;
+            dispatcher.flush();
+        }
     }
 
     /**
-     * Maps JS event names to Facebook SDK standard event constants.
-     * Standard events are recognized by Meta for optimization and attribution.
+     * Forward the events left in the journal by an earlier process, or journaled before
+     * the SDK was initialized. Consumer thread only.
+     *
+     * @return the number of events logged
      */
-    private String mapToStandardEvent(String eventName) {
-        switch (eventName) {
-            case "StartTrial":
-                return AppEventsConstants.EVENT_NAME_START_TRIAL;
-            case "Subscribe":
-                return AppEventsConstants.EVENT_NAME_SUBSCRIBE;
-            case "CompletedRegistration":
-                return AppEventsConstants.EVENT_NAME_COMPLETED_REGISTRATION;
-            case "InitiatedCheckout":
-                return AppEventsConstants.EVENT_NAME_INITIATED_CHECKOUT;
-            case "Purchase":
-                return AppEventsConstants.EVENT_NAME_PURCHASED;
-            default:
-                return eventName; // Custom events
-        }
-    }
-
-    @JavascriptInterface
-    public void logEvent(String eventName, String parametersJson) {
-        String mappedEventName = mapToStandardEvent(eventName);
-        Log.d(TAG, "Logging event: " + eventName + " -> " + mappedEventName + " with params: " + parametersJson);
-        
+    private static int replayJournal() {
+        EventJournal journal = getJournal();
+        if (journal == null || !journal.hasPending() || !ready) {
+            return 0;
+        }
+        int[] logged = new int[1];
+        try {
+            long end = journal.replay(payload -> {
+                PendingEvent entry = decode(payload);
+                if (entry != null) {
+                    logged[0] += logSafely(entry);
+                }
+            });
+            dispatcher.flush();
+            acknowledge(journal, end);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to replay journal: " + e.getMessage());
+        }
+        if (logged[0] > 0) {
+            Log.d(TAG, "Replayed " + logged[0] + " journaled events");
+        }
+        return logged[0];
+    }
+
+    private static void acknowledge(EventJournal journal, long offset) {
         try {
-            Bundle params = new Bundle();
-            
-            if (parametersJson != null && !parametersJson.isEmpty() && !parametersJson.equals("{}")) {
-                JSONObject jsonParams = new JSONObject(parametersJson);
-                Iterator<String> keys = jsonParams.keys();
-                
-                while (keys.hasNext()) {
-                    String key = keys.next();
-                    Object value = jsonParams.get(key);
-                    
-                    if (value instanceof String) {
-                        params.putString(key, (String) value);
-                    } else if (value instanceof Integer) {
-                        params.putInt(key, (Integer) value);
-                    } else if (value instanceof Double) {
-                        params.putDouble(key, (Double) value);
-                    } else if (value instanceof Boolean) {
-                        params.putBoolean(key, (Boolean) value);
+            journal.acknowledge(offset);
+        } catch (IOException e) {
+            // Replayed again next time
+            Log.e(TAG, "Failed to acknowledge journal: " + e.getMessage());
+        }
+        journalPendingBytes = journal.pendingBytes();
+    }
+
+    private static int logSafely(PendingEvent entry) {
+        try {
+            return log(entry);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Failed to log events: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /** The process-wide journal, or null if it can't be opened (yet). Consumer thread only. */
+    private static EventJournal getJournal() {
+        Context context = appContext;
+        if (sharedJournal == null && !journalFailed && context != null) {
+            try {
+                sharedJournal = new EventJournal(new File(context.getFilesDir(), JOURNAL_FILE), JOURNAL_MAX_BYTES);
+                journalPendingBytes = sharedJournal.pendingBytes();
+            } catch (IOException e) {
+                Log.e(TAG, "Could not open analytics journal, logging without it: " + e.getMessage());
+                journalFailed = true;
+            }
+        }
+        return sharedJournal;
+    }
+
+    /** [byte kind][string eventName or eventsJson][string parametersJson], strings as [int length][UTF-8]. */
+    private static byte[] encode(PendingEvent entry) {
+        boolean isBatch = entry.eventsJson != null;
+        byte[] first = utf8(isBatch ? entry.eventsJson : entry.eventName);
+        byte[] second = utf8(isBatch ? null : entry.parametersJson);
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 8 + length(first) + length(second));
+        buffer.put(isBatch ? KIND_BATCH : KIND_SINGLE);
+        putString(buffer, first);
+        putString(buffer, second);
+        return buffer.array();
+    }
+
+    /** The entry, or null if the record can't be read (written by a newer version). */
+    private static PendingEvent decode(byte[] payload) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(payload);
+            byte kind = buffer.get();
+            String first = getString(buffer);
+            String second = getString(buffer);
+            if (kind == KIND_BATCH) {
+                // Replayed straight to the sinks, so the count isn't needed
+                return new PendingEvent(null, null, first, 1, System.nanoTime());
+            }
+            return kind == KIND_SINGLE && first != null ? new PendingEvent(first, second, null, 1, System.nanoTime()) : null;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            Log.w(TAG, "Skipping unreadable journal record");
+            return null;
+        }
+    }
+
+    private static byte[] utf8(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes != null ? bytes.length : 0;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        buffer.putInt(bytes != null ? bytes.length : -1);
+        if (bytes != null) {
+            buffer.put(bytes);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new IllegalArgumentException("String past the end of the record");
+        }
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    /** Dispatch a single event, or every event of a batch. Consumer thread only. */
+    private static int log(PendingEvent entry) {
+        if (entry.eventsJson == null) {
+            logOne(entry.eventName, entry.parametersJson);
+            return 1;
+        }
+
+        int logged = 0;
+        try (JsonReader reader = new JsonReader(new StringReader(entry.eventsJson))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                String eventName = null;
+                Map<String, Object> params = new LinkedHashMap<>();
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String key = reader.nextName();
+                    if (key.equals("eventName") && reader.peek() == JsonToken.STRING) {
+                        eventName = reader.nextString();
+                    } else if (key.equals("parameters") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                        readParameters(reader, params);
                     } else {
-                        params.putString(key, value.toString());
+                        reader.skipValue();
                     }
                 }
+                reader.endObject();
+                if (eventName != null) {
+                    dispatcher.dispatch(new AnalyticsEvent(eventName, params));
+                    logged++;
+                }
+            }
+            reader.endArray();
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            // The events before the malformed one were dispatched
+            Log.e(TAG, "Failed to parse events JSON after " + logged + " events: " + e.getMessage());
+        }
+        return logged;
+    }
+
+    private static void logOne(String eventName, String parametersJson) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        if (parametersJson != null && !parametersJson.isEmpty() && !parametersJson.equals("{}")) {
+            try (JsonReader reader = new JsonReader(new StringReader(parametersJson))) {
+                readParameters(reader, params);
+            } catch (IOException | IllegalStateException | NumberFormatException e) {
+                Log.e(TAG, "Failed to parse parameters JSON: " + e.getMessage());
+                // Still log the event without parameters
+                params.clear();
             }
-            
-            if (params.isEmpty()) {
-                logger.logEvent(mappedEventName);
-            } else {
-                logger.logEvent(mappedEventName, params);
+        }
+        dispatcher.dispatch(new AnalyticsEvent(eventName, params));
+    }
+
+    /**
+     * Read a flat JSON object of parameters. Whole numbers that fit an int are Integers,
+     * other numbers Doubles; nested objects and arrays are skipped.
+     */
+    private static void readParameters(JsonReader reader, Map<String, Object> params) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            switch (reader.peek()) {
+                case STRING:
+                    params.put(key, reader.nextString());
+                    break;
+                case NUMBER:
+                    String number = reader.nextString();
+                    try {
+                        params.put(key, Integer.parseInt(number));
+                    } catch (NumberFormatException e) {
+                        params.put(key, Double.parseDouble(number));
+                    }
+                    break;
+                case BOOLEAN:
+                    params.put(key, reader.nextBoolean());
+                    break;
+                case NULL:
+                    reader.nextNull();
+                    params.put(key, "null");
+                    break;
+                default:
+                    Log.w(TAG, "Skipping nested parameter: " + key);
+                    reader.skipValue();
+                    break;
             }
-            
-            Log.d(TAG, "Event logged successfully: " + mappedEventName);
-        } catch (JSONException e) {
-            Log.e(TAG, "Failed to parse parameters JSON: " + e.getMessage());
-            // Still log the event without parameters
-            logger.logEvent(mappedEventName);
         }
+        reader.endObject();
     }
 }
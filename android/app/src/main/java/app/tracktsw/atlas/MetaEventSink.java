@@ -0,0 +1,72 @@
+package app.tracktsw.atlas;
+
+import android.os.Bundle;
+
+import com.facebook.appevents.AppEventsConstants;
+import com.facebook.appevents.AppEventsLogger;
+
+import app.tracktsw.atlas.core.AnalyticsEvent;
+import app.tracktsw.atlas.core.EventSink;
+
+import java.util.Map;
+
+/**
+ * Sends analytics events to Meta (Facebook) App Events, mapping the names Meta knows
+ * as standard events. Analytics thread only: the parameter Bundle is reused.
+ */
+public class MetaEventSink implements EventSink {
+    private final AppEventsLogger logger;
+    private final Bundle params = new Bundle();
+
+    public MetaEventSink(AppEventsLogger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * Maps JS event names to Facebook SDK standard event constants.
+     * Standard events are recognized by Meta for optimization and attribution.
+     */
+    private static String mapToStandardEvent(String eventName) {
+        switch (eventName) {
+            case "StartTrial":
+                return AppEventsConstants.EVENT_NAME_START_TRIAL;
+            case "Subscribe":
+                return AppEventsConstants.EVENT_NAME_SUBSCRIBE;
+            case "CompletedRegistration":
+                return AppEventsConstants.EVENT_NAME_COMPLETED_REGISTRATION;
+            case "InitiatedCheckout":
+                return AppEventsConstants.EVENT_NAME_INITIATED_CHECKOUT;
+            case "Purchase":
+                return AppEventsConstants.EVENT_NAME_PURCHASED;
+            default:
+                return eventName; // Custom events
+        }
+    }
+
+    @Override
+    public void accept(AnalyticsEvent event) {
+        String mappedEventName = mapToStandardEvent(event.name);
+        if (event.parameters.isEmpty()) {
+            logger.logEvent(mappedEventName);
+            return;
+        }
+
+        params.clear();
+        for (Map.Entry<String, Object> parameter : event.parameters.entrySet()) {
+            String key = parameter.getKey();
+            Object value = parameter.getValue();
+            if (value instanceof Integer) {
+                params.putInt(key, (Integer) value);
+            } else if (value instanceof Double) {
+                params.putDouble(key, (Double) value);
+            } else if (value instanceof Boolean) {
+                params.putBoolean(key, (Boolean) value);
+            } else {
+                params.putString(key, String.valueOf(value));
+            }
+        }
+        // The SDK copies the parameters into its own event before returning, so the
+        // bundle can be reused for the next event
+        logger.logEvent(mappedEventName, params);
+    }
+}
@@ -0,0 +1,188 @@
+package app.tracktsw.atlas;
+
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+import android.util.Log;
+
+import androidx.core.app.NotificationCompat;
+import androidx.core.content.ContextCompat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Everything the reminder notifications need that doesn't change between fires: the
+ * notification channels, the small icon resource and the large app icon.
+ *
+ * The channels are created once per app version. The icon resource ids and the large
+ * icon, already scaled to the notification size, are cached on disk under the same
+ * version (resource ids can change between builds) and in memory after the first use,
+ * so a fire doesn't go through getIdentifier or decode the launcher icon.
+ * Call from a background thread.
+ */
+public final class NotificationAssets {
+    private static final String TAG = "NotificationAssets";
+    private static final String PREFS_NAME = "tsw_notification_assets";
+    private static final String KEY_VERSION = "version";
+    private static final String KEY_SMALL_ICON = "small_icon";
+    private static final String KEY_LARGE_ICON = "large_icon";
+    private static final String LARGE_ICON_FILE = "notification-large-icon.png";
+
+    private static final Object lock = new Object();
+    private static volatile boolean prepared;
+    private static int smallIcon;
+    private static int largeIconRes;
+    private static Bitmap largeIcon;
+
+    private NotificationAssets() {}
+
+    /** The small icon resource - mipmap foreground for the TrackTSW logo. */
+    public static int getSmallIcon(Context context) {
+        prepare(context);
+        return smallIcon;
+    }
+
+    /** The app icon at notification large-icon size, or null if it can't be drawn. */
+    public static Bitmap getLargeIcon(Context context) {
+        prepare(context);
+        synchronized (lock) {
+            if (largeIcon == null && largeIconRes != 0) {
+                largeIcon = loadLargeIcon(context, largeIconRes);
+            }
+            return largeIcon;
+        }
+    }
+
+    /**
+     * Create the channels and resolve the icons if this app version hasn't yet.
+     */
+    public static void prepare(Context context) {
+        if (prepared) {
+            return;
+        }
+        synchronized (lock) {
+            if (prepared) {
+                return;
+            }
+            Context appContext = context.getApplicationContext();
+            SharedPreferences prefs = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            long version = getVersionCode(appContext);
+
+            if (prefs.getLong(KEY_VERSION, -1) == version && prefs.getInt(KEY_SMALL_ICON, 0) != 0) {
+                smallIcon = prefs.getInt(KEY_SMALL_ICON, 0);
+                largeIconRes = prefs.getInt(KEY_LARGE_ICON, 0);
+            } else {
+                createNotificationChannels(appContext);
+                smallIcon = resolveSmallIcon(appContext);
+                largeIconRes = appContext.getResources().getIdentifier("ic_launcher", "mipmap", appContext.getPackageName());
+                // Drop the icon drawn by the previous version
+                new File(appContext.getCacheDir(), LARGE_ICON_FILE).delete();
+                prefs.edit()
+                    .putLong(KEY_VERSION, version)
+                    .putInt(KEY_SMALL_ICON, smallIcon)
+                    .putInt(KEY_LARGE_ICON, largeIconRes)
+                    .apply();
+                Log.d(TAG, "Notification assets prepared for version " + version);
+            }
+            prepared = true;
+        }
+    }
+
+    private static void createNotificationChannels(Context context) {
+        NotificationManager manager = context.getSystemService(NotificationManager.class);
+        if (manager == null) {
+            return;
+        }
+
+        NotificationChannel channel = new NotificationChannel(
+            ReminderAlarmReceiver.CHANNEL_ID,
+            ReminderAlarmReceiver.CHANNEL_NAME,
+            NotificationManager.IMPORTANCE_HIGH // Enables heads-up display
+        );
+        channel.setDescription("Daily check-in reminder notifications");
+        channel.enableVibration(true);
+        channel.enableLights(true);
+        channel.setLightColor(0xFF6B8E7A);
+        channel.setShowBadge(true);
+        channel.setBypassDnd(false);
+        channel.setLockscreenVisibility(NotificationCompat.VISIBILITY_PUBLIC);
+        manager.createNotificationChannel(channel);
+
+        // Not urgent: sound but no heads-up or vibration
+        NotificationChannel beliefChannel = new NotificationChannel(
+            ReminderAlarmReceiver.BELIEF_CHANNEL_ID,
+            ReminderAlarmReceiver.BELIEF_CHANNEL_NAME,
+            NotificationManager.IMPORTANCE_DEFAULT
+        );
+        beliefChannel.setDescription("Daily educational insights about tracking patterns");
+        beliefChannel.enableVibration(false);
+        beliefChannel.enableLights(true);
+        beliefChannel.setLightColor(0xFF6B8E7A);
+        beliefChannel.setLockscreenVisibility(NotificationCompat.VISIBILITY_PUBLIC);
+        manager.createNotificationChannel(beliefChannel);
+
+        Log.d(TAG, "Notification channels created");
+    }
+
+    private static int resolveSmallIcon(Context context) {
+        int smallIconRes = context.getResources().getIdentifier("ic_launcher_foreground", "mipmap", context.getPackageName());
+        if (smallIconRes == 0) {
+            smallIconRes = context.getResources().getIdentifier("ic_launcher", "mipmap", context.getPackageName());
+        }
+        if (smallIconRes == 0) {
+            smallIconRes = android.R.drawable.ic_popup_reminder;
+        }
+        return smallIconRes;
+    }
+
+    private static Bitmap loadLargeIcon(Context context, int res) {
+        File file = new File(context.getCacheDir(), LARGE_ICON_FILE);
+        if (file.exists()) {
+            Bitmap cached = BitmapFactory.decodeFile(file.getPath());
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        try {
+            // ic_launcher is an adaptive icon, so draw it rather than decode it
+            Drawable drawable = ContextCompat.getDrawable(context, res);
+            if (drawable == null) {
+                return null;
+            }
+            Resources resources = context.getResources();
+            int width = resources.getDimensionPixelSize(android.R.dimen.notification_large_icon_width);
+            int height = resources.getDimensionPixelSize(android.R.dimen.notification_large_icon_height);
+            Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            drawable.setBounds(0, 0, width, height);
+            drawable.draw(new Canvas(bitmap));
+
+            try (FileOutputStream out = new FileOutputStream(file)) {
+                bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+            } catch (IOException e) {
+                Log.w(TAG, "Could not cache large icon: " + e.getMessage());
+            }
+            return bitmap;
+        } catch (Resources.NotFoundException e) {
+            Log.w(TAG, "Could not load large icon: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static long getVersionCode(Context context) {
+        try {
+            return context.getPackageManager().getPackageInfo(context.getPackageName(), 0).getLongVersionCode();
+        } catch (PackageManager.NameNotFoundException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package app.tracktsw.atlas;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.ImageDecoder;
+import android.net.Uri;
+import android.util.Log;
+import android.util.Size;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Generates the three stored versions of a photo from a file:// or content:// URI,
+ * matching processImageForUpload in src/utils/imageCompression.ts:
+ * - thumb.webp:    400px width, WebP quality 75 for grid views
+ * - medium.webp:   1400px width, WebP quality 80 for fullscreen/compare
+ * - original.jpg:  JPEG for backup/export
+ *
+ * The source is decoded exactly once. JPEG sources are decoded straight to the medium
+ * size and their original bytes are copied as-is; other formats (PNG, WebP, HEIC) are
+ * decoded once at capped full size and re-encoded to JPEG for the original.
+ *
+ * HEIC/HEIF is decoded by ImageDecoder using the platform (hardware) HEVC decoder,
+ * which is always available at minSdk 33, replacing the WASM heic2any converter.
+ *
+ * Files are written to cacheDir/photo-derivatives/{photoId}/. Not thread-safe per photoId.
+ */
+public class PhotoDerivativeWriter {
+    private static final String TAG = "PhotoDerivativeWriter";
+    private static final String CACHE_DIR = "photo-derivatives";
+
+    static final int THUMB_WIDTH = 400;
+    static final int THUMB_QUALITY = 75;
+    static final int MEDIUM_WIDTH = 1400;
+    static final int MEDIUM_QUALITY = 80;
+    static final int ORIGINAL_QUALITY = 92;
+    // Same quality convertHeicToJpeg uses on the web build
+    static final int HEIF_ORIGINAL_QUALITY = 85;
+    // Cap re-encoded originals so a 200MP panorama can't exhaust native memory
+    static final int ORIGINAL_MAX_EDGE = 4096;
+
+    public static final class Result {
+        public final String photoId;
+        public final File thumbFile;
+        public final File mediumFile;
+        public final File originalFile;
+        public final int width;
+        public final int height;
+        public final SourceFormat sourceFormat;
+
+        Result(String photoId, File thumbFile, File mediumFile, File originalFile,
+               int width, int height, SourceFormat sourceFormat) {
+            this.photoId = photoId;
+            this.thumbFile = thumbFile;
+            this.mediumFile = mediumFile;
+            this.originalFile = originalFile;
+            this.width = width;
+            this.height = height;
+            this.sourceFormat = sourceFormat;
+        }
+    }
+
+    public enum SourceFormat {
+        JPEG("jpeg"),
+        HEIF("heif"),
+        OTHER("other");
+
+        public final String value;
+
+        SourceFormat(String value) {
+            this.value = value;
+        }
+    }
+
+    // ISO-BMFF major brands used by HEIC/HEIF stills and sequences
+    private static final String[] HEIF_BRANDS = { "heic", "heix", "heim", "heis", "hevc", "hevx", "mif1", "msf1" };
+
+    private final Context context;
+
+    public PhotoDerivativeWriter(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    public static File getPhotoDir(Context context, String photoId) {
+        return new File(new File(context.getCacheDir(), CACHE_DIR), photoId);
+    }
+
+    /**
+     * Decode the source once and write thumb/medium/original for the given photo.
+     */
+    public Result write(Uri source, String photoId) throws IOException {
+        File dir = getPhotoDir(context, photoId);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create " + dir);
+        }
+        File thumbFile = new File(dir, "thumb.webp");
+        File mediumFile = new File(dir, "medium.webp");
+        File originalFile = new File(dir, "original.jpg");
+
+        SourceFormat format = sniffFormat(source);
+        boolean isJpeg = format == SourceFormat.JPEG;
+        int[] sourceSize = new int[2];
+
+        // JPEG: decode straight at medium size, original bytes are kept.
+        // Others: decode at (capped) full size once, everything is derived from it.
+        Bitmap decoded = ImageDecoder.decodeBitmap(createSource(source), (decoder, info, src) -> {
+            Size size = info.getSize();
+            sourceSize[0] = size.getWidth();
+            sourceSize[1] = size.getHeight();
+            decoder.setAllocator(ImageDecoder.ALLOCATOR_SOFTWARE);
+            int[] target = isJpeg
+                ? scaleToWidth(size.getWidth(), size.getHeight(), MEDIUM_WIDTH)
+                : scaleToMaxEdge(size.getWidth(), size.getHeight(), ORIGINAL_MAX_EDGE);
+            if (target[0] != size.getWidth()) {
+                decoder.setTargetSize(target[0], target[1]);
+            }
+        });
+
+        Bitmap medium = null;
+        Bitmap thumb = null;
+        try {
+            if (isJpeg) {
+                medium = decoded;
+                copy(source, originalFile);
+            } else {
+                int quality = format == SourceFormat.HEIF ? HEIF_ORIGINAL_QUALITY : ORIGINAL_QUALITY;
+                compress(decoded, Bitmap.CompressFormat.JPEG, quality, originalFile);
+                medium = scaledCopy(decoded, MEDIUM_WIDTH);
+            }
+            compress(medium, Bitmap.CompressFormat.WEBP_LOSSY, MEDIUM_QUALITY, mediumFile);
+
+            thumb = scaledCopy(medium, THUMB_WIDTH);
+            compress(thumb, Bitmap.CompressFormat.WEBP_LOSSY, THUMB_QUALITY, thumbFile);
+        } finally {
+            recycle(thumb, medium, decoded);
+        }
+
+        Log.d(TAG, "Derivatives written for " + photoId + " (" + sourceSize[0] + "x" + sourceSize[1]
+            + ", " + format.value + ")");
+        return new Result(photoId, thumbFile, mediumFile, originalFile, sourceSize[0], sourceSize[1], format);
+    }
+
+    /**
+     * Delete all derivatives for a photo once they are uploaded or abandoned.
+     */
+    public static void delete(Context context, String photoId) {
+        File dir = getPhotoDir(context, photoId);
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+            }
+        }
+        //noinspection ResultOfMethodCallIgnored
+        dir.delete();
+    }
+
+    ImageDecoder.Source createSource(Uri uri) {
+        if (ContentResolver.SCHEME_FILE.equals(uri.getScheme()) || uri.getScheme() == null) {
+            return ImageDecoder.createSource(new File(uri.getPath()));
+        }
+        return ImageDecoder.createSource(context.getContentResolver(), uri);
+    }
+
+    InputStream openInputStream(Uri uri) throws IOException {
+        if (ContentResolver.SCHEME_FILE.equals(uri.getScheme()) || uri.getScheme() == null) {
+            return new FileInputStream(uri.getPath());
+        }
+        InputStream in = context.getContentResolver().openInputStream(uri);
+        if (in == null) {
+            throw new IOException("Could not open " + uri);
+        }
+        return in;
+    }
+
+    /**
+     * Sniff the file header rather than trusting the extension or MIME type
+     * (pickers often report HEIC as image/jpeg or with an empty type).
+     */
+    SourceFormat sniffFormat(Uri uri) throws IOException {
+        byte[] header = new byte[12];
+        int length = 0;
+        try (InputStream in = openInputStream(uri)) {
+            int read;
+            while (length < header.length && (read = in.read(header, length, header.length - length)) != -1) {
+                length += read;
+            }
+        }
+
+        if (length >= 3 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xFF) == 0xD8 && (header[2] & 0xFF) == 0xFF) {
+            return SourceFormat.JPEG;
+        }
+        // ....ftypheic
+        if (length == 12 && header[4] == 'f' && header[5] == 't' && header[6] == 'y' && header[7] == 'p') {
+            String brand = new String(header, 8, 4, StandardCharsets.US_ASCII);
+            for (String heifBrand : HEIF_BRANDS) {
+                if (heifBrand.equals(brand)) {
+                    return SourceFormat.HEIF;
+                }
+            }
+        }
+        return SourceFormat.OTHER;
+    }
+
+    private void copy(Uri source, File target) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = openInputStream(source);
+             OutputStream out = new FileOutputStream(target)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    private static void compress(Bitmap bitmap, Bitmap.CompressFormat format, int quality, File target)
+            throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(target), 64 * 1024)) {
+            if (!bitmap.compress(format, quality, out)) {
+                throw new IOException("Failed to encode " + target.getName());
+            }
+        }
+    }
+
+    /**
+     * Scale down to maxWidth (aspect preserved); returns the same bitmap if already narrower.
+     */
+    private static Bitmap scaledCopy(Bitmap source, int maxWidth) {
+        int[] target = scaleToWidth(source.getWidth(), source.getHeight(), maxWidth);
+        if (target[0] == source.getWidth()) {
+            return source;
+        }
+        return Bitmap.createScaledBitmap(source, target[0], target[1], true);
+    }
+
+    private static int[] scaleToWidth(int width, int height, int maxWidth) {
+        if (width <= maxWidth) {
+            return new int[] { width, height };
+        }
+        return new int[] { maxWidth, Math.max(1, Math.round((float) height * maxWidth / width)) };
+    }
+
+    private static int[] scaleToMaxEdge(int width, int height, int maxEdge) {
+        int longest = Math.max(width, height);
+        if (longest <= maxEdge) {
+            return new int[] { width, height };
+        }
+        float scale = (float) maxEdge / longest;
+        return new int[] { Math.max(1, Math.round(width * scale)), Math.max(1, Math.round(height * scale)) };
+    }
+
+    private static void recycle(Bitmap... bitmaps) {
+        // Derived bitmaps may be the same instance as their source
+        for (Bitmap bitmap : bitmaps) {
+            if (bitmap != null && !bitmap.isRecycled()) {
+                bitmap.recycle();
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package app.tracktsw.atlas;
+
+import android.app.Activity;
+import android.content.ClipData;
+import android.content.Intent;
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.MediaStore;
+import android.provider.OpenableColumns;
+import android.util.Log;
+
+import androidx.activity.result.ActivityResult;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.ActivityCallback;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+/**
+ * Capacitor plugin that generates photo derivatives natively.
+ * Takes a file:// or content:// URI and returns file paths only, so no image bytes
+ * (base64 data URLs) cross the WebView bridge.
+ *
+ * pickImages opens the system photo picker and returns content:// URIs, so HEIC
+ * photos never have to be read into the WebView as File objects.
+ */
+@CapacitorPlugin(name = "PhotoProcessor")
+public class PhotoProcessorPlugin extends Plugin {
+    private static final String TAG = "PhotoProcessorPlugin";
+    // photoId becomes a directory name, so only allow UUID-like ids
+    private static final Pattern PHOTO_ID_PATTERN = Pattern.compile("[A-Za-z0-9-]{1,64}");
+
+    // Decoding is memory-bound; two concurrent decodes keep low-end devices safe
+    private static final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    private PhotoDerivativeWriter writer;
+
+    @Override
+    public void load() {
+        writer = new PhotoDerivativeWriter(getContext());
+    }
+
+    @PluginMethod
+    public void process(PluginCall call) {
+        String uri = call.getString("uri");
+        if (uri == null || uri.isEmpty()) {
+            call.reject("uri is required");
+            return;
+        }
+        String photoId = call.getString("photoId", UUID.randomUUID().toString());
+        if (!PHOTO_ID_PATTERN.matcher(photoId).matches()) {
+            call.reject("Invalid photoId");
+            return;
+        }
+
+        executor.execute(() -> {
+            long start = System.currentTimeMillis();
+            try {
+                PhotoDerivativeWriter.Result result = writer.write(Uri.parse(uri), photoId);
+
+                JSObject ret = new JSObject();
+                ret.put("photoId", result.photoId);
+                ret.put("thumbPath", result.thumbFile.getAbsolutePath());
+                ret.put("mediumPath", result.mediumFile.getAbsolutePath());
+                ret.put("originalPath", result.originalFile.getAbsolutePath());
+                ret.put("width", result.width);
+                ret.put("height", result.height);
+                ret.put("sourceFormat", result.sourceFormat.value);
+                call.resolve(ret);
+                Log.d(TAG, "Processed " + photoId + " in " + (System.currentTimeMillis() - start) + "ms");
+            } catch (Exception e) {
+                Log.e(TAG, "Error processing photo: " + e.getMessage());
+                PhotoDerivativeWriter.delete(getContext(), photoId);
+                call.reject("Failed to process photo", e);
+            }
+        });
+    }
+
+    @PluginMethod
+    public void release(PluginCall call) {
+        String photoId = call.getString("photoId");
+        if (photoId == null || !PHOTO_ID_PATTERN.matcher(photoId).matches()) {
+            call.reject("A valid photoId is required");
+            return;
+        }
+
+        executor.execute(() -> {
+            PhotoDerivativeWriter.delete(getContext(), photoId);
+            call.resolve();
+        });
+    }
+
+    @PluginMethod
+    public void pickImages(PluginCall call) {
+        int limit = call.getInt("limit", 20);
+        Intent intent = new Intent(MediaStore.ACTION_PICK_IMAGES);
+        intent.setType("image/*");
+        if (limit > 1) {
+            intent.putExtra(MediaStore.EXTRA_PICK_IMAGES_MAX, Math.min(limit, MediaStore.getPickImagesMaxLimit()));
+        }
+        startActivityForResult(call, intent, "pickImagesResult");
+    }
+
+    @ActivityCallback
+    private void pickImagesResult(PluginCall call, ActivityResult result) {
+        if (call == null) {
+            return;
+        }
+
+        JSArray images = new JSArray();
+        Intent data = result.getData();
+        if (result.getResultCode() == Activity.RESULT_OK && data != null) {
+            ClipData clipData = data.getClipData();
+            if (clipData != null) {
+                for (int i = 0; i < clipData.getItemCount(); i++) {
+                    images.put(describe(clipData.getItemAt(i).getUri()));
+                }
+            } else if (data.getData() != null) {
+                images.put(describe(data.getData()));
+            }
+        }
+
+        JSObject ret = new JSObject();
+        ret.put("images", images);
+        call.resolve(ret);
+    }
+
+    private JSObject describe(Uri uri) {
+        JSObject image = new JSObject();
+        image.put("uri", uri.toString());
+        image.put("mimeType", getContext().getContentResolver().getType(uri));
+
+        String[] projection = { OpenableColumns.DISPLAY_NAME, OpenableColumns.SIZE };
+        try (Cursor cursor = getContext().getContentResolver().query(uri, projection, null, null, null)) {
+            if (cursor != null && cursor.moveToFirst()) {
+                image.put("name", cursor.getString(0));
+                image.put("size", cursor.getLong(1));
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Could not query picked image metadata: " + e.getMessage());
+        }
+        return image;
+    }
+}
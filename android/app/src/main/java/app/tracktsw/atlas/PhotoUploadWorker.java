@@ -0,0 +1,221 @@
+package app.tracktsw.atlas;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Data;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import app.tracktsw.atlas.core.SupabaseHttpException;
+import app.tracktsw.atlas.core.SupabaseStorageClient;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Uploads one queued photo: thumb, medium and original in parallel, then inserts the
+ * user_photos row. Mirrors uploadSinglePhoto in src/hooks/useBatchUpload.ts: thumb and
+ * medium are required, the original is best-effort.
+ *
+ * The row is inserted with id = photoId and duplicates ignored, and storage uploads
+ * upsert, so a retry after a lost response never creates a second photo.
+ *
+ * A 401/403 or expired token won't go away by backing off, so the photo is parked
+ * (UploadQueue.park) until the app stores a new session, instead of retried.
+ */
+public class PhotoUploadWorker extends Worker {
+    private static final String TAG = "PhotoUploadWorker";
+    private static final String BUCKET = "photos";
+    private static final String CACHE_CONTROL = "31536000";
+    // After this many attempts a failing original is dropped instead of retried
+    private static final int MAX_ORIGINAL_ATTEMPTS = 5;
+
+    // One thread per derivative; shared so concurrent photos don't multiply sockets
+    private static final ExecutorService executor = Executors.newFixedThreadPool(3);
+
+    public PhotoUploadWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        String photoId = getInputData().getString(UploadQueue.KEY_PHOTO_ID);
+        if (photoId == null) {
+            return Result.failure();
+        }
+
+        SupabaseSession session = SupabaseSession.load(context);
+        if (session == null) {
+            // Signed out; wait for the app to push a session
+            Log.d(TAG, "No session, retrying " + photoId + " later");
+            return Result.retry();
+        }
+        if (!session.userId.equals(getInputData().getString(UploadQueue.KEY_USER_ID))) {
+            // Queued before a sign-out; never upload it into the next user's account
+            Log.w(TAG, "Dropping " + photoId + ", queued by another user");
+            return fail(photoId, "Queued by another user");
+        }
+
+        File dir = UploadQueue.getQueueDir(context, photoId);
+        File thumb = new File(dir, UploadQueue.THUMB_FILE);
+        File medium = new File(dir, UploadQueue.MEDIUM_FILE);
+        File original = new File(dir, UploadQueue.ORIGINAL_FILE);
+        if (!thumb.isFile() || !medium.isFile()) {
+            return fail(photoId, "Photo files are missing");
+        }
+
+        String basePath = session.userId + "/" + photoId + "/";
+        SupabaseStorageClient client = session.storageClient();
+        SupabaseStorageClient.ResumeStore resumeStore = UploadQueue.resumeStore(context);
+
+        long totalBytes = thumb.length() + medium.length() + (original.isFile() ? original.length() : 0);
+        AtomicLong sentBytes = new AtomicLong();
+        AtomicInteger lastPercent = new AtomicInteger(-1);
+
+        long start = System.currentTimeMillis();
+        Future<?> thumbUpload = executor.submit(() -> upload(client, basePath + UploadQueue.THUMB_FILE, thumb,
+            "image/webp", CACHE_CONTROL, resumeStore, sentBytes, totalBytes, lastPercent, photoId));
+        Future<?> mediumUpload = executor.submit(() -> upload(client, basePath + UploadQueue.MEDIUM_FILE, medium,
+            "image/webp", CACHE_CONTROL, resumeStore, sentBytes, totalBytes, lastPercent, photoId));
+        Future<?> originalUpload = original.isFile()
+            ? executor.submit(() -> upload(client, basePath + UploadQueue.ORIGINAL_FILE, original,
+                "image/jpeg", null, resumeStore, sentBytes, totalBytes, lastPercent, photoId))
+            : null;
+
+        try {
+            thumbUpload.get();
+            mediumUpload.get();
+
+            boolean hasOriginal = false;
+            if (originalUpload != null) {
+                try {
+                    originalUpload.get();
+                    hasOriginal = true;
+                } catch (ExecutionException e) {
+                    if (isTransient(e.getCause()) && getRunAttemptCount() < MAX_ORIGINAL_ATTEMPTS) {
+                        throw e;
+                    }
+                    Log.w(TAG, "Original upload failed for " + photoId + ", continuing without it: "
+                        + e.getCause().getMessage());
+                }
+            }
+
+            session.restClient().insertIgnoringDuplicates("user_photos",
+                buildRow(session, basePath, photoId, hasOriginal).toString());
+        } catch (ExecutionException e) {
+            // One derivative failed; don't leave the others uploading for nothing
+            thumbUpload.cancel(true);
+            mediumUpload.cancel(true);
+            if (originalUpload != null) originalUpload.cancel(true);
+            return handleError(photoId, e.getCause());
+        } catch (IOException | JSONException e) {
+            return handleError(photoId, e);
+        } catch (InterruptedException e) {
+            // Work was stopped (cancelled or constraints lost); WorkManager reschedules it
+            thumbUpload.cancel(true);
+            mediumUpload.cancel(true);
+            if (originalUpload != null) originalUpload.cancel(true);
+            Thread.currentThread().interrupt();
+            return Result.retry();
+        }
+
+        UploadQueue.deleteFiles(context, photoId);
+        Log.d(TAG, "Uploaded " + photoId + " in " + (System.currentTimeMillis() - start) + "ms");
+        return Result.success(new Data.Builder()
+            .putString(UploadQueue.KEY_PHOTO_ID, photoId)
+            .putInt(UploadQueue.KEY_PROGRESS, 100)
+            .build());
+    }
+
+    private Void upload(SupabaseStorageClient client, String path, File file, String contentType,
+                        String cacheControl, SupabaseStorageClient.ResumeStore resumeStore,
+                        AtomicLong sentBytes, long totalBytes, AtomicInteger lastPercent,
+                        String photoId) throws IOException {
+        long[] reported = new long[1];
+        client.upload(BUCKET, path, file, contentType, cacheControl, resumeStore, (sent, total) -> {
+            long overall = sentBytes.addAndGet(sent - reported[0]);
+            reported[0] = sent;
+            // Reserve the last few percent for the database insert
+            int percent = (int) (overall * 95 / Math.max(1, totalBytes));
+            if (percent > lastPercent.getAndSet(percent)) {
+                setProgressAsync(new Data.Builder()
+                    .putString(UploadQueue.KEY_PHOTO_ID, photoId)
+                    .putInt(UploadQueue.KEY_PROGRESS, percent)
+                    .build());
+            }
+        });
+        return null;
+    }
+
+    private JSONObject buildRow(SupabaseSession session, String basePath, String photoId, boolean hasOriginal)
+            throws JSONException {
+        String mediumUrl = session.publicPhotoUrl(basePath + UploadQueue.MEDIUM_FILE);
+        String takenAt = getInputData().getString(UploadQueue.KEY_TAKEN_AT);
+
+        JSONObject row = new JSONObject();
+        row.put("id", photoId);
+        row.put("user_id", session.userId);
+        row.put("body_part", getInputData().getString(UploadQueue.KEY_BODY_PART));
+        row.put("photo_url", mediumUrl);
+        row.put("thumb_url", session.publicPhotoUrl(basePath + UploadQueue.THUMB_FILE));
+        row.put("medium_url", mediumUrl);
+        row.put("original_url", hasOriginal
+            ? session.publicPhotoUrl(basePath + UploadQueue.ORIGINAL_FILE) : JSONObject.NULL);
+        String notes = getInputData().getString(UploadQueue.KEY_NOTES);
+        row.put("notes", notes != null ? notes : JSONObject.NULL);
+        row.put("taken_at", takenAt != null ? takenAt : JSONObject.NULL);
+        return row;
+    }
+
+    private Result handleError(String photoId, Throwable error) {
+        if (error instanceof SupabaseHttpException && ((SupabaseHttpException) error).isAuthError()) {
+            Log.w(TAG, "Upload of " + photoId + " parked until a new session: " + error.getMessage());
+            Data input = getInputData();
+            UploadQueue.park(getApplicationContext(), photoId, input.getString(UploadQueue.KEY_USER_ID),
+                input.getString(UploadQueue.KEY_BODY_PART),
+                input.getString(UploadQueue.KEY_TAKEN_AT), input.getString(UploadQueue.KEY_NOTES));
+            return Result.failure(new Data.Builder()
+                .putString(UploadQueue.KEY_PHOTO_ID, photoId)
+                .putString(UploadQueue.KEY_ERROR, error.getMessage())
+                .putBoolean(UploadQueue.KEY_PARKED, true)
+                .build());
+        }
+        if (isTransient(error)) {
+            Log.w(TAG, "Upload of " + photoId + " will retry: " + error.getMessage());
+            return Result.retry();
+        }
+        Log.e(TAG, "Upload of " + photoId + " failed: " + error.getMessage());
+        return fail(photoId, error.getMessage());
+    }
+
+    private Result fail(String photoId, String message) {
+        UploadQueue.deleteFiles(getApplicationContext(), photoId);
+        return Result.failure(new Data.Builder()
+            .putString(UploadQueue.KEY_PHOTO_ID, photoId)
+            .putString(UploadQueue.KEY_ERROR, message)
+            .build());
+    }
+
+    /**
+     * Network errors and 5xx/429 are worth retrying; bad requests are not.
+     */
+    private static boolean isTransient(Throwable error) {
+        if (error instanceof SupabaseHttpException) {
+            return ((SupabaseHttpException) error).isRetryable();
+        }
+        return error instanceof IOException;
+    }
+}
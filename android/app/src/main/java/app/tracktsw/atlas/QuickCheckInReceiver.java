@@ -0,0 +1,216 @@
+package app.tracktsw.atlas;
+
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Bundle;
+import android.util.Log;
+
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.NotificationManagerCompat;
+import androidx.core.app.RemoteInput;
+
+import app.tracktsw.atlas.core.SyncEngine;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Handles the "Quick check-in" reply on the check-in reminder: records a skin-feeling-only
+ * check-in without starting the app. The row goes into the local store and the sync
+ * outbox (LocalSyncStore), is pushed to user_check_ins by SyncWorker, and shows up in
+ * the UI the next time the app loads local data.
+ */
+public class QuickCheckInReceiver extends BroadcastReceiver {
+    private static final String TAG = "QuickCheckInReceiver";
+    public static final String ACTION_QUICK_CHECK_IN = "app.tracktsw.atlas.ACTION_QUICK_CHECK_IN";
+    public static final String KEY_SKIN_FEELING = "skin_feeling";
+    private static final int REQUEST_CODE = 1002;
+
+    // Same labels and order (1-5) as the check-in screen
+    static final String[] SKIN_FEELING_CHOICES = { "🔴 Severe", "🟠 Bad", "🟡 Moderate", "🟢 Mild", "💚 Clear" };
+    // Mood isn't asked from the notification; 3 is the check-in screen's default
+    private static final int DEFAULT_MOOD = 3;
+
+    // The SQLite and SharedPreferences work runs here after goAsync(), off the main thread
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    /**
+     * The reply action for the check-in reminder, or null if there is no native session
+     * (the notification then only opens the app).
+     */
+    static NotificationCompat.Action createAction(Context context) {
+        if (SupabaseSession.load(context) == null) {
+            return null;
+        }
+
+        RemoteInput remoteInput = new RemoteInput.Builder(KEY_SKIN_FEELING)
+            .setLabel("How is your skin?")
+            .setChoices(SKIN_FEELING_CHOICES)
+            .setAllowFreeFormInput(false)
+            .build();
+
+        Intent intent = new Intent(context, QuickCheckInReceiver.class);
+        intent.setAction(ACTION_QUICK_CHECK_IN);
+        // RemoteInput fills in the intent, so it has to be mutable
+        PendingIntent pendingIntent = PendingIntent.getBroadcast(
+            context,
+            REQUEST_CODE,
+            intent,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_MUTABLE
+        );
+
+        return new NotificationCompat.Action.Builder(android.R.drawable.ic_menu_edit, "Quick check-in", pendingIntent)
+            .addRemoteInput(remoteInput)
+            .setAllowGeneratedReplies(false)
+            .setSemanticAction(NotificationCompat.Action.SEMANTIC_ACTION_REPLY)
+            .build();
+    }
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        if (!ACTION_QUICK_CHECK_IN.equals(intent.getAction())) {
+            return;
+        }
+
+        int skinFeeling = parseSkinFeeling(RemoteInput.getResultsFromIntent(intent));
+        if (skinFeeling == 0) {
+            Log.w(TAG, "No skin feeling in reply");
+            return;
+        }
+
+        Context appContext = context.getApplicationContext();
+        PendingResult pendingResult = goAsync();
+        executor.execute(() -> {
+            try {
+                checkIn(appContext, skinFeeling);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Error handling quick check-in: " + e.getMessage());
+            } finally {
+                pendingResult.finish();
+            }
+        });
+    }
+
+    private void checkIn(Context context, int skinFeeling) {
+        String message;
+        boolean saved = false;
+        LocalDate today = LocalDate.now();
+        LocalTime now = LocalTime.now();
+        String slot = CheckInLedger.slotAt(now);
+        if (CheckInLedger.hasCheckedIn(context, today)) {
+            // One check-in per day, same rule as addCheckIn
+            message = "You've already checked in today";
+        } else if (enqueue(context, skinFeeling, slot)) {
+            if (CheckInLedger.recordCheckIn(context, today, slot, now.getHour() * 60 + now.getMinute())) {
+                ReminderScheduler.onCheckInTimeLearned(context);
+            }
+            SyncScheduler.requestSync(context);
+            message = "Checked in: " + SKIN_FEELING_CHOICES[skinFeeling - 1];
+            saved = true;
+        } else {
+            message = "Couldn't save your check-in. Tap to open the app.";
+        }
+
+        confirm(context, message, saved);
+    }
+
+    private boolean enqueue(Context context, int skinFeeling, String timeOfDay) {
+        SupabaseSession session = SupabaseSession.load(context);
+        if (session == null) {
+            return false;
+        }
+
+        try {
+            String id = UUID.randomUUID().toString();
+            String clientRequestId = UUID.randomUUID().toString();
+            String now = OffsetDateTime.now().toString();
+
+            // Same shape addCheckIn inserts
+            JSONObject row = new JSONObject();
+            row.put("id", id);
+            row.put("user_id", session.userId);
+            row.put("time_of_day", timeOfDay);
+            row.put("treatments", new JSONArray());
+            row.put("mood", DEFAULT_MOOD);
+            row.put("skin_feeling", skinFeeling);
+            row.put("skin_intensity", 5 - skinFeeling);
+            row.put("pain_score", JSONObject.NULL);
+            row.put("sleep_score", JSONObject.NULL);
+            row.put("notes", JSONObject.NULL);
+            row.put("symptoms_experienced", new JSONArray());
+            row.put("triggers", new JSONArray());
+            row.put("client_request_id", clientRequestId);
+            row.put("created_at", now);
+            row.put("logged_at", now);
+
+            new LocalSyncStore(context, session.userId)
+                .enqueue(LocalStore.Table.CHECK_INS, SyncEngine.Op.INSERT, id, clientRequestId, row);
+            Log.d(TAG, "Quick check-in queued: " + id);
+            return true;
+        } catch (JSONException | RuntimeException e) {
+            Log.e(TAG, "Error queuing quick check-in: " + e.getMessage());
+            return false;
+        }
+    }
+
+    static int parseSkinFeeling(Bundle results) {
+        if (results == null) {
+            return 0;
+        }
+        CharSequence reply = results.getCharSequence(KEY_SKIN_FEELING);
+        if (reply == null) {
+            return 0;
+        }
+        for (int i = 0; i < SKIN_FEELING_CHOICES.length; i++) {
+            if (SKIN_FEELING_CHOICES[i].contentEquals(reply)) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Replace the reminder with a short confirmation; a RemoteInput notification keeps
+     * showing a spinner until it is updated.
+     */
+    private void confirm(Context context, String message, boolean dismissSoon) {
+        Intent launch = context.getPackageManager().getLaunchIntentForPackage(context.getPackageName());
+        if (launch != null) {
+            launch.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+        }
+        PendingIntent contentIntent = PendingIntent.getActivity(
+            context,
+            REQUEST_CODE,
+            launch,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, ReminderAlarmReceiver.CHANNEL_ID)
+            .setSmallIcon(NotificationAssets.getSmallIcon(context))
+            .setContentTitle("TrackTSW")
+            .setContentText(message)
+            .setContentIntent(contentIntent)
+            .setAutoCancel(true)
+            .setSilent(true)
+            .setColor(0xFF6B8E7A);
+        if (dismissSoon) {
+            builder.setTimeoutAfter(5000);
+        }
+
+        try {
+            NotificationManagerCompat.from(context).notify(ReminderAlarmReceiver.NOTIFICATION_ID, builder.build());
+        } catch (SecurityException e) {
+            Log.e(TAG, "No permission to post notifications: " + e.getMessage());
+        }
+    }
+}
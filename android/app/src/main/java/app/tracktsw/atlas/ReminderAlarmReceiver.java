@@ -1,141 +1,161 @@
 package app.tracktsw.atlas;
 
-import android.app.NotificationChannel;
-import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
-import android.content.SharedPreferences;
-import android.graphics.BitmapFactory;
-import android.os.Build;
+import android.graphics.Bitmap;
 import android.util.Log;
 
 import androidx.core.app.NotificationCompat;
 import androidx.core.app.NotificationManagerCompat;
 
+import app.tracktsw.atlas.core.ReminderEngine;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 /**
- * BroadcastReceiver for AlarmManager-based daily reminders.
- * When the alarm fires, this receiver shows the notification and schedules the next day's alarm.
+ * BroadcastReceiver for AlarmManager-based reminders.
+ * One alarm is armed for the earliest reminder; when it fires, every reminder due in the
+ * same window is shown from this single invocation and the alarm is re-armed for the next.
  */
 public class ReminderAlarmReceiver extends BroadcastReceiver {
     private static final String TAG = "ReminderAlarmReceiver";
     public static final String CHANNEL_ID = "tsw_reminders";
     public static final String CHANNEL_NAME = "Daily Reminders";
+    // Same channel beliefNotificationScheduler.ts creates for LocalNotifications
+    public static final String BELIEF_CHANNEL_ID = "tsw_beliefs";
+    public static final String BELIEF_CHANNEL_NAME = "Daily Insights";
     public static final int NOTIFICATION_ID = 1;
+    // Matches BELIEF_NOTIFICATION_ID in beliefNotificationScheduler.ts
+    public static final int BELIEF_NOTIFICATION_ID = 2;
     public static final String ACTION_SHOW_REMINDER = "app.tracktsw.atlas.ACTION_SHOW_REMINDER";
 
+    // Alarm broadcasts get about 10s once goAsync() is called; all the work happens off the main thread
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
     @Override
     public void onReceive(Context context, Intent intent) {
-        Log.d(TAG, "Alarm received at " + System.currentTimeMillis());
+        long firedAt = System.currentTimeMillis();
+        Log.d(TAG, "Alarm received at " + firedAt);
 
         if (!ACTION_SHOW_REMINDER.equals(intent.getAction())) {
             Log.d(TAG, "Unknown action: " + intent.getAction());
             return;
         }
 
-        // Check if reminders are still enabled
-        SharedPreferences prefs = context.getSharedPreferences("tsw_reminder_prefs", Context.MODE_PRIVATE);
-        boolean enabled = prefs.getBoolean("reminders_enabled", false);
+        Context appContext = context.getApplicationContext();
+        PendingResult pendingResult = goAsync();
+        executor.execute(() -> {
+            try {
+                deliver(appContext, firedAt);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Error delivering reminders: " + e.getMessage());
+            } finally {
+                pendingResult.finish();
+            }
+        });
+    }
 
-        if (!enabled) {
-            Log.d(TAG, "Reminders disabled, skipping notification");
+    /**
+     * Record the delivery, show every reminder due now and re-arm. Also used by
+     * ReminderWorker when WorkManager is the backend.
+     */
+    static void deliver(Context context, long firedAt) {
+        ReminderScheduler.recordDelivery(context, firedAt);
+
+        // Also re-arms the alarm for the next reminder
+        List<ReminderEngine.Reminder> due = ReminderScheduler.takeDueReminders(context);
+        if (due.isEmpty()) {
+            Log.d(TAG, "Nothing due, skipping notification");
             return;
         }
 
-        // Create notification channel (required for Android 8+)
-        createNotificationChannel(context);
-
-        // Show the notification
-        showNotification(context);
-
-        // Schedule the next alarm for tomorrow
-        int[] time = ReminderScheduler.getReminderTime(context);
-        if (time != null) {
-            ReminderScheduler.scheduleReminder(context, time[0], time[1]);
-            Log.d(TAG, "Next reminder scheduled for " + time[0] + ":" + time[1]);
-        } else {
-            Log.d(TAG, "No reminder time set; skipping reschedule");
+        // Channels exist after the first fire of each app version
+        NotificationAssets.prepare(context);
+
+        LocalDate today = LocalDate.now();
+        int delivered = 0;
+        for (ReminderEngine.Reminder reminder : due) {
+            // No point nudging a check-in that's already done today
+            if (reminder.kind == ReminderEngine.Kind.CHECK_IN && CheckInLedger.hasCheckedIn(context, today)) {
+                CheckInLedger.countSuppressed(context);
+                Log.d(TAG, "Already checked in today, suppressed " + reminder.id);
+                continue;
+            }
+            showNotification(context, reminder);
+            CheckInLedger.countDelivered(context);
+            delivered++;
         }
 
-        Log.d(TAG, "ReminderAlarmReceiver completed");
+        Log.d(TAG, "ReminderAlarmReceiver completed, delivered " + delivered + " of " + due.size());
     }
 
-    private void createNotificationChannel(Context context) {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            NotificationChannel channel = new NotificationChannel(
-                CHANNEL_ID,
-                CHANNEL_NAME,
-                NotificationManager.IMPORTANCE_HIGH // Enables heads-up display
-            );
-            channel.setDescription("Daily check-in reminder notifications");
-            channel.enableVibration(true);
-            channel.enableLights(true);
-            channel.setLightColor(0xFF6B8E7A);
-            channel.setShowBadge(true);
-            channel.setBypassDnd(false);
-            channel.setLockscreenVisibility(NotificationCompat.VISIBILITY_PUBLIC);
-
-            NotificationManager manager = context.getSystemService(NotificationManager.class);
-            if (manager != null) {
-                manager.createNotificationChannel(channel);
-                Log.d(TAG, "Notification channel created with IMPORTANCE_HIGH");
-            }
+    static int notificationIdFor(ReminderEngine.Reminder reminder) {
+        switch (reminder.kind) {
+            case CHECK_IN:
+                return NOTIFICATION_ID;
+            case BELIEF:
+                return BELIEF_NOTIFICATION_ID;
+            default:
+                // Stable per custom reminder, clear of the fixed ids above
+                return 1000 + (reminder.id.hashCode() & 0xFFFF);
         }
     }
 
-    private void showNotification(Context context) {
+    private static void showNotification(Context context, ReminderEngine.Reminder reminder) {
         // Create intent to open the app when notification is tapped
         Intent intent = context.getPackageManager().getLaunchIntentForPackage(context.getPackageName());
         if (intent != null) {
-            intent.putExtra("route", "/check-in");
+            if (reminder.route != null) {
+                intent.putExtra("route", reminder.route);
+            }
             intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
         }
 
         PendingIntent pendingIntent = PendingIntent.getActivity(
             context,
-            0,
+            notificationIdFor(reminder),
             intent,
             PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
         );
 
-        // Get the app icon resource - use mipmap foreground for the TrackTSW logo
-        int smallIconRes = context.getResources().getIdentifier("ic_launcher_foreground", "mipmap", context.getPackageName());
-        if (smallIconRes == 0) {
-            smallIconRes = context.getResources().getIdentifier("ic_launcher", "mipmap", context.getPackageName());
-        }
-        if (smallIconRes == 0) {
-            smallIconRes = android.R.drawable.ic_popup_reminder;
-        }
-
-        // Build the notification with HIGH priority for heads-up display
-        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHANNEL_ID)
-            .setSmallIcon(smallIconRes)
-            .setContentTitle("Daily check-in ✨")
-            .setContentText("How is your skin today? Take a moment to log your progress.")
-            .setPriority(NotificationCompat.PRIORITY_HIGH)
-            .setCategory(NotificationCompat.CATEGORY_ALARM) // Use ALARM category for higher priority
+        // Check-in reminders are HIGH priority for heads-up display; belief insights aren't urgent
+        boolean isBelief = reminder.kind == ReminderEngine.Kind.BELIEF;
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, isBelief ? BELIEF_CHANNEL_ID : CHANNEL_ID)
+            .setSmallIcon(NotificationAssets.getSmallIcon(context))
+            .setContentTitle(reminder.title)
+            .setContentText(reminder.body)
+            .setStyle(new NotificationCompat.BigTextStyle().bigText(reminder.body))
+            .setPriority(isBelief ? NotificationCompat.PRIORITY_DEFAULT : NotificationCompat.PRIORITY_HIGH)
+            .setCategory(isBelief ? NotificationCompat.CATEGORY_RECOMMENDATION : NotificationCompat.CATEGORY_ALARM)
             .setAutoCancel(true)
             .setContentIntent(pendingIntent)
             .setDefaults(NotificationCompat.DEFAULT_ALL)
             .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
             .setColor(0xFF6B8E7A);
 
-        // Try to set the app icon as large icon
-        try {
-            int largeIconRes = context.getResources().getIdentifier("ic_launcher", "mipmap", context.getPackageName());
-            if (largeIconRes != 0) {
-                builder.setLargeIcon(BitmapFactory.decodeResource(context.getResources(), largeIconRes));
+        // Log a skin-feeling-only check-in straight from the notification
+        if (reminder.kind == ReminderEngine.Kind.CHECK_IN) {
+            NotificationCompat.Action quickCheckIn = QuickCheckInReceiver.createAction(context);
+            if (quickCheckIn != null) {
+                builder.addAction(quickCheckIn);
             }
-        } catch (Exception e) {
-            Log.w(TAG, "Could not set large icon: " + e.getMessage());
+        }
+
+        Bitmap largeIcon = NotificationAssets.getLargeIcon(context);
+        if (largeIcon != null) {
+            builder.setLargeIcon(largeIcon);
         }
 
         // Show the notification
         try {
             NotificationManagerCompat notificationManager = NotificationManagerCompat.from(context);
-            notificationManager.notify(NOTIFICATION_ID, builder.build());
-            Log.d(TAG, "Notification shown successfully with heads-up priority");
+            notificationManager.notify(notificationIdFor(reminder), builder.build());
+            Log.d(TAG, "Notification shown for " + reminder.id);
         } catch (SecurityException e) {
             Log.e(TAG, "No permission to post notifications: " + e.getMessage());
         }
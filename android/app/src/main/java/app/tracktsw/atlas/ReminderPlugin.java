@@ -2,20 +2,35 @@ package app.tracktsw.atlas;
 
 import android.util.Log;
 
+import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
 import com.getcapacitor.Plugin;
 import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
 
+import app.tracktsw.atlas.core.ReminderDeliveryLog;
+import app.tracktsw.atlas.core.ReminderEngine;
+
+import org.json.JSONObject;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.regex.Pattern;
+
 /**
  * Capacitor plugin to interface with the native ReminderScheduler.
- * This allows the JavaScript/TypeScript code to schedule reminders using WorkManager
- * instead of exact alarms.
+ * This allows the JavaScript/TypeScript code to schedule reminders natively: an exact
+ * alarm when the permission allows it, WorkManager otherwise (see AlarmBackend).
+ *
+ * setReminder/removeReminder manage any number of daily reminders (check-in, belief,
+ * custom); they all share the single alarm armed by ReminderScheduler.
  */
 @CapacitorPlugin(name = "ReminderPlugin")
 public class ReminderPlugin extends Plugin {
     private static final String TAG = "ReminderPlugin";
+    private static final Pattern REMINDER_ID_PATTERN = Pattern.compile("[A-Za-z0-9_-]{1,64}");
 
     @PluginMethod
     public void scheduleReminder(PluginCall call) {
@@ -91,4 +106,258 @@ public class ReminderPlugin extends Plugin {
             call.reject("Failed to get reminder time", e);
         }
     }
+
+    /**
+     * Everything the settings screen shows in one bridge call, read from the in-memory
+     * ReminderStore snapshot. Resolves { enabled, hasTime, hour?, minute?, adaptive,
+     * learnedMinute, nextTriggerAt, nextAlarmAt, reminderCount, exactAlarmsAllowed };
+     * hour/minute are the user's time, learnedMinute is -1 until a habit is learned, and
+     * times are epoch millis, 0 if none.
+     */
+    @PluginMethod
+    public void getState(PluginCall call) {
+        try {
+            ReminderStore.Snapshot snapshot = ReminderStore.getInstance(getContext()).get();
+            ReminderEngine.Reminder checkIn = snapshot.get(ReminderStore.CHECK_IN_ID);
+
+            int[] time = ReminderScheduler.getReminderTime(getContext());
+            int learnedMinute = CheckInLedger.getLearnedMinute(getContext());
+
+            JSObject result = new JSObject();
+            result.put("enabled", checkIn != null);
+            result.put("hasTime", time != null);
+            if (time != null) {
+                result.put("hour", time[0]);
+                result.put("minute", time[1]);
+            }
+            result.put("adaptive", snapshot.adaptive);
+            result.put("learnedMinute", learnedMinute);
+            result.put("nextTriggerAt", checkIn != null ? checkIn.getNextAt() : 0);
+            result.put("nextAlarmAt", Math.max(snapshot.getNextTriggerAt(), 0));
+            result.put("reminderCount", snapshot.reminders.size());
+            result.put("exactAlarmsAllowed", ReminderScheduler.canScheduleExactAlarms(getContext()));
+            call.resolve(result);
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting reminder state: " + e.getMessage());
+            call.reject("Failed to get reminder state", e);
+        }
+    }
+
+    /**
+     * Options: { id, kind: 'check_in' | 'belief' | 'custom', hour, minute, windowMinutes?,
+     * title, body, route?, skipToday? }. windowMinutes picks a random time in
+     * [hour:minute, hour:minute + windowMinutes) each day; skipToday starts tomorrow.
+     * Resolves { id, nextAt }.
+     */
+    @PluginMethod
+    public void setReminder(PluginCall call) {
+        String id = call.getString("id");
+        Integer hour = call.getInt("hour");
+        Integer minute = call.getInt("minute");
+        String title = call.getString("title");
+        String body = call.getString("body");
+        if (id == null || !REMINDER_ID_PATTERN.matcher(id).matches() || hour == null || minute == null
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || title == null || body == null) {
+            call.reject("A valid id, hour, minute, title and body are required");
+            return;
+        }
+        int windowMinutes = Math.max(0, Math.min(call.getInt("windowMinutes", 0), 24 * 60));
+
+        try {
+            ReminderEngine.Reminder reminder = new ReminderEngine.Reminder(id,
+                ReminderEngine.Kind.fromValue(call.getString("kind", "custom")), hour, minute, windowMinutes,
+                title, body, call.getString("route"));
+            long after = System.currentTimeMillis();
+            if (call.getBoolean("skipToday", false)) {
+                ZoneId zone = ZoneId.systemDefault();
+                after = LocalDate.now(zone).plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli() - 1;
+            }
+            ReminderScheduler.putReminder(getContext(), reminder, after);
+
+            JSObject result = new JSObject();
+            result.put("id", id);
+            result.put("nextAt", reminder.getNextAt());
+            call.resolve(result);
+        } catch (Exception e) {
+            Log.e(TAG, "Error setting reminder " + id + ": " + e.getMessage());
+            call.reject("Failed to set reminder", e);
+        }
+    }
+
+    @PluginMethod
+    public void removeReminder(PluginCall call) {
+        String id = call.getString("id");
+        if (id == null) {
+            call.reject("id is required");
+            return;
+        }
+
+        try {
+            ReminderScheduler.removeReminder(getContext(), id);
+            call.resolve();
+        } catch (Exception e) {
+            Log.e(TAG, "Error removing reminder " + id + ": " + e.getMessage());
+            call.reject("Failed to remove reminder", e);
+        }
+    }
+
+    /**
+     * Resolves { reminders: [{ id, kind, hour, minute, windowMinutes, title, body, route, nextAt }] },
+     * earliest first.
+     */
+    @PluginMethod
+    public void getReminders(PluginCall call) {
+        try {
+            JSArray reminders = new JSArray();
+            for (ReminderEngine.Reminder reminder : ReminderScheduler.getReminders(getContext())) {
+                JSObject item = new JSObject();
+                item.put("id", reminder.id);
+                item.put("kind", reminder.kind.value);
+                item.put("hour", reminder.hour);
+                item.put("minute", reminder.minute);
+                item.put("windowMinutes", reminder.windowMinutes);
+                item.put("title", reminder.title);
+                item.put("body", reminder.body);
+                item.put("route", reminder.route != null ? reminder.route : JSONObject.NULL);
+                item.put("nextAt", reminder.getNextAt());
+                reminders.put(item);
+            }
+
+            JSObject result = new JSObject();
+            result.put("reminders", reminders);
+            call.resolve(result);
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting reminders: " + e.getMessage());
+            call.reject("Failed to get reminders", e);
+        }
+    }
+
+    /**
+     * Turn adaptive check-in reminder timing on or off. Options: { enabled }.
+     */
+    @PluginMethod
+    public void setAdaptiveTiming(PluginCall call) {
+        try {
+            ReminderScheduler.setAdaptiveTiming(getContext(), call.getBoolean("enabled", false));
+            call.resolve();
+        } catch (Exception e) {
+            Log.e(TAG, "Error setting adaptive timing: " + e.getMessage());
+            call.reject("Failed to set adaptive timing", e);
+        }
+    }
+
+    /**
+     * Options: { date: 'YYYY-MM-DD', slot: 'morning' | 'evening', minuteOfDay? }. Call on
+     * every check-in submit so today's check-in reminder is skipped natively; minuteOfDay
+     * (local time it was logged) lets adaptive timing learn from it.
+     */
+    @PluginMethod
+    public void recordCheckIn(PluginCall call) {
+        String slot = call.getString("slot", CheckInLedger.SLOT_MORNING);
+        if (!CheckInLedger.SLOT_MORNING.equals(slot) && !CheckInLedger.SLOT_EVENING.equals(slot)) {
+            call.reject("slot must be morning or evening");
+            return;
+        }
+
+        try {
+            LocalDate date = LocalDate.parse(call.getString("date", ""));
+            int minuteOfDay = call.getInt("minuteOfDay", -1);
+            if (minuteOfDay >= 24 * 60) {
+                minuteOfDay = -1;
+            }
+            if (CheckInLedger.recordCheckIn(getContext(), date, slot, minuteOfDay)) {
+                ReminderScheduler.onCheckInTimeLearned(getContext());
+            }
+            call.resolve();
+        } catch (DateTimeException e) {
+            call.reject("date must be YYYY-MM-DD", e);
+        }
+    }
+
+    /**
+     * Call on sign-out: forgets the recorded check-ins and the learned check-in time, so the
+     * next user's reminders aren't skipped or moved because of this user's check-ins.
+     */
+    @PluginMethod
+    public void clearUserState(PluginCall call) {
+        try {
+            CheckInLedger.clear(getContext());
+            // Back to the user's time if adaptive timing had moved the reminder
+            ReminderScheduler.onCheckInTimeLearned(getContext());
+            call.resolve();
+        } catch (Exception e) {
+            Log.e(TAG, "Error clearing reminder user state: " + e.getMessage());
+            call.reject("Failed to clear reminder state", e);
+        }
+    }
+
+    /**
+     * Resolves { delivered, suppressed }: reminders shown vs. skipped because the user had
+     * already checked in that day.
+     */
+    @PluginMethod
+    public void getSuppressionStats(PluginCall call) {
+        long[] counts = CheckInLedger.getCounts(getContext());
+        JSObject result = new JSObject();
+        result.put("delivered", counts[0]);
+        result.put("suppressed", counts[1]);
+        call.resolve(result);
+    }
+
+    /**
+     * Scheduling quality from the last 256 alarms. Resolves { count, p50DelayMs, p95DelayMs,
+     * maxDelayMs, fallbackShare, missedDays, exactAlarmsAllowed, bootArmLatencyMs,
+     * bootArmedBeforeUnlock, backend, backends }; bootArmLatencyMs is -1 until a reboot
+     * re-armed the alarm. backend is the one in use ('exact' | 'work_manager'), and
+     * backends compares { count, p50DelayMs, p95DelayMs, missedDays } per backend.
+     */
+    @PluginMethod
+    public void getDeliveryStats(PluginCall call) {
+        try {
+            ReminderDeliveryLog.Stats stats = ReminderScheduler.getDeliveryStats(getContext());
+            JSObject result = new JSObject();
+            result.put("count", stats.count);
+            result.put("p50DelayMs", stats.p50DelayMs);
+            result.put("p95DelayMs", stats.p95DelayMs);
+            result.put("maxDelayMs", stats.maxDelayMs);
+            result.put("fallbackShare", stats.fallbackShare);
+            result.put("missedDays", stats.missedDays);
+            result.put("exactAlarmsAllowed", ReminderScheduler.canScheduleExactAlarms(getContext()));
+            long[] boot = BootReceiver.getLastBootStats(getContext());
+            result.put("bootArmLatencyMs", boot != null ? boot[0] : -1);
+            result.put("bootArmedBeforeUnlock", boot != null && boot[1] == 1);
+            result.put("backend", backendName(ReminderScheduler.selectBackend(getContext()).getId()));
+
+            JSObject backends = new JSObject();
+            for (int backend : new int[] { ReminderDeliveryLog.BACKEND_EXACT_ALARM,
+                    ReminderDeliveryLog.BACKEND_INEXACT_ALARM, ReminderDeliveryLog.BACKEND_WORK_MANAGER }) {
+                ReminderDeliveryLog.Stats backendStats = ReminderScheduler.getDeliveryStats(getContext(), backend);
+                if (backendStats.count == 0) {
+                    continue;
+                }
+                JSObject entry = new JSObject();
+                entry.put("count", backendStats.count);
+                entry.put("p50DelayMs", backendStats.p50DelayMs);
+                entry.put("p95DelayMs", backendStats.p95DelayMs);
+                entry.put("missedDays", backendStats.missedDays);
+                backends.put(backendName(backend), entry);
+            }
+            result.put("backends", backends);
+            call.resolve(result);
+        } catch (Exception e) {
+            Log.e(TAG, "Error reading delivery stats: " + e.getMessage());
+            call.reject("Failed to get delivery stats", e);
+        }
+    }
+
+    private static String backendName(int backend) {
+        switch (backend) {
+            case ReminderDeliveryLog.BACKEND_EXACT_ALARM:
+                return "exact";
+            case ReminderDeliveryLog.BACKEND_WORK_MANAGER:
+                return "work_manager";
+            default:
+                return "inexact";
+        }
+    }
 }
@@ -1,34 +1,50 @@
 package app.tracktsw.atlas;
 
 import android.app.AlarmManager;
-import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.os.Build;
 import android.provider.Settings;
 import android.util.Log;
 
-import java.util.Calendar;
+import app.tracktsw.atlas.core.ReminderDeliveryLog;
+import app.tracktsw.atlas.core.ReminderEngine;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.List;
 
 /**
- * Handles scheduling and canceling of daily reminder alarms using AlarmManager.
- * Uses setExactAndAllowWhileIdle() for reliable exact-time delivery even under Doze mode.
+ * Handles scheduling and canceling of reminder wakeups through an AlarmBackend:
+ * an exact alarm (setExactAndAllowWhileIdle) when the permission allows it, otherwise
+ * WorkManager.
  * 
  * This implementation:
- * - Uses a single exact alarm for the next trigger time
- * - When the alarm fires, ReminderAlarmReceiver schedules the next day's alarm
- * - Persists reminder settings to SharedPreferences
+ * - Keeps every reminder (check-in, belief, custom) in one ReminderEngine queue
+ * - Arms a single wakeup for the earliest trigger time, however many reminders exist
+ * - When it fires, ReminderAlarmReceiver (or ReminderWorker) delivers everything due in
+ *   the same window and re-arms for the next one
+ * - Optionally moves the check-in reminder to the user's learned check-in time
+ * - Persists the queue through ReminderStore
  * - Handles Android 12+ exact alarm permission requirements gracefully
+ * - Logs each delivery's delay per backend (ReminderDeliveryLog)
  */
 public class ReminderScheduler {
     private static final String TAG = "ReminderScheduler";
-    private static final String PREFS_NAME = "tsw_reminder_prefs";
-    private static final int ALARM_REQUEST_CODE = 1001;
+    private static final int DELIVERY_LOG_CAPACITY = 256;
+
+    // Keeps a queue change and the alarm it arms together
+    private static final Object lock = new Object();
+    private static ReminderDeliveryLog deliveryLog;
+    private static final AlarmBackend exactAlarmBackend = new ExactAlarmBackend();
+    private static final AlarmBackend workManagerBackend = new WorkManagerAlarmBackend();
 
     /**
-     * Schedule the daily reminder using AlarmManager with exact timing.
-     * Uses setExactAndAllowWhileIdle() to ensure delivery even under Doze mode.
+     * Schedule the daily check-in reminder.
      *
      * @param context Application context
      * @param hour Target hour (0-23)
@@ -36,155 +52,152 @@ public class ReminderScheduler {
      */
     public static void scheduleReminder(Context context, int hour, int minute) {
         Log.d(TAG, "Scheduling daily reminder for " + hour + ":" + minute);
+        synchronized (lock) {
+            ReminderStore store = ReminderStore.getInstance(context);
+            store.setCheckInPreferences(hour * 60 + minute, store.get().adaptive);
+            int checkInMinute = getCheckInMinute(context, store.get());
+            putReminder(context, ReminderStore.checkInReminder(checkInMinute / 60, checkInMinute % 60),
+                System.currentTimeMillis());
+        }
+    }
 
-        // Save the reminder settings
-        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        prefs.edit()
-            .putBoolean("reminders_enabled", true)
-            .putInt("reminder_hour", hour)
-            .putInt("reminder_minute", minute)
-            .putLong("scheduled_at", System.currentTimeMillis())
-            .apply();
+    /**
+     * Turn adaptive timing on or off: when on, the check-in reminder fires at the time
+     * learned from past check-ins (CheckInLedger) once there is a clear habit, instead of
+     * at the user's time.
+     */
+    public static void setAdaptiveTiming(Context context, boolean enabled) {
+        synchronized (lock) {
+            ReminderStore store = ReminderStore.getInstance(context);
+            store.setCheckInPreferences(store.get().checkInMinute, enabled);
+            retimeCheckIn(context, store);
+        }
+    }
 
-        // Calculate the trigger time
-        long triggerTime = calculateTriggerTime(hour, minute);
+    /**
+     * Called after a check-in taught CheckInLedger a new time; moves the check-in reminder
+     * if adaptive timing is on and the learned time changed.
+     */
+    public static void onCheckInTimeLearned(Context context) {
+        synchronized (lock) {
+            ReminderStore store = ReminderStore.getInstance(context);
+            if (store.get().adaptive) {
+                retimeCheckIn(context, store);
+            }
+        }
+    }
 
-        Log.d(TAG, "Trigger time: " + triggerTime + " (" + new java.util.Date(triggerTime) + ")");
+    /**
+     * Minute of day the check-in reminder should fire at: the learned one when adaptive
+     * timing is on and there is one, otherwise the user's.
+     */
+    public static int getCheckInMinute(Context context, ReminderStore.Snapshot snapshot) {
+        if (snapshot.adaptive) {
+            int learned = CheckInLedger.getLearnedMinute(context);
+            if (learned >= 0) {
+                return learned;
+            }
+        }
+        return snapshot.checkInMinute;
+    }
 
-        // Create the alarm intent
-        Intent intent = new Intent(context, ReminderAlarmReceiver.class);
-        intent.setAction(ReminderAlarmReceiver.ACTION_SHOW_REMINDER);
-
-        PendingIntent pendingIntent = PendingIntent.getBroadcast(
-            context,
-            ALARM_REQUEST_CODE,
-            intent,
-            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-        );
-
-        // Get the AlarmManager
-        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
-        if (alarmManager == null) {
-            Log.e(TAG, "AlarmManager is null, cannot schedule reminder");
+    // Callers hold lock
+    private static void retimeCheckIn(Context context, ReminderStore store) {
+        ReminderEngine.Reminder current = store.get().get(ReminderStore.CHECK_IN_ID);
+        int checkInMinute = getCheckInMinute(context, store.get());
+        if (current == null || checkInMinute < 0 || current.hour * 60 + current.minute == checkInMinute) {
             return;
         }
 
-        // Cancel any existing alarm first
-        alarmManager.cancel(pendingIntent);
-
-        // Schedule the exact alarm
-        try {
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-                // Android 12+ requires checking canScheduleExactAlarms()
-                if (alarmManager.canScheduleExactAlarms()) {
-                    alarmManager.setExactAndAllowWhileIdle(
-                        AlarmManager.RTC_WAKEUP,
-                        triggerTime,
-                        pendingIntent
-                    );
-                    Log.d(TAG, "Exact alarm scheduled successfully (Android 12+)");
-                } else {
-                    // Fallback: use setAndAllowWhileIdle (inexact but still works)
-                    alarmManager.setAndAllowWhileIdle(
-                        AlarmManager.RTC_WAKEUP,
-                        triggerTime,
-                        pendingIntent
-                    );
-                    Log.w(TAG, "Exact alarm permission not granted, using inexact alarm");
-                }
-            } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                // Android 6.0+ - use setExactAndAllowWhileIdle for Doze compatibility
-                alarmManager.setExactAndAllowWhileIdle(
-                    AlarmManager.RTC_WAKEUP,
-                    triggerTime,
-                    pendingIntent
-                );
-                Log.d(TAG, "Exact alarm scheduled successfully (Android 6+)");
-            } else {
-                // Pre-Android 6.0 - use setExact
-                alarmManager.setExact(
-                    AlarmManager.RTC_WAKEUP,
-                    triggerTime,
-                    pendingIntent
-                );
-                Log.d(TAG, "Exact alarm scheduled successfully (pre-Android 6)");
-            }
-        } catch (SecurityException e) {
-            Log.e(TAG, "SecurityException scheduling alarm: " + e.getMessage());
-            // Try inexact alarm as fallback
-            try {
-                alarmManager.setAndAllowWhileIdle(
-                    AlarmManager.RTC_WAKEUP,
-                    triggerTime,
-                    pendingIntent
-                );
-                Log.w(TAG, "Fallback: inexact alarm scheduled");
-            } catch (Exception fallbackException) {
-                Log.e(TAG, "Failed to schedule any alarm: " + fallbackException.getMessage());
-            }
-        }
+        // Keep the day of the pending occurrence so moving the time neither repeats nor skips a day
+        long dayStart = Instant.ofEpochMilli(current.getNextAt()).atZone(ZoneId.systemDefault())
+            .toLocalDate().atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        Log.d(TAG, "Moving check-in reminder to " + checkInMinute / 60 + ":" + checkInMinute % 60);
+        putReminder(context, ReminderStore.checkInReminder(checkInMinute / 60, checkInMinute % 60),
+            Math.max(System.currentTimeMillis(), dayStart - 1));
     }
 
     /**
-     * Cancel the daily reminder.
+     * Cancel the daily check-in reminder.
      *
      * @param context Application context
      */
     public static void cancelReminder(Context context) {
         Log.d(TAG, "Canceling daily reminder");
+        removeReminder(context, ReminderStore.CHECK_IN_ID);
+    }
+
+    /**
+     * Add or replace a reminder, first firing after the given time, and re-arm the alarm.
+     */
+    public static void putReminder(Context context, ReminderEngine.Reminder reminder, long afterMs) {
+        synchronized (lock) {
+            ReminderStore store = ReminderStore.getInstance(context);
+            store.update(engine -> {
+                engine.put(reminder, afterMs);
+                return null;
+            });
+            arm(context, store);
+        }
+    }
 
-        // Update preferences
-        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        prefs.edit()
-            .putBoolean("reminders_enabled", false)
-            .apply();
-
-        // Cancel the alarm
-        Intent intent = new Intent(context, ReminderAlarmReceiver.class);
-        intent.setAction(ReminderAlarmReceiver.ACTION_SHOW_REMINDER);
-
-        PendingIntent pendingIntent = PendingIntent.getBroadcast(
-            context,
-            ALARM_REQUEST_CODE,
-            intent,
-            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-        );
-
-        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
-        if (alarmManager != null) {
-            alarmManager.cancel(pendingIntent);
-            Log.d(TAG, "Alarm canceled");
+    public static void removeReminder(Context context, String id) {
+        synchronized (lock) {
+            ReminderStore store = ReminderStore.getInstance(context);
+            if (store.get().get(id) != null) {
+                store.update(engine -> engine.remove(id));
+            }
+            arm(context, store);
         }
+    }
 
-        Log.d(TAG, "Daily reminder canceled");
+    public static List<ReminderEngine.Reminder> getReminders(Context context) {
+        return ReminderStore.getInstance(context).get().reminders;
     }
 
     /**
-     * Check if reminders are currently enabled.
+     * Take every reminder due now (coalesced), advance them, and re-arm for the next one.
+     * Called by ReminderAlarmReceiver.
+     */
+    public static List<ReminderEngine.Reminder> takeDueReminders(Context context) {
+        synchronized (lock) {
+            ReminderStore store = ReminderStore.getInstance(context);
+            if (store.get().reminders.isEmpty()) {
+                return Collections.emptyList();
+            }
+            List<ReminderEngine.Reminder> due = store.update(engine -> engine.pollDue(System.currentTimeMillis()));
+            arm(context, store);
+            return due;
+        }
+    }
+
+    /**
+     * Check if the daily check-in reminder is enabled.
      *
      * @param context Application context
      * @return true if reminders are enabled
      */
     public static boolean isReminderEnabled(Context context) {
-        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        return prefs.getBoolean("reminders_enabled", false);
+        return ReminderStore.getInstance(context).get().get(ReminderStore.CHECK_IN_ID) != null;
     }
 
     /**
-     * Get the scheduled reminder time.
+     * Get the check-in reminder time.
      *
      * @param context Application context
      * @return int array [hour, minute] or null if not set
      */
     public static int[] getReminderTime(Context context) {
-        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        if (!prefs.contains("reminder_hour")) {
+        ReminderStore.Snapshot snapshot = ReminderStore.getInstance(context).get();
+        ReminderEngine.Reminder reminder = snapshot.get(ReminderStore.CHECK_IN_ID);
+        if (reminder == null) {
             return null;
         }
-        return new int[] {
-            prefs.getInt("reminder_hour", 9),
-            prefs.getInt("reminder_minute", 0)
-        };
+        // The user's time, even while adaptive timing has moved the reminder
+        if (snapshot.checkInMinute >= 0) {
+            return new int[] { snapshot.checkInMinute / 60, snapshot.checkInMinute % 60 };
+        }
+        return new int[] { reminder.hour, reminder.minute };
     }
 
     /**
@@ -215,43 +228,157 @@ public class ReminderScheduler {
     }
 
     /**
-     * Calculate the trigger time in milliseconds for the next occurrence of the target time.
+     * Re-arm the alarm after device reboot (alarms don't survive it).
+     * Called by BootReceiver on LOCKED_BOOT_COMPLETED and BOOT_COMPLETED; only touches
+     * device-protected storage, so it works before the user unlocks.
+     *
+     * @param context Application context
+     * @return true if an alarm was armed
+     */
+    public static boolean rescheduleAfterBoot(Context context) {
+        synchronized (lock) {
+            ReminderStore store = ReminderStore.getInstance(context);
+            if (store.get().reminders.isEmpty()) {
+                return false;
+            }
+            arm(context, store);
+            Log.d(TAG, "Reminders rescheduled after boot");
+            return true;
+        }
+    }
+
+    /**
+     * Arm again with whichever backend the exact-alarm permission now allows.
      */
-    private static long calculateTriggerTime(int targetHour, int targetMinute) {
-        Calendar now = Calendar.getInstance();
-        Calendar target = Calendar.getInstance();
-
-        target.set(Calendar.HOUR_OF_DAY, targetHour);
-        target.set(Calendar.MINUTE, targetMinute);
-        target.set(Calendar.SECOND, 0);
-        target.set(Calendar.MILLISECOND, 0);
-
-        // If the target time has already passed today, schedule for tomorrow
-        if (target.before(now) || target.equals(now)) {
-            target.add(Calendar.DAY_OF_MONTH, 1);
+    public static void rearm(Context context) {
+        synchronized (lock) {
+            ReminderStore store = ReminderStore.getInstance(context);
+            if (!store.get().reminders.isEmpty()) {
+                arm(context, store);
+            }
         }
+    }
 
-        long triggerTime = target.getTimeInMillis();
-        long delay = triggerTime - now.getTimeInMillis();
-        Log.d(TAG, "Trigger time calculated: " + triggerTime + " (delay: " + (delay / 1000 / 60) + " minutes)");
-        return triggerTime;
+    /**
+     * Recompute every trigger time for the current clock and time zone and re-arm.
+     * Called by TimeChangeReceiver after a manual time change, a time zone change
+     * (travel) or an app update.
+     */
+    public static void onTimeChanged(Context context) {
+        synchronized (lock) {
+            ReminderStore store = ReminderStore.getInstance(context);
+            if (store.get().reminders.isEmpty()) {
+                return;
+            }
+            store.update(engine -> {
+                engine.setClock(Clock.systemDefaultZone());
+                return null;
+            });
+            arm(context, store);
+            Log.d(TAG, "Reminders recomputed for " + ZoneId.systemDefault());
+        }
     }
 
     /**
-     * Reschedule reminders after device reboot.
-     * Call this from a BroadcastReceiver that handles BOOT_COMPLETED.
-     *
-     * @param context Application context
+     * Arm the single wakeup for the earliest queued reminder with the backend the
+     * exact-alarm permission allows, and cancel the backend used before if it changed.
      */
-    public static void rescheduleAfterBoot(Context context) {
-        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        boolean enabled = prefs.getBoolean("reminders_enabled", false);
-
-        if (enabled) {
-            int hour = prefs.getInt("reminder_hour", 9);
-            int minute = prefs.getInt("reminder_minute", 0);
-            scheduleReminder(context, hour, minute);
-            Log.d(TAG, "Reminders rescheduled after boot");
+    private static void arm(Context context, ReminderStore store) {
+        ReminderStore.Snapshot snapshot = store.get();
+        AlarmBackend backend = selectBackend(context);
+        if (snapshot.pendingBackend != backend.getId()) {
+            backendFor(snapshot.pendingBackend).cancel(context);
+        }
+
+        long triggerTime = snapshot.getNextTriggerAt();
+        if (triggerTime < 0) {
+            backend.cancel(context);
+            store.setPending(0, backend.getId());
+            Log.d(TAG, "No reminders scheduled, alarm canceled");
+            return;
+        }
+        Log.d(TAG, "Trigger time: " + triggerTime + " (" + new java.util.Date(triggerTime) + ")");
+
+        if (!backend.arm(context, triggerTime)) {
+            // Exact alarm refused after all (permission just revoked)
+            backend.cancel(context);
+            backend = backendFor(ReminderDeliveryLog.BACKEND_WORK_MANAGER);
+            if (!backend.arm(context, triggerTime)) {
+                Log.e(TAG, "Failed to schedule any alarm");
+                return;
+            }
+            Log.w(TAG, "Fallback: reminder scheduled with WorkManager");
+        }
+
+        store.setPending(triggerTime, backend.getId());
+    }
+
+    /**
+     * The exact alarm when allowed, otherwise WorkManager.
+     */
+    static AlarmBackend selectBackend(Context context) {
+        return backendFor(canScheduleExactAlarms(context)
+            ? ReminderDeliveryLog.BACKEND_EXACT_ALARM : ReminderDeliveryLog.BACKEND_WORK_MANAGER);
+    }
+
+    private static AlarmBackend backendFor(int id) {
+        // BACKEND_INEXACT_ALARM was an AlarmManager alarm on the same PendingIntent
+        return id == ReminderDeliveryLog.BACKEND_WORK_MANAGER ? workManagerBackend : exactAlarmBackend;
+    }
+
+    /**
+     * True if the armed trigger time has passed without a delivery.
+     */
+    static boolean isOverdue(Context context, long now) {
+        long pendingAt = ReminderStore.getInstance(context).get().pendingTriggerAt;
+        return pendingAt != 0 && now >= pendingAt;
+    }
+
+    /**
+     * Log how late the armed alarm fired. Called by ReminderAlarmReceiver before
+     * takeDueReminders re-arms. Alarms lost at reboot are re-armed in the past by
+     * rescheduleAfterBoot, fire immediately and are logged as missed here.
+     */
+    public static void recordDelivery(Context context, long firedAt) {
+        synchronized (lock) {
+            ReminderStore store = ReminderStore.getInstance(context);
+            ReminderStore.Snapshot snapshot = store.get();
+            long intendedAt = snapshot.pendingTriggerAt;
+            if (intendedAt == 0 || firedAt < intendedAt - ReminderEngine.COALESCE_WINDOW_MS) {
+                // Nothing armed, or a stale wakeup from before the last re-arm
+                return;
+            }
+            // Too late to be shown (device was off, alarm deferred for hours): a missed day
+            boolean missed = firedAt - intendedAt > ReminderEngine.MAX_LATE_MS;
+            appendDelivery(context, intendedAt, missed ? 0 : firedAt, snapshot.pendingBackend);
+            store.setPending(0, snapshot.pendingBackend);
+        }
+    }
+
+    public static ReminderDeliveryLog.Stats getDeliveryStats(Context context) throws IOException {
+        return getDeliveryLog(context).getStats(ZoneId.systemDefault());
+    }
+
+    /**
+     * Stats for one ReminderDeliveryLog.BACKEND_*, to compare how late each delivers.
+     */
+    public static ReminderDeliveryLog.Stats getDeliveryStats(Context context, int backend) throws IOException {
+        return getDeliveryLog(context).getStats(ZoneId.systemDefault(), backend);
+    }
+
+    private static void appendDelivery(Context context, long intendedAt, long firedAt, int backend) {
+        try {
+            getDeliveryLog(context).record(intendedAt, firedAt, backend);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not log reminder delivery: " + e.getMessage());
+        }
+    }
+
+    private static synchronized ReminderDeliveryLog getDeliveryLog(Context context) {
+        if (deliveryLog == null) {
+            deliveryLog = new ReminderDeliveryLog(
+                new File(context.getFilesDir(), "reminder-deliveries.bin"), DELIVERY_LOG_CAPACITY);
         }
+        return deliveryLog;
     }
 }
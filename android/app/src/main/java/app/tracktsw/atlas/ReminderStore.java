@@ -0,0 +1,260 @@
+package app.tracktsw.atlas;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.UserManager;
+import android.util.Log;
+
+import app.tracktsw.atlas.core.ReminderDeliveryLog;
+import app.tracktsw.atlas.core.ReminderEngine;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.time.Clock;
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Process-wide owner of the reminder configuration ("tsw_reminder_prefs").
+ * Preferences are parsed once; readers get an immutable Snapshot without locking, and
+ * writers mutate the ReminderEngine under a lock, publish a new snapshot and persist it
+ * write-behind (SharedPreferences.apply), so no caller waits on disk.
+ *
+ * The preferences live in device-protected storage so BootReceiver can re-arm the alarm
+ * on LOCKED_BOOT_COMPLETED, before the user unlocks. Older installs kept them in
+ * credential-protected storage; they are moved over the first time the store is opened
+ * while unlocked.
+ */
+public final class ReminderStore {
+    private static final String TAG = "ReminderStore";
+    private static final String PREFS_NAME = "tsw_reminder_prefs";
+    private static final String KEY_QUEUE = "reminder_queue";
+    // The alarm currently armed, so the receiver can log how late it fired
+    private static final String KEY_PENDING_AT = "pending_trigger_at";
+    private static final String KEY_PENDING_BACKEND = "pending_backend";
+    // Before AlarmBackend: true for an exact alarm, false for the inexact fallback
+    private static final String KEY_LEGACY_PENDING_EXACT = "pending_exact";
+    private static final String KEY_CHECK_IN_MINUTE = "check_in_minute";
+    private static final String KEY_ADAPTIVE = "adaptive_timing";
+    // Zone the stored trigger times were computed in
+    private static final String KEY_ZONE = "zone";
+
+    /** Id of the daily check-in reminder set through ReminderScheduler.scheduleReminder. */
+    public static final String CHECK_IN_ID = "check_in";
+
+    public static final class Snapshot {
+        /** Copies, earliest first */
+        public final List<ReminderEngine.Reminder> reminders;
+        /** Trigger time of the armed alarm, 0 if none */
+        public final long pendingTriggerAt;
+        /** ReminderDeliveryLog.BACKEND_* that armed it, kept after the alarm fired */
+        public final int pendingBackend;
+        /** Check-in time the user picked, as a minute of day; -1 if never set */
+        public final int checkInMinute;
+        /** Move the check-in reminder to the learned check-in time */
+        public final boolean adaptive;
+
+        Snapshot(List<ReminderEngine.Reminder> reminders, long pendingTriggerAt, int pendingBackend,
+                 int checkInMinute, boolean adaptive) {
+            this.reminders = Collections.unmodifiableList(reminders);
+            this.pendingTriggerAt = pendingTriggerAt;
+            this.pendingBackend = pendingBackend;
+            this.checkInMinute = checkInMinute;
+            this.adaptive = adaptive;
+        }
+
+        public ReminderEngine.Reminder get(String id) {
+            for (ReminderEngine.Reminder reminder : reminders) {
+                if (reminder.id.equals(id)) {
+                    return reminder;
+                }
+            }
+            return null;
+        }
+
+        /** When the single alarm should fire, or -1 if nothing is scheduled. */
+        public long getNextTriggerAt() {
+            return reminders.isEmpty() ? -1 : reminders.get(0).getNextAt();
+        }
+    }
+
+    private static volatile ReminderStore instance;
+
+    private final SharedPreferences prefs;
+    private final ReminderEngine engine;
+    private volatile Snapshot snapshot;
+    // Opened before the first unlock, possibly before the move to device-protected storage
+    private final boolean openedLocked;
+
+    private ReminderStore(Context context) {
+        Context storage = context.createDeviceProtectedStorageContext();
+        openedLocked = !isUserUnlocked(context);
+        if (!openedLocked) {
+            // No-op once moved
+            storage.moveSharedPreferencesFrom(context, PREFS_NAME);
+        }
+        prefs = storage.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        engine = new ReminderEngine(Clock.system(storedZone()), new Random());
+        load();
+        if (!engine.getClock().getZone().equals(ZoneId.systemDefault())) {
+            // The zone changed while the app wasn't running to hear about it
+            engine.setClock(Clock.systemDefaultZone());
+            persist();
+        }
+        List<ReminderEngine.Reminder> reminders = engine.getAll();
+        int checkInMinute = prefs.getInt(KEY_CHECK_IN_MINUTE, -1);
+        if (checkInMinute < 0) {
+            // Before adaptive timing the queued reminder always ran at the user's time
+            for (ReminderEngine.Reminder reminder : reminders) {
+                if (reminder.id.equals(CHECK_IN_ID)) {
+                    checkInMinute = reminder.hour * 60 + reminder.minute;
+                }
+            }
+        }
+        int pendingBackend = prefs.getInt(KEY_PENDING_BACKEND, prefs.getBoolean(KEY_LEGACY_PENDING_EXACT, true)
+            ? ReminderDeliveryLog.BACKEND_EXACT_ALARM : ReminderDeliveryLog.BACKEND_INEXACT_ALARM);
+        snapshot = new Snapshot(reminders, prefs.getLong(KEY_PENDING_AT, 0), pendingBackend,
+            checkInMinute, prefs.getBoolean(KEY_ADAPTIVE, false));
+    }
+
+    public static ReminderStore getInstance(Context context) {
+        ReminderStore store = instance;
+        if (store == null || store.openedLocked) {
+            synchronized (ReminderStore.class) {
+                store = instance;
+                if (store == null || (store.openedLocked && isUserUnlocked(context))) {
+                    store = new ReminderStore(context.getApplicationContext());
+                    instance = store;
+                }
+            }
+        }
+        return store;
+    }
+
+    private static boolean isUserUnlocked(Context context) {
+        UserManager userManager = context.getSystemService(UserManager.class);
+        return userManager == null || userManager.isUserUnlocked();
+    }
+
+    public Snapshot get() {
+        return snapshot;
+    }
+
+    /**
+     * Change the reminder queue. The engine must not escape the function.
+     */
+    public synchronized <T> T update(Function<ReminderEngine, T> change) {
+        T result = change.apply(engine);
+        snapshot = new Snapshot(engine.getAll(), snapshot.pendingTriggerAt, snapshot.pendingBackend,
+            snapshot.checkInMinute, snapshot.adaptive);
+        persist();
+        return result;
+    }
+
+    /** Record the armed trigger time (0 = none) and the backend that armed it. */
+    public synchronized void setPending(long triggerAt, int backend) {
+        if (snapshot.pendingTriggerAt == triggerAt && snapshot.pendingBackend == backend) {
+            return;
+        }
+        snapshot = new Snapshot(snapshot.reminders, triggerAt, backend, snapshot.checkInMinute, snapshot.adaptive);
+        prefs.edit()
+            .putLong(KEY_PENDING_AT, triggerAt)
+            .putInt(KEY_PENDING_BACKEND, backend)
+            .remove(KEY_LEGACY_PENDING_EXACT)
+            .apply();
+    }
+
+    /** Record the user's check-in time and whether it may be adapted. */
+    public synchronized void setCheckInPreferences(int checkInMinute, boolean adaptive) {
+        if (snapshot.checkInMinute == checkInMinute && snapshot.adaptive == adaptive) {
+            return;
+        }
+        snapshot = new Snapshot(snapshot.reminders, snapshot.pendingTriggerAt, snapshot.pendingBackend,
+            checkInMinute, adaptive);
+        prefs.edit()
+            .putInt(KEY_CHECK_IN_MINUTE, checkInMinute)
+            .putBoolean(KEY_ADAPTIVE, adaptive)
+            .apply();
+    }
+
+    private void persist() {
+        prefs.edit()
+            .putString(KEY_QUEUE, serialize(engine.getAll()))
+            .putString(KEY_ZONE, engine.getClock().getZone().getId())
+            .apply();
+    }
+
+    private ZoneId storedZone() {
+        try {
+            return ZoneId.of(prefs.getString(KEY_ZONE, ZoneId.systemDefault().getId()));
+        } catch (DateTimeException e) {
+            return ZoneId.systemDefault();
+        }
+    }
+
+    private void load() {
+        String stored = prefs.getString(KEY_QUEUE, null);
+
+        if (stored == null) {
+            // Installs from before the queue only stored a single check-in time
+            if (prefs.getBoolean("reminders_enabled", false)) {
+                engine.put(checkInReminder(prefs.getInt("reminder_hour", 9), prefs.getInt("reminder_minute", 0)),
+                    System.currentTimeMillis());
+            }
+            return;
+        }
+
+        try {
+            JSONArray items = new JSONArray(stored);
+            for (int i = 0; i < items.length(); i++) {
+                JSONObject item = items.getJSONObject(i);
+                ReminderEngine.Reminder reminder = new ReminderEngine.Reminder(
+                    item.getString("id"),
+                    ReminderEngine.Kind.fromValue(item.optString("kind")),
+                    item.getInt("hour"),
+                    item.getInt("minute"),
+                    item.optInt("windowMinutes", 0),
+                    item.optString("title"),
+                    item.optString("body"),
+                    item.isNull("route") ? null : item.optString("route", null));
+                engine.restore(reminder, item.getLong("nextAt"));
+            }
+        } catch (JSONException e) {
+            Log.e(TAG, "Corrupt reminder queue, resetting: " + e.getMessage());
+        }
+    }
+
+    private static String serialize(List<ReminderEngine.Reminder> reminders) {
+        JSONArray items = new JSONArray();
+        try {
+            for (ReminderEngine.Reminder reminder : reminders) {
+                JSONObject item = new JSONObject();
+                item.put("id", reminder.id);
+                item.put("kind", reminder.kind.value);
+                item.put("hour", reminder.hour);
+                item.put("minute", reminder.minute);
+                item.put("windowMinutes", reminder.windowMinutes);
+                item.put("title", reminder.title);
+                item.put("body", reminder.body);
+                item.put("route", reminder.route != null ? reminder.route : JSONObject.NULL);
+                item.put("nextAt", reminder.getNextAt());
+                items.put(item);
+            }
+        } catch (JSONException e) {
+            // Only thrown for non-finite numbers
+            throw new IllegalStateException(e);
+        }
+        return items.toString();
+    }
+
+    static ReminderEngine.Reminder checkInReminder(int hour, int minute) {
+        return new ReminderEngine.Reminder(CHECK_IN_ID, ReminderEngine.Kind.CHECK_IN, hour, minute, 0,
+            "Daily check-in ✨", "How is your skin today? Take a moment to log your progress.", "/check-in");
+    }
+}
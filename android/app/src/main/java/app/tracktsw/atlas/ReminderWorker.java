@@ -0,0 +1,42 @@
+package app.tracktsw.atlas;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+/**
+ * Reminder delivery for WorkManagerAlarmBackend. MODE_DELIVER shows whatever is due,
+ * like ReminderAlarmReceiver; MODE_WINDOW only checks for an overdue trigger and hands
+ * it to an expedited catch-up job.
+ */
+public class ReminderWorker extends Worker {
+    private static final String TAG = "ReminderWorker";
+    static final String KEY_MODE = "mode";
+    static final String MODE_DELIVER = "deliver";
+    static final String MODE_WINDOW = "window";
+
+    public ReminderWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        long now = System.currentTimeMillis();
+
+        if (MODE_WINDOW.equals(getInputData().getString(KEY_MODE))) {
+            if (ReminderScheduler.isOverdue(context, now)) {
+                Log.w(TAG, "Reminder overdue, starting catch-up");
+                WorkManagerAlarmBackend.requestCatchUp(context);
+            }
+            return Result.success();
+        }
+
+        ReminderAlarmReceiver.deliver(context, now);
+        return Result.success();
+    }
+}
@@ -0,0 +1,78 @@
+package app.tracktsw.atlas;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import app.tracktsw.atlas.core.SupabaseRestClient;
+import app.tracktsw.atlas.core.SupabaseStorageClient;
+
+/**
+ * The Supabase project URL, anon key and current user session, pushed from JS on every
+ * auth change so background workers can talk to Supabase while the WebView is gone.
+ */
+public class SupabaseSession {
+    private static final String PREFS_NAME = "tsw_supabase_session";
+    private static final String KEY_URL = "url";
+    private static final String KEY_ANON_KEY = "anon_key";
+    private static final String KEY_ACCESS_TOKEN = "access_token";
+    private static final String KEY_USER_ID = "user_id";
+
+    public final String url;
+    public final String anonKey;
+    public final String accessToken;
+    public final String userId;
+
+    private SupabaseSession(String url, String anonKey, String accessToken, String userId) {
+        this.url = url;
+        this.anonKey = anonKey;
+        this.accessToken = accessToken;
+        this.userId = userId;
+    }
+
+    /**
+     * The stored session, or null if the user is signed out.
+     */
+    public static SupabaseSession load(Context context) {
+        SharedPreferences prefs = getPrefs(context);
+        String url = prefs.getString(KEY_URL, null);
+        String anonKey = prefs.getString(KEY_ANON_KEY, null);
+        String accessToken = prefs.getString(KEY_ACCESS_TOKEN, null);
+        String userId = prefs.getString(KEY_USER_ID, null);
+        if (url == null || anonKey == null || accessToken == null || userId == null) {
+            return null;
+        }
+        return new SupabaseSession(url, anonKey, accessToken, userId);
+    }
+
+    public static void save(Context context, String url, String anonKey, String accessToken, String userId) {
+        getPrefs(context).edit()
+            .putString(KEY_URL, url)
+            .putString(KEY_ANON_KEY, anonKey)
+            .putString(KEY_ACCESS_TOKEN, accessToken)
+            .putString(KEY_USER_ID, userId)
+            .apply();
+    }
+
+    public static void clear(Context context) {
+        getPrefs(context).edit()
+            .remove(KEY_ACCESS_TOKEN)
+            .remove(KEY_USER_ID)
+            .apply();
+    }
+
+    public SupabaseStorageClient storageClient() {
+        return new SupabaseStorageClient(url, anonKey, accessToken);
+    }
+
+    public SupabaseRestClient restClient() {
+        return new SupabaseRestClient(url, anonKey, accessToken);
+    }
+
+    public String publicPhotoUrl(String path) {
+        return url + "/storage/v1/object/public/photos/" + path;
+    }
+
+    private static SharedPreferences getPrefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
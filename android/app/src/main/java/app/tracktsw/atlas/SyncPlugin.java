@@ -0,0 +1,110 @@
+package app.tracktsw.atlas;
+
+import android.util.Log;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import app.tracktsw.atlas.core.SyncEngine;
+
+import org.json.JSONObject;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Capacitor plugin for the native delta sync (SyncScheduler / SyncEngine).
+ * syncNow pulls only rows changed since the last sync and pushes queued mutations;
+ * enqueue writes a mutation to the local mirror and the outbox and schedules a
+ * background push, so it survives going offline or the app being killed.
+ */
+@CapacitorPlugin(name = "Sync")
+public class SyncPlugin extends Plugin {
+    private static final String TAG = "SyncPlugin";
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    /**
+     * Resolves { synced, pushed, pulled, deleted, rejected }; synced is false when
+     * there is no native session yet.
+     */
+    @PluginMethod
+    public void syncNow(PluginCall call) {
+        executor.execute(() -> {
+            try {
+                SyncEngine.Result result = SyncScheduler.syncNow(getContext());
+                JSObject ret = new JSObject();
+                ret.put("synced", result != null);
+                if (result != null) {
+                    ret.put("pushed", result.pushed);
+                    ret.put("pulled", result.pulled);
+                    ret.put("deleted", result.deleted);
+                    ret.put("rejected", result.rejected);
+                }
+                call.resolve(ret);
+            } catch (Exception e) {
+                Log.e(TAG, "Error syncing: " + e.getMessage());
+                // Whatever was left in the outbox is pushed by the background job
+                SyncScheduler.requestSync(getContext());
+                call.reject("Failed to sync", e);
+            }
+        });
+    }
+
+    /**
+     * Options: { table, op: 'insert' | 'update' | 'delete', row?, id?, clientRequestId? }.
+     * Resolves { queued } (false if clientRequestId was already queued).
+     */
+    @PluginMethod
+    public void enqueue(PluginCall call) {
+        LocalStore.Table table = LocalStore.Table.fromName(call.getString("table", ""));
+        SyncEngine.Op op = SyncEngine.Op.fromValue(call.getString("op", ""));
+        JSObject row = call.getObject("row");
+        String rowId = call.getString("id", row != null ? row.optString("id", null) : null);
+        if (table == null || op == null || rowId == null || (op != SyncEngine.Op.DELETE && row == null)) {
+            call.reject("A valid table, op, id and row are required");
+            return;
+        }
+        String clientRequestId = call.getString("clientRequestId", row != null ? row.optString("client_request_id", null) : null);
+
+        executor.execute(() -> {
+            SupabaseSession session = SupabaseSession.load(getContext());
+            if (session == null) {
+                call.reject("No native session; call UploadQueue.setSession first");
+                return;
+            }
+            try {
+                JSONObject payload = row;
+                if (payload != null && !payload.has("user_id")) {
+                    payload.put("user_id", session.userId);
+                }
+                boolean queued = new LocalSyncStore(getContext(), session.userId)
+                    .enqueue(table, op, rowId, clientRequestId, payload);
+                SyncScheduler.requestSync(getContext());
+
+                JSObject ret = new JSObject();
+                ret.put("queued", queued);
+                call.resolve(ret);
+            } catch (Exception e) {
+                Log.e(TAG, "Error queuing " + op.value + " on " + table.remoteName + ": " + e.getMessage());
+                call.reject("Failed to queue change", e);
+            }
+        });
+    }
+
+    /**
+     * Resolves { pending } (mutations not yet pushed).
+     */
+    @PluginMethod
+    public void getStatus(PluginCall call) {
+        executor.execute(() -> {
+            SupabaseSession session = SupabaseSession.load(getContext());
+            JSObject ret = new JSObject();
+            ret.put("pending", session != null ? new LocalSyncStore(getContext(), session.userId).getPendingCount() : 0);
+            call.resolve(ret);
+        });
+    }
+}
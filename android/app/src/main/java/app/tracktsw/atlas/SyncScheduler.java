@@ -0,0 +1,92 @@
+package app.tracktsw.atlas;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.OutOfQuotaPolicy;
+import androidx.work.WorkManager;
+
+import app.tracktsw.atlas.core.SupabaseHttpException;
+import app.tracktsw.atlas.core.SyncEngine;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs SyncEngine for the signed-in user, either inline (syncNow, for the foreground
+ * app) or as a WorkManager job with a network constraint and exponential backoff.
+ * Runs are serialized so a foreground sync and the worker never interleave.
+ */
+public class SyncScheduler {
+    private static final String TAG = "SyncScheduler";
+    public static final String WORK_NAME = "atlas-sync";
+    private static final long BACKOFF_SECONDS = 30;
+
+    static final List<String> TABLES = Arrays.asList(
+        LocalStore.Table.CHECK_INS.remoteName,
+        LocalStore.Table.PHOTOS.remoteName,
+        LocalStore.Table.JOURNAL.remoteName);
+
+    private static final ReentrantLock runLock = new ReentrantLock();
+
+    /**
+     * Schedule a background sync. If one is already running, another runs after it so
+     * mutations queued in the meantime are pushed.
+     */
+    public static void requestSync(Context context) {
+        Constraints constraints = new Constraints.Builder()
+            .setRequiredNetworkType(NetworkType.CONNECTED)
+            .build();
+
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(SyncWorker.class)
+            .setConstraints(constraints)
+            .setExpedited(OutOfQuotaPolicy.RUN_AS_NON_EXPEDITED_WORK_REQUEST)
+            .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_SECONDS, TimeUnit.SECONDS)
+            .build();
+
+        WorkManager.getInstance(context)
+            .enqueueUniqueWork(WORK_NAME, ExistingWorkPolicy.APPEND_OR_REPLACE, request);
+    }
+
+    /**
+     * Run a sync on the calling thread. Returns null if the user is signed out.
+     */
+    public static SyncEngine.Result syncNow(Context context) throws IOException {
+        SupabaseSession session = SupabaseSession.load(context);
+        if (session == null) {
+            return null;
+        }
+
+        runLock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            SyncEngine engine = new SyncEngine(session.restClient(),
+                new LocalSyncStore(context, session.userId), session.userId, TABLES);
+            SyncEngine.Result result = engine.run();
+            Log.d(TAG, "Synced in " + (System.currentTimeMillis() - start) + "ms: pushed " + result.pushed
+                + ", pulled " + result.pulled + ", deleted " + result.deleted + ", rejected " + result.rejected);
+            return result;
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    /**
+     * Network errors, 5xx/429 and expired tokens are worth retrying.
+     */
+    static boolean isTransient(IOException error) {
+        if (error instanceof SupabaseHttpException) {
+            SupabaseHttpException httpError = (SupabaseHttpException) error;
+            return httpError.isRetryable() || httpError.isAuthError();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,51 @@
+package app.tracktsw.atlas;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Data;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import app.tracktsw.atlas.core.SyncEngine;
+
+import java.io.IOException;
+
+/**
+ * Background delta sync (see SyncScheduler). Retries with exponential backoff on
+ * network, server and expired-token errors; the outbox and watermarks are durable,
+ * so a retry continues where the last attempt stopped.
+ */
+public class SyncWorker extends Worker {
+    private static final String TAG = "SyncWorker";
+
+    public SyncWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        try {
+            SyncEngine.Result result = SyncScheduler.syncNow(getApplicationContext());
+            if (result == null) {
+                // Signed out: queued mutations wait for the next sign-in
+                return Result.success();
+            }
+            return Result.success(new Data.Builder()
+                .putInt("pushed", result.pushed)
+                .putInt("pulled", result.pulled)
+                .putInt("deleted", result.deleted)
+                .putInt("rejected", result.rejected)
+                .build());
+        } catch (IOException e) {
+            if (SyncScheduler.isTransient(e)) {
+                Log.w(TAG, "Sync will retry: " + e.getMessage());
+                return Result.retry();
+            }
+            Log.e(TAG, "Sync failed: " + e.getMessage());
+            return Result.failure();
+        }
+    }
+}
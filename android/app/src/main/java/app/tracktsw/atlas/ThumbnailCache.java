@@ -0,0 +1,349 @@
+package app.tracktsw.atlas;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+import android.util.LruCache;
+
+import app.tracktsw.atlas.core.DiskLruCache;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Two-level cache (memory + disk LRU) for images in the public photos bucket.
+ * Hits are served without copying: a FileInputStream on the cached file, or a
+ * ByteArrayInputStream over the shared in-memory bytes.
+ *
+ * Object paths contain the photoId and uploads use a one-year cache-control, so cached
+ * entries never need revalidation. Thumbnails are also kept in memory; medium images
+ * only on disk. Originals are never cached (they are large and only used for export).
+ *
+ * Concurrent requests for the same URL share a single download.
+ *
+ * Opening the disk cache scans its directory, so the app opens it with openAsync at
+ * startup instead of on the main thread; getIfOpen is null until then.
+ */
+public class ThumbnailCache {
+    private static final String TAG = "ThumbnailCache";
+    private static final String CACHE_DIR = "photo-cache";
+    private static final String PHOTOS_PATH = "/storage/v1/object/public/photos/";
+
+    private static final long DISK_MAX_BYTES = 150L * 1024 * 1024;
+    private static final int MEMORY_MAX_BYTES = 8 * 1024 * 1024;
+    private static final int CONNECT_TIMEOUT_MS = 10_000;
+    private static final int READ_TIMEOUT_MS = 20_000;
+    // Prefetched entries tracked for usefulness; older ones count as wasted
+    private static final int MAX_TRACKED_PREFETCHES = 1000;
+
+    private static volatile ThumbnailCache instance;
+    // Not the class lock: getInstance holds that for the whole open
+    private static final AtomicBoolean opening = new AtomicBoolean();
+
+    private final DiskLruCache disk;
+    private final LruCache<String, byte[]> memory = new LruCache<String, byte[]>(MEMORY_MAX_BYTES) {
+        @Override
+        protected int sizeOf(String key, byte[] value) {
+            return value.length;
+        }
+    };
+    private final ConcurrentHashMap<String, FutureTask<File>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong usefulPrefetches = new AtomicLong();
+    private final AtomicLong wastedPrefetches = new AtomicLong();
+
+    // Keys warmed by the prefetcher that haven't been displayed yet
+    private final Map<String, Boolean> unusedPrefetches = Collections.synchronizedMap(
+        new LinkedHashMap<String, Boolean>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                if (size() > MAX_TRACKED_PREFETCHES) {
+                    wastedPrefetches.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        });
+
+    /**
+     * Start opening the cache on a background thread, if it isn't open or opening yet.
+     */
+    public static void openAsync(Context context) {
+        Context appContext = context.getApplicationContext();
+        if (instance != null || !opening.compareAndSet(false, true)) {
+            return;
+        }
+        new Thread(() -> {
+            try {
+                getInstance(appContext);
+            } catch (IOException e) {
+                Log.e(TAG, "Error opening photo cache: " + e.getMessage());
+            } finally {
+                opening.set(false);
+            }
+        }, "photo-cache-open").start();
+    }
+
+    /**
+     * The cache if it is already open, without blocking; null while it is still opening.
+     */
+    public static ThumbnailCache getIfOpen() {
+        return instance;
+    }
+
+    /**
+     * The cache, opening it on the calling thread if needed. Not for the main thread.
+     */
+    public static ThumbnailCache getInstance(Context context) throws IOException {
+        if (instance == null) {
+            synchronized (ThumbnailCache.class) {
+                if (instance == null) {
+                    File dir = new File(context.getApplicationContext().getCacheDir(), CACHE_DIR);
+                    instance = new ThumbnailCache(new DiskLruCache(dir, DISK_MAX_BYTES));
+                }
+            }
+        }
+        return instance;
+    }
+
+    private ThumbnailCache(DiskLruCache disk) {
+        this.disk = disk;
+    }
+
+    /**
+     * Whether the URL is a photos-bucket image this cache handles.
+     */
+    public static boolean isCacheable(Uri uri) {
+        String path = uri.getPath();
+        return path != null
+            && path.startsWith(PHOTOS_PATH)
+            && ("https".equals(uri.getScheme()) || "http".equals(uri.getScheme()))
+            && (path.endsWith("/thumb.webp") || path.endsWith("/medium.webp"));
+    }
+
+    /**
+     * Open the image for a cacheable URL, downloading it on a miss.
+     */
+    public InputStream open(Uri uri) throws IOException {
+        String key = keyFor(uri);
+
+        byte[] bytes = memory.get(key);
+        if (bytes != null) {
+            memoryHits.incrementAndGet();
+            return new ByteArrayInputStream(bytes);
+        }
+
+        File file = disk.get(key);
+        if (file != null) {
+            diskHits.incrementAndGet();
+            if (unusedPrefetches.remove(key) != null) {
+                usefulPrefetches.incrementAndGet();
+            }
+            return new FileInputStream(file);
+        }
+
+        misses.incrementAndGet();
+        file = fetch(uri, key);
+        if (isThumb(uri) && file.length() <= MEMORY_MAX_BYTES / 16) {
+            // Thumbs are ~20-40KB; keep freshly downloaded ones hot for scroll-back
+            byte[] data = readFully(file);
+            memory.put(key, data);
+            return new ByteArrayInputStream(data);
+        }
+        return new FileInputStream(file);
+    }
+
+    /**
+     * Prefetch into the disk cache if not already there. Returns true if a network
+     * fetch was needed. A later open() of the same URL counts as a useful prefetch.
+     */
+    public boolean warm(Uri uri) throws IOException {
+        String key = keyFor(uri);
+        if (memory.get(key) != null || disk.contains(key)) {
+            return false;
+        }
+        fetch(uri, key);
+        unusedPrefetches.put(key, Boolean.TRUE);
+        return true;
+    }
+
+    public boolean isCached(Uri uri) {
+        String key = keyFor(uri);
+        return memory.get(key) != null || disk.contains(key);
+    }
+
+    public void clear() {
+        unusedPrefetches.clear();
+        memory.evictAll();
+        disk.clear();
+    }
+
+    public long getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    public long getDiskHits() {
+        return diskHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    public long getUsefulPrefetches() {
+        return usefulPrefetches.get();
+    }
+
+    /**
+     * Prefetched entries that aged out of tracking without ever being displayed.
+     */
+    public long getWastedPrefetches() {
+        return wastedPrefetches.get();
+    }
+
+    /**
+     * Prefetched entries not displayed yet (may still become useful).
+     */
+    public int getPendingPrefetches() {
+        return unusedPrefetches.size();
+    }
+
+    public long getDiskSize() {
+        return disk.size();
+    }
+
+    public int getDiskCount() {
+        return disk.count();
+    }
+
+    public int getMemorySize() {
+        return memory.size();
+    }
+
+    public void resetStats() {
+        memoryHits.set(0);
+        diskHits.set(0);
+        misses.set(0);
+        errors.set(0);
+        usefulPrefetches.set(0);
+        wastedPrefetches.set(0);
+    }
+
+    private File fetch(Uri uri, String key) throws IOException {
+        FutureTask<File> task = new FutureTask<>(() -> download(uri, key));
+        FutureTask<File> existing = inFlight.putIfAbsent(key, task);
+        if (existing == null) {
+            try {
+                task.run();
+            } finally {
+                inFlight.remove(key, task);
+            }
+        } else {
+            task = existing;
+        }
+
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            errors.incrementAndGet();
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted fetching " + uri);
+        }
+    }
+
+    private File download(Uri uri, String key) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(uri.toString()).openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        connection.setReadTimeout(READ_TIMEOUT_MS);
+        try {
+            int status = connection.getResponseCode();
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new IOException("HTTP " + status + " for " + uri.getPath());
+            }
+
+            File temp = disk.newTempFile();
+            try (InputStream in = connection.getInputStream();
+                 OutputStream out = new FileOutputStream(temp)) {
+                byte[] buffer = new byte[16 * 1024];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+            } catch (IOException e) {
+                //noinspection ResultOfMethodCallIgnored
+                temp.delete();
+                throw e;
+            }
+            return disk.commit(key, temp);
+        } catch (IOException e) {
+            connection.disconnect();
+            Log.w(TAG, "Fetch failed for " + uri.getPath() + ": " + e.getMessage());
+            throw e;
+        }
+    }
+
+    private static boolean isThumb(Uri uri) {
+        String path = uri.getPath();
+        return path != null && path.endsWith("/thumb.webp");
+    }
+
+    /**
+     * Cache key from the object path only, so query strings (cache busters,
+     * transforms) don't create duplicates.
+     */
+    static String keyFor(Uri uri) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(String.valueOf(uri.getPath()).getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] readFully(File file) throws IOException {
+        byte[] data = new byte[(int) file.length()];
+        try (InputStream in = new FileInputStream(file)) {
+            int offset = 0;
+            int read;
+            while (offset < data.length && (read = in.read(data, offset, data.length - offset)) != -1) {
+                offset += read;
+            }
+        }
+        return data;
+    }
+}
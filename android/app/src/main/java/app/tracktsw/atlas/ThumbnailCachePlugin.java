@@ -0,0 +1,155 @@
+package app.tracktsw.atlas;
+
+import android.util.Log;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import org.json.JSONException;
+
+import java.util.List;
+
+/**
+ * Capacitor plugin exposing the native photo cache that AtlasWebViewClient serves
+ * photos-bucket images from, and the prefetcher that warms it ahead of scrolling.
+ */
+@CapacitorPlugin(name = "ThumbnailCache")
+public class ThumbnailCachePlugin extends Plugin {
+    private static final String TAG = "ThumbnailCachePlugin";
+
+    private ThumbnailCache cache;
+    private ThumbnailPrefetcher prefetcher;
+
+    /**
+     * Open the cache on first use. Plugin methods run on the plugin thread, so this may
+     * block there until the disk cache is open; load() runs on the main thread and can't.
+     */
+    private synchronized boolean open() {
+        if (cache == null) {
+            try {
+                cache = ThumbnailCache.getInstance(getContext());
+                prefetcher = new ThumbnailPrefetcher(cache);
+            } catch (Exception e) {
+                Log.e(TAG, "Error opening thumbnail cache: " + e.getMessage());
+            }
+        }
+        return cache != null;
+    }
+
+    /**
+     * Warm the cache for photos about to scroll into view.
+     * Options: { urls, priority = 0, replace = false }. Higher priority runs first;
+     * replace cancels queued requests that are not in urls.
+     */
+    @PluginMethod
+    public void prefetch(PluginCall call) {
+        if (!open()) {
+            call.reject("Thumbnail cache unavailable");
+            return;
+        }
+        JSArray urls = call.getArray("urls");
+        if (urls == null) {
+            call.reject("urls is required");
+            return;
+        }
+
+        try {
+            List<String> urlList = urls.toList();
+            prefetcher.prefetch(urlList, call.getInt("priority", 0), call.getBoolean("replace", false));
+            call.resolve();
+        } catch (JSONException e) {
+            call.reject("urls must be an array of strings", e);
+        }
+    }
+
+    /**
+     * Cancel queued prefetches for the given urls, or all of them if urls is omitted.
+     */
+    @PluginMethod
+    public void cancelPrefetch(PluginCall call) {
+        // Nothing was queued if the cache was never used
+        if (prefetcher == null) {
+            call.resolve();
+            return;
+        }
+        JSArray urls = call.getArray("urls");
+        if (urls == null) {
+            prefetcher.cancelAll();
+            call.resolve();
+            return;
+        }
+
+        try {
+            List<String> urlList = urls.toList();
+            prefetcher.cancel(urlList);
+            call.resolve();
+        } catch (JSONException e) {
+            call.reject("urls must be an array of strings", e);
+        }
+    }
+
+    /**
+     * Resolves { memoryHits, diskHits, misses, errors, hitRate, diskBytes, diskEntries,
+     * memoryBytes, prefetch: { requested, alreadyCached, fetched, cancelled, failed,
+     * queued, useful, wasted, pending } }.
+     */
+    @PluginMethod
+    public void getStats(PluginCall call) {
+        if (!open()) {
+            call.reject("Thumbnail cache unavailable");
+            return;
+        }
+
+        long hits = cache.getMemoryHits() + cache.getDiskHits();
+        long total = hits + cache.getMisses();
+
+        JSObject ret = new JSObject();
+        ret.put("memoryHits", cache.getMemoryHits());
+        ret.put("diskHits", cache.getDiskHits());
+        ret.put("misses", cache.getMisses());
+        ret.put("errors", cache.getErrors());
+        ret.put("hitRate", total == 0 ? 0 : (double) hits / total);
+        ret.put("diskBytes", cache.getDiskSize());
+        ret.put("diskEntries", cache.getDiskCount());
+        ret.put("memoryBytes", cache.getMemorySize());
+
+        JSObject prefetch = new JSObject();
+        prefetch.put("requested", prefetcher.getRequested());
+        prefetch.put("alreadyCached", prefetcher.getAlreadyCached());
+        prefetch.put("fetched", prefetcher.getFetched());
+        prefetch.put("cancelled", prefetcher.getCancelled());
+        prefetch.put("failed", prefetcher.getFailed());
+        prefetch.put("queued", prefetcher.getQueued());
+        prefetch.put("useful", cache.getUsefulPrefetches());
+        prefetch.put("wasted", cache.getWastedPrefetches());
+        prefetch.put("pending", cache.getPendingPrefetches());
+        ret.put("prefetch", prefetch);
+        call.resolve(ret);
+    }
+
+    @PluginMethod
+    public void resetStats(PluginCall call) {
+        if (open()) {
+            cache.resetStats();
+            prefetcher.resetStats();
+        }
+        call.resolve();
+    }
+
+    @PluginMethod
+    public void clear(PluginCall call) {
+        if (!open()) {
+            call.resolve();
+            return;
+        }
+        prefetcher.cancelAll();
+        getBridge().execute(() -> {
+            cache.clear();
+            call.resolve();
+        });
+    }
+}
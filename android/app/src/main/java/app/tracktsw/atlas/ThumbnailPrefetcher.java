@@ -0,0 +1,174 @@
+package app.tracktsw.atlas;
+
+import android.net.Uri;
+import android.util.Log;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Warms ThumbnailCache ahead of the photo grid so cells don't pop in on fast flings.
+ *
+ * Requests run on a small executor ordered by priority (higher first, then request
+ * order). Queued requests can be cancelled when they scroll out of range; a download
+ * that already started is left to finish since the WebView may be waiting on it too.
+ */
+public class ThumbnailPrefetcher {
+    private static final String TAG = "ThumbnailPrefetcher";
+    // Leave network headroom for the images the WebView is loading right now
+    private static final int THREADS = 2;
+
+    private final ThumbnailCache cache;
+    private final ThreadPoolExecutor executor;
+    // Queued (not yet started) requests by URL
+    private final Map<String, Task> queued = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicLong alreadyCached = new AtomicLong();
+    private final AtomicLong fetched = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public ThumbnailPrefetcher(ThumbnailCache cache) {
+        this.cache = cache;
+        this.executor = new ThreadPoolExecutor(THREADS, THREADS, 30, TimeUnit.SECONDS,
+            new PriorityBlockingQueue<>());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queue URLs for prefetching in list order. With replace, queued requests not in
+     * this list are cancelled first (the visible window moved on).
+     */
+    public void prefetch(List<String> urls, int priority, boolean replace) {
+        if (replace) {
+            Set<String> keep = new HashSet<>(urls);
+            cancelWhere(url -> !keep.contains(url));
+        }
+
+        for (String url : urls) {
+            Uri uri = Uri.parse(url);
+            if (!ThumbnailCache.isCacheable(uri)) continue;
+
+            requested.incrementAndGet();
+            if (cache.isCached(uri)) {
+                alreadyCached.incrementAndGet();
+                continue;
+            }
+
+            Task existing = queued.get(url);
+            if (existing != null) {
+                if (existing.priority >= priority) continue;
+                // Re-queue at the higher priority
+                if (executor.remove(existing)) {
+                    queued.remove(url, existing);
+                }
+            }
+
+            Task task = new Task(url, uri, priority, sequence.getAndIncrement());
+            if (queued.putIfAbsent(url, task) == null) {
+                executor.execute(task);
+            }
+        }
+    }
+
+    public void cancel(List<String> urls) {
+        Set<String> targets = new HashSet<>(urls);
+        cancelWhere(targets::contains);
+    }
+
+    public void cancelAll() {
+        cancelWhere(url -> true);
+    }
+
+    public long getRequested() {
+        return requested.get();
+    }
+
+    public long getAlreadyCached() {
+        return alreadyCached.get();
+    }
+
+    public long getFetched() {
+        return fetched.get();
+    }
+
+    public long getCancelled() {
+        return cancelled.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public int getQueued() {
+        return queued.size();
+    }
+
+    public void resetStats() {
+        requested.set(0);
+        alreadyCached.set(0);
+        fetched.set(0);
+        cancelled.set(0);
+        failed.set(0);
+    }
+
+    private void cancelWhere(Predicate<String> filter) {
+        Iterator<Map.Entry<String, Task>> it = queued.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Task> entry = it.next();
+            if (filter.test(entry.getKey()) && executor.remove(entry.getValue())) {
+                it.remove();
+                cancelled.incrementAndGet();
+            }
+        }
+    }
+
+    private final class Task implements Runnable, Comparable<Task> {
+        final String url;
+        final Uri uri;
+        final int priority;
+        final long sequence;
+
+        Task(String url, Uri uri, int priority, long sequence) {
+            this.url = url;
+            this.uri = uri;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            queued.remove(url, this);
+            try {
+                if (cache.warm(uri)) {
+                    fetched.incrementAndGet();
+                } else {
+                    // Loaded by the WebView while this was queued
+                    alreadyCached.incrementAndGet();
+                }
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                Log.w(TAG, "Prefetch failed for " + uri.getPath() + ": " + e.getMessage());
+            }
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            if (priority != other.priority) {
+                return Integer.compare(other.priority, priority);
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package app.tracktsw.atlas;
+
+import android.app.AlarmManager;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Recomputes the reminder alarm when the wall clock moves under it: a manual time
+ * change, a time zone change (travel) or an app update. Without this the armed alarm
+ * stays at the old instant until it fires, an hour or more off local time.
+ * Also re-arms when the exact-alarm permission changes, to switch AlarmBackend.
+ */
+public class TimeChangeReceiver extends BroadcastReceiver {
+    private static final String TAG = "TimeChangeReceiver";
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        String action = intent.getAction();
+        boolean permissionChanged = AlarmManager.ACTION_SCHEDULE_EXACT_ALARM_PERMISSION_STATE_CHANGED.equals(action);
+        if (!permissionChanged
+                && !Intent.ACTION_TIME_CHANGED.equals(action)
+                && !Intent.ACTION_TIMEZONE_CHANGED.equals(action)
+                && !Intent.ACTION_MY_PACKAGE_REPLACED.equals(action)) {
+            return;
+        }
+
+        Log.d(TAG, "Rescheduling reminders after " + action);
+        Context appContext = context.getApplicationContext();
+        PendingResult pendingResult = goAsync();
+        executor.execute(() -> {
+            try {
+                if (permissionChanged) {
+                    ReminderScheduler.rearm(appContext);
+                } else {
+                    ReminderScheduler.onTimeChanged(appContext);
+                }
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Error rescheduling reminders: " + e.getMessage());
+            } finally {
+                pendingResult.finish();
+            }
+        });
+    }
+}
@@ -0,0 +1,222 @@
+package app.tracktsw.atlas;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.OutOfQuotaPolicy;
+import androidx.work.WorkManager;
+
+import app.tracktsw.atlas.core.SupabaseStorageClient;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persistent queue of photo uploads backed by WorkManager.
+ *
+ * Derivatives written by PhotoDerivativeWriter are moved out of the cache (which the
+ * OS may clear) into filesDir/upload-queue/{photoId}/, and the row metadata travels as
+ * the worker's input Data, which WorkManager persists. Work survives process death and
+ * reboots, runs expedited when quota allows, and waits for connectivity.
+ *
+ * Uploads rejected for the session (401/403, expired token) are parked rather than
+ * retried: the worker fails, its files stay, and resumeParked queues them again once
+ * the app provides a new session.
+ *
+ * Each upload carries the id of the user who queued it. The worker drops it if a
+ * different user is signed in by the time it runs, so a photo never lands in another
+ * account.
+ */
+public class UploadQueue {
+    private static final String TAG = "UploadQueue";
+    private static final String QUEUE_DIR = "upload-queue";
+    private static final String RESUME_PREFS_NAME = "tsw_upload_resume";
+    // photoId -> { userId, bodyPart, takenAt, notes } of uploads waiting for a new session
+    private static final String PARKED_PREFS_NAME = "tsw_upload_parked";
+
+    public static final String WORK_TAG = "photo-upload";
+    static final String WORK_NAME_PREFIX = "photo-upload-";
+    static final String PHOTO_TAG_PREFIX = "photo:";
+
+    static final String KEY_PHOTO_ID = "photoId";
+    static final String KEY_USER_ID = "userId";
+    static final String KEY_BODY_PART = "bodyPart";
+    static final String KEY_TAKEN_AT = "takenAt";
+    static final String KEY_NOTES = "notes";
+    static final String KEY_PROGRESS = "progress";
+    static final String KEY_ERROR = "error";
+    static final String KEY_PARKED = "parked";
+
+    static final String THUMB_FILE = "thumb.webp";
+    static final String MEDIUM_FILE = "medium.webp";
+    static final String ORIGINAL_FILE = "original.jpg";
+
+    private static final long BACKOFF_SECONDS = 30;
+
+    /**
+     * Queue the derivatives of an already-processed photo for upload.
+     * Enqueuing the same photoId twice keeps the existing work.
+     */
+    public static void enqueue(Context context, String photoId, String userId, String bodyPart, String takenAt,
+                               String notes) throws IOException {
+        File source = PhotoDerivativeWriter.getPhotoDir(context, photoId);
+        File target = getQueueDir(context, photoId);
+        if (source.isDirectory()) {
+            moveDir(source, target);
+        }
+        if (!new File(target, THUMB_FILE).isFile() || !new File(target, MEDIUM_FILE).isFile()) {
+            throw new IOException("No processed photo for " + photoId);
+        }
+
+        Data input = new Data.Builder()
+            .putString(KEY_PHOTO_ID, photoId)
+            .putString(KEY_USER_ID, userId)
+            .putString(KEY_BODY_PART, bodyPart)
+            .putString(KEY_TAKEN_AT, takenAt)
+            .putString(KEY_NOTES, notes)
+            .build();
+
+        Constraints constraints = new Constraints.Builder()
+            .setRequiredNetworkType(NetworkType.CONNECTED)
+            .build();
+
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(PhotoUploadWorker.class)
+            .setInputData(input)
+            .setConstraints(constraints)
+            .setExpedited(OutOfQuotaPolicy.RUN_AS_NON_EXPEDITED_WORK_REQUEST)
+            .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_SECONDS, TimeUnit.SECONDS)
+            .addTag(WORK_TAG)
+            .addTag(PHOTO_TAG_PREFIX + photoId)
+            .build();
+
+        WorkManager.getInstance(context)
+            .enqueueUniqueWork(WORK_NAME_PREFIX + photoId, ExistingWorkPolicy.KEEP, request);
+        Log.d(TAG, "Queued upload for " + photoId);
+    }
+
+    public static void cancel(Context context, String photoId) {
+        WorkManager.getInstance(context).cancelUniqueWork(WORK_NAME_PREFIX + photoId);
+        parkedPrefs(context).edit().remove(photoId).apply();
+        deleteFiles(context, photoId);
+    }
+
+    /**
+     * Keep a photo the server refused for the current session until resumeParked. Its
+     * files stay in the queue directory.
+     */
+    static void park(Context context, String photoId, String userId, String bodyPart, String takenAt,
+                     String notes) {
+        try {
+            JSONObject entry = new JSONObject();
+            entry.put(KEY_USER_ID, userId);
+            entry.put(KEY_BODY_PART, bodyPart);
+            entry.put(KEY_TAKEN_AT, takenAt != null ? takenAt : JSONObject.NULL);
+            entry.put(KEY_NOTES, notes != null ? notes : JSONObject.NULL);
+            parkedPrefs(context).edit().putString(photoId, entry.toString()).commit();
+        } catch (JSONException e) {
+            Log.e(TAG, "Could not park " + photoId + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Queue every parked upload again; call once a new session is stored. Uploads parked
+     * for another user are dropped by the worker.
+     */
+    static void resumeParked(Context context) {
+        SharedPreferences prefs = parkedPrefs(context);
+        Map<String, ?> parked = prefs.getAll();
+        if (parked.isEmpty()) {
+            return;
+        }
+        SharedPreferences.Editor editor = prefs.edit();
+        for (Map.Entry<String, ?> entry : parked.entrySet()) {
+            String photoId = entry.getKey();
+            editor.remove(photoId);
+            try {
+                JSONObject metadata = new JSONObject(String.valueOf(entry.getValue()));
+                enqueue(context, photoId, metadata.getString(KEY_USER_ID), metadata.getString(KEY_BODY_PART),
+                    metadata.isNull(KEY_TAKEN_AT) ? null : metadata.getString(KEY_TAKEN_AT),
+                    metadata.isNull(KEY_NOTES) ? null : metadata.getString(KEY_NOTES));
+            } catch (IOException | JSONException e) {
+                Log.e(TAG, "Dropping parked upload " + photoId + ": " + e.getMessage());
+                deleteFiles(context, photoId);
+            }
+        }
+        editor.apply();
+        Log.d(TAG, "Resumed " + parked.size() + " parked uploads");
+    }
+
+    private static SharedPreferences parkedPrefs(Context context) {
+        return context.getSharedPreferences(PARKED_PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    public static File getQueueDir(Context context, String photoId) {
+        return new File(new File(context.getFilesDir(), QUEUE_DIR), photoId);
+    }
+
+    static void deleteFiles(Context context, String photoId) {
+        File dir = getQueueDir(context, photoId);
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+            }
+        }
+        //noinspection ResultOfMethodCallIgnored
+        dir.delete();
+    }
+
+    /**
+     * TUS upload URLs keyed by object path, so an interrupted original resumes
+     * from the last acknowledged chunk on the next attempt.
+     */
+    static SupabaseStorageClient.ResumeStore resumeStore(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(RESUME_PREFS_NAME, Context.MODE_PRIVATE);
+        return new SupabaseStorageClient.ResumeStore() {
+            @Override
+            public String get(String key) {
+                return prefs.getString(key, null);
+            }
+
+            @Override
+            public void put(String key, String uploadUrl) {
+                prefs.edit().putString(key, uploadUrl).commit();
+            }
+
+            @Override
+            public void remove(String key) {
+                prefs.edit().remove(key).apply();
+            }
+        };
+    }
+
+    private static void moveDir(File source, File target) throws IOException {
+        if (!target.isDirectory() && !target.mkdirs()) {
+            throw new IOException("Could not create " + target);
+        }
+        File[] files = source.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                // Same filesystem (app data partition), so this is a rename, not a copy
+                if (!file.renameTo(new File(target, file.getName()))) {
+                    throw new IOException("Could not move " + file);
+                }
+            }
+        }
+        //noinspection ResultOfMethodCallIgnored
+        source.delete();
+    }
+}
@@ -0,0 +1,205 @@
+package app.tracktsw.atlas;
+
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+import androidx.work.Data;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+/**
+ * Capacitor plugin for the background photo upload queue.
+ * JS processes a photo with PhotoProcessor, then hands the photoId to enqueue; the
+ * upload continues in WorkManager even if the app is backgrounded or killed.
+ *
+ * Emits "uploadProgress" events: { photoId, state, progress, error? } where state is
+ * one of queued, uploading, succeeded, failed, parked, cancelled. parked uploads were
+ * refused for the session and go again after the next setSession.
+ */
+@CapacitorPlugin(name = "UploadQueue")
+public class UploadQueuePlugin extends Plugin {
+    private static final String TAG = "UploadQueuePlugin";
+    private static final Pattern PHOTO_ID_PATTERN = Pattern.compile("[A-Za-z0-9-]{1,64}");
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private LiveData<List<WorkInfo>> workInfos;
+    private Observer<List<WorkInfo>> observer;
+    // Last event sent per work request, so unchanged items aren't re-emitted
+    private final Map<UUID, String> lastEvents = new HashMap<>();
+
+    @Override
+    public void load() {
+        workInfos = WorkManager.getInstance(getContext()).getWorkInfosByTagLiveData(UploadQueue.WORK_TAG);
+        observer = this::onWorkInfosChanged;
+        getActivity().runOnUiThread(() -> workInfos.observeForever(observer));
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        if (workInfos != null && observer != null) {
+            workInfos.removeObserver(observer);
+        }
+    }
+
+    /**
+     * Store the Supabase session for background workers. Call on every auth change;
+     * pass no accessToken to clear it on sign-out. A new session resumes uploads parked
+     * on an auth error.
+     */
+    @PluginMethod
+    public void setSession(PluginCall call) {
+        String accessToken = call.getString("accessToken");
+        String userId = call.getString("userId");
+        if (accessToken == null || userId == null) {
+            SupabaseSession.clear(getContext());
+            call.resolve();
+            return;
+        }
+
+        String url = call.getString("url");
+        String anonKey = call.getString("anonKey");
+        if (url == null || anonKey == null) {
+            call.reject("url and anonKey are required");
+            return;
+        }
+        SupabaseSession.save(getContext(), url, anonKey, accessToken, userId);
+        executor.execute(() -> UploadQueue.resumeParked(getContext()));
+        call.resolve();
+    }
+
+    @PluginMethod
+    public void enqueue(PluginCall call) {
+        String photoId = call.getString("photoId");
+        String bodyPart = call.getString("bodyPart");
+        if (photoId == null || !PHOTO_ID_PATTERN.matcher(photoId).matches()) {
+            call.reject("A valid photoId is required");
+            return;
+        }
+        if (bodyPart == null) {
+            call.reject("bodyPart is required");
+            return;
+        }
+        String takenAt = call.getString("takenAt");
+        String notes = call.getString("notes");
+        SupabaseSession session = SupabaseSession.load(getContext());
+        if (session == null) {
+            call.reject("No native session; call UploadQueue.setSession first");
+            return;
+        }
+
+        executor.execute(() -> {
+            try {
+                UploadQueue.enqueue(getContext(), photoId, session.userId, bodyPart, takenAt, notes);
+                call.resolve();
+            } catch (Exception e) {
+                Log.e(TAG, "Error queueing upload: " + e.getMessage());
+                call.reject("Failed to queue upload", e);
+            }
+        });
+    }
+
+    @PluginMethod
+    public void cancel(PluginCall call) {
+        String photoId = call.getString("photoId");
+        if (photoId == null || !PHOTO_ID_PATTERN.matcher(photoId).matches()) {
+            call.reject("A valid photoId is required");
+            return;
+        }
+
+        executor.execute(() -> {
+            UploadQueue.cancel(getContext(), photoId);
+            call.resolve();
+        });
+    }
+
+    /**
+     * Current state of every queued or recently finished upload.
+     */
+    @PluginMethod
+    public void getUploads(PluginCall call) {
+        List<WorkInfo> infos = workInfos != null ? workInfos.getValue() : null;
+        JSArray uploads = new JSArray();
+        if (infos != null) {
+            for (WorkInfo info : infos) {
+                JSObject event = toEvent(info);
+                if (event != null) {
+                    uploads.put(event);
+                }
+            }
+        }
+
+        JSObject ret = new JSObject();
+        ret.put("uploads", uploads);
+        call.resolve(ret);
+    }
+
+    private void onWorkInfosChanged(List<WorkInfo> infos) {
+        if (infos == null) return;
+        for (WorkInfo info : infos) {
+            JSObject event = toEvent(info);
+            if (event == null) continue;
+
+            String serialized = event.toString();
+            if (!serialized.equals(lastEvents.put(info.getId(), serialized))) {
+                notifyListeners("uploadProgress", event);
+            }
+        }
+    }
+
+    private static JSObject toEvent(WorkInfo info) {
+        String photoId = null;
+        for (String tag : info.getTags()) {
+            if (tag.startsWith(UploadQueue.PHOTO_TAG_PREFIX)) {
+                photoId = tag.substring(UploadQueue.PHOTO_TAG_PREFIX.length());
+            }
+        }
+        if (photoId == null) return null;
+
+        JSObject event = new JSObject();
+        event.put("photoId", photoId);
+        switch (info.getState()) {
+            case RUNNING:
+                event.put("state", "uploading");
+                event.put("progress", info.getProgress().getInt(UploadQueue.KEY_PROGRESS, 0));
+                break;
+            case SUCCEEDED:
+                event.put("state", "succeeded");
+                event.put("progress", 100);
+                break;
+            case FAILED:
+                Data output = info.getOutputData();
+                event.put("state", output.getBoolean(UploadQueue.KEY_PARKED, false) ? "parked" : "failed");
+                event.put("progress", 0);
+                event.put("error", output.getString(UploadQueue.KEY_ERROR));
+                break;
+            case CANCELLED:
+                event.put("state", "cancelled");
+                event.put("progress", 0);
+                break;
+            default:
+                // ENQUEUED or BLOCKED: waiting for network or a retry backoff
+                event.put("state", "queued");
+                event.put("progress", 0);
+                event.put("attempt", info.getRunAttemptCount());
+                break;
+        }
+        return event;
+    }
+}
@@ -0,0 +1,96 @@
+package app.tracktsw.atlas;
+
+import android.content.Context;
+import android.os.UserManager;
+import android.util.Log;
+
+import androidx.work.Data;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.OutOfQuotaPolicy;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+
+import app.tracktsw.atlas.core.ReminderDeliveryLog;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Used when exact alarms aren't allowed, instead of setAndAllowWhileIdle, which Doze and
+ * app standby can push back by hours.
+ *
+ * A one-off job is delayed until the trigger time. Behind it, a periodic window job
+ * checks every hour whether the armed time has passed without a delivery (the one-off
+ * job was deferred) and, if so, starts an expedited catch-up job that delivers at once.
+ * WorkManager persists all of these across reboots.
+ */
+public class WorkManagerAlarmBackend implements AlarmBackend {
+    private static final String TAG = "WorkManagerAlarmBackend";
+    static final String WORK_NAME = "atlas-reminder";
+    static final String WINDOW_WORK_NAME = "atlas-reminder-window";
+    static final String CATCH_UP_WORK_NAME = "atlas-reminder-catch-up";
+    private static final long WINDOW_INTERVAL_MINUTES = 60;
+    private static final long WINDOW_FLEX_MINUTES = 15;
+
+    @Override
+    public int getId() {
+        return ReminderDeliveryLog.BACKEND_WORK_MANAGER;
+    }
+
+    @Override
+    public boolean arm(Context context, long triggerAt) {
+        if (!isUserUnlocked(context)) {
+            // WorkManager's database is credential-protected; its jobs survived the reboot
+            return true;
+        }
+
+        long delay = Math.max(0, triggerAt - System.currentTimeMillis());
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(ReminderWorker.class)
+            .setInitialDelay(delay, TimeUnit.MILLISECONDS)
+            .setInputData(mode(ReminderWorker.MODE_DELIVER))
+            .build();
+        PeriodicWorkRequest window = new PeriodicWorkRequest.Builder(ReminderWorker.class,
+                WINDOW_INTERVAL_MINUTES, TimeUnit.MINUTES, WINDOW_FLEX_MINUTES, TimeUnit.MINUTES)
+            .setInputData(mode(ReminderWorker.MODE_WINDOW))
+            .build();
+
+        WorkManager workManager = WorkManager.getInstance(context);
+        workManager.enqueueUniqueWork(WORK_NAME, ExistingWorkPolicy.REPLACE, request);
+        workManager.enqueueUniquePeriodicWork(WINDOW_WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, window);
+        Log.d(TAG, "Reminder work scheduled in " + delay / 1000 + "s");
+        return true;
+    }
+
+    @Override
+    public void cancel(Context context) {
+        if (!isUserUnlocked(context)) {
+            return;
+        }
+        WorkManager workManager = WorkManager.getInstance(context);
+        workManager.cancelUniqueWork(WORK_NAME);
+        workManager.cancelUniqueWork(WINDOW_WORK_NAME);
+        workManager.cancelUniqueWork(CATCH_UP_WORK_NAME);
+    }
+
+    /**
+     * Deliver an overdue reminder as soon as possible.
+     */
+    static void requestCatchUp(Context context) {
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(ReminderWorker.class)
+            .setExpedited(OutOfQuotaPolicy.RUN_AS_NON_EXPEDITED_WORK_REQUEST)
+            .setInputData(mode(ReminderWorker.MODE_DELIVER))
+            .build();
+        WorkManager.getInstance(context)
+            .enqueueUniqueWork(CATCH_UP_WORK_NAME, ExistingWorkPolicy.KEEP, request);
+    }
+
+    private static Data mode(String mode) {
+        return new Data.Builder().putString(ReminderWorker.KEY_MODE, mode).build();
+    }
+
+    private static boolean isUserUnlocked(Context context) {
+        UserManager userManager = context.getSystemService(UserManager.class);
+        return userManager == null || userManager.isUserUnlocked();
+    }
+}
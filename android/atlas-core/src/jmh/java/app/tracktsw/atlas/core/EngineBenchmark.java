@@ -0,0 +1,89 @@
+package app.tracktsw.atlas.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full-history analysis cost for each engine, as run when the Insights/Home pages load.
+ * Compare results.json across releases to catch regressions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+
+    @Param({"1", "5", "10"})
+    public int years;
+
+    private List<CheckInRecord> checkIns;
+    private List<LocalDate> days;
+    private List<Integer> daySeverities;
+    private List<Integer> dayCounts;
+    private LocalDate today;
+
+    @Setup
+    public void setUp() {
+        checkIns = SyntheticHistory.generate(years, 42L);
+
+        // Pre-group by day so the flare benchmark measures the engine, not the grouping
+        days = new ArrayList<>();
+        daySeverities = new ArrayList<>();
+        dayCounts = new ArrayList<>();
+        for (CheckInRecord checkIn : checkIns) {
+            int severity = FlareStateEngine.getSkinSeverityFromFeeling(checkIn.skinFeeling);
+            int last = days.size() - 1;
+            if (last >= 0 && days.get(last).equals(checkIn.date)) {
+                daySeverities.set(last, Math.max(daySeverities.get(last), severity));
+                dayCounts.set(last, dayCounts.get(last) + 1);
+            } else {
+                days.add(checkIn.date);
+                daySeverities.add(severity);
+                dayCounts.add(1);
+            }
+        }
+        today = checkIns.get(checkIns.size() - 1).date;
+    }
+
+    @Benchmark
+    public void flareState(Blackhole blackhole) {
+        FlareStateEngine engine = new FlareStateEngine();
+        for (int i = 0; i < days.size(); i++) {
+            engine.appendDay(days.get(i).toString(), daySeverities.get(i), dayCounts.get(i));
+        }
+        blackhole.consume(engine.getDailyFlareStates());
+        blackhole.consume(engine.getFlareEpisodes());
+    }
+
+    @Benchmark
+    public List<ReactionEngine.Result> foodReactions() {
+        return ReactionEngine.forFoods().analyze(checkIns);
+    }
+
+    @Benchmark
+    public List<ReactionEngine.Result> productReactions() {
+        return ReactionEngine.forProducts().analyze(checkIns);
+    }
+
+    @Benchmark
+    public int streak() {
+        return new StreakEngine(checkIns).getCurrentStreak(today);
+    }
+}
@@ -0,0 +1,93 @@
+package app.tracktsw.atlas.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of fanning one analytics batch (as drained by MetaAnalyticsPlugin) out to the
+ * JVM sinks, then flushing them. The Meta sink needs the SDK and isn't covered.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventDispatchBenchmark {
+    private static final int BATCH_SIZE = 64;
+
+    @Param({"memory", "file", "memory+file"})
+    public String sinks;
+
+    private EventDispatcher dispatcher;
+    private RollingFileEventSink fileSink;
+    private File directory;
+    private List<AnalyticsEvent> batch;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("event-dispatch").toFile();
+        dispatcher = new EventDispatcher();
+        if (sinks.contains("memory")) {
+            dispatcher.addSink(new InMemoryEventSink(1024));
+        }
+        if (sinks.contains("file")) {
+            fileSink = new RollingFileEventSink(new File(directory, "events.log"), 1 << 20, 2, Clock.systemUTC());
+            dispatcher.addSink(fileSink);
+        }
+
+        batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            Map<String, Object> parameters = new LinkedHashMap<>();
+            parameters.put("screen", "check_in");
+            parameters.put("index", i);
+            parameters.put("value", i * 0.5);
+            batch.add(new AnalyticsEvent(i % 8 == 0 ? "Subscribe" : "checkin_completed", parameters));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (fileSink != null) {
+            fileSink.close();
+        }
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    /** One drained batch; throughput is in batches of 64 events per second. */
+    @Benchmark
+    public long dispatchBatch() {
+        for (AnalyticsEvent event : batch) {
+            dispatcher.dispatch(event);
+        }
+        dispatcher.flush();
+        return dispatcher.getDispatched();
+    }
+}
@@ -0,0 +1,51 @@
+package app.tracktsw.atlas.core;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic check-in histories for benchmarks.
+ * Roughly mirrors real usage: morning and evening check-ins on most days, skin that
+ * drifts between flares and calm spells, and a handful of food/product triggers.
+ */
+final class SyntheticHistory {
+    private static final String[] FOODS = {
+        "dairy", "gluten", "sugar", "eggs", "nuts", "soy", "coffee", "alcohol", "citrus", "tomato"
+    };
+    private static final String[] PRODUCTS = {
+        "moisturizer", "zinc cream", "vaseline", "cerave lotion", "oat balm", "sunscreen"
+    };
+
+    private SyntheticHistory() {
+    }
+
+    static List<CheckInRecord> generate(int years, long seed) {
+        Random random = new Random(seed);
+        int days = years * 365;
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        List<CheckInRecord> checkIns = new ArrayList<>(days * 2);
+
+        double skin = 3;
+        for (int d = 0; d < days; d++) {
+            LocalDate date = start.plusDays(d);
+            skin = Math.max(1, Math.min(5, skin + random.nextGaussian() * 0.7));
+
+            int perDay = random.nextInt(10) == 0 ? 0 : 1 + random.nextInt(2);
+            for (int c = 0; c < perDay; c++) {
+                List<String> triggers = new ArrayList<>(3);
+                if (random.nextInt(3) == 0) {
+                    triggers.add("food:" + FOODS[random.nextInt(FOODS.length)]);
+                }
+                if (random.nextInt(4) == 0) {
+                    triggers.add("product:" + PRODUCTS[random.nextInt(PRODUCTS.length)]);
+                }
+                // ~15% of entries are backfilled a day later
+                LocalDate loggedDate = random.nextInt(7) == 0 ? date.plusDays(1) : date;
+                checkIns.add(new CheckInRecord(date, loggedDate, Math.round(skin), null, triggers));
+            }
+        }
+        return checkIns;
+    }
+}
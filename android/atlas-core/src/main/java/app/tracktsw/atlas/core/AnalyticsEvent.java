@@ -0,0 +1,18 @@
+package app.tracktsw.atlas.core;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * One analytics event as logged by the web layer, before any provider-specific mapping.
+ */
+public final class AnalyticsEvent {
+    public final String name;
+    /** String, Integer, Double or Boolean values, in the order they were logged */
+    public final Map<String, Object> parameters;
+
+    public AnalyticsEvent(String name, Map<String, Object> parameters) {
+        this.name = name;
+        this.parameters = Collections.unmodifiableMap(parameters);
+    }
+}
@@ -0,0 +1,158 @@
+package app.tracktsw.atlas.core;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded hand-off between the threads that log analytics events and the single thread
+ * that forwards them to the SDK.
+ *
+ * Entries are whatever one bridge call handed over: a single event, or a batch of them
+ * that is only parsed on the consumer thread. Capacity is counted in slots, and a batch
+ * reserves one slot per event it holds, so the bound is on events however they were
+ * grouped. offer never blocks: it reserves the slots with a CAS on the size and appends
+ * to a ConcurrentLinkedQueue, or counts a drop when they don't fit. The consumer drains
+ * in batches and reports how long each entry waited, so depth, drops and latency can be
+ * read at any time. Any number of producers, one consumer.
+ */
+public class AnalyticsQueue<T> {
+    // Latency samples kept for the percentiles
+    private static final int LATENCY_SAMPLES = 512;
+
+    public static final class Stats {
+        public final int depth;
+        public final int capacity;
+        public final long enqueued;
+        public final long dropped;
+        public final long delivered;
+        public final long p50LatencyUs;
+        public final long p95LatencyUs;
+        public final long maxLatencyUs;
+
+        Stats(int depth, int capacity, long enqueued, long dropped, long delivered,
+              long p50LatencyUs, long p95LatencyUs, long maxLatencyUs) {
+            this.depth = depth;
+            this.capacity = capacity;
+            this.enqueued = enqueued;
+            this.dropped = dropped;
+            this.delivered = delivered;
+            this.p50LatencyUs = p50LatencyUs;
+            this.p95LatencyUs = p95LatencyUs;
+            this.maxLatencyUs = maxLatencyUs;
+        }
+    }
+
+    private final ConcurrentLinkedQueue<T> items = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final int capacity;
+
+    // Written by the consumer, read by getStats
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private long delivered;
+    private long samples;
+
+    public AnalyticsQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Append an item taking one slot, or drop it if the queue is full.
+     *
+     * @return false if the item was dropped
+     */
+    public boolean offer(T item) {
+        return offer(item, 1);
+    }
+
+    /**
+     * Append an item taking the given number of slots, or drop it if they don't all fit.
+     *
+     * @return false if the item was dropped
+     */
+    public boolean offer(T item, int slots) {
+        if (slots <= 0) {
+            throw new IllegalArgumentException("slots must be positive: " + slots);
+        }
+        while (true) {
+            int current = size.get();
+            if (current > capacity - slots) {
+                dropped.addAndGet(slots);
+                return false;
+            }
+            if (size.compareAndSet(current, current + slots)) {
+                break;
+            }
+        }
+        items.offer(item);
+        enqueued.addAndGet(slots);
+        return true;
+    }
+
+    /**
+     * Move up to max items into out, oldest first. Consumer thread only.
+     *
+     * @return the number of items moved
+     */
+    public int drainTo(List<? super T> out, int max) {
+        int moved = 0;
+        T item;
+        while (moved < max && (item = items.poll()) != null) {
+            out.add(item);
+            moved++;
+        }
+        return moved;
+    }
+
+    /**
+     * Release the slot of a drained one-slot item once it has been handled, and record
+     * how long it waited. Consumer thread only.
+     */
+    public void complete(long latencyNanos) {
+        complete(1, latencyNanos);
+    }
+
+    /**
+     * Release the slots of a drained item once it has been handled, and record how long
+     * it waited. Consumer thread only.
+     */
+    public void complete(int slots, long latencyNanos) {
+        size.addAndGet(-slots);
+        synchronized (latencies) {
+            delivered += slots;
+            latencies[(int) (samples++ % LATENCY_SAMPLES)] = latencyNanos;
+        }
+    }
+
+    /** Slots taken, including by drained items not yet completed. */
+    public int size() {
+        return size.get();
+    }
+
+    public Stats getStats() {
+        long[] sorted;
+        long deliveredCount;
+        synchronized (latencies) {
+            deliveredCount = delivered;
+            sorted = Arrays.copyOf(latencies, (int) Math.min(samples, LATENCY_SAMPLES));
+        }
+        Arrays.sort(sorted);
+        return new Stats(size.get(), capacity, enqueued.get(), dropped.get(), deliveredCount,
+            percentile(sorted, 0.5) / 1_000, percentile(sorted, 0.95) / 1_000,
+            sorted.length > 0 ? sorted[sorted.length - 1] / 1_000 : 0);
+    }
+
+    /** Nearest-rank percentile of an ascending array. */
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(p * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+}
@@ -0,0 +1,46 @@
+package app.tracktsw.atlas.core;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Minimal check-in view used by the analytics engines.
+ * Mirrors the fields of CheckIn in src/contexts/UserDataContext.tsx that the
+ * insights code actually reads.
+ */
+public final class CheckInRecord {
+    /** Calendar day the check-in is for (timestamp) */
+    public final LocalDate date;
+    /** Calendar day the check-in was actually submitted (loggedAt) */
+    public final LocalDate loggedDate;
+    /** 1 = worst, 5 = best */
+    public final double skinFeeling;
+    /** Optional 0-4 intensity; null when not recorded */
+    public final Double skinIntensity;
+    /** Raw trigger strings, e.g. "food:dairy" or "product:moisturizer" */
+    public final List<String> triggers;
+
+    public CheckInRecord(LocalDate date, LocalDate loggedDate, double skinFeeling,
+                         Double skinIntensity, List<String> triggers) {
+        this.date = date;
+        this.loggedDate = loggedDate;
+        this.skinFeeling = skinFeeling;
+        this.skinIntensity = skinIntensity;
+        this.triggers = triggers != null ? triggers : Collections.<String>emptyList();
+    }
+
+    /**
+     * Intensity used by the food/product engines: skinIntensity ?? (5 - skinFeeling)
+     */
+    public double getIntensity() {
+        return skinIntensity != null ? skinIntensity : 5 - skinFeeling;
+    }
+
+    /**
+     * A check-in is "real-time" if it was logged on the day it is for (not backfilled).
+     */
+    public boolean isRealTime() {
+        return date.equals(loggedDate);
+    }
+}
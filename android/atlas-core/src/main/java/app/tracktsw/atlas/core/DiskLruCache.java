@@ -0,0 +1,148 @@
+package app.tracktsw.atlas.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded LRU of files in a single directory, for immutable content keyed by a
+ * filename-safe key (e.g. a hash of the URL).
+ *
+ * Entries are written to a temp file first and committed with a rename, so a reader
+ * never sees a partial file. Recency survives restarts through file modification times.
+ * Thread-safe.
+ */
+public class DiskLruCache {
+    private static final String TEMP_DIR = ".tmp";
+
+    private final File directory;
+    private final File tempDirectory;
+    private final long maxBytes;
+    // Access-ordered: eldest entry is the least recently used
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long size;
+    private long tempCounter;
+
+    public DiskLruCache(File directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.tempDirectory = new File(directory, TEMP_DIR);
+        this.maxBytes = maxBytes;
+        if (!tempDirectory.isDirectory() && !tempDirectory.mkdirs()) {
+            throw new IOException("Could not create " + tempDirectory);
+        }
+
+        // Leftovers from writes interrupted by process death
+        deleteContents(tempDirectory);
+
+        File[] files = directory.listFiles(File::isFile);
+        if (files != null) {
+            Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+            for (File file : files) {
+                entries.put(file.getName(), file.length());
+                size += file.length();
+            }
+        }
+        trimToSize();
+    }
+
+    /**
+     * The cached file for key, or null. Marks the entry as most recently used.
+     */
+    public synchronized File get(String key) {
+        if (entries.get(key) == null) {
+            return null;
+        }
+        File file = new File(directory, key);
+        //noinspection ResultOfMethodCallIgnored
+        file.setLastModified(System.currentTimeMillis());
+        return file;
+    }
+
+    public synchronized boolean contains(String key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * A fresh file to write a new entry into before calling commit.
+     */
+    public synchronized File newTempFile() {
+        return new File(tempDirectory, Long.toString(tempCounter++));
+    }
+
+    /**
+     * Move a fully written temp file into the cache under key, evicting old entries
+     * as needed. Returns the committed file.
+     */
+    public synchronized File commit(String key, File tempFile) throws IOException {
+        File target = new File(directory, key);
+        Long previous = entries.remove(key);
+        if (previous != null) {
+            size -= previous;
+        }
+        if (!tempFile.renameTo(target)) {
+            //noinspection ResultOfMethodCallIgnored
+            tempFile.delete();
+            throw new IOException("Could not commit " + key);
+        }
+        long length = target.length();
+        entries.put(key, length);
+        size += length;
+        trimToSize();
+        return target;
+    }
+
+    public synchronized void remove(String key) {
+        Long length = entries.remove(key);
+        if (length != null) {
+            size -= length;
+            //noinspection ResultOfMethodCallIgnored
+            new File(directory, key).delete();
+        }
+    }
+
+    public synchronized void clear() {
+        for (String key : entries.keySet()) {
+            //noinspection ResultOfMethodCallIgnored
+            new File(directory, key).delete();
+        }
+        entries.clear();
+        size = 0;
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    public synchronized int count() {
+        return entries.size();
+    }
+
+    public long maxSize() {
+        return maxBytes;
+    }
+
+    private void trimToSize() {
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (size > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            size -= eldest.getValue();
+            //noinspection ResultOfMethodCallIgnored
+            new File(directory, eldest.getKey()).delete();
+            it.remove();
+        }
+    }
+
+    private static void deleteContents(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package app.tracktsw.atlas.core;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans every analytics event out to the registered sinks, in order. A sink that throws
+ * is counted and skipped for that event; the others still get it.
+ *
+ * dispatch and flush are meant for one thread; sinks can be added and removed from any.
+ */
+public class EventDispatcher {
+    private final List<EventSink> sinks = new CopyOnWriteArrayList<>();
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public void addSink(EventSink sink) {
+        sinks.add(sink);
+    }
+
+    public void removeSink(EventSink sink) {
+        sinks.remove(sink);
+    }
+
+    public void dispatch(AnalyticsEvent event) {
+        for (EventSink sink : sinks) {
+            try {
+                sink.accept(event);
+            } catch (IOException | RuntimeException e) {
+                failures.incrementAndGet();
+            }
+        }
+        dispatched.incrementAndGet();
+    }
+
+    /** Flush every sink, at the end of a batch. */
+    public void flush() {
+        for (EventSink sink : sinks) {
+            try {
+                sink.flush();
+            } catch (IOException | RuntimeException e) {
+                failures.incrementAndGet();
+            }
+        }
+    }
+
+    /** Events dispatched so far. */
+    public long getDispatched() {
+        return dispatched.get();
+    }
+
+    /** Sink calls that threw. */
+    public long getFailures() {
+        return failures.get();
+    }
+}
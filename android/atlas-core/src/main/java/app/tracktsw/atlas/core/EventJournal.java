@@ -0,0 +1,261 @@
+package app.tracktsw.atlas.core;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of opaque records, so analytics events survive process death until
+ * they have been handed to the SDK.
+ *
+ * Layout: [int magic][long ackedOffset] then records of [int length][int crc32][payload].
+ * Appends go through an in-memory buffer; sync writes it with one FileChannel write and
+ * one fsync, so a batch of events costs a single fsync. Everything before ackedOffset has
+ * been delivered: replay hands over the records after it, and acknowledge moves it
+ * forward and compacts the file (truncated once fully acknowledged, otherwise rewritten
+ * without the delivered prefix when that grows past COMPACT_BYTES).
+ *
+ * A torn or corrupt tail, from a crash mid-write, is cut off on open. Delivery is
+ * at-least-once: a crash between delivering and acknowledging replays those records.
+ * Not thread-safe.
+ */
+public class EventJournal implements Closeable {
+    private static final int MAGIC = 0x41544a31; // "ATJ1"
+    private static final int HEADER_SIZE = 12;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int BUFFER_SIZE = 16 * 1024;
+    // Delivered bytes worth rewriting the file for
+    static final long COMPACT_BYTES = 64 * 1024;
+
+    private final File file;
+    private final long maxBytes;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    private final CRC32 crc = new CRC32();
+    private FileChannel channel;
+    private long ackedOffset;
+    // End of the records written to the channel, not counting the buffer
+    private long writtenOffset;
+
+    /**
+     * @param maxBytes appends are refused once the undelivered records reach this size
+     */
+    public EventJournal(File file, long maxBytes) throws IOException {
+        this.file = file;
+        this.maxBytes = maxBytes;
+        channel = open(file);
+
+        long size = channel.size();
+        ackedOffset = HEADER_SIZE;
+        if (size >= HEADER_SIZE) {
+            header.clear();
+            readFully(header, 0);
+            header.flip();
+            long acked = header.getInt() == MAGIC ? header.getLong() : -1;
+            if (acked >= HEADER_SIZE && acked <= size) {
+                ackedOffset = acked;
+            } else {
+                // Not a journal, or written by something else: start over
+                size = 0;
+            }
+        }
+        writtenOffset = size >= HEADER_SIZE ? validEnd(ackedOffset, size) : HEADER_SIZE;
+        if (writtenOffset != size) {
+            channel.truncate(writtenOffset);
+            writeHeader();
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Buffer a record. It isn't durable until the next sync.
+     *
+     * @return false if the journal is full and the record was not added
+     */
+    public boolean append(byte[] payload) throws IOException {
+        int recordSize = RECORD_HEADER_SIZE + payload.length;
+        if (pendingBytes() + recordSize > maxBytes) {
+            return false;
+        }
+        if (buffer.remaining() < recordSize) {
+            flushBuffer();
+        }
+        crc.reset();
+        crc.update(payload, 0, payload.length);
+        if (recordSize > buffer.capacity()) {
+            ByteBuffer large = ByteBuffer.allocate(recordSize);
+            large.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+            writeFully(large, writtenOffset);
+            writtenOffset += recordSize;
+        } else {
+            buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        }
+        return true;
+    }
+
+    /** Write the buffered records and fsync them. */
+    public void sync() throws IOException {
+        flushBuffer();
+        channel.force(false);
+    }
+
+    /** True if some records have not been acknowledged yet, buffered ones included. */
+    public boolean hasPending() {
+        return pendingBytes() > 0;
+    }
+
+    /** Bytes of records not acknowledged yet, buffered ones included. */
+    public long pendingBytes() {
+        return writtenOffset + buffer.position() - ackedOffset;
+    }
+
+    /**
+     * Hand every unacknowledged record to the consumer, oldest first. Records stay in the
+     * journal until acknowledged.
+     *
+     * @return the offset to pass to acknowledge once the records are delivered
+     */
+    public long replay(Consumer<byte[]> consumer) throws IOException {
+        flushBuffer();
+        long position = ackedOffset;
+        ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        while (position < writtenOffset) {
+            recordHeader.clear();
+            readFully(recordHeader, position);
+            recordHeader.flip();
+            byte[] payload = new byte[recordHeader.getInt()];
+            recordHeader.getInt();
+            readFully(ByteBuffer.wrap(payload), position + RECORD_HEADER_SIZE);
+            consumer.accept(payload);
+            position += RECORD_HEADER_SIZE + payload.length;
+        }
+        return position;
+    }
+
+    /** The offset just past the last appended record, for acknowledge. */
+    public long endOffset() {
+        return writtenOffset + buffer.position();
+    }
+
+    /**
+     * Mark the records before offset as delivered and compact the file if worthwhile.
+     * The new offset is made durable by the next sync.
+     */
+    public void acknowledge(long offset) throws IOException {
+        flushBuffer();
+        if (offset <= ackedOffset || offset > writtenOffset) {
+            return;
+        }
+        ackedOffset = offset;
+        if (ackedOffset == writtenOffset) {
+            // Everything delivered: the common case, and the cheapest compaction
+            channel.truncate(HEADER_SIZE);
+            ackedOffset = HEADER_SIZE;
+            writtenOffset = HEADER_SIZE;
+        } else if (ackedOffset - HEADER_SIZE >= COMPACT_BYTES) {
+            compact();
+            return;
+        }
+        writeHeader();
+    }
+
+    @Override
+    public void close() throws IOException {
+        sync();
+        channel.close();
+    }
+
+    /** Rewrite the file with only the records after ackedOffset, committed with a rename. */
+    private void compact() throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        long live = writtenOffset - ackedOffset;
+        try (FileChannel target = open(temp)) {
+            target.truncate(0);
+            ByteBuffer newHeader = ByteBuffer.allocate(HEADER_SIZE);
+            newHeader.putInt(MAGIC).putLong(HEADER_SIZE).flip();
+            while (newHeader.hasRemaining()) {
+                target.write(newHeader);
+            }
+            long copied = 0;
+            while (copied < live) {
+                copied += channel.transferTo(ackedOffset + copied, live - copied, target);
+            }
+            target.force(false);
+        }
+        channel.close();
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        channel = open(file);
+        ackedOffset = HEADER_SIZE;
+        writtenOffset = HEADER_SIZE + live;
+    }
+
+    /** End of the last intact record between start and size. */
+    private long validEnd(long start, long size) throws IOException {
+        long position = start;
+        ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        while (position + RECORD_HEADER_SIZE <= size) {
+            recordHeader.clear();
+            readFully(recordHeader, position);
+            recordHeader.flip();
+            int length = recordHeader.getInt();
+            int checksum = recordHeader.getInt();
+            if (length < 0 || position + RECORD_HEADER_SIZE + length > size) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            readFully(ByteBuffer.wrap(payload), position + RECORD_HEADER_SIZE);
+            crc.reset();
+            crc.update(payload, 0, length);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            position += RECORD_HEADER_SIZE + length;
+        }
+        return position;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (buffer.position() == 0) {
+            return;
+        }
+        buffer.flip();
+        int length = buffer.remaining();
+        writeFully(buffer, writtenOffset);
+        writtenOffset += length;
+        buffer.clear();
+    }
+
+    private void writeHeader() throws IOException {
+        header.clear();
+        header.putInt(MAGIC).putLong(ackedOffset).flip();
+        writeFully(header, 0);
+    }
+
+    private void writeFully(ByteBuffer source, long position) throws IOException {
+        while (source.hasRemaining()) {
+            position += channel.write(source, position);
+        }
+    }
+
+    private void readFully(ByteBuffer target, long position) throws IOException {
+        while (target.hasRemaining()) {
+            int read = channel.read(target, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of journal");
+            }
+            position += read;
+        }
+    }
+
+    private static FileChannel open(File file) throws IOException {
+        return FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+    }
+}
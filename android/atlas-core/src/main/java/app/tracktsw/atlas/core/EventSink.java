@@ -0,0 +1,14 @@
+package app.tracktsw.atlas.core;
+
+import java.io.IOException;
+
+/**
+ * A destination for analytics events: an SDK, a file, a debug view. Called from the
+ * single analytics thread, in logging order.
+ */
+public interface EventSink {
+    void accept(AnalyticsEvent event) throws IOException;
+
+    /** End of a batch: write out anything buffered. */
+    default void flush() throws IOException {}
+}
@@ -0,0 +1,353 @@
+package app.tracktsw.atlas.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Incremental flare state engine (skin-severity only).
+ * Native port of analyzeFlareState in src/utils/flareStateEngine.ts.
+ *
+ * Instead of re-running every predicate over the whole history for each day,
+ * this keeps running counters (consecutive worsening/improving days, the last
+ * RED day and a 7-day severity window) so each appended day is O(1).
+ *
+ * Days must be appended in ascending date order, one call per calendar day.
+ * Output is identical to the TypeScript version, including explanations.
+ */
+public class FlareStateEngine {
+
+    public enum FlareState {
+        STABLE("stable"),
+        STABLE_SEVERE("stable_severe"),
+        EARLY_FLARE("early_flare"),
+        ACTIVE_FLARE("active_flare"),
+        RECOVERING("recovering");
+
+        public final String value;
+
+        FlareState(String value) {
+            this.value = value;
+        }
+    }
+
+    public enum BaselineConfidence {
+        EARLY("early"),
+        PROVISIONAL("provisional"),
+        MATURE("mature");
+
+        public final String value;
+
+        BaselineConfidence(String value) {
+            this.value = value;
+        }
+    }
+
+    public static final class DailyFlareState {
+        public final String date;
+        public final int burdenScore;
+        public final FlareState flareState;
+        public final boolean isInFlareEpisode;
+        public final String explanation;
+
+        DailyFlareState(String date, int burdenScore, FlareState flareState, boolean isInFlareEpisode, String explanation) {
+            this.date = date;
+            this.burdenScore = burdenScore;
+            this.flareState = flareState;
+            this.isInFlareEpisode = isInFlareEpisode;
+            this.explanation = explanation;
+        }
+    }
+
+    public static final class FlareEpisode {
+        public final String startDate;
+        public final String endDate; // null while the episode is ongoing
+        public final int durationDays;
+        public final boolean isActive;
+
+        FlareEpisode(String startDate, String endDate, int durationDays, boolean isActive) {
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.durationDays = durationDays;
+            this.isActive = isActive;
+        }
+
+        public String getPeakDate() {
+            return startDate;
+        }
+
+        public int getPeakBurdenScore() {
+            return RED;
+        }
+    }
+
+    private static final int RED = 3;
+    private static final int WINDOW = 7;
+    private static final String EARLY_EXPLANATION = "Building baseline — need more data.";
+
+    // Per-day output (computed as if the baseline were already established)
+    private final List<String> dates = new ArrayList<>();
+    private final List<DailyFlareState> states = new ArrayList<>();
+    private final List<FlareEpisode> closedEpisodes = new ArrayList<>();
+
+    // Running counters
+    private final int[] recentSeverities = new int[WINDOW];
+    private int redDaysInWindow = 0;
+    private int worseningDays = 0;
+    private int improvingDays = 0;
+    private int lastRedIndex = -1;
+    private int currentFlareStartIdx = -1;
+    private int checkInCount = 0;
+
+    /**
+     * Convert skinFeeling (1 = worst, 5 = best) to severity (0 = GREEN ... 3 = RED).
+     */
+    public static int getSkinSeverityFromFeeling(double skinFeeling) {
+        if (skinFeeling >= 4) return 0;
+        if (skinFeeling == 3) return 1;
+        if (skinFeeling == 2) return 2;
+        return RED;
+    }
+
+    public static BaselineConfidence getBaselineConfidence(int checkInCount) {
+        if (checkInCount < 7) return BaselineConfidence.EARLY;
+        if (checkInCount < 14) return BaselineConfidence.PROVISIONAL;
+        return BaselineConfidence.MATURE;
+    }
+
+    /**
+     * Append the next day of data.
+     *
+     * @param date Day in YYYY-MM-DD format, strictly after the previously appended day
+     * @param skinSeverity Worst skin severity of the day (0-3)
+     * @param dayCheckInCount Number of check-ins logged on that day
+     */
+    public void appendDay(String date, int skinSeverity, int dayCheckInCount) {
+        int i = dates.size();
+        int n = i + 1;
+        int prev1 = i >= 1 ? severityAt(i - 1) : -1;
+        int prev2 = i >= 2 ? severityAt(i - 2) : -1;
+
+        // Slide the 7-day window
+        if (i >= WINDOW && recentSeverities[i % WINDOW] == RED) {
+            redDaysInWindow--;
+        }
+        recentSeverities[i % WINDOW] = skinSeverity;
+        if (skinSeverity == RED) {
+            redDaysInWindow++;
+        }
+
+        // Everything below still needs the previous RED day, so update it last
+        boolean redInLast5 = skinSeverity == RED || (lastRedIndex >= 0 && lastRedIndex >= n - 5);
+        boolean redInPriorWindow = hadRedBetween(Math.max(0, n - 5), n - 3);
+
+        worseningDays = i > 0 && skinSeverity > prev1 ? worseningDays + 1 : 0;
+        improvingDays = i > 0 && skinSeverity < prev1 ? improvingDays + 1 : 0;
+        if (skinSeverity == RED) {
+            lastRedIndex = i;
+        }
+
+        dates.add(date);
+        checkInCount += dayCheckInCount;
+
+        FlareState flareState;
+        boolean isInFlareEpisode;
+        String explanation;
+
+        if (shouldBeRecovering(n, skinSeverity, prev1, prev2, redInLast5, redInPriorWindow)) {
+            flareState = FlareState.RECOVERING;
+            isInFlareEpisode = false;
+            closeEpisode(i);
+            explanation = "Recovering — skin improving from RED.";
+        } else if (shouldBeStable(skinSeverity)) {
+            flareState = FlareState.STABLE;
+            isInFlareEpisode = false;
+            closeEpisode(i);
+            explanation = "Stable — skin is GREEN or YELLOW.";
+        } else if (shouldBeStableSevere(n, skinSeverity)) {
+            flareState = FlareState.STABLE_SEVERE;
+            isInFlareEpisode = false;
+            closeEpisode(i);
+            explanation = "Stable – Severe — skin has been RED but consistent for 5+ days.";
+        } else if (shouldBeActiveFlare(n, skinSeverity, prev1, prev2)) {
+            flareState = FlareState.ACTIVE_FLARE;
+            isInFlareEpisode = true;
+            if (currentFlareStartIdx < 0) {
+                currentFlareStartIdx = Math.max(0, i - 2);
+            }
+            explanation = "Active Flare — skin has reached RED.";
+        } else if (shouldBeEarlyFlare(n, skinSeverity)) {
+            flareState = FlareState.EARLY_FLARE;
+            isInFlareEpisode = true;
+            if (currentFlareStartIdx < 0) {
+                currentFlareStartIdx = Math.max(0, i - 1);
+            }
+            explanation = "Early Flare — skin is worsening.";
+        } else if (skinSeverity <= 1) {
+            flareState = FlareState.STABLE;
+            isInFlareEpisode = false;
+            explanation = "Stable — skin is in good condition.";
+        } else if (skinSeverity == 2) {
+            flareState = FlareState.STABLE;
+            isInFlareEpisode = false;
+            explanation = "Stable — skin is ORANGE, monitoring.";
+        } else {
+            // RED but doesn't meet stable_severe criteria yet (< 5 days)
+            flareState = FlareState.ACTIVE_FLARE;
+            isInFlareEpisode = true;
+            if (currentFlareStartIdx < 0) {
+                currentFlareStartIdx = i;
+            }
+            explanation = "Active Flare — skin is RED.";
+        }
+
+        states.add(new DailyFlareState(date, skinSeverity, flareState, isInFlareEpisode, explanation));
+    }
+
+    public int getDayCount() {
+        return dates.size();
+    }
+
+    public int getCheckInCount() {
+        return checkInCount;
+    }
+
+    public BaselineConfidence getBaselineConfidence() {
+        return getBaselineConfidence(checkInCount);
+    }
+
+    /**
+     * Daily states for every appended day. While the baseline is still early,
+     * every day reports STABLE, matching the TypeScript engine.
+     */
+    public List<DailyFlareState> getDailyFlareStates() {
+        if (getBaselineConfidence() != BaselineConfidence.EARLY) {
+            return Collections.unmodifiableList(states);
+        }
+        List<DailyFlareState> early = new ArrayList<>(states.size());
+        for (DailyFlareState state : states) {
+            early.add(new DailyFlareState(state.date, state.burdenScore, FlareState.STABLE, false, EARLY_EXPLANATION));
+        }
+        return early;
+    }
+
+    /**
+     * Closed episodes followed by the ongoing one, if any.
+     */
+    public List<FlareEpisode> getFlareEpisodes() {
+        if (getBaselineConfidence() == BaselineConfidence.EARLY) {
+            return Collections.emptyList();
+        }
+        List<FlareEpisode> episodes = new ArrayList<>(closedEpisodes);
+        if (currentFlareStartIdx >= 0) {
+            episodes.add(new FlareEpisode(
+                dates.get(currentFlareStartIdx),
+                null,
+                dates.size() - currentFlareStartIdx,
+                true
+            ));
+        }
+        return episodes;
+    }
+
+    public FlareState getCurrentState() {
+        if (states.isEmpty() || getBaselineConfidence() == BaselineConfidence.EARLY) {
+            return FlareState.STABLE;
+        }
+        return states.get(states.size() - 1).flareState;
+    }
+
+    /**
+     * Duration of the ongoing flare episode, or -1 if none.
+     */
+    public int getCurrentFlareDuration() {
+        if (currentFlareStartIdx < 0 || getBaselineConfidence() == BaselineConfidence.EARLY) {
+            return -1;
+        }
+        return dates.size() - currentFlareStartIdx;
+    }
+
+    private int severityAt(int index) {
+        return recentSeverities[index % WINDOW];
+    }
+
+    /**
+     * Whether any day in [from, to] (inclusive, within the last 7 days) was RED.
+     */
+    private boolean hadRedBetween(int from, int to) {
+        for (int k = from; k <= to; k++) {
+            if (severityAt(k) == RED) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void closeEpisode(int i) {
+        if (currentFlareStartIdx < 0) {
+            return;
+        }
+        closedEpisodes.add(new FlareEpisode(
+            dates.get(currentFlareStartIdx),
+            dates.get(i > 0 ? i - 1 : i),
+            i - currentFlareStartIdx,
+            false
+        ));
+        currentFlareStartIdx = -1;
+    }
+
+    /**
+     * RECOVERING: skin improves from RED to ORANGE or better, sustained ≥3 days
+     */
+    private boolean shouldBeRecovering(int n, int severity, int prev1, int prev2,
+                                       boolean redInLast5, boolean redInPriorWindow) {
+        if (n < 3) return false;
+        if (severity == RED) return false;
+        if (!redInLast5) return false;
+        if (improvingDays >= 2) return true;
+
+        boolean nowBetter = prev2 < RED && prev1 < RED;
+        return redInPriorWindow && nowBetter;
+    }
+
+    /**
+     * STABLE: skin is GREEN or YELLOW with no recent worsening
+     */
+    private boolean shouldBeStable(int severity) {
+        if (severity > 1) return false;
+        return worseningDays < 2;
+    }
+
+    /**
+     * STABLE-SEVERE: skin remains RED with no improvement or worsening for ≥5-7 days
+     */
+    private boolean shouldBeStableSevere(int n, int severity) {
+        if (n < 5) return false;
+        if (severity != RED) return false;
+        if (worseningDays >= 2) return false;
+        if (improvingDays >= 2) return false;
+        return redDaysInWindow >= 5;
+    }
+
+    /**
+     * ACTIVE FLARE: skin worsens to RED and worsening sustained ≥3 days
+     */
+    private boolean shouldBeActiveFlare(int n, int severity, int prev1, int prev2) {
+        if (n < 3) return false;
+        if (severity != RED) return false;
+        if (worseningDays >= 3) return true;
+
+        boolean hadLowerSeverity = prev2 < RED || prev1 < RED;
+        boolean stillWorsening = severity >= prev2;
+        return hadLowerSeverity && stillWorsening && worseningDays >= 2;
+    }
+
+    /**
+     * EARLY FLARE: worsening sustained ≥2 days, severity ≤ ORANGE
+     */
+    private boolean shouldBeEarlyFlare(int n, int severity) {
+        if (n < 2) return false;
+        if (severity >= RED) return false;
+        return worseningDays >= 2;
+    }
+}
@@ -0,0 +1,35 @@
+package app.tracktsw.atlas.core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the most recent events in memory, oldest dropped first: for tests, benchmarks
+ * and debug views. Thread-safe.
+ */
+public class InMemoryEventSink implements EventSink {
+    private final ArrayDeque<AnalyticsEvent> events = new ArrayDeque<>();
+    private final int capacity;
+
+    public InMemoryEventSink(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized void accept(AnalyticsEvent event) {
+        if (events.size() == capacity) {
+            events.removeFirst();
+        }
+        events.addLast(event);
+    }
+
+    /** The kept events, oldest first. */
+    public synchronized List<AnalyticsEvent> getEvents() {
+        return new ArrayList<>(events);
+    }
+
+    public synchronized void clear() {
+        events.clear();
+    }
+}
@@ -0,0 +1,318 @@
+package app.tracktsw.atlas.core;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Delayed-reaction analysis for logged triggers (foods, products).
+ * Native port of analyzeFoodReactions (src/utils/foodAnalysis.ts) and
+ * analyzeProductReactions (src/utils/productAnalysis.ts), which share the same logic
+ * and only differ in the trigger prefixes they read.
+ *
+ * For each exposure day D, the average intensity of D+1..D+3 is compared against a
+ * local baseline (days within ±7 that did NOT have the item).
+ */
+public class ReactionEngine {
+
+    public enum Pattern {
+        OFTEN_WORSE("often_worse", 1.0),
+        OFTEN_BETTER("often_better", 0.3),
+        MIXED("mixed", 0.5),
+        NO_PATTERN("no_pattern", 0.2),
+        INSUFFICIENT_DATA("insufficient_data", 0);
+
+        public final String value;
+        final double sortWeight;
+
+        Pattern(String value, double sortWeight) {
+            this.value = value;
+            this.sortWeight = sortWeight;
+        }
+    }
+
+    public enum Confidence {
+        LOW("low"),
+        MEDIUM("medium"),
+        HIGH("high");
+
+        public final String value;
+
+        Confidence(String value) {
+            this.value = value;
+        }
+    }
+
+    public static final class Result {
+        public final String name;
+        public final int count;
+        public final int daysWorseAfter;
+        public final int daysBetterAfter;
+        public final int daysNeutralAfter;
+        public final Pattern pattern;
+        public final double consistency;
+        public final Confidence confidence;
+        public final int analyzableExposures;
+
+        Result(String name, int count, int daysWorseAfter, int daysBetterAfter, int daysNeutralAfter,
+               Pattern pattern, double consistency, Confidence confidence, int analyzableExposures) {
+            this.name = name;
+            this.count = count;
+            this.daysWorseAfter = daysWorseAfter;
+            this.daysBetterAfter = daysBetterAfter;
+            this.daysNeutralAfter = daysNeutralAfter;
+            this.pattern = pattern;
+            this.consistency = consistency;
+            this.confidence = confidence;
+            this.analyzableExposures = analyzableExposures;
+        }
+    }
+
+    private static final int MINIMUM_LOGS_THRESHOLD = 3;
+    private static final double WORSE_THRESHOLD = 0.5;
+    private static final double BETTER_THRESHOLD = -0.5;
+    private static final int REACTION_DAYS = 3; // Look at D+1, D+2, D+3
+    private static final int LOCAL_BASELINE_WINDOW = 7; // ±7 days for local baseline
+
+    private final String[] triggerPrefixes;
+
+    private ReactionEngine(String... triggerPrefixes) {
+        this.triggerPrefixes = triggerPrefixes;
+    }
+
+    public static ReactionEngine forFoods() {
+        return new ReactionEngine("food:");
+    }
+
+    public static ReactionEngine forProducts() {
+        // Support both new product: prefix and legacy new_product: prefix
+        return new ReactionEngine("product:", "new_product:");
+    }
+
+    /**
+     * Analyze every item in the given check-ins. Callers apply any period filter first.
+     */
+    public List<Result> analyze(List<CheckInRecord> checkIns) {
+        if (checkIns.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<LocalDate, Double> intensityMap = buildDateIntensityMap(checkIns);
+        Map<LocalDate, Set<String>> itemMap = buildDateItemMap(checkIns);
+
+        // Collect all unique items and their log dates (insertion order matches the JS Map)
+        Map<String, Set<LocalDate>> itemLogDates = new LinkedHashMap<>();
+        for (Map.Entry<LocalDate, Set<String>> entry : itemMap.entrySet()) {
+            for (String item : entry.getValue()) {
+                Set<LocalDate> dates = itemLogDates.get(item);
+                if (dates == null) {
+                    dates = new LinkedHashSet<>();
+                    itemLogDates.put(item, dates);
+                }
+                dates.add(entry.getKey());
+            }
+        }
+
+        List<Result> results = new ArrayList<>(itemLogDates.size());
+        for (Map.Entry<String, Set<LocalDate>> entry : itemLogDates.entrySet()) {
+            results.add(analyzeItem(entry.getKey(), entry.getValue(), intensityMap, itemMap));
+        }
+
+        // Sort by: pattern severity × consistency × log(count); insufficient data always last
+        results.sort((a, b) -> {
+            boolean aInsufficient = a.pattern == Pattern.INSUFFICIENT_DATA;
+            boolean bInsufficient = b.pattern == Pattern.INSUFFICIENT_DATA;
+            if (aInsufficient && !bInsufficient) return 1;
+            if (bInsufficient && !aInsufficient) return -1;
+
+            double scoreA = a.pattern.sortWeight * a.consistency * Math.log(a.count + 1);
+            double scoreB = b.pattern.sortWeight * b.consistency * Math.log(b.count + 1);
+            return Double.compare(scoreB, scoreA);
+        });
+
+        return results;
+    }
+
+    private Result analyzeItem(String itemName, Set<LocalDate> dates,
+                               Map<LocalDate, Double> intensityMap,
+                               Map<LocalDate, Set<String>> itemMap) {
+        int count = dates.size();
+        String displayName = toDisplayName(itemName);
+
+        if (count < MINIMUM_LOGS_THRESHOLD) {
+            return new Result(displayName, count, 0, 0, 0, Pattern.INSUFFICIENT_DATA, 0, Confidence.LOW, 0);
+        }
+
+        int worseCount = 0;
+        int betterCount = 0;
+        int neutralCount = 0;
+        int analyzableExposures = 0;
+
+        // Sort dates to handle consecutive days properly
+        List<LocalDate> sortedDates = new ArrayList<>(dates);
+        Collections.sort(sortedDates);
+        Set<LocalDate> processedDates = new HashSet<>();
+
+        for (LocalDate exposureDate : sortedDates) {
+            // Skip if this date was already counted as part of a consecutive exposure
+            if (processedDates.contains(exposureDate)) continue;
+
+            for (int i = 1; i <= REACTION_DAYS; i++) {
+                LocalDate nextDate = exposureDate.plusDays(i);
+                if (dates.contains(nextDate)) {
+                    processedDates.add(nextDate);
+                }
+            }
+
+            Double postIntensity = getPostExposureIntensity(intensityMap, exposureDate);
+            if (postIntensity == null) continue;
+
+            Double localBaseline = getLocalBaseline(intensityMap, itemMap, exposureDate, itemName);
+            if (localBaseline == null) continue;
+
+            double delta = postIntensity - localBaseline;
+            analyzableExposures++;
+            if (delta >= WORSE_THRESHOLD) {
+                worseCount++;
+            } else if (delta <= BETTER_THRESHOLD) {
+                betterCount++;
+            } else {
+                neutralCount++;
+            }
+        }
+
+        Pattern pattern = analyzableExposures >= MINIMUM_LOGS_THRESHOLD
+            ? calculatePattern(worseCount, betterCount, analyzableExposures)
+            : Pattern.INSUFFICIENT_DATA;
+        double consistency = calculateConsistency(worseCount, betterCount, neutralCount, analyzableExposures);
+        Confidence confidence = calculateConfidence(count, consistency);
+
+        return new Result(displayName, count, worseCount, betterCount, neutralCount,
+            pattern, consistency, confidence, analyzableExposures);
+    }
+
+    private static Map<LocalDate, Double> buildDateIntensityMap(List<CheckInRecord> checkIns) {
+        Map<LocalDate, double[]> totals = new HashMap<>();
+        for (CheckInRecord checkIn : checkIns) {
+            double[] entry = totals.get(checkIn.date);
+            if (entry == null) {
+                entry = new double[2];
+                totals.put(checkIn.date, entry);
+            }
+            entry[0] += checkIn.getIntensity();
+            entry[1] += 1;
+        }
+
+        Map<LocalDate, Double> result = new HashMap<>(totals.size() * 2);
+        for (Map.Entry<LocalDate, double[]> entry : totals.entrySet()) {
+            result.put(entry.getKey(), entry.getValue()[0] / entry.getValue()[1]);
+        }
+        return result;
+    }
+
+    private Map<LocalDate, Set<String>> buildDateItemMap(List<CheckInRecord> checkIns) {
+        Map<LocalDate, Set<String>> dateMap = new LinkedHashMap<>();
+        for (CheckInRecord checkIn : checkIns) {
+            for (String trigger : checkIn.triggers) {
+                String itemName = extractItemName(trigger);
+                if (itemName == null || itemName.isEmpty()) continue;
+
+                Set<String> items = dateMap.get(checkIn.date);
+                if (items == null) {
+                    items = new LinkedHashSet<>();
+                    dateMap.put(checkIn.date, items);
+                }
+                items.add(itemName);
+            }
+        }
+        return dateMap;
+    }
+
+    private String extractItemName(String trigger) {
+        for (String prefix : triggerPrefixes) {
+            if (trigger.startsWith(prefix)) {
+                return trigger.substring(prefix.length()).trim().toLowerCase(Locale.ROOT);
+            }
+        }
+        return null;
+    }
+
+    private static Double getLocalBaseline(Map<LocalDate, Double> intensityMap,
+                                           Map<LocalDate, Set<String>> itemMap,
+                                           LocalDate targetDate, String excludeItem) {
+        double total = 0;
+        int days = 0;
+        for (int offset = -LOCAL_BASELINE_WINDOW; offset <= LOCAL_BASELINE_WINDOW; offset++) {
+            if (offset == 0) continue;
+
+            LocalDate checkDate = targetDate.plusDays(offset);
+            Double intensity = intensityMap.get(checkDate);
+            if (intensity == null) continue;
+
+            Set<String> itemsOnDay = itemMap.get(checkDate);
+            if (itemsOnDay == null || !itemsOnDay.contains(excludeItem)) {
+                total += intensity;
+                days++;
+            }
+        }
+        return days == 0 ? null : total / days;
+    }
+
+    private static Double getPostExposureIntensity(Map<LocalDate, Double> intensityMap, LocalDate exposureDate) {
+        double total = 0;
+        int days = 0;
+        for (int dayOffset = 1; dayOffset <= REACTION_DAYS; dayOffset++) {
+            Double intensity = intensityMap.get(exposureDate.plusDays(dayOffset));
+            if (intensity != null) {
+                total += intensity;
+                days++;
+            }
+        }
+        return days == 0 ? null : total / days;
+    }
+
+    private static Pattern calculatePattern(int worseCount, int betterCount, int total) {
+        if (total == 0) return Pattern.INSUFFICIENT_DATA;
+
+        double worseRatio = (double) worseCount / total;
+        double betterRatio = (double) betterCount / total;
+
+        if (worseRatio >= 0.6) return Pattern.OFTEN_WORSE;
+        if (betterRatio >= 0.6) return Pattern.OFTEN_BETTER;
+        if (worseRatio + betterRatio >= 0.5) return Pattern.MIXED;
+        return Pattern.NO_PATTERN;
+    }
+
+    private static double calculateConsistency(int worseCount, int betterCount, int neutralCount, int total) {
+        if (total == 0) return 0;
+        return Math.max((double) worseCount / total,
+            Math.max((double) betterCount / total, (double) neutralCount / total));
+    }
+
+    private static Confidence calculateConfidence(int count, double consistency) {
+        if (count <= 4) return Confidence.LOW;
+        if (count <= 7) return consistency >= 0.6 ? Confidence.MEDIUM : Confidence.LOW;
+        return consistency >= 0.6 ? Confidence.HIGH : Confidence.MEDIUM;
+    }
+
+    private static String toDisplayName(String itemName) {
+        String[] words = itemName.split(" ", -1);
+        StringBuilder name = new StringBuilder(itemName.length());
+        for (int i = 0; i < words.length; i++) {
+            if (i > 0) name.append(' ');
+            String word = words[i];
+            if (!word.isEmpty()) {
+                name.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+            }
+        }
+        return name.toString();
+    }
+}
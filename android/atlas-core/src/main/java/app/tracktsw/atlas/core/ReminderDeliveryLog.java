@@ -0,0 +1,141 @@
+package app.tracktsw.atlas.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Fixed-size on-disk ring buffer of reminder alarm deliveries: when each alarm was meant
+ * to fire, when it actually fired (0 if never, or too late to be shown), and which backend
+ * armed it (exact alarm, inexact alarm, WorkManager). The oldest record is overwritten
+ * once full, so the file never grows past HEADER_SIZE + capacity * RECORD_SIZE bytes.
+ *
+ * Layout: [int next][int count] then records of [long intendedAt][long firedAt][byte backend].
+ * Backends 0 and 1 match the exact flag older versions wrote in that byte.
+ */
+public class ReminderDeliveryLog {
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_SIZE = 17;
+
+    public static final int BACKEND_INEXACT_ALARM = 0;
+    public static final int BACKEND_EXACT_ALARM = 1;
+    public static final int BACKEND_WORK_MANAGER = 2;
+    /** getStats filter for every backend */
+    public static final int ALL_BACKENDS = -1;
+
+    public static final class Stats {
+        public final int count;
+        public final long p50DelayMs;
+        public final long p95DelayMs;
+        public final long maxDelayMs;
+        /** Share of alarms not armed as exact alarms, 0..1 */
+        public final double fallbackShare;
+        /** Distinct days whose alarm never fired, or fired too late to be shown */
+        public final int missedDays;
+
+        Stats(int count, long p50DelayMs, long p95DelayMs, long maxDelayMs, double fallbackShare, int missedDays) {
+            this.count = count;
+            this.p50DelayMs = p50DelayMs;
+            this.p95DelayMs = p95DelayMs;
+            this.maxDelayMs = maxDelayMs;
+            this.fallbackShare = fallbackShare;
+            this.missedDays = missedDays;
+        }
+    }
+
+    private final File file;
+    private final int capacity;
+
+    public ReminderDeliveryLog(File file, int capacity) {
+        this.file = file;
+        this.capacity = capacity;
+    }
+
+    public synchronized void record(long intendedAt, long firedAt, int backend) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            int next = 0;
+            int count = 0;
+            if (raf.length() >= HEADER_SIZE) {
+                next = raf.readInt();
+                count = raf.readInt();
+            }
+            if (next < 0 || next >= capacity || count < 0 || count > capacity) {
+                // Corrupt, or written with a different capacity
+                next = 0;
+                count = 0;
+            }
+
+            raf.seek(HEADER_SIZE + (long) next * RECORD_SIZE);
+            raf.writeLong(intendedAt);
+            raf.writeLong(firedAt);
+            raf.writeByte(backend);
+
+            raf.seek(0);
+            raf.writeInt((next + 1) % capacity);
+            raf.writeInt(Math.min(count + 1, capacity));
+        }
+    }
+
+    public Stats getStats(ZoneId zone) throws IOException {
+        return getStats(zone, ALL_BACKENDS);
+    }
+
+    /**
+     * Stats for the records of one backend, or ALL_BACKENDS.
+     */
+    public synchronized Stats getStats(ZoneId zone, int backend) throws IOException {
+        if (!file.exists()) {
+            return new Stats(0, 0, 0, 0, 0, 0);
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            if (raf.length() < HEADER_SIZE) {
+                return new Stats(0, 0, 0, 0, 0, 0);
+            }
+            raf.readInt();
+            int count = Math.min(Math.max(raf.readInt(), 0), capacity);
+            count = (int) Math.min(count, (raf.length() - HEADER_SIZE) / RECORD_SIZE);
+
+            long[] delays = new long[count];
+            int matched = 0;
+            int fired = 0;
+            int fallbacks = 0;
+            Set<LocalDate> missed = new HashSet<>();
+            for (int i = 0; i < count; i++) {
+                long intendedAt = raf.readLong();
+                long firedAt = raf.readLong();
+                int recordBackend = raf.readByte();
+                if (backend != ALL_BACKENDS && recordBackend != backend) {
+                    continue;
+                }
+
+                matched++;
+                if (recordBackend != BACKEND_EXACT_ALARM) fallbacks++;
+                if (firedAt == 0) {
+                    missed.add(Instant.ofEpochMilli(intendedAt).atZone(zone).toLocalDate());
+                } else {
+                    delays[fired++] = Math.max(0, firedAt - intendedAt);
+                }
+            }
+
+            long[] sorted = Arrays.copyOf(delays, fired);
+            Arrays.sort(sorted);
+            return new Stats(matched, percentile(sorted, 0.5), percentile(sorted, 0.95),
+                fired > 0 ? sorted[fired - 1] : 0,
+                matched > 0 ? (double) fallbacks / matched : 0, missed.size());
+        }
+    }
+
+    /** Nearest-rank percentile of an ascending array. */
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(p * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+}
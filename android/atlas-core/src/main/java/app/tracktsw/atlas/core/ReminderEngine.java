@@ -0,0 +1,232 @@
+package app.tracktsw.atlas.core;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Every daily reminder (check-in slots, belief reinforcement, custom) in one queue
+ * ordered by next trigger time, so only a single alarm has to be armed: the earliest.
+ *
+ * When that alarm fires, pollDue returns every reminder due within COALESCE_WINDOW_MS
+ * and moves each to its next occurrence, so reminders that are close together share
+ * one wakeup.
+ *
+ * Trigger times are wall-clock times in the engine's Clock zone, so a reminder set for
+ * 09:00 fires at 09:00 local on both sides of a DST change. In a DST gap the time moves
+ * forward by the gap (02:30 becomes 03:30); in an overlap the earlier 01:30 is used.
+ * After a time zone or clock change, setClock moves the queue to the new zone.
+ * Not thread-safe.
+ */
+public class ReminderEngine {
+
+    public enum Kind {
+        CHECK_IN("check_in"),
+        BELIEF("belief"),
+        CUSTOM("custom");
+
+        public final String value;
+
+        Kind(String value) {
+            this.value = value;
+        }
+
+        public static Kind fromValue(String value) {
+            for (Kind kind : values()) {
+                if (kind.value.equals(value)) {
+                    return kind;
+                }
+            }
+            return CUSTOM;
+        }
+    }
+
+    public static final class Reminder {
+        public final String id;
+        public final Kind kind;
+        public final int hour;
+        public final int minute;
+        /** Fire at a random time in [hour:minute, hour:minute + windowMinutes); 0 = exact */
+        public final int windowMinutes;
+        public final String title;
+        public final String body;
+        public final String route;
+        long nextAt;
+
+        public Reminder(String id, Kind kind, int hour, int minute, int windowMinutes,
+                        String title, String body, String route) {
+            this.id = id;
+            this.kind = kind;
+            this.hour = hour;
+            this.minute = minute;
+            this.windowMinutes = windowMinutes;
+            this.title = title;
+            this.body = body;
+            this.route = route;
+        }
+
+        public long getNextAt() {
+            return nextAt;
+        }
+    }
+
+    // Reminders due this close to the alarm are delivered with it
+    public static final long COALESCE_WINDOW_MS = 5 * 60 * 1000L;
+    // A reminder missed by more than this (device off, long Doze) is skipped, not shown late
+    public static final long MAX_LATE_MS = 2 * 60 * 60 * 1000L;
+
+    private final PriorityQueue<Reminder> queue = new PriorityQueue<>(Comparator.comparingLong(r -> r.nextAt));
+    private final Map<String, Reminder> byId = new HashMap<>();
+    // Past this, a pending day is taken as a clock jump rather than a time zone change
+    private static final long MAX_KEPT_AHEAD_MS = 2 * 24 * 60 * 60 * 1000L;
+
+    private final Random random;
+    private Clock clock;
+    private ZoneId zone;
+
+    public ReminderEngine(Clock clock, Random random) {
+        this.clock = clock;
+        this.zone = clock.getZone();
+        this.random = random;
+    }
+
+    public ReminderEngine(ZoneId zone, Random random) {
+        this(Clock.system(zone), random);
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * Switch to a new clock (usually a new time zone) and move every reminder to its
+     * wall-clock time there. A reminder keeps the local day it was waiting for, so flying
+     * west doesn't repeat a reminder already shown today. An occurrence that is now up to
+     * MAX_LATE_MS overdue stays, so the alarm fires right away; one further in the past, or
+     * more than two days away (the time itself was changed), moves to its next occurrence
+     * from now.
+     */
+    public void setClock(Clock newClock) {
+        ZoneId oldZone = zone;
+        clock = newClock;
+        zone = newClock.getZone();
+
+        long now = clock.millis();
+        List<Reminder> all = new ArrayList<>(queue);
+        queue.clear();
+        for (Reminder reminder : all) {
+            long candidate = reminder.nextAt;
+            if (!zone.getRules().equals(oldZone.getRules())) {
+                LocalDate day = Instant.ofEpochMilli(reminder.nextAt).atZone(oldZone).toLocalDate();
+                candidate = occurrenceOn(day, reminder);
+            }
+            if (candidate < now - MAX_LATE_MS || candidate - now > MAX_KEPT_AHEAD_MS) {
+                candidate = nextOccurrence(reminder, now);
+            }
+            reminder.nextAt = candidate;
+            queue.add(reminder);
+        }
+    }
+
+    /**
+     * Add or replace a reminder, scheduled for its first occurrence after the given time.
+     */
+    public void put(Reminder reminder, long afterMs) {
+        reminder.nextAt = nextOccurrence(reminder, afterMs);
+        restore(reminder, reminder.nextAt);
+    }
+
+    /**
+     * Add or replace a reminder with an already computed trigger time (from storage).
+     */
+    public void restore(Reminder reminder, long nextAt) {
+        remove(reminder.id);
+        reminder.nextAt = nextAt;
+        byId.put(reminder.id, reminder);
+        queue.add(reminder);
+    }
+
+    public boolean remove(String id) {
+        Reminder existing = byId.remove(id);
+        return existing != null && queue.remove(existing);
+    }
+
+    public Reminder get(String id) {
+        return byId.get(id);
+    }
+
+    /** Copies of all reminders, earliest first; later changes to the queue don't show in them. */
+    public List<Reminder> getAll() {
+        List<Reminder> all = new ArrayList<>(queue.size());
+        for (Reminder reminder : queue) {
+            Reminder copy = new Reminder(reminder.id, reminder.kind, reminder.hour, reminder.minute,
+                reminder.windowMinutes, reminder.title, reminder.body, reminder.route);
+            copy.nextAt = reminder.nextAt;
+            all.add(copy);
+        }
+        all.sort(queue.comparator());
+        return all;
+    }
+
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    /** When the single alarm should fire, or -1 if nothing is scheduled. */
+    public long getNextTriggerAt() {
+        Reminder next = queue.peek();
+        return next != null ? next.nextAt : -1;
+    }
+
+    /**
+     * Remove everything due by now + COALESCE_WINDOW_MS, reschedule each to its next
+     * occurrence, and return the ones that should be shown (earliest first).
+     */
+    public List<Reminder> pollDue(long nowMs) {
+        List<Reminder> fired = new ArrayList<>();
+        while (!queue.isEmpty() && queue.peek().nextAt <= nowMs + COALESCE_WINDOW_MS) {
+            fired.add(queue.poll());
+        }
+
+        List<Reminder> due = new ArrayList<>(fired.size());
+        for (Reminder reminder : fired) {
+            if (reminder.nextAt >= nowMs - MAX_LATE_MS) {
+                due.add(reminder);
+            }
+            // Early (coalesced) reminders must not fire again for the same occurrence
+            reminder.nextAt = nextOccurrence(reminder, Math.max(nowMs, reminder.nextAt));
+            queue.add(reminder);
+        }
+        return due;
+    }
+
+    private long nextOccurrence(Reminder reminder, long afterMs) {
+        LocalDate day = Instant.ofEpochMilli(afterMs).atZone(zone).toLocalDate();
+        while (true) {
+            long candidate = occurrenceOn(day, reminder);
+            if (candidate > afterMs) {
+                return candidate;
+            }
+            day = day.plusDays(1);
+        }
+    }
+
+    private long occurrenceOn(LocalDate day, Reminder reminder) {
+        long base = ZonedDateTime.of(day, LocalTime.of(reminder.hour, reminder.minute), zone)
+            .toInstant().toEpochMilli();
+        if (reminder.windowMinutes <= 0) {
+            return base;
+        }
+        return base + random.nextInt(reminder.windowMinutes) * 60_000L;
+    }
+}
@@ -0,0 +1,133 @@
+package app.tracktsw.atlas.core;
+
+/**
+ * Learns when in the day the user usually checks in, to time the check-in reminder.
+ *
+ * Check-in times go into a histogram of 15-minute buckets. Every new observation first
+ * scales the existing weights down by DECAY, so recent habits win over old ones and the
+ * model never has to look at past check-ins again: an update is one pass over 96 doubles.
+ *
+ * getLearnedMinute only answers once the recent check-ins are both numerous and
+ * concentrated (most of them inside one hour); otherwise the user's own time stands.
+ * Not thread-safe.
+ */
+public class ReminderTimeModel {
+    public static final int BUCKET_MINUTES = 15;
+    public static final int BUCKETS = 24 * 60 / BUCKET_MINUTES;
+    // Weight left to an observation after each newer one; 0.9 halves it in ~7 check-ins
+    public static final double DECAY = 0.9;
+    // About the last five check-ins
+    public static final double MIN_WEIGHT = 4.0;
+    // Share of the weight that has to fall in the busiest hour
+    public static final double MIN_CONCENTRATION = 0.5;
+    // Remind a little before the usual check-in rather than at it
+    public static final int LEAD_MINUTES = 15;
+
+    private static final int WINDOW_BUCKETS = 60 / BUCKET_MINUTES;
+
+    private final double[] weights;
+
+    public ReminderTimeModel() {
+        this.weights = new double[BUCKETS];
+    }
+
+    private ReminderTimeModel(double[] weights) {
+        this.weights = weights;
+    }
+
+    /**
+     * Add a check-in at the given local minute of day (0..1439).
+     */
+    public void observe(int minuteOfDay) {
+        if (minuteOfDay < 0 || minuteOfDay >= 24 * 60) {
+            throw new IllegalArgumentException("minuteOfDay out of range: " + minuteOfDay);
+        }
+        for (int i = 0; i < BUCKETS; i++) {
+            weights[i] *= DECAY;
+        }
+        weights[minuteOfDay / BUCKET_MINUTES] += 1;
+    }
+
+    /** Decayed number of observations. */
+    public double getWeight() {
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+        return total;
+    }
+
+    /**
+     * The learned reminder time as a minute of day (LEAD_MINUTES before the usual check-in,
+     * rounded to 5 minutes), or -1 while there isn't a clear habit yet.
+     */
+    public int getLearnedMinute() {
+        double total = getWeight();
+        if (total < MIN_WEIGHT) {
+            return -1;
+        }
+
+        // Busiest hour-long window, wrapping around midnight
+        int bestStart = 0;
+        double bestWeight = -1;
+        for (int start = 0; start < BUCKETS; start++) {
+            double windowWeight = 0;
+            for (int i = 0; i < WINDOW_BUCKETS; i++) {
+                windowWeight += weights[(start + i) % BUCKETS];
+            }
+            if (windowWeight > bestWeight) {
+                bestWeight = windowWeight;
+                bestStart = start;
+            }
+        }
+        if (bestWeight / total < MIN_CONCENTRATION) {
+            return -1;
+        }
+
+        // Weighted mean of the bucket centres, measured from the window start
+        double offset = 0;
+        for (int i = 0; i < WINDOW_BUCKETS; i++) {
+            offset += weights[(bestStart + i) % BUCKETS] * (i * BUCKET_MINUTES + BUCKET_MINUTES / 2.0);
+        }
+        double mean = bestStart * BUCKET_MINUTES + offset / bestWeight - LEAD_MINUTES;
+
+        int rounded = (int) Math.round(mean / 5.0) * 5;
+        return Math.floorMod(rounded, 24 * 60);
+    }
+
+    /** Comma-separated bucket weights, for storage. */
+    public String encode() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < BUCKETS; i++) {
+            if (i > 0) builder.append(',');
+            // Weights this small no longer move the result
+            builder.append(weights[i] < 1e-4 ? "0" : Double.toString(weights[i]));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Parse the output of encode; a missing or malformed value gives an empty model.
+     */
+    public static ReminderTimeModel decode(String encoded) {
+        if (encoded == null || encoded.isEmpty()) {
+            return new ReminderTimeModel();
+        }
+        String[] parts = encoded.split(",");
+        if (parts.length != BUCKETS) {
+            return new ReminderTimeModel();
+        }
+        double[] weights = new double[BUCKETS];
+        try {
+            for (int i = 0; i < BUCKETS; i++) {
+                weights[i] = Double.parseDouble(parts[i]);
+                if (!(weights[i] >= 0) || Double.isInfinite(weights[i])) {
+                    return new ReminderTimeModel();
+                }
+            }
+        } catch (NumberFormatException e) {
+            return new ReminderTimeModel();
+        }
+        return new ReminderTimeModel(weights);
+    }
+}
@@ -0,0 +1,147 @@
+package app.tracktsw.atlas.core;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.Map;
+
+/**
+ * Writes events as JSON lines ({"at":epochMillis,"name":...,"parameters":{...}}) to a
+ * file, rolled over to file.1 .. file.(maxFiles - 1) once it passes maxBytes, so the
+ * files never take more than about maxFiles * maxBytes. Lines are buffered until flush.
+ * Not thread-safe.
+ */
+public class RollingFileEventSink implements EventSink, Closeable {
+    private final File file;
+    private final long maxBytes;
+    private final int maxFiles;
+    private final Clock clock;
+    private final StringBuilder line = new StringBuilder(256);
+    private Writer writer;
+    private long size;
+
+    public RollingFileEventSink(File file, long maxBytes, int maxFiles, Clock clock) {
+        if (maxFiles < 1) {
+            throw new IllegalArgumentException("maxFiles must be at least 1: " + maxFiles);
+        }
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.maxFiles = maxFiles;
+        this.clock = clock;
+    }
+
+    @Override
+    public void accept(AnalyticsEvent event) throws IOException {
+        line.setLength(0);
+        line.append("{\"at\":").append(clock.millis()).append(",\"name\":");
+        appendString(line, event.name);
+        line.append(",\"parameters\":{");
+        boolean first = true;
+        for (Map.Entry<String, Object> parameter : event.parameters.entrySet()) {
+            if (!first) line.append(',');
+            first = false;
+            appendString(line, parameter.getKey());
+            line.append(':');
+            Object value = parameter.getValue();
+            if (value instanceof Number || value instanceof Boolean) {
+                line.append(value);
+            } else {
+                appendString(line, String.valueOf(value));
+            }
+        }
+        line.append("}}\n");
+
+        // UTF-8 length without encoding twice; close enough for ASCII-heavy analytics
+        if (writer == null || size + line.length() > maxBytes) {
+            roll();
+        }
+        writer.append(line);
+        size += line.length();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    private void roll() throws IOException {
+        if (writer == null) {
+            // Continue the current file after a restart
+            size = file.length();
+            if (size < maxBytes) {
+                writer = open();
+                return;
+            }
+        } else {
+            writer.close();
+        }
+
+        File oldest = sibling(maxFiles - 1);
+        if (maxFiles == 1 || (oldest.exists() && !oldest.delete())) {
+            // Nothing to keep, or nowhere to move it: start the file over
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, false), StandardCharsets.UTF_8));
+            size = 0;
+            return;
+        }
+        for (int i = maxFiles - 2; i >= 1; i--) {
+            File from = sibling(i);
+            if (from.exists() && !from.renameTo(sibling(i + 1))) {
+                throw new IOException("Could not roll " + from);
+            }
+        }
+        if (file.exists() && !file.renameTo(sibling(1))) {
+            throw new IOException("Could not roll " + file);
+        }
+        writer = open();
+        size = 0;
+    }
+
+    private Writer open() throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Could not create " + parent);
+        }
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+    }
+
+    private File sibling(int index) {
+        return new File(file.getPath() + "." + index);
+    }
+
+    private static void appendString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,45 @@
+package app.tracktsw.atlas.core;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Check-in streak calculation (only counts real-time entries, not backfilled).
+ * Native port of calculateStreak in src/pages/HomePage.tsx.
+ *
+ * If today has no real-time check-in yet the streak is counted from yesterday,
+ * so an ongoing streak isn't shown as broken before the user checks in.
+ */
+public class StreakEngine {
+    private final Set<LocalDate> realTimeDays = new HashSet<>();
+
+    public StreakEngine() {
+    }
+
+    public StreakEngine(List<CheckInRecord> checkIns) {
+        for (CheckInRecord checkIn : checkIns) {
+            add(checkIn);
+        }
+    }
+
+    public void add(CheckInRecord checkIn) {
+        if (checkIn.isRealTime()) {
+            realTimeDays.add(checkIn.date);
+        }
+    }
+
+    /**
+     * Current streak length in days, ending today (or yesterday if today isn't logged yet).
+     */
+    public int getCurrentStreak(LocalDate today) {
+        LocalDate day = realTimeDays.contains(today) ? today : today.minusDays(1);
+        int streak = 0;
+        while (realTimeDays.contains(day)) {
+            streak++;
+            day = day.minusDays(1);
+        }
+        return streak;
+    }
+}
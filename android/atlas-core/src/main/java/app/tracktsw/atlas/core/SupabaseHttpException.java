@@ -0,0 +1,31 @@
+package app.tracktsw.atlas.core;
+
+import java.io.IOException;
+
+/**
+ * Non-2xx response from a Supabase endpoint.
+ * 5xx, 408 and 429 are retryable; other 4xx (bad auth, RLS, bad request) are not.
+ */
+public class SupabaseHttpException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    public final int statusCode;
+
+    public SupabaseHttpException(int statusCode, String message) {
+        super("HTTP " + statusCode + ": " + message);
+        this.statusCode = statusCode;
+    }
+
+    public boolean isRetryable() {
+        return statusCode >= 500 || statusCode == 408 || statusCode == 429;
+    }
+
+    /**
+     * Expired or missing access token; retry once the app provides a fresh session.
+     */
+    public boolean isAuthError() {
+        // Storage reports expired JWTs as 400 with the reason in the body
+        return statusCode == 401 || statusCode == 403
+            || (getMessage() != null && getMessage().contains("jwt expired"));
+    }
+}
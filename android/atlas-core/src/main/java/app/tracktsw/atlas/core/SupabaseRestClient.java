@@ -0,0 +1,104 @@
+package app.tracktsw.atlas.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal PostgREST client for reads and writes made from background workers.
+ * Rows carry a client-generated id, so writes are idempotent: a retry after a lost
+ * response hits on_conflict=id instead of creating a duplicate row.
+ */
+public class SupabaseRestClient {
+    private static final int CONNECT_TIMEOUT_MS = 15_000;
+    private static final int READ_TIMEOUT_MS = 30_000;
+
+    private final String baseUrl;
+    private final String apiKey;
+    private final String accessToken;
+
+    public SupabaseRestClient(String baseUrl, String apiKey, String accessToken) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.apiKey = apiKey;
+        this.accessToken = accessToken;
+    }
+
+    /**
+     * Insert a JSON row (or array of rows), ignoring rows whose id already exists.
+     */
+    public void insertIgnoringDuplicates(String table, String json) throws IOException {
+        write("POST", table, "on_conflict=id", "resolution=ignore-duplicates,return=minimal", json);
+    }
+
+    /**
+     * Insert a JSON row (or array of rows), overwriting rows whose id already exists.
+     */
+    public void upsert(String table, String json) throws IOException {
+        write("POST", table, "on_conflict=id", "resolution=merge-duplicates,return=minimal", json);
+    }
+
+    public void delete(String table, String id) throws IOException {
+        write("DELETE", table, "id=eq." + encode(id), "return=minimal", null);
+    }
+
+    /**
+     * GET /rest/v1/{table}?{query} and return the JSON response body.
+     * Query values must already be URL-encoded (see encode).
+     */
+    public String select(String table, String query) throws IOException {
+        HttpURLConnection connection = open("GET", table, query);
+        try {
+            int status = connection.getResponseCode();
+            if (status < 200 || status >= 300) {
+                throw new SupabaseHttpException(status, SupabaseStorageClient.readBody(connection.getErrorStream()));
+            }
+            return SupabaseStorageClient.readBody(connection.getInputStream());
+        } catch (IOException e) {
+            connection.disconnect();
+            throw e;
+        }
+    }
+
+    public static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void write(String method, String table, String query, String prefer, String json) throws IOException {
+        HttpURLConnection connection = open(method, table, query);
+        try {
+            connection.setRequestProperty("Prefer", prefer);
+            if (json != null) {
+                byte[] body = json.getBytes(StandardCharsets.UTF_8);
+                connection.setRequestProperty("Content-Type", "application/json");
+                connection.setDoOutput(true);
+                connection.setFixedLengthStreamingMode(body.length);
+                try (OutputStream out = connection.getOutputStream()) {
+                    out.write(body);
+                }
+            }
+            SupabaseStorageClient.expectSuccess(connection);
+        } catch (IOException e) {
+            connection.disconnect();
+            throw e;
+        }
+    }
+
+    private HttpURLConnection open(String method, String table, String query) throws IOException {
+        URL url = new URL(baseUrl + "/rest/v1/" + table + (query != null ? "?" + query : ""));
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        connection.setReadTimeout(READ_TIMEOUT_MS);
+        connection.setRequestProperty("apikey", apiKey);
+        connection.setRequestProperty("Authorization", "Bearer " + accessToken);
+        return connection;
+    }
+}
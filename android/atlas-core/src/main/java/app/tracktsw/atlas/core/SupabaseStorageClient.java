@@ -0,0 +1,251 @@
+package app.tracktsw.atlas.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Minimal Supabase Storage client for background photo uploads.
+ *
+ * Small files (thumb/medium) use a single upsert POST. Files above
+ * RESUMABLE_THRESHOLD use the TUS resumable endpoint in 6MB chunks, and the upload
+ * URL is kept in a ResumeStore so a transfer interrupted by process death continues
+ * from the last acknowledged offset instead of starting over.
+ *
+ * Uses HttpURLConnection, which pools keep-alive connections per host, so the three
+ * derivative uploads of a photo share warm TLS connections.
+ */
+public class SupabaseStorageClient {
+
+    /** Persists TUS upload URLs between attempts. */
+    public interface ResumeStore {
+        String get(String key);
+
+        void put(String key, String uploadUrl);
+
+        void remove(String key);
+    }
+
+    public interface ProgressListener {
+        void onProgress(long bytesSent, long totalBytes);
+    }
+
+    // Supabase requires every TUS chunk except the last to be exactly 6MB
+    public static final int CHUNK_SIZE = 6 * 1024 * 1024;
+    public static final long RESUMABLE_THRESHOLD = CHUNK_SIZE;
+
+    private static final int CONNECT_TIMEOUT_MS = 15_000;
+    private static final int READ_TIMEOUT_MS = 60_000;
+    private static final String TUS_VERSION = "1.0.0";
+
+    private final String baseUrl;
+    private final String apiKey;
+    private final String accessToken;
+
+    public SupabaseStorageClient(String baseUrl, String apiKey, String accessToken) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.apiKey = apiKey;
+        this.accessToken = accessToken;
+    }
+
+    /**
+     * Upload (or overwrite) an object. Safe to call again after a failure.
+     */
+    public void upload(String bucket, String objectPath, File file, String contentType, String cacheControl,
+                       ResumeStore resumeStore, ProgressListener listener) throws IOException {
+        if (file.length() > RESUMABLE_THRESHOLD) {
+            uploadResumable(bucket, objectPath, file, contentType, cacheControl, resumeStore, listener);
+        } else {
+            uploadSimple(bucket, objectPath, file, contentType, cacheControl, listener);
+        }
+    }
+
+    private void uploadSimple(String bucket, String objectPath, File file, String contentType,
+                              String cacheControl, ProgressListener listener) throws IOException {
+        HttpURLConnection connection = open(baseUrl + "/storage/v1/object/" + bucket + "/" + encodePath(objectPath), "POST");
+        try {
+            connection.setRequestProperty("Content-Type", contentType);
+            connection.setRequestProperty("x-upsert", "true");
+            if (cacheControl != null) {
+                connection.setRequestProperty("cache-control", "max-age=" + cacheControl);
+            }
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(file.length());
+
+            try (OutputStream out = connection.getOutputStream();
+                 RandomAccessFile in = new RandomAccessFile(file, "r")) {
+                byte[] buffer = new byte[64 * 1024];
+                long sent = 0;
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                    sent += read;
+                    if (listener != null) listener.onProgress(sent, file.length());
+                }
+            }
+            expectSuccess(connection);
+        } catch (IOException e) {
+            connection.disconnect();
+            throw e;
+        }
+    }
+
+    private void uploadResumable(String bucket, String objectPath, File file, String contentType,
+                                 String cacheControl, ResumeStore resumeStore, ProgressListener listener)
+            throws IOException {
+        String resumeKey = bucket + "/" + objectPath;
+        long total = file.length();
+
+        String uploadUrl = resumeStore.get(resumeKey);
+        long offset = uploadUrl != null ? queryOffset(uploadUrl) : -1;
+        if (offset < 0) {
+            uploadUrl = createUpload(bucket, objectPath, total, contentType, cacheControl);
+            resumeStore.put(resumeKey, uploadUrl);
+            offset = 0;
+        }
+        if (listener != null) listener.onProgress(offset, total);
+
+        byte[] chunk = new byte[CHUNK_SIZE];
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            while (offset < total) {
+                int length = (int) Math.min(CHUNK_SIZE, total - offset);
+                in.seek(offset);
+                in.readFully(chunk, 0, length);
+                offset = patchChunk(uploadUrl, offset, chunk, length);
+                if (listener != null) listener.onProgress(offset, total);
+            }
+        }
+        resumeStore.remove(resumeKey);
+    }
+
+    private String createUpload(String bucket, String objectPath, long length, String contentType,
+                                String cacheControl) throws IOException {
+        HttpURLConnection connection = open(baseUrl + "/storage/v1/upload/resumable", "POST");
+        try {
+            connection.setRequestProperty("Tus-Resumable", TUS_VERSION);
+            connection.setRequestProperty("Upload-Length", Long.toString(length));
+            connection.setRequestProperty("x-upsert", "true");
+            StringBuilder metadata = new StringBuilder()
+                .append("bucketName ").append(base64(bucket))
+                .append(",objectName ").append(base64(objectPath))
+                .append(",contentType ").append(base64(contentType));
+            if (cacheControl != null) {
+                metadata.append(",cacheControl ").append(base64(cacheControl));
+            }
+            connection.setRequestProperty("Upload-Metadata", metadata.toString());
+            connection.setFixedLengthStreamingMode(0);
+            connection.setDoOutput(true);
+            connection.getOutputStream().close();
+            expectSuccess(connection);
+
+            String location = connection.getHeaderField("Location");
+            if (location == null) {
+                throw new IOException("Resumable upload created without a Location header");
+            }
+            return new URL(new URL(baseUrl + "/storage/v1/upload/resumable"), location).toString();
+        } catch (IOException e) {
+            connection.disconnect();
+            throw e;
+        }
+    }
+
+    /**
+     * Current server offset for an upload, or -1 if it expired and must be recreated.
+     */
+    private long queryOffset(String uploadUrl) throws IOException {
+        HttpURLConnection connection = open(uploadUrl, "HEAD");
+        try {
+            connection.setRequestProperty("Tus-Resumable", TUS_VERSION);
+            int status = connection.getResponseCode();
+            if (status == 404 || status == 410) {
+                readBody(connection.getErrorStream());
+                return -1;
+            }
+            expectSuccess(connection);
+            String offset = connection.getHeaderField("Upload-Offset");
+            return offset != null ? Long.parseLong(offset) : -1;
+        } catch (IOException e) {
+            connection.disconnect();
+            throw e;
+        }
+    }
+
+    private long patchChunk(String uploadUrl, long offset, byte[] chunk, int length) throws IOException {
+        // HttpURLConnection rejects PATCH, so use the TUS method override header
+        HttpURLConnection connection = open(uploadUrl, "POST");
+        try {
+            connection.setRequestProperty("X-HTTP-Method-Override", "PATCH");
+            connection.setRequestProperty("Tus-Resumable", TUS_VERSION);
+            connection.setRequestProperty("Upload-Offset", Long.toString(offset));
+            connection.setRequestProperty("Content-Type", "application/offset+octet-stream");
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(chunk, 0, length);
+            }
+            expectSuccess(connection);
+            String newOffset = connection.getHeaderField("Upload-Offset");
+            return newOffset != null ? Long.parseLong(newOffset) : offset + length;
+        } catch (IOException e) {
+            connection.disconnect();
+            throw e;
+        }
+    }
+
+    private HttpURLConnection open(String url, String method) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        connection.setReadTimeout(READ_TIMEOUT_MS);
+        connection.setRequestProperty("apikey", apiKey);
+        connection.setRequestProperty("Authorization", "Bearer " + accessToken);
+        return connection;
+    }
+
+    /**
+     * Throw for non-2xx responses. The response body is always fully read and closed
+     * (never disconnect()) so the socket goes back to the keep-alive pool.
+     */
+    static void expectSuccess(HttpURLConnection connection) throws IOException {
+        int status = connection.getResponseCode();
+        if (status >= 200 && status < 300) {
+            readBody(connection.getInputStream());
+            return;
+        }
+        throw new SupabaseHttpException(status, readBody(connection.getErrorStream()));
+    }
+
+    static String readBody(InputStream in) throws IOException {
+        if (in == null) return "";
+        try (InputStream stream = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toString("UTF-8");
+        }
+    }
+
+    private static String encodePath(String path) throws IOException {
+        StringBuilder encoded = new StringBuilder();
+        for (String segment : path.split("/")) {
+            if (encoded.length() > 0) encoded.append('/');
+            encoded.append(URLEncoder.encode(segment, "UTF-8").replace("+", "%20"));
+        }
+        return encoded.toString();
+    }
+
+    private static String base64(String value) {
+        return Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,327 @@
+package app.tracktsw.atlas.core;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Two-way delta sync between the local mirror and Supabase.
+ *
+ * Push: local mutations are queued in a durable outbox and sent in order. Inserts use
+ * the client-generated id with on_conflict=id, and a unique-violation on
+ * client_request_id is treated as already applied, so retries are idempotent.
+ *
+ * Pull: for each table only rows with (updated_at, id) past the stored watermark are
+ * fetched, in pages, using the same composite cursor as useVirtualizedPhotos. Deletes
+ * arrive as rows in sync_tombstones, watermarked the same way by (deleted_at, id).
+ *
+ * updated_at and deleted_at are now() at transaction start, so a row can commit after a
+ * client has already pulled past its timestamp. Each run therefore starts PULL_OVERLAP
+ * behind the stored watermark and re-applies what it finds there; applying a row twice
+ * is harmless. A transaction that stays open longer than that can still be missed.
+ */
+public class SyncEngine {
+
+    public enum Op {
+        INSERT("insert"),
+        UPDATE("update"),
+        DELETE("delete");
+
+        public final String value;
+
+        Op(String value) {
+            this.value = value;
+        }
+
+        public static Op fromValue(String value) {
+            for (Op op : values()) {
+                if (op.value.equals(value)) {
+                    return op;
+                }
+            }
+            return null;
+        }
+    }
+
+    public static final class OutboxEntry {
+        public final long id;
+        public final String table;
+        public final Op op;
+        public final String rowId;
+        public final String clientRequestId;
+        public final String payload;
+
+        public OutboxEntry(long id, String table, Op op, String rowId, String clientRequestId, String payload) {
+            this.id = id;
+            this.table = table;
+            this.op = op;
+            this.rowId = rowId;
+            this.clientRequestId = clientRequestId;
+            this.payload = payload;
+        }
+    }
+
+    /** Local persistence for rows, watermarks and the outbox. */
+    public interface Store {
+        String getWatermark(String table);
+
+        /** Apply pulled rows and advance the watermark, ideally atomically. */
+        void applyRows(String table, JSONArray rows, String newWatermark);
+
+        void applyDeletes(Map<String, List<String>> idsByTable, String newWatermark);
+
+        List<OutboxEntry> peekOutbox(int limit);
+
+        void removeOutbox(long id);
+
+        /** The server permanently refused the mutation; drop it and keep the reason. */
+        void rejectOutbox(long id, String error);
+    }
+
+    /** Rows re-read from the overlap window are applied but not counted. */
+    public static final class Result {
+        public int pushed;
+        public int rejected;
+        public int pulled;
+        public int deleted;
+    }
+
+    public static final String TOMBSTONE_TABLE = "sync_tombstones";
+    static final int PAGE_SIZE = 500;
+    static final Duration PULL_OVERLAP = Duration.ofMinutes(5);
+    // Same shape as PostgREST timestamptz output, so cursors compare like the server's
+    private static final DateTimeFormatter TIMESTAMP =
+        DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm:ss.SSSSSSxxx");
+    private static final int OUTBOX_BATCH = 50;
+
+    private final SupabaseRestClient client;
+    private final Store store;
+    private final String userId;
+    private final List<String> tables;
+
+    public SyncEngine(SupabaseRestClient client, Store store, String userId, List<String> tables) {
+        this.client = client;
+        this.store = store;
+        this.userId = userId;
+        this.tables = tables;
+    }
+
+    /**
+     * Push the outbox, then pull changes. Throws on network or retryable server errors,
+     * leaving unsent mutations queued and watermarks where they were.
+     */
+    public Result run() throws IOException {
+        Result result = new Result();
+        try {
+            push(result);
+            for (String table : tables) {
+                pullTable(table, result);
+            }
+            pullTombstones(result);
+        } catch (JSONException e) {
+            throw new IOException("Malformed sync response", e);
+        }
+        return result;
+    }
+
+    private void push(Result result) throws IOException {
+        List<OutboxEntry> batch;
+        while (!(batch = store.peekOutbox(OUTBOX_BATCH)).isEmpty()) {
+            for (OutboxEntry entry : batch) {
+                try {
+                    send(entry);
+                    store.removeOutbox(entry.id);
+                    result.pushed++;
+                } catch (SupabaseHttpException e) {
+                    if (isAlreadyApplied(e)) {
+                        store.removeOutbox(entry.id);
+                        result.pushed++;
+                    } else if (e.isRetryable() || e.isAuthError()) {
+                        // Keep order: later mutations may depend on this one
+                        throw e;
+                    } else {
+                        store.rejectOutbox(entry.id, e.getMessage());
+                        result.rejected++;
+                    }
+                }
+            }
+        }
+    }
+
+    private void send(OutboxEntry entry) throws IOException {
+        switch (entry.op) {
+            case INSERT:
+                client.insertIgnoringDuplicates(entry.table, entry.payload);
+                break;
+            case UPDATE:
+                client.upsert(entry.table, entry.payload);
+                break;
+            case DELETE:
+                client.delete(entry.table, entry.rowId);
+                break;
+        }
+    }
+
+    /**
+     * Duplicate client_request_id: the same mutation already reached the server
+     * (e.g. the response to an earlier attempt was lost).
+     */
+    private static boolean isAlreadyApplied(SupabaseHttpException e) {
+        String message = e.getMessage();
+        return e.statusCode == 409 && message != null && message.contains("client_request");
+    }
+
+    private void pullTable(String table, Result result) throws IOException, JSONException {
+        Cursor stored = Cursor.parse(store.getWatermark(table));
+        Cursor cursor = stored;
+        boolean firstPage = true;
+        while (true) {
+            StringBuilder query = new StringBuilder("select=*")
+                .append("&user_id=eq.").append(SupabaseRestClient.encode(userId))
+                .append("&order=updated_at.asc,id.asc")
+                .append("&limit=").append(PAGE_SIZE);
+            appendCursor(query, "updated_at", cursor, firstPage);
+            firstPage = false;
+
+            JSONArray rows = new JSONArray(client.select(table, query.toString()));
+            if (rows.length() == 0) {
+                return;
+            }
+
+            for (int i = 0; i < rows.length(); i++) {
+                if (Cursor.of(rows.getJSONObject(i), "updated_at").isAfter(stored, false)) {
+                    result.pulled++;
+                }
+            }
+            cursor = Cursor.of(rows.getJSONObject(rows.length() - 1), "updated_at");
+            // A page from the overlap window alone must not move the watermark back
+            if (cursor.isAfter(stored, false)) {
+                stored = cursor;
+            }
+            store.applyRows(table, rows, stored.toString());
+
+            if (rows.length() < PAGE_SIZE) {
+                return;
+            }
+        }
+    }
+
+    private void pullTombstones(Result result) throws IOException, JSONException {
+        Cursor stored = Cursor.parse(store.getWatermark(TOMBSTONE_TABLE));
+        Cursor cursor = stored;
+        boolean firstPage = true;
+        while (true) {
+            StringBuilder query = new StringBuilder("select=id,table_name,row_id,deleted_at")
+                .append("&user_id=eq.").append(SupabaseRestClient.encode(userId))
+                .append("&order=deleted_at.asc,id.asc")
+                .append("&limit=").append(PAGE_SIZE);
+            appendCursor(query, "deleted_at", cursor, firstPage);
+            firstPage = false;
+
+            JSONArray rows = new JSONArray(client.select(TOMBSTONE_TABLE, query.toString()));
+            if (rows.length() == 0) {
+                return;
+            }
+
+            Map<String, List<String>> idsByTable = new LinkedHashMap<>();
+            for (int i = 0; i < rows.length(); i++) {
+                JSONObject row = rows.getJSONObject(i);
+                String table = row.getString("table_name");
+                if (!tables.contains(table)) continue;
+
+                List<String> ids = idsByTable.get(table);
+                if (ids == null) {
+                    ids = new ArrayList<>();
+                    idsByTable.put(table, ids);
+                }
+                ids.add(row.getString("row_id"));
+                if (Cursor.of(row, "deleted_at").isAfter(stored, true)) {
+                    result.deleted++;
+                }
+            }
+            cursor = Cursor.of(rows.getJSONObject(rows.length() - 1), "deleted_at");
+            if (cursor.isAfter(stored, true)) {
+                stored = cursor;
+            }
+            store.applyDeletes(idsByTable, stored.toString());
+
+            if (rows.length() < PAGE_SIZE) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Rows after the cursor. The first page of a run starts PULL_OVERLAP before it instead,
+     * to pick up rows that committed late.
+     */
+    private static void appendCursor(StringBuilder query, String column, Cursor cursor, boolean overlap) {
+        if (cursor == null) {
+            return;
+        }
+        if (overlap) {
+            String since = TIMESTAMP.format(OffsetDateTime.parse(cursor.timestamp).minus(PULL_OVERLAP));
+            query.append('&').append(column).append("=gte.").append(SupabaseRestClient.encode(since));
+        } else {
+            // Composite cursor so rows sharing a timestamp aren't skipped at page edges
+            query.append("&or=").append(SupabaseRestClient.encode(
+                "(" + column + ".gt.\"" + cursor.timestamp + "\","
+                    + "and(" + column + ".eq.\"" + cursor.timestamp + "\",id.gt." + cursor.id + "))"));
+        }
+    }
+
+    /** A (timestamp, id) watermark, stored as "timestamp|id". */
+    private static final class Cursor {
+        final String timestamp;
+        final String id;
+        final Instant instant;
+
+        Cursor(String timestamp, String id) {
+            this.timestamp = timestamp;
+            this.id = id;
+            this.instant = OffsetDateTime.parse(timestamp).toInstant();
+        }
+
+        static Cursor parse(String watermark) {
+            if (watermark == null) {
+                return null;
+            }
+            int split = watermark.lastIndexOf('|');
+            return new Cursor(watermark.substring(0, split), watermark.substring(split + 1));
+        }
+
+        static Cursor of(JSONObject row, String column) throws JSONException {
+            // Tombstone ids arrive as JSON numbers
+            return new Cursor(row.getString(column), String.valueOf(row.get("id")));
+        }
+
+        /** Same order as the server's ORDER BY; tombstone ids are bigserial, not uuid. */
+        boolean isAfter(Cursor other, boolean numericId) {
+            if (other == null) {
+                return true;
+            }
+            int cmp = instant.compareTo(other.instant);
+            if (cmp != 0) {
+                return cmp > 0;
+            }
+            return numericId
+                ? Long.parseLong(id) > Long.parseLong(other.id)
+                : id.compareTo(other.id) > 0;
+        }
+
+        @Override
+        public String toString() {
+            return timestamp + "|" + id;
+        }
+    }
+}
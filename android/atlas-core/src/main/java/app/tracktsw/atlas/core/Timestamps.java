@@ -0,0 +1,58 @@
+package app.tracktsw.atlas.core;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+
+/**
+ * Parsing for the timestamp strings that come from PostgREST and the JS side:
+ * "2025-12-13T12:32:49.123456+00:00", "2025-12-13 12:32:49+00", "2025-12-13T12:32:49.123Z",
+ * timezone-less EXIF-style "2025-12-13T12:32:49" (device local time) and plain dates.
+ */
+public final class Timestamps {
+
+    // Accepts 'T' or ' ' as separator, 0-9 fraction digits and +00 / +00:00 / Z offsets
+    private static final DateTimeFormatter OFFSET_FORMAT = new DateTimeFormatterBuilder()
+        .append(DateTimeFormatter.ISO_LOCAL_DATE)
+        .optionalStart().appendLiteral('T').optionalEnd()
+        .optionalStart().appendLiteral(' ').optionalEnd()
+        .appendValue(ChronoField.HOUR_OF_DAY, 2).appendLiteral(':')
+        .appendValue(ChronoField.MINUTE_OF_HOUR, 2)
+        .optionalStart().appendLiteral(':').appendValue(ChronoField.SECOND_OF_MINUTE, 2).optionalEnd()
+        .optionalStart().appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true).optionalEnd()
+        .optionalStart().appendOffset("+HH:MM", "Z").optionalEnd()
+        .optionalStart().appendOffset("+HH", "Z").optionalEnd()
+        .toFormatter();
+
+    private Timestamps() {
+    }
+
+    /**
+     * Epoch millis for a timestamp string; values without an offset are read in zone.
+     * Returns null for null or unparseable input.
+     */
+    public static Long parseMillis(String value, ZoneId zone) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            if (value.length() == 10) {
+                return LocalDate.parse(value).atStartOfDay(zone).toInstant().toEpochMilli();
+            }
+            TemporalAccessor parsed = OFFSET_FORMAT.parseBest(value,
+                OffsetDateTime::from, LocalDateTime::from);
+            if (parsed instanceof OffsetDateTime) {
+                return ((OffsetDateTime) parsed).toInstant().toEpochMilli();
+            }
+            return ((LocalDateTime) parsed).atZone(zone).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
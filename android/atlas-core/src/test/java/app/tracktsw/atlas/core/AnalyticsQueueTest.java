@@ -0,0 +1,124 @@
+package app.tracktsw.atlas.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+public class AnalyticsQueueTest {
+
+    @Test
+    public void dropsWhenFullUntilCompleted() {
+        AnalyticsQueue<String> queue = new AnalyticsQueue<>(3);
+        assertTrue(queue.offer("a"));
+        assertTrue(queue.offer("b"));
+        assertTrue(queue.offer("c"));
+        assertFalse(queue.offer("d"));
+
+        List<String> out = new ArrayList<>();
+        assertEquals(2, queue.drainTo(out, 2));
+        assertEquals(List.of("a", "b"), out);
+        // Drained but not yet handled still counts
+        assertFalse(queue.offer("e"));
+
+        queue.complete(1_000_000);
+        queue.complete(3_000_000);
+        assertTrue(queue.offer("f"));
+        assertTrue(queue.offer("g"));
+        assertFalse(queue.offer("h"));
+
+        AnalyticsQueue.Stats stats = queue.getStats();
+        assertEquals(3, stats.depth);
+        assertEquals(5, stats.enqueued);
+        assertEquals(3, stats.dropped);
+        assertEquals(2, stats.delivered);
+        assertEquals(1_000, stats.p50LatencyUs);
+    }
+
+    @Test
+    public void batchesTakeOneSlotPerEvent() {
+        AnalyticsQueue<String> queue = new AnalyticsQueue<>(10);
+        assertTrue(queue.offer("batch of 6", 6));
+        assertFalse(queue.offer("batch of 5", 5));
+        assertTrue(queue.offer("batch of 4", 4));
+        assertFalse(queue.offer("single"));
+        assertEquals(10, queue.size());
+
+        List<String> out = new ArrayList<>();
+        queue.drainTo(out, 10);
+        queue.complete(6, 2_000_000);
+        assertTrue(queue.offer("batch of 5", 5));
+
+        AnalyticsQueue.Stats stats = queue.getStats();
+        assertEquals(9, stats.depth);
+        assertEquals(15, stats.enqueued);
+        assertEquals(6, stats.dropped);
+        assertEquals(6, stats.delivered);
+        assertEquals(2_000, stats.p50LatencyUs);
+    }
+
+    @Test
+    public void computesLatencyPercentiles() {
+        AnalyticsQueue<Integer> queue = new AnalyticsQueue<>(100);
+        List<Integer> out = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            queue.offer(i);
+        }
+        queue.drainTo(out, 100);
+        for (int i : out) {
+            queue.complete(i * 1_000L);
+        }
+
+        AnalyticsQueue.Stats stats = queue.getStats();
+        assertEquals(0, stats.depth);
+        assertEquals(10, stats.p50LatencyUs);
+        assertEquals(19, stats.p95LatencyUs);
+        assertEquals(20, stats.maxLatencyUs);
+    }
+
+    @Test
+    public void concurrentProducersNeitherLoseNorOverfill() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 10_000;
+        AnalyticsQueue<Integer> queue = new AnalyticsQueue<>(1_000);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    queue.offer(i);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        start.countDown();
+        long drained = 0;
+        List<Integer> out = new ArrayList<>();
+        while (threads.stream().anyMatch(Thread::isAlive) || queue.size() > 0) {
+            assertTrue(queue.size() <= 1_000);
+            out.clear();
+            int moved = queue.drainTo(out, 64);
+            for (int i = 0; i < moved; i++) {
+                queue.complete(0);
+            }
+            drained += moved;
+        }
+
+        AnalyticsQueue.Stats stats = queue.getStats();
+        assertEquals(producers * perProducer, stats.enqueued + stats.dropped);
+        assertEquals(stats.enqueued, drained);
+        assertEquals(drained, stats.delivered);
+    }
+}
@@ -0,0 +1,82 @@
+package app.tracktsw.atlas.core;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+public class EventDispatcherTest {
+
+    @Test
+    public void fansOutToEverySinkInOrder() {
+        EventDispatcher dispatcher = new EventDispatcher();
+        InMemoryEventSink first = new InMemoryEventSink(100);
+        InMemoryEventSink second = new InMemoryEventSink(100);
+        dispatcher.addSink(first);
+        dispatcher.addSink(second);
+
+        for (int i = 0; i < 10; i++) {
+            dispatcher.dispatch(new AnalyticsEvent("event_" + i, Map.of("index", i)));
+        }
+
+        for (InMemoryEventSink sink : List.of(first, second)) {
+            List<AnalyticsEvent> events = sink.getEvents();
+            assertEquals(10, events.size());
+            for (int i = 0; i < 10; i++) {
+                assertEquals("event_" + i, events.get(i).name);
+                assertEquals(i, events.get(i).parameters.get("index"));
+            }
+        }
+        assertEquals(10, dispatcher.getDispatched());
+    }
+
+    @Test
+    public void aFailingSinkDoesNotStopTheOthers() {
+        EventDispatcher dispatcher = new EventDispatcher();
+        InMemoryEventSink before = new InMemoryEventSink(10);
+        InMemoryEventSink after = new InMemoryEventSink(10);
+        dispatcher.addSink(before);
+        dispatcher.addSink(new EventSink() {
+            @Override
+            public void accept(AnalyticsEvent event) throws IOException {
+                throw new IOException("disk full");
+            }
+
+            @Override
+            public void flush() {
+                throw new IllegalStateException("closed");
+            }
+        });
+        dispatcher.addSink(after);
+
+        dispatcher.dispatch(new AnalyticsEvent("a", Map.of()));
+        dispatcher.dispatch(new AnalyticsEvent("b", Map.of()));
+        dispatcher.flush();
+
+        assertEquals(2, before.getEvents().size());
+        assertEquals(2, after.getEvents().size());
+        assertEquals(3, dispatcher.getFailures());
+    }
+
+    @Test
+    public void inMemorySinkKeepsTheMostRecent() {
+        InMemoryEventSink sink = new InMemoryEventSink(3);
+        EventDispatcher dispatcher = new EventDispatcher();
+        dispatcher.addSink(sink);
+        for (int i = 0; i < 5; i++) {
+            dispatcher.dispatch(new AnalyticsEvent("event_" + i, Map.of()));
+        }
+
+        List<AnalyticsEvent> events = sink.getEvents();
+        assertEquals(3, events.size());
+        assertEquals("event_2", events.get(0).name);
+        assertEquals("event_4", events.get(2).name);
+
+        dispatcher.removeSink(sink);
+        dispatcher.dispatch(new AnalyticsEvent("ignored", Map.of()));
+        assertEquals(3, sink.getEvents().size());
+    }
+}
@@ -0,0 +1,134 @@
+package app.tracktsw.atlas.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class EventJournalTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void replaysUnacknowledgedRecordsAfterReopen() throws IOException {
+        File file = new File(folder.getRoot(), "journal");
+        try (EventJournal journal = new EventJournal(file, 1 << 20)) {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(journal.append(bytes("event " + i)));
+            }
+            journal.sync();
+        }
+
+        try (EventJournal journal = new EventJournal(file, 1 << 20)) {
+            List<String> replayed = new ArrayList<>();
+            long end = journal.replay(payload -> replayed.add(string(payload)));
+            assertEquals(List.of("event 0", "event 1", "event 2"), replayed);
+            journal.acknowledge(end);
+            assertFalse(journal.hasPending());
+            journal.sync();
+        }
+
+        try (EventJournal journal = new EventJournal(file, 1 << 20)) {
+            assertEquals(0, replayAll(journal).size());
+        }
+        // Fully acknowledged journals are truncated to the header
+        assertEquals(12, file.length());
+    }
+
+    @Test
+    public void cutsOffATornTail() throws IOException {
+        File file = new File(folder.getRoot(), "journal");
+        try (EventJournal journal = new EventJournal(file, 1 << 20)) {
+            journal.append(bytes("kept"));
+            journal.append(bytes("also kept"));
+        }
+        long intact = file.length();
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            // A record header promising more bytes than made it to disk
+            out.write(new byte[] { 0, 0, 0, 40, 1, 2, 3, 4, 'x', 'y' });
+        }
+
+        try (EventJournal journal = new EventJournal(file, 1 << 20)) {
+            assertEquals(List.of("kept", "also kept"), replayAll(journal));
+            assertEquals(intact, file.length());
+            journal.append(bytes("after"));
+        }
+        try (EventJournal journal = new EventJournal(file, 1 << 20)) {
+            assertEquals(List.of("kept", "also kept", "after"), replayAll(journal));
+        }
+    }
+
+    @Test
+    public void compactsOnceEnoughIsAcknowledged() throws IOException {
+        File file = new File(folder.getRoot(), "journal");
+        byte[] payload = new byte[1000];
+        try (EventJournal journal = new EventJournal(file, 1 << 20)) {
+            int delivered = (int) (EventJournal.COMPACT_BYTES / 1000) + 1;
+            for (int i = 0; i < delivered; i++) {
+                journal.append(payload);
+            }
+            long mid = journal.endOffset();
+            journal.append(bytes("undelivered"));
+            journal.sync();
+
+            journal.acknowledge(mid);
+            assertEquals(12 + 8 + "undelivered".length(), file.length());
+            assertEquals(List.of("undelivered"), replayAll(journal));
+            journal.append(bytes("next"));
+        }
+
+        try (EventJournal journal = new EventJournal(file, 1 << 20)) {
+            assertEquals(List.of("undelivered", "next"), replayAll(journal));
+        }
+    }
+
+    @Test
+    public void refusesAppendsOnceFull() throws IOException {
+        try (EventJournal journal = new EventJournal(new File(folder.getRoot(), "journal"), 100)) {
+            assertTrue(journal.append(new byte[60]));
+            assertFalse(journal.append(new byte[60]));
+
+            journal.acknowledge(journal.replay(payload -> { }));
+            assertTrue(journal.append(new byte[60]));
+        }
+    }
+
+    @Test
+    public void startsOverOnAForeignFile() throws IOException {
+        File file = folder.newFile();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(bytes("definitely not a journal"));
+        }
+        try (EventJournal journal = new EventJournal(file, 1 << 20)) {
+            assertFalse(journal.hasPending());
+            journal.append(bytes("fresh"));
+        }
+        try (EventJournal journal = new EventJournal(file, 1 << 20)) {
+            assertEquals(List.of("fresh"), replayAll(journal));
+        }
+    }
+
+    private static List<String> replayAll(EventJournal journal) throws IOException {
+        List<String> replayed = new ArrayList<>();
+        journal.replay(payload -> replayed.add(string(payload)));
+        return replayed;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] payload) {
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,82 @@
+package app.tracktsw.atlas.core;
+
+import static org.junit.Assert.assertEquals;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * FlareStateEngine against analyzeFlareState in src/utils/flareStateEngine.ts: every
+ * daily state and explanation, every episode and the summary fields.
+ */
+public class FlareStateEngineTest {
+
+    @Test
+    public void matchesTypeScript() {
+        for (JSONObject scenario : ParityFixtures.load("flare-state.json")) {
+            String name = scenario.getString("name");
+            FlareStateEngine engine = replay(scenario.getJSONArray("checkIns"));
+
+            assertEquals(name, scenario.getString("baselineConfidence"), engine.getBaselineConfidence().value);
+            assertEquals(name, scenario.getString("currentState"), engine.getCurrentState().value);
+            assertEquals(name, scenario.isNull("currentFlareDuration") ? -1 : scenario.getInt("currentFlareDuration"),
+                engine.getCurrentFlareDuration());
+
+            JSONArray expectedDays = scenario.getJSONArray("dailyFlareStates");
+            List<FlareStateEngine.DailyFlareState> days = engine.getDailyFlareStates();
+            assertEquals(name, expectedDays.length(), days.size());
+            for (int i = 0; i < days.size(); i++) {
+                JSONObject want = expectedDays.getJSONObject(i);
+                FlareStateEngine.DailyFlareState got = days.get(i);
+                String at = name + " " + want.getString("date");
+                assertEquals(at, want.getString("date"), got.date);
+                assertEquals(at, want.getInt("burdenScore"), got.burdenScore);
+                assertEquals(at, want.getString("flareState"), got.flareState.value);
+                assertEquals(at, want.getBoolean("isInFlareEpisode"), got.isInFlareEpisode);
+                assertEquals(at, want.getString("explanation"), got.explanation);
+            }
+
+            JSONArray expectedEpisodes = scenario.getJSONArray("flareEpisodes");
+            List<FlareStateEngine.FlareEpisode> episodes = engine.getFlareEpisodes();
+            assertEquals(name, expectedEpisodes.length(), episodes.size());
+            for (int i = 0; i < episodes.size(); i++) {
+                JSONObject want = expectedEpisodes.getJSONObject(i);
+                FlareStateEngine.FlareEpisode got = episodes.get(i);
+                String at = name + " episode " + i;
+                assertEquals(at, want.getString("startDate"), got.startDate);
+                assertEquals(at, want.isNull("endDate") ? null : want.getString("endDate"), got.endDate);
+                assertEquals(at, want.getInt("durationDays"), got.durationDays);
+                assertEquals(at, want.getBoolean("isActive"), got.isActive);
+            }
+        }
+    }
+
+    /** Group by calendar day keeping the worst reading, as FlareStatePlugin does. */
+    private static FlareStateEngine replay(JSONArray checkIns) {
+        TreeMap<String, double[]> byDate = new TreeMap<>();
+        for (int i = 0; i < checkIns.length(); i++) {
+            JSONObject checkIn = checkIns.getJSONObject(i);
+            String date = checkIn.getString("created_at").split("T")[0];
+            double skinFeeling = checkIn.getDouble("skinFeeling");
+            double[] day = byDate.get(date);
+            if (day == null) {
+                byDate.put(date, new double[] { skinFeeling, 1 });
+            } else {
+                day[0] = Math.min(day[0], skinFeeling);
+                day[1]++;
+            }
+        }
+
+        FlareStateEngine engine = new FlareStateEngine();
+        for (Map.Entry<String, double[]> entry : byDate.entrySet()) {
+            double[] day = entry.getValue();
+            engine.appendDay(entry.getKey(), FlareStateEngine.getSkinSeverityFromFeeling(Math.min(5, day[0])), (int) day[1]);
+        }
+        return engine;
+    }
+}
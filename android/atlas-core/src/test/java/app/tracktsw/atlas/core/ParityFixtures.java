@@ -0,0 +1,67 @@
+package app.tracktsw.atlas.core;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Check-in sequences and the results the TypeScript engines gave for them, under
+ * src/test/resources/parity. They were captured by running the functions named in each
+ * test (with TZ=UTC, so calendar days are the date part of the ISO timestamps) and have
+ * to be captured again when that TypeScript changes.
+ */
+final class ParityFixtures {
+    private ParityFixtures() {
+    }
+
+    /** The scenarios of a fixture file, each with a name, its input and the TS output. */
+    static List<JSONObject> load(String file) {
+        try (InputStream in = ParityFixtures.class.getResourceAsStream("/parity/" + file)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing fixture: " + file);
+            }
+            JSONArray scenarios = new JSONArray(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            List<JSONObject> result = new ArrayList<>(scenarios.length());
+            for (int i = 0; i < scenarios.length(); i++) {
+                result.add(scenarios.getJSONObject(i));
+            }
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** A CheckIn of src/contexts/UserDataContext.tsx as the insights code sees it. */
+    static CheckInRecord checkIn(JSONObject json) {
+        List<String> triggers = new ArrayList<>();
+        JSONArray array = json.optJSONArray("triggers");
+        if (array != null) {
+            for (int i = 0; i < array.length(); i++) {
+                triggers.add(array.getString(i));
+            }
+        }
+        return new CheckInRecord(day(json.getString("timestamp")), day(json.getString("loggedAt")),
+            json.optDouble("skinFeeling", 3),
+            json.has("skinIntensity") ? json.getDouble("skinIntensity") : null,
+            triggers);
+    }
+
+    static List<CheckInRecord> checkIns(JSONArray array) {
+        List<CheckInRecord> result = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            result.add(checkIn(array.getJSONObject(i)));
+        }
+        return result;
+    }
+
+    static LocalDate day(String timestamp) {
+        return LocalDate.parse(timestamp.substring(0, 10));
+    }
+}
@@ -0,0 +1,97 @@
+package app.tracktsw.atlas.core;
+
+import static org.junit.Assert.assertEquals;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * ReactionEngine against analyzeFoodReactions (src/utils/foodAnalysis.ts) and
+ * analyzeProductReactions (src/utils/productAnalysis.ts), called with periodDays 9999 so
+ * nothing is filtered out.
+ */
+public class ReactionEngineTest {
+
+    @Test
+    public void matchesTypeScriptForFoodsAndProducts() {
+        for (JSONObject scenario : ParityFixtures.load("reactions.json")) {
+            List<CheckInRecord> checkIns = ParityFixtures.checkIns(scenario.getJSONArray("checkIns"));
+            String name = scenario.getString("name");
+            assertResults(name + " foods", scenario.getJSONArray("foods"), ReactionEngine.forFoods().analyze(checkIns));
+            assertResults(name + " products", scenario.getJSONArray("products"), ReactionEngine.forProducts().analyze(checkIns));
+        }
+    }
+
+    @Test
+    public void flagsAFoodFollowedByWorseDays() {
+        List<CheckInRecord> checkIns = new ArrayList<>();
+        LocalDate start = LocalDate.of(2025, 5, 1);
+        for (int i = 0; i < 30; i++) {
+            LocalDate day = start.plusDays(i);
+            boolean dairy = i % 6 == 0;
+            // Calm except for the three days after dairy
+            boolean reacting = i % 6 >= 1 && i % 6 <= 3;
+            checkIns.add(new CheckInRecord(day, day, 3, reacting ? 4.0 : 0.0,
+                dairy ? List.of("food: Dairy ", "product:moisturizer") : List.of("product:moisturizer")));
+        }
+
+        List<ReactionEngine.Result> foods = ReactionEngine.forFoods().analyze(checkIns);
+        assertEquals(1, foods.size());
+        ReactionEngine.Result dairy = foods.get(0);
+        assertEquals("Dairy", dairy.name);
+        assertEquals(5, dairy.count);
+        assertEquals(ReactionEngine.Pattern.OFTEN_WORSE, dairy.pattern);
+        assertEquals(ReactionEngine.Confidence.MEDIUM, dairy.confidence);
+
+        // Logged every day, so there is no day without it to compare against
+        ReactionEngine.Result moisturizer = ReactionEngine.forProducts().analyze(checkIns).get(0);
+        assertEquals(0, moisturizer.analyzableExposures);
+        assertEquals(ReactionEngine.Pattern.INSUFFICIENT_DATA, moisturizer.pattern);
+    }
+
+    @Test
+    public void itemKeysDoNotDependOnTheDefaultLocale() {
+        Locale defaultLocale = Locale.getDefault();
+        // Turkish lowercases "I" to a dotless "ı"
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            List<CheckInRecord> checkIns = new ArrayList<>();
+            LocalDate start = LocalDate.of(2025, 5, 1);
+            for (int i = 0; i < 10; i++) {
+                LocalDate day = start.plusDays(i);
+                checkIns.add(new CheckInRecord(day, day, 3, 0.0,
+                    List.of(i % 2 == 0 ? "food:ICE CREAM" : "food:ice cream")));
+            }
+
+            List<ReactionEngine.Result> foods = ReactionEngine.forFoods().analyze(checkIns);
+            assertEquals(1, foods.size());
+            assertEquals(10, foods.get(0).count);
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    private static void assertResults(String scenario, JSONArray expected, List<ReactionEngine.Result> actual) {
+        assertEquals(scenario, expected.length(), actual.size());
+        for (int i = 0; i < expected.length(); i++) {
+            JSONObject want = expected.getJSONObject(i);
+            ReactionEngine.Result got = actual.get(i);
+            String at = scenario + " #" + i + " " + want.getString("name");
+            assertEquals(at, want.getString("name"), got.name);
+            assertEquals(at, want.getInt("count"), got.count);
+            assertEquals(at, want.getInt("daysWorseAfter"), got.daysWorseAfter);
+            assertEquals(at, want.getInt("daysBetterAfter"), got.daysBetterAfter);
+            assertEquals(at, want.getInt("daysNeutralAfter"), got.daysNeutralAfter);
+            assertEquals(at, want.getString("pattern"), got.pattern.value);
+            assertEquals(at, want.getDouble("consistency"), got.consistency, 1e-12);
+            assertEquals(at, want.getString("confidence"), got.confidence.value);
+            assertEquals(at, want.getInt("analyzableExposures"), got.analyzableExposures);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package app.tracktsw.atlas.core;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.ZoneOffset;
+
+public class ReminderDeliveryLogTest {
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void computesDelayPercentilesFallbackShareAndMissedDays() throws IOException {
+        ReminderDeliveryLog log = new ReminderDeliveryLog(folder.newFile(), 32);
+        for (int i = 1; i <= 20; i++) {
+            log.record(i * DAY, i * DAY + i * 1000L,
+                i % 4 != 0 ? ReminderDeliveryLog.BACKEND_EXACT_ALARM : ReminderDeliveryLog.BACKEND_INEXACT_ALARM);
+        }
+        log.record(21 * DAY, 0, ReminderDeliveryLog.BACKEND_EXACT_ALARM);
+        log.record(22 * DAY, 0, ReminderDeliveryLog.BACKEND_EXACT_ALARM);
+
+        ReminderDeliveryLog.Stats stats = log.getStats(ZoneOffset.UTC);
+        assertEquals(22, stats.count);
+        assertEquals(10_000, stats.p50DelayMs);
+        assertEquals(19_000, stats.p95DelayMs);
+        assertEquals(20_000, stats.maxDelayMs);
+        assertEquals(5 / 22.0, stats.fallbackShare, 1e-9);
+        assertEquals(2, stats.missedDays);
+    }
+
+    @Test
+    public void overwritesOldestRecordsOnceFull() throws IOException {
+        File file = folder.newFile();
+        ReminderDeliveryLog log = new ReminderDeliveryLog(file, 4);
+        for (int i = 0; i < 10; i++) {
+            log.record(i * DAY, i * DAY + i * 1000L, ReminderDeliveryLog.BACKEND_EXACT_ALARM);
+        }
+
+        ReminderDeliveryLog.Stats stats = log.getStats(ZoneOffset.UTC);
+        assertEquals(4, stats.count);
+        assertEquals(9_000, stats.maxDelayMs);
+        assertEquals(7_000, stats.p50DelayMs);
+        assertEquals(8 + 4 * 17, file.length());
+    }
+
+    @Test
+    public void comparesBackends() throws IOException {
+        ReminderDeliveryLog log = new ReminderDeliveryLog(folder.newFile(), 32);
+        for (int i = 1; i <= 5; i++) {
+            log.record(i * DAY, i * DAY + 2_000L, ReminderDeliveryLog.BACKEND_EXACT_ALARM);
+            log.record(i * DAY + 1000, i * DAY + 1000 + i * 60_000L, ReminderDeliveryLog.BACKEND_WORK_MANAGER);
+        }
+
+        ReminderDeliveryLog.Stats exact = log.getStats(ZoneOffset.UTC, ReminderDeliveryLog.BACKEND_EXACT_ALARM);
+        ReminderDeliveryLog.Stats work = log.getStats(ZoneOffset.UTC, ReminderDeliveryLog.BACKEND_WORK_MANAGER);
+        assertEquals(5, exact.count);
+        assertEquals(2_000, exact.p95DelayMs);
+        assertEquals(0, exact.fallbackShare, 0);
+        assertEquals(5, work.count);
+        assertEquals(180_000, work.p50DelayMs);
+        assertEquals(1, work.fallbackShare, 0);
+        assertEquals(10, log.getStats(ZoneOffset.UTC).count);
+    }
+}
@@ -0,0 +1,86 @@
+package app.tracktsw.atlas.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Random;
+
+public class ReminderEngineTest {
+    private static final ZoneId ZONE = ZoneId.of("Europe/London");
+
+    private final ReminderEngine engine = new ReminderEngine(ZONE, new Random(42));
+
+    @Test
+    public void armsOnlyTheEarliestReminder() {
+        long now = at(2026, 3, 10, 7, 0);
+        engine.put(reminder("evening", 20, 0), now);
+        engine.put(reminder("morning", 8, 0), now);
+        engine.put(reminder("custom", 13, 30), now);
+
+        assertEquals(at(2026, 3, 10, 8, 0), engine.getNextTriggerAt());
+        assertEquals("morning", engine.getAll().get(0).id);
+    }
+
+    @Test
+    public void coalescesRemindersDueInTheSameWindow() {
+        long now = at(2026, 3, 10, 7, 0);
+        engine.put(reminder("a", 9, 0), now);
+        engine.put(reminder("b", 9, 3), now);
+        engine.put(reminder("c", 9, 30), now);
+
+        List<ReminderEngine.Reminder> due = engine.pollDue(at(2026, 3, 10, 9, 0));
+
+        assertEquals(2, due.size());
+        assertEquals("a", due.get(0).id);
+        assertEquals("b", due.get(1).id);
+        // The early one moved to tomorrow instead of firing again at 9:03
+        assertEquals(at(2026, 3, 11, 9, 3), engine.get("b").getNextAt());
+        assertEquals(at(2026, 3, 10, 9, 30), engine.getNextTriggerAt());
+    }
+
+    @Test
+    public void getAllIsNotChangedByLaterPolls() {
+        long now = at(2026, 3, 10, 7, 0);
+        engine.put(reminder("a", 8, 0), now);
+        List<ReminderEngine.Reminder> before = engine.getAll();
+
+        engine.pollDue(at(2026, 3, 10, 8, 0));
+
+        assertEquals(at(2026, 3, 10, 8, 0), before.get(0).getNextAt());
+        assertEquals(at(2026, 3, 11, 8, 0), engine.getAll().get(0).getNextAt());
+    }
+
+    @Test
+    public void skipsRemindersMissedByTooLong() {
+        long now = at(2026, 3, 10, 7, 0);
+        engine.put(reminder("a", 8, 0), now);
+
+        assertTrue(engine.pollDue(at(2026, 3, 10, 11, 0)).isEmpty());
+        assertEquals(at(2026, 3, 11, 8, 0), engine.getNextTriggerAt());
+    }
+
+    @Test
+    public void windowedRemindersStayInsideTheirWindow() {
+        long now = at(2026, 3, 10, 7, 0);
+        for (int day = 0; day < 50; day++) {
+            engine.put(new ReminderEngine.Reminder("belief", ReminderEngine.Kind.BELIEF, 9, 0, 600,
+                "TrackTSW", "message", null), now);
+            long nextAt = engine.getNextTriggerAt();
+            assertTrue(nextAt >= at(2026, 3, 10, 9, 0));
+            assertTrue(nextAt < at(2026, 3, 10, 19, 0));
+        }
+    }
+
+    private static ReminderEngine.Reminder reminder(String id, int hour, int minute) {
+        return new ReminderEngine.Reminder(id, ReminderEngine.Kind.CUSTOM, hour, minute, 0, "title", "body", null);
+    }
+
+    private static long at(int year, int month, int day, int hour, int minute) {
+        return LocalDateTime.of(year, month, day, hour, minute).atZone(ZONE).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,145 @@
+package app.tracktsw.atlas.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.List;
+import java.util.Random;
+
+public class ReminderEngineTimeZoneTest {
+    private static final Instant SWEEP_FROM = Instant.parse("2024-01-01T00:00:00Z");
+    private static final Instant SWEEP_TO = Instant.parse("2028-01-01T00:00:00Z");
+
+    @Test
+    public void firesOncePerLocalDayAcrossEveryTransitionInEveryZone() {
+        int checked = 0;
+        for (String id : ZoneId.getAvailableZoneIds()) {
+            ZoneId zone = ZoneId.of(id);
+            ZoneRules rules = zone.getRules();
+            ZoneOffsetTransition transition = rules.nextTransition(SWEEP_FROM);
+            while (transition != null && transition.getInstant().isBefore(SWEEP_TO)) {
+                LocalTime atTransition = transition.getDateTimeBefore().toLocalTime();
+                LocalTime[] times = {
+                    atTransition,
+                    atTransition.plusMinutes(30),
+                    atTransition.minusHours(1),
+                    LocalTime.of(9, 0)
+                };
+                for (LocalTime time : times) {
+                    assertFiresDaily(zone, transition.getDateTimeBefore().toLocalDate(), time);
+                    checked++;
+                }
+                transition = rules.nextTransition(transition.getInstant());
+            }
+        }
+        // Plenty of zones still change offset in the sweep window
+        assertTrue(checked > 1000);
+    }
+
+    @Test
+    public void flyingWestDoesNotRepeatTodaysReminder() {
+        ZoneId london = ZoneId.of("Europe/London");
+        ZoneId newYork = ZoneId.of("America/New_York");
+        ReminderEngine engine = engineAt(LocalDateTime.of(2026, 3, 10, 7, 0), london);
+        engine.put(reminder(9, 0), engine.getClock().millis());
+        assertEquals(1, engine.pollDue(at(LocalDateTime.of(2026, 3, 10, 9, 0), london)).size());
+
+        // Landed: 11:00 in London is 07:00 in New York
+        engine.setClock(Clock.fixed(Instant.ofEpochMilli(at(LocalDateTime.of(2026, 3, 10, 11, 0), london)), newYork));
+
+        assertEquals(at(LocalDateTime.of(2026, 3, 11, 9, 0), newYork), engine.getNextTriggerAt());
+    }
+
+    @Test
+    public void flyingEastMovesAPassedReminderToTomorrow() {
+        ZoneId london = ZoneId.of("Europe/London");
+        ZoneId tokyo = ZoneId.of("Asia/Tokyo");
+        ReminderEngine engine = engineAt(LocalDateTime.of(2026, 3, 10, 7, 0), london);
+        engine.put(reminder(9, 0), engine.getClock().millis());
+
+        // 07:00 in London is 16:00 in Tokyo: today's 09:00 there is long gone
+        engine.setClock(Clock.fixed(Instant.ofEpochMilli(at(LocalDateTime.of(2026, 3, 10, 7, 0), london)), tokyo));
+
+        assertEquals(at(LocalDateTime.of(2026, 3, 11, 9, 0), tokyo), engine.getNextTriggerAt());
+    }
+
+    @Test
+    public void keepsAReminderThatIsDueRightNow() {
+        ZoneId zone = ZoneId.of("Europe/Berlin");
+        ReminderEngine engine = engineAt(LocalDateTime.of(2026, 6, 1, 8, 0), zone);
+        engine.put(reminder(9, 0), engine.getClock().millis());
+
+        // A small correction of the clock right at the trigger time
+        engine.setClock(Clock.fixed(Instant.ofEpochMilli(at(LocalDateTime.of(2026, 6, 1, 9, 0, 2), zone)), zone));
+
+        assertEquals(at(LocalDateTime.of(2026, 6, 1, 9, 0), zone), engine.getNextTriggerAt());
+    }
+
+    @Test
+    public void aClockSetBackByDaysReschedulesFromNow() {
+        ZoneId zone = ZoneId.of("Australia/Sydney");
+        ReminderEngine engine = engineAt(LocalDateTime.of(2026, 6, 10, 8, 0), zone);
+        engine.put(reminder(9, 0), engine.getClock().millis());
+
+        engine.setClock(Clock.fixed(Instant.ofEpochMilli(at(LocalDateTime.of(2026, 6, 3, 8, 0), zone)), zone));
+
+        assertEquals(at(LocalDateTime.of(2026, 6, 3, 9, 0), zone), engine.getNextTriggerAt());
+    }
+
+    /**
+     * Schedule a daily reminder the day before the given date and poll it for three days:
+     * it must fire once on each local day, at the expected instant for that day.
+     */
+    private static void assertFiresDaily(ZoneId zone, LocalDate date, LocalTime time) {
+        ReminderEngine engine = engineAt(date.minusDays(1).atStartOfDay(), zone);
+        // Just before midnight, so a 00:00 reminder still fires on the first day
+        engine.put(reminder(time.getHour(), time.getMinute()), engine.getClock().millis() - 1);
+
+        for (int i = 0; i < 3; i++) {
+            LocalDate day = date.minusDays(1).plusDays(i);
+            long expected = expectedInstant(zone, day.atTime(time));
+            long nextAt = engine.getNextTriggerAt();
+            assertEquals(zone + " " + day + " " + time, expected, nextAt);
+
+            List<ReminderEngine.Reminder> due = engine.pollDue(nextAt);
+            assertEquals(zone + " " + day + " " + time, 1, due.size());
+        }
+    }
+
+    /** Independent of ZonedDateTime: gaps push the time forward, overlaps use the earlier offset. */
+    private static long expectedInstant(ZoneId zone, LocalDateTime local) {
+        ZoneRules rules = zone.getRules();
+        List<ZoneOffset> offsets = rules.getValidOffsets(local);
+        if (offsets.isEmpty()) {
+            ZoneOffsetTransition gap = rules.getTransition(local);
+            return local.plus(gap.getDuration()).toInstant(gap.getOffsetAfter()).toEpochMilli();
+        }
+        if (offsets.size() > 1) {
+            return local.toInstant(rules.getTransition(local).getOffsetBefore()).toEpochMilli();
+        }
+        return local.toInstant(offsets.get(0)).toEpochMilli();
+    }
+
+    private static ReminderEngine engineAt(LocalDateTime local, ZoneId zone) {
+        return new ReminderEngine(Clock.fixed(Instant.ofEpochMilli(expectedInstant(zone, local)), zone), new Random(7));
+    }
+
+    private static ReminderEngine.Reminder reminder(int hour, int minute) {
+        return new ReminderEngine.Reminder("check_in", ReminderEngine.Kind.CHECK_IN, hour, minute, 0, "title", "body", null);
+    }
+
+    private static long at(LocalDateTime local, ZoneId zone) {
+        return expectedInstant(zone, local);
+    }
+}
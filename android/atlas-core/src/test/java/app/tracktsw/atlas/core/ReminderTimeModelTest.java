@@ -0,0 +1,73 @@
+package app.tracktsw.atlas.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ReminderTimeModelTest {
+
+    @Test
+    public void learnsTheUsualCheckInTimeWithALead() {
+        ReminderTimeModel model = new ReminderTimeModel();
+        int[] times = { 10 * 60 + 20, 10 * 60 + 35, 10 * 60 + 25, 10 * 60 + 40, 10 * 60 + 30, 10 * 60 + 20 };
+        for (int time : times) {
+            model.observe(time);
+        }
+
+        int learned = model.getLearnedMinute();
+        // Usual check-in is around 10:30, so remind around 10:15
+        assertTrue(learned >= 10 * 60 && learned <= 10 * 60 + 25);
+    }
+
+    @Test
+    public void needsEnoughConsistentCheckIns() {
+        ReminderTimeModel model = new ReminderTimeModel();
+        model.observe(8 * 60);
+        model.observe(8 * 60);
+        assertEquals(-1, model.getLearnedMinute());
+
+        ReminderTimeModel scattered = new ReminderTimeModel();
+        for (int hour = 6; hour < 22; hour += 2) {
+            scattered.observe(hour * 60);
+        }
+        assertEquals(-1, scattered.getLearnedMinute());
+    }
+
+    @Test
+    public void followsANewHabit() {
+        ReminderTimeModel model = new ReminderTimeModel();
+        for (int i = 0; i < 30; i++) {
+            model.observe(8 * 60 + 5);
+        }
+        assertEquals(7 * 60 + 55, model.getLearnedMinute());
+
+        for (int i = 0; i < 15; i++) {
+            model.observe(19 * 60 + 5);
+        }
+        assertEquals(18 * 60 + 55, model.getLearnedMinute());
+    }
+
+    @Test
+    public void handlesCheckInsAroundMidnight() {
+        ReminderTimeModel model = new ReminderTimeModel();
+        for (int i = 0; i < 10; i++) {
+            model.observe(i % 2 == 0 ? 23 * 60 + 50 : 5);
+        }
+        int learned = model.getLearnedMinute();
+        assertTrue(learned >= 23 * 60 + 30 && learned <= 23 * 60 + 55);
+    }
+
+    @Test
+    public void roundTripsThroughEncode() {
+        ReminderTimeModel model = new ReminderTimeModel();
+        for (int i = 0; i < 8; i++) {
+            model.observe(21 * 60 + 10);
+        }
+        ReminderTimeModel decoded = ReminderTimeModel.decode(model.encode());
+
+        assertEquals(model.getLearnedMinute(), decoded.getLearnedMinute());
+        assertEquals(model.getWeight(), decoded.getWeight(), 1e-9);
+        assertEquals(0, ReminderTimeModel.decode("garbage").getWeight(), 0);
+    }
+}
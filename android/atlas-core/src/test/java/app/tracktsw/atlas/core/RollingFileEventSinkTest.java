@@ -0,0 +1,88 @@
+package app.tracktsw.atlas.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.json.JSONObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class RollingFileEventSinkTest {
+    private static final Clock CLOCK = Clock.fixed(Instant.ofEpochMilli(1_700_000_000_000L), ZoneOffset.UTC);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writesEscapedJsonLines() throws IOException {
+        File file = new File(folder.getRoot(), "events.log");
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("text", "say \"hi\"\n\\ ✨");
+        parameters.put("count", 3);
+        parameters.put("value", 9.99);
+        parameters.put("trial", true);
+
+        try (RollingFileEventSink sink = new RollingFileEventSink(file, 1 << 20, 3, CLOCK)) {
+            sink.accept(new AnalyticsEvent("Subscribe", parameters));
+            sink.flush();
+        }
+
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        assertEquals(1, lines.size());
+        JSONObject line = new JSONObject(lines.get(0));
+        assertEquals(1_700_000_000_000L, line.getLong("at"));
+        assertEquals("Subscribe", line.getString("name"));
+        JSONObject written = line.getJSONObject("parameters");
+        assertEquals("say \"hi\"\n\\ ✨", written.getString("text"));
+        assertEquals(3, written.getInt("count"));
+        assertEquals(9.99, written.getDouble("value"), 0);
+        assertTrue(written.getBoolean("trial"));
+    }
+
+    @Test
+    public void rollsOverAndKeepsMaxFiles() throws IOException {
+        File file = new File(folder.getRoot(), "events.log");
+        try (RollingFileEventSink sink = new RollingFileEventSink(file, 200, 3, CLOCK)) {
+            for (int i = 0; i < 40; i++) {
+                sink.accept(new AnalyticsEvent("event_" + i, Map.of()));
+            }
+            sink.flush();
+        }
+
+        assertTrue(file.length() <= 200);
+        assertTrue(new File(file.getPath() + ".1").exists());
+        assertTrue(new File(file.getPath() + ".2").exists());
+        assertFalse(new File(file.getPath() + ".3").exists());
+
+        // The newest event is last in the current file
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        assertEquals("event_39", new JSONObject(lines.get(lines.size() - 1)).getString("name"));
+    }
+
+    @Test
+    public void appendsAfterReopening() throws IOException {
+        File file = new File(folder.getRoot(), "events.log");
+        try (RollingFileEventSink sink = new RollingFileEventSink(file, 1 << 20, 2, CLOCK)) {
+            sink.accept(new AnalyticsEvent("first", Map.of()));
+        }
+        try (RollingFileEventSink sink = new RollingFileEventSink(file, 1 << 20, 2, CLOCK)) {
+            sink.accept(new AnalyticsEvent("second", Map.of()));
+        }
+
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+    }
+}
@@ -0,0 +1,45 @@
+package app.tracktsw.atlas.core;
+
+import static org.junit.Assert.assertEquals;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * StreakEngine against calculateStreak in src/pages/HomePage.tsx, with "today" fixed per
+ * scenario.
+ */
+public class StreakEngineTest {
+
+    @Test
+    public void matchesTypeScript() {
+        for (JSONObject scenario : ParityFixtures.load("streak.json")) {
+            StreakEngine engine = new StreakEngine(ParityFixtures.checkIns(scenario.getJSONArray("checkIns")));
+            assertEquals(scenario.getString("name"), scenario.getInt("streak"),
+                engine.getCurrentStreak(LocalDate.parse(scenario.getString("today"))));
+        }
+    }
+
+    @Test
+    public void waitsForTodayBeforeBreakingTheStreak() {
+        LocalDate today = LocalDate.of(2025, 6, 10);
+        StreakEngine engine = new StreakEngine(List.of(
+            realTime(today.minusDays(3)), realTime(today.minusDays(2)), realTime(today.minusDays(1))));
+        assertEquals(3, engine.getCurrentStreak(today));
+
+        // Backfilled the next morning: doesn't count
+        engine.add(new CheckInRecord(today, today.plusDays(1), 4, null, null));
+        assertEquals(3, engine.getCurrentStreak(today));
+
+        engine.add(realTime(today));
+        assertEquals(4, engine.getCurrentStreak(today));
+        assertEquals(0, engine.getCurrentStreak(today.plusDays(2)));
+    }
+
+    private static CheckInRecord realTime(LocalDate day) {
+        return new CheckInRecord(day, day, 4, null, null);
+    }
+}
@@ -0,0 +1,280 @@
+package app.tracktsw.atlas.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Runs SupabaseStorageClient against a local stand-in for the Supabase storage
+ * object and TUS endpoints.
+ */
+public class SupabaseStorageClientTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private HttpServer server;
+    private String baseUrl;
+
+    // Stand-in state
+    private final Map<String, byte[]> objects = new HashMap<>();
+    private final Map<String, ByteArrayOutputStream> uploads = new HashMap<>();
+    private final Map<String, Long> uploadLengths = new HashMap<>();
+    private final Map<String, String> uploadObjects = new HashMap<>();
+    private final List<String> requests = new ArrayList<>();
+    private long failPatchAtOffset = -1;
+    private int uploadCounter;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/storage/v1/object/", this::handleObject);
+        server.createContext("/storage/v1/upload/resumable", this::handleTus);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void smallFileUsesSingleUpsertPost() throws IOException {
+        byte[] data = randomBytes(200_000);
+        File file = write(data);
+        long[] lastProgress = new long[2];
+
+        client("token").upload("photos", "user-1/thumb_a.webp", file, "image/webp", "31536000",
+            new MemoryResumeStore(), (sent, total) -> { lastProgress[0] = sent; lastProgress[1] = total; });
+
+        assertArrayEquals(data, objects.get("photos/user-1/thumb_a.webp"));
+        assertEquals(data.length, lastProgress[0]);
+        assertEquals(data.length, lastProgress[1]);
+        assertEquals(1, requests.size());
+    }
+
+    @Test
+    public void largeFileUploadsInChunks() throws IOException {
+        byte[] data = randomBytes(SupabaseStorageClient.CHUNK_SIZE * 2 + 12345);
+        File file = write(data);
+        MemoryResumeStore store = new MemoryResumeStore();
+
+        client("token").upload("photos", "user-1/original_a.jpg", file, "image/jpeg", null, store, null);
+
+        assertArrayEquals(data, objects.get("photos/user-1/original_a.jpg"));
+        assertEquals(List.of("POST create", "PATCH 0", "PATCH 6291456", "PATCH 12582912"), requests);
+        assertTrue(store.urls.isEmpty());
+    }
+
+    @Test
+    public void interruptedUploadResumesFromServerOffset() throws IOException {
+        byte[] data = randomBytes(SupabaseStorageClient.CHUNK_SIZE * 2 + 100);
+        File file = write(data);
+        MemoryResumeStore store = new MemoryResumeStore();
+        SupabaseStorageClient client = client("token");
+
+        // Second chunk fails, as if the connection dropped mid-transfer
+        failPatchAtOffset = SupabaseStorageClient.CHUNK_SIZE;
+        try {
+            client.upload("photos", "user-1/original_b.jpg", file, "image/jpeg", null, store, null);
+            fail("Expected the upload to be interrupted");
+        } catch (SupabaseHttpException e) {
+            assertTrue(e.isRetryable());
+        }
+        assertFalse(store.urls.isEmpty());
+
+        requests.clear();
+        client.upload("photos", "user-1/original_b.jpg", file, "image/jpeg", null, store, null);
+
+        assertArrayEquals(data, objects.get("photos/user-1/original_b.jpg"));
+        // Resumed with HEAD and only sent the remaining chunks
+        assertEquals(List.of("HEAD", "PATCH 6291456", "PATCH 12582912"), requests);
+    }
+
+    @Test
+    public void expiredUploadIsRecreated() throws IOException {
+        byte[] data = randomBytes(SupabaseStorageClient.CHUNK_SIZE + 1);
+        File file = write(data);
+        MemoryResumeStore store = new MemoryResumeStore();
+        store.put("photos/user-1/original_c.jpg", baseUrl + "/storage/v1/upload/resumable/expired");
+
+        client("token").upload("photos", "user-1/original_c.jpg", file, "image/jpeg", null, store, null);
+
+        assertArrayEquals(data, objects.get("photos/user-1/original_c.jpg"));
+        assertEquals("HEAD", requests.get(0));
+        assertEquals("POST create", requests.get(1));
+    }
+
+    @Test
+    public void authErrorsAreReported() throws IOException {
+        File file = write(randomBytes(10));
+        try {
+            client("expired").upload("photos", "user-1/thumb_d.webp", file, "image/webp", null,
+                new MemoryResumeStore(), null);
+            fail("Expected an auth error");
+        } catch (SupabaseHttpException e) {
+            assertTrue(e.isAuthError());
+            assertFalse(e.isRetryable());
+        }
+        assertNull(objects.get("photos/user-1/thumb_d.webp"));
+    }
+
+    private SupabaseStorageClient client(String token) {
+        return new SupabaseStorageClient(baseUrl, "anon-key", token);
+    }
+
+    private File write(byte[] data) throws IOException {
+        File file = temp.newFile();
+        Files.write(file.toPath(), data);
+        return file;
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+
+    // --- Stand-in handlers ---
+
+    private synchronized void handleObject(HttpExchange exchange) throws IOException {
+        if (!"Bearer token".equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+            // Storage reports expired tokens as 400 with the reason in the body
+            respond(exchange, 400, "{\"statusCode\":\"403\",\"error\":\"Unauthorized\",\"message\":\"jwt expired\"}");
+            return;
+        }
+        requests.add(exchange.getRequestMethod());
+        String key = exchange.getRequestURI().getPath().substring("/storage/v1/object/".length());
+        objects.put(key, readAll(exchange.getRequestBody()));
+        respond(exchange, 200, "{\"Key\":\"" + key + "\"}");
+    }
+
+    private synchronized void handleTus(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestHeaders().containsKey("X-HTTP-Method-Override")
+            ? exchange.getRequestHeaders().getFirst("X-HTTP-Method-Override")
+            : exchange.getRequestMethod();
+        assertEquals("1.0.0", exchange.getRequestHeaders().getFirst("Tus-Resumable"));
+
+        if ("POST".equals(method) && path.equals("/storage/v1/upload/resumable")) {
+            requests.add("POST create");
+            readAll(exchange.getRequestBody());
+            String id = "u" + (++uploadCounter);
+            uploads.put(id, new ByteArrayOutputStream());
+            uploadLengths.put(id, Long.parseLong(exchange.getRequestHeaders().getFirst("Upload-Length")));
+            uploadObjects.put(id, parseObjectKey(exchange.getRequestHeaders().getFirst("Upload-Metadata")));
+            exchange.getResponseHeaders().set("Location", "/storage/v1/upload/resumable/" + id);
+            respond(exchange, 201, "");
+            return;
+        }
+
+        String id = path.substring(path.lastIndexOf('/') + 1);
+        ByteArrayOutputStream upload = uploads.get(id);
+        if ("HEAD".equals(method)) {
+            requests.add("HEAD");
+            if (upload == null) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                exchange.getResponseHeaders().set("Upload-Offset", Long.toString(upload.size()));
+                exchange.sendResponseHeaders(200, -1);
+            }
+            exchange.close();
+            return;
+        }
+
+        long offset = Long.parseLong(exchange.getRequestHeaders().getFirst("Upload-Offset"));
+        requests.add("PATCH " + offset);
+        byte[] chunk = readAll(exchange.getRequestBody());
+        if (offset == failPatchAtOffset) {
+            failPatchAtOffset = -1;
+            respond(exchange, 503, "unavailable");
+            return;
+        }
+        assertEquals(upload.size(), offset);
+        upload.write(chunk);
+        if (upload.size() == uploadLengths.get(id)) {
+            objects.put(uploadObjects.get(id), upload.toByteArray());
+        }
+        exchange.getResponseHeaders().set("Upload-Offset", Long.toString(upload.size()));
+        respond(exchange, 204, null);
+    }
+
+    private static String parseObjectKey(String metadata) {
+        Map<String, String> values = new HashMap<>();
+        for (String pair : metadata.split(",")) {
+            String[] parts = pair.split(" ");
+            values.put(parts[0], new String(Base64.getDecoder().decode(parts[1]), StandardCharsets.UTF_8));
+        }
+        return values.get("bucketName") + "/" + values.get("objectName");
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+        } else {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+        exchange.close();
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[64 * 1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static class MemoryResumeStore implements SupabaseStorageClient.ResumeStore {
+        final Map<String, String> urls = new HashMap<>();
+
+        @Override
+        public String get(String key) {
+            return urls.get(key);
+        }
+
+        @Override
+        public void put(String key, String uploadUrl) {
+            urls.put(key, uploadUrl);
+        }
+
+        @Override
+        public void remove(String key) {
+            urls.remove(key);
+        }
+    }
+}
@@ -0,0 +1,465 @@
+package app.tracktsw.atlas.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs SyncEngine against a local stand-in for PostgREST that understands the
+ * handful of query forms the engine uses.
+ */
+public class SyncEngineTest {
+    private static final String USER = "user-1";
+    private static final String CHECK_INS = "user_check_ins";
+    private static final String JOURNAL = "user_journal_entries";
+
+    private HttpServer server;
+    private String baseUrl;
+    private final PostgrestStandIn postgrest = new PostgrestStandIn();
+    private final MemoryStore store = new MemoryStore();
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/rest/v1/", postgrest::handle);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void firstSyncPullsEverythingInPages() throws IOException {
+        for (int i = 0; i < SyncEngine.PAGE_SIZE * 2 + 10; i++) {
+            postgrest.put(CHECK_INS, row("c" + i, USER));
+        }
+        postgrest.put(CHECK_INS, row("other", "user-2"));
+
+        SyncEngine.Result result = engine().run();
+
+        assertEquals(SyncEngine.PAGE_SIZE * 2 + 10, result.pulled);
+        assertEquals(SyncEngine.PAGE_SIZE * 2 + 10, store.rows(CHECK_INS).size());
+        assertNull(store.rows(CHECK_INS).get("other"));
+        assertNotNull(store.getWatermark(CHECK_INS));
+    }
+
+    @Test
+    public void laterSyncsOnlyPullChangedRows() throws IOException {
+        postgrest.put(CHECK_INS, row("a", USER));
+        postgrest.put(CHECK_INS, row("b", USER));
+        engine().run();
+
+        postgrest.requests.clear();
+        postgrest.put(CHECK_INS, row("b", USER).put("mood", 5));
+        postgrest.put(CHECK_INS, row("c", USER));
+
+        SyncEngine.Result result = engine().run();
+
+        assertEquals(2, result.pulled);
+        assertEquals(5, store.rows(CHECK_INS).get("b").getInt("mood"));
+        assertTrue(store.rows(CHECK_INS).containsKey("c"));
+
+        // A sync with nothing new transfers no rows
+        assertEquals(0, engine().run().pulled);
+    }
+
+    @Test
+    public void rowsSharingUpdatedAtAreNotSkippedAtPageEdges() throws IOException {
+        // Bulk update: every row gets the same updated_at
+        postgrest.frozenClock = "2026-01-01T00:00:00.000000+00:00";
+        for (int i = 0; i < SyncEngine.PAGE_SIZE + 5; i++) {
+            postgrest.put(CHECK_INS, row(String.format("r%04d", i), USER));
+        }
+
+        SyncEngine.Result result = engine().run();
+
+        assertEquals(SyncEngine.PAGE_SIZE + 5, result.pulled);
+        assertEquals(SyncEngine.PAGE_SIZE + 5, store.rows(CHECK_INS).size());
+    }
+
+    @Test
+    public void outboxInsertIsIdempotentByClientRequestId() throws IOException {
+        JSONObject checkIn = row("new-1", USER).put("client_request_id", "req-1");
+        store.enqueue(CHECK_INS, SyncEngine.Op.INSERT, "new-1", "req-1", checkIn);
+
+        SyncEngine.Result first = engine().run();
+        assertEquals(1, first.pushed);
+        assertTrue(store.outbox.isEmpty());
+        assertTrue(store.rows(CHECK_INS).containsKey("new-1"));
+
+        // Same request again (e.g. queued twice), under a different row id
+        store.enqueue(CHECK_INS, SyncEngine.Op.INSERT, "new-2", "req-1",
+            row("new-2", USER).put("client_request_id", "req-1"));
+        SyncEngine.Result second = engine().run();
+
+        assertEquals(1, second.pushed);
+        assertEquals(0, second.rejected);
+        assertEquals(1, postgrest.rows(CHECK_INS).size());
+    }
+
+    @Test
+    public void retryableErrorKeepsOutboxOrder() throws IOException {
+        store.enqueue(JOURNAL, SyncEngine.Op.INSERT, "j1", null, row("j1", USER).put("content", "one"));
+        store.enqueue(JOURNAL, SyncEngine.Op.UPDATE, "j1", null, row("j1", USER).put("content", "two"));
+
+        postgrest.failNextWrites = 1;
+        try {
+            engine().run();
+            fail("Expected the push to fail");
+        } catch (SupabaseHttpException e) {
+            assertTrue(e.isRetryable());
+        }
+        assertEquals(2, store.outbox.size());
+
+        SyncEngine.Result result = engine().run();
+
+        assertEquals(2, result.pushed);
+        assertEquals("two", postgrest.rows(JOURNAL).get("j1").getString("content"));
+        assertEquals("two", store.rows(JOURNAL).get("j1").getString("content"));
+    }
+
+    @Test
+    public void rejectedMutationIsDroppedAndRecorded() throws IOException {
+        store.enqueue(JOURNAL, SyncEngine.Op.INSERT, "bad", null, new JSONObject().put("id", "bad"));
+        store.enqueue(JOURNAL, SyncEngine.Op.INSERT, "good", null, row("good", USER));
+
+        SyncEngine.Result result = engine().run();
+
+        assertEquals(1, result.rejected);
+        assertEquals(1, result.pushed);
+        assertTrue(store.rejected.containsKey(1L));
+        assertTrue(store.outbox.isEmpty());
+    }
+
+    @Test
+    public void remoteDeletesArriveAsTombstones() throws IOException {
+        postgrest.put(CHECK_INS, row("a", USER));
+        postgrest.put(CHECK_INS, row("b", USER));
+        engine().run();
+
+        postgrest.deleteRow(CHECK_INS, "a");
+        SyncEngine.Result result = engine().run();
+
+        assertEquals(1, result.deleted);
+        assertFalse(store.rows(CHECK_INS).containsKey("a"));
+        assertTrue(store.rows(CHECK_INS).containsKey("b"));
+        assertEquals(0, engine().run().deleted);
+    }
+
+    @Test
+    public void lateCommitsBehindTheWatermarkArePulled() throws IOException {
+        postgrest.put(CHECK_INS, row("a", USER));
+        postgrest.put(CHECK_INS, row("b", USER));
+        postgrest.put(CHECK_INS, row("c", USER));
+        postgrest.deleteRow(CHECK_INS, "c");
+        engine().run();
+        String watermark = store.getWatermark(CHECK_INS);
+
+        // Stamped at transaction start, before what was already pulled, but only visible now
+        String earlier = postgrest.rows(CHECK_INS).get("a").getString("updated_at");
+        postgrest.rows(CHECK_INS).put("late", row("late", USER).put("updated_at", earlier));
+        postgrest.deleteRow(CHECK_INS, "b");
+        postgrest.tombstones.get(1).put("deleted_at", earlier);
+
+        engine().run();
+
+        assertTrue(store.rows(CHECK_INS).containsKey("late"));
+        assertFalse(store.rows(CHECK_INS).containsKey("b"));
+        assertEquals(watermark, store.getWatermark(CHECK_INS));
+    }
+
+    @Test
+    public void outboxDeleteRemovesRemoteRow() throws IOException {
+        postgrest.put(CHECK_INS, row("a", USER));
+        engine().run();
+
+        store.enqueue(CHECK_INS, SyncEngine.Op.DELETE, "a", null, null);
+        engine().run();
+
+        assertFalse(postgrest.rows(CHECK_INS).containsKey("a"));
+        assertFalse(store.rows(CHECK_INS).containsKey("a"));
+    }
+
+    private SyncEngine engine() {
+        return new SyncEngine(new SupabaseRestClient(baseUrl, "anon", "token"), store, USER,
+            List.of(CHECK_INS, JOURNAL));
+    }
+
+    private static JSONObject row(String id, String userId) {
+        return new JSONObject().put("id", id).put("user_id", userId).put("mood", 3);
+    }
+
+    // --- In-memory Store ---
+
+    private static class MemoryStore implements SyncEngine.Store {
+        final Map<String, String> watermarks = new HashMap<>();
+        final Map<String, Map<String, JSONObject>> tables = new HashMap<>();
+        final TreeMap<Long, SyncEngine.OutboxEntry> outbox = new TreeMap<>();
+        final Map<Long, String> rejected = new HashMap<>();
+        long nextOutboxId = 1;
+
+        Map<String, JSONObject> rows(String table) {
+            return tables.computeIfAbsent(table, t -> new HashMap<>());
+        }
+
+        /** Write-behind: apply locally right away, push later. */
+        void enqueue(String table, SyncEngine.Op op, String rowId, String clientRequestId, JSONObject row) {
+            if (op == SyncEngine.Op.DELETE) {
+                rows(table).remove(rowId);
+            } else {
+                rows(table).put(rowId, row);
+            }
+            long id = nextOutboxId++;
+            outbox.put(id, new SyncEngine.OutboxEntry(id, table, op, rowId, clientRequestId,
+                row != null ? row.toString() : null));
+        }
+
+        @Override
+        public String getWatermark(String table) {
+            return watermarks.get(table);
+        }
+
+        @Override
+        public void applyRows(String table, JSONArray rows, String newWatermark) {
+            for (int i = 0; i < rows.length(); i++) {
+                JSONObject row = rows.getJSONObject(i);
+                rows(table).put(row.getString("id"), row);
+            }
+            watermarks.put(table, newWatermark);
+        }
+
+        @Override
+        public void applyDeletes(Map<String, List<String>> idsByTable, String newWatermark) {
+            for (Map.Entry<String, List<String>> entry : idsByTable.entrySet()) {
+                for (String id : entry.getValue()) {
+                    rows(entry.getKey()).remove(id);
+                }
+            }
+            watermarks.put(SyncEngine.TOMBSTONE_TABLE, newWatermark);
+        }
+
+        @Override
+        public List<SyncEngine.OutboxEntry> peekOutbox(int limit) {
+            List<SyncEngine.OutboxEntry> entries = new ArrayList<>();
+            for (SyncEngine.OutboxEntry entry : outbox.values()) {
+                if (entries.size() == limit) break;
+                entries.add(entry);
+            }
+            return entries;
+        }
+
+        @Override
+        public void removeOutbox(long id) {
+            outbox.remove(id);
+        }
+
+        @Override
+        public void rejectOutbox(long id, String error) {
+            outbox.remove(id);
+            rejected.put(id, error);
+        }
+    }
+
+    // --- PostgREST stand-in ---
+
+    private static class PostgrestStandIn {
+        private static final Pattern CURSOR = Pattern.compile(
+            "\\((\\w+)\\.gt\\.\"(.+?)\",and\\(\\w+\\.eq\\.\"(.+?)\",id\\.gt\\.(.+)\\)\\)");
+
+        final Map<String, Map<String, JSONObject>> tables = new HashMap<>();
+        final List<JSONObject> tombstones = new ArrayList<>();
+        final List<String> requests = new ArrayList<>();
+        String frozenClock;
+        int failNextWrites;
+        private long clock;
+
+        Map<String, JSONObject> rows(String table) {
+            return tables.computeIfAbsent(table, t -> new LinkedHashMap<>());
+        }
+
+        synchronized void put(String table, JSONObject row) {
+            row.put("updated_at", now());
+            rows(table).put(row.getString("id"), row);
+        }
+
+        synchronized void deleteRow(String table, String id) {
+            JSONObject removed = rows(table).remove(id);
+            if (removed != null) {
+                tombstones.add(new JSONObject()
+                    .put("id", tombstones.size() + 1)
+                    .put("user_id", removed.getString("user_id"))
+                    .put("table_name", table)
+                    .put("row_id", id)
+                    .put("deleted_at", now()));
+            }
+        }
+
+        private String now() {
+            if (frozenClock != null) return frozenClock;
+            clock++;
+            return String.format("2026-01-01T00:00:00.%06d+00:00", clock);
+        }
+
+        synchronized void handle(HttpExchange exchange) throws IOException {
+            String table = exchange.getRequestURI().getPath().substring("/rest/v1/".length());
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            String method = exchange.getRequestMethod();
+            requests.add(method + " " + table);
+
+            if (!"GET".equals(method) && failNextWrites > 0) {
+                failNextWrites--;
+                readAll(exchange.getRequestBody());
+                respond(exchange, 503, "{\"message\":\"unavailable\"}");
+                return;
+            }
+
+            switch (method) {
+                case "GET":
+                    respond(exchange, 200, select(table, params).toString());
+                    return;
+                case "POST":
+                    String prefer = exchange.getRequestHeaders().getFirst("Prefer");
+                    String body = new String(readAll(exchange.getRequestBody()), StandardCharsets.UTF_8);
+                    JSONObject row = new JSONObject(body);
+                    if (!row.has("user_id")) {
+                        respond(exchange, 400, "{\"code\":\"23502\",\"message\":\"null value in column \\\"user_id\\\"\"}");
+                        return;
+                    }
+                    if (hasClientRequestConflict(table, row)) {
+                        respond(exchange, 409, "{\"code\":\"23505\",\"message\":\"duplicate key value violates "
+                            + "unique constraint \\\"idx_user_check_ins_client_request\\\"\"}");
+                        return;
+                    }
+                    JSONObject existing = rows(table).get(row.getString("id"));
+                    if (existing == null || prefer.contains("merge-duplicates")) {
+                        put(table, row);
+                    }
+                    respond(exchange, 201, null);
+                    return;
+                case "DELETE":
+                    deleteRow(table, params.get("id").substring("eq.".length()));
+                    respond(exchange, 204, null);
+                    return;
+                default:
+                    respond(exchange, 405, null);
+            }
+        }
+
+        private boolean hasClientRequestConflict(String table, JSONObject row) {
+            String requestId = row.optString("client_request_id", null);
+            if (requestId == null) return false;
+            for (JSONObject existing : rows(table).values()) {
+                if (!existing.getString("id").equals(row.getString("id"))
+                    && requestId.equals(existing.optString("client_request_id", null))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private JSONArray select(String table, Map<String, String> params) {
+            String userId = params.get("user_id").substring("eq.".length());
+            int limit = Integer.parseInt(params.get("limit"));
+            boolean tombstones = SyncEngine.TOMBSTONE_TABLE.equals(table);
+            String column = tombstones ? "deleted_at" : "updated_at";
+            Comparator<JSONObject> byId = tombstones
+                ? Comparator.comparingLong((JSONObject r) -> r.getLong("id"))
+                : Comparator.comparing((JSONObject r) -> r.getString("id"));
+
+            String since = params.containsKey(column) ? params.get(column).substring("gte.".length()) : null;
+            String afterTime = null;
+            JSONObject afterId = null;
+            if (params.containsKey("or")) {
+                Matcher match = CURSOR.matcher(params.get("or"));
+                assertTrue(match.matches());
+                assertEquals(column, match.group(1));
+                assertEquals(match.group(2), match.group(3));
+                afterTime = match.group(2);
+                afterId = new JSONObject().put("id", tombstones ? (Object) Long.parseLong(match.group(4)) : match.group(4));
+            }
+
+            List<JSONObject> matches = new ArrayList<>();
+            for (JSONObject row : tombstones ? this.tombstones : rows(table).values()) {
+                if (!row.getString("user_id").equals(userId)) continue;
+                if (since != null && row.getString(column).compareTo(since) < 0) continue;
+                if (afterTime != null) {
+                    int cmp = row.getString(column).compareTo(afterTime);
+                    if (cmp < 0 || (cmp == 0 && byId.compare(row, afterId) <= 0)) continue;
+                }
+                matches.add(row);
+            }
+            matches.sort(Comparator.comparing((JSONObject r) -> r.getString(column)).thenComparing(byId));
+
+            JSONArray result = new JSONArray();
+            for (int i = 0; i < matches.size() && i < limit; i++) {
+                result.put(new JSONObject(matches.get(i).toString()));
+            }
+            return result;
+        }
+
+        private static Map<String, String> parseQuery(String rawQuery) {
+            Map<String, String> params = new HashMap<>();
+            if (rawQuery == null) return params;
+            for (String pair : rawQuery.split("&")) {
+                int eq = pair.indexOf('=');
+                params.put(pair.substring(0, eq), URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+            return params;
+        }
+
+        private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+            if (body == null) {
+                exchange.sendResponseHeaders(status, -1);
+            } else {
+                byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(status, bytes.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            }
+            exchange.close();
+        }
+
+        private static byte[] readAll(InputStream in) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+}
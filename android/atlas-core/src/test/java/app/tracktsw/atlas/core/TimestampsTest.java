@@ -0,0 +1,71 @@
+package app.tracktsw.atlas.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.ZoneId;
+
+public class TimestampsTest {
+    private static final ZoneId ZONE = ZoneId.of("America/New_York");
+    // 2025-12-13T12:32:49Z
+    private static final long NOON_UTC = Instant.parse("2025-12-13T12:32:49Z").toEpochMilli();
+
+    @Test
+    public void readsPostgrestOffsets() {
+        assertEquals(NOON_UTC, millis("2025-12-13T12:32:49+00:00"));
+        assertEquals(NOON_UTC, millis("2025-12-13T12:32:49+00"));
+        assertEquals(NOON_UTC, millis("2025-12-13T12:32:49Z"));
+        assertEquals(NOON_UTC, millis("2025-12-13T14:32:49+02:00"));
+        assertEquals(NOON_UTC, millis("2025-12-13T07:32:49-05"));
+    }
+
+    @Test
+    public void acceptsASpaceSeparator() {
+        assertEquals(NOON_UTC, millis("2025-12-13 12:32:49+00"));
+        assertEquals(NOON_UTC, millis("2025-12-13 12:32:49+00:00"));
+        assertEquals(NOON_UTC + 123, millis("2025-12-13 12:32:49.123456+00"));
+    }
+
+    @Test
+    public void keepsFractionsToTheMillisecond() {
+        assertEquals(NOON_UTC + 100, millis("2025-12-13T12:32:49.1Z"));
+        assertEquals(NOON_UTC + 123, millis("2025-12-13T12:32:49.123Z"));
+        assertEquals(NOON_UTC + 123, millis("2025-12-13T12:32:49.123456+00:00"));
+        assertEquals(NOON_UTC + 999, millis("2025-12-13T12:32:49.999999999Z"));
+    }
+
+    @Test
+    public void readsValuesWithoutAnOffsetInTheGivenZone() {
+        // EXIF-style device local time; New York is UTC-5 in December
+        assertEquals(NOON_UTC, millis("2025-12-13T07:32:49"));
+        assertEquals(NOON_UTC, millis("2025-12-13 07:32:49"));
+        assertEquals(NOON_UTC + 500, millis("2025-12-13T07:32:49.5"));
+        assertEquals(NOON_UTC - 49_000, millis("2025-12-13T07:32"));
+    }
+
+    @Test
+    public void readsPlainDatesAsLocalMidnight() {
+        assertEquals(Instant.parse("2025-12-13T05:00:00Z").toEpochMilli(), millis("2025-12-13"));
+        assertEquals(Instant.parse("2025-07-01T04:00:00Z").toEpochMilli(), millis("2025-07-01"));
+    }
+
+    @Test
+    public void rejectsMissingAndMalformedValues() {
+        assertNull(Timestamps.parseMillis(null, ZONE));
+        assertNull(Timestamps.parseMillis("", ZONE));
+        assertNull(Timestamps.parseMillis("yesterday", ZONE));
+        assertNull(Timestamps.parseMillis("2025-13-01", ZONE));
+        assertNull(Timestamps.parseMillis("2025-12-13T25:00:00Z", ZONE));
+    }
+
+    private static long millis(String value) {
+        Long millis = Timestamps.parseMillis(value, ZONE);
+        if (millis == null) {
+            throw new AssertionError("Not parsed: " + value);
+        }
+        return millis;
+    }
+}
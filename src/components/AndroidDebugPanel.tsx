@@ -2,10 +2,14 @@
 // Visible only when ?insetsDebug=1 query param is present on Android
 import { useState, useEffect } from 'react';
 import { Capacitor } from '@capacitor/core';
+import { getReminderDeliveryStats, type ReminderDeliveryStats } from '@/utils/notificationScheduler';
+import { getMetaAnalyticsStats, type MetaAnalyticsStats } from '@/utils/metaAnalytics';
 
 const AndroidDebugPanel = () => {
   const [show, setShow] = useState(false);
   const [values, setValues] = useState<Record<string, string | number | undefined>>({});
+  const [reminders, setReminders] = useState<ReminderDeliveryStats | null>(null);
+  const [analytics, setAnalytics] = useState<MetaAnalyticsStats | null>(null);
 
   useEffect(() => {
     // Only show on Android with insetsDebug query param
@@ -32,6 +36,8 @@ const AndroidDebugPanel = () => {
     };
 
     update();
+    getReminderDeliveryStats().then(setReminders).catch(() => setReminders(null));
+    getMetaAnalyticsStats().then(setAnalytics).catch(() => setAnalytics(null));
     window.addEventListener('resize', update);
     window.visualViewport?.addEventListener('resize', update);
 
@@ -49,6 +55,59 @@ const AndroidDebugPanel = () => {
       <pre className="whitespace-pre-wrap break-all">
         {JSON.stringify(values, null, 2)}
       </pre>
+      {reminders && (
+        <>
+          <div className="font-bold text-green-400 mt-2 mb-1">Reminder delivery</div>
+          <pre className="whitespace-pre-wrap break-all">
+            {JSON.stringify(
+              {
+                alarms: reminders.count,
+                p50: `${Math.round(reminders.p50DelayMs / 1000)}s`,
+                p95: `${Math.round(reminders.p95DelayMs / 1000)}s`,
+                max: `${Math.round(reminders.maxDelayMs / 1000)}s`,
+                fallback: `${Math.round(reminders.fallbackShare * 100)}%`,
+                missedDays: reminders.missedDays,
+                exactAllowed: reminders.exactAlarmsAllowed,
+                bootArm:
+                  reminders.bootArmLatencyMs >= 0
+                    ? `${(reminders.bootArmLatencyMs / 1000).toFixed(1)}s${reminders.bootArmedBeforeUnlock ? ' (locked)' : ''}`
+                    : 'n/a',
+                backend: reminders.backend,
+                byBackend: Object.fromEntries(
+                  Object.entries(reminders.backends).map(([name, b]) => [
+                    name,
+                    `${b!.count}× p50 ${Math.round(b!.p50DelayMs / 1000)}s p95 ${Math.round(b!.p95DelayMs / 1000)}s`,
+                  ])
+                ),
+              },
+              null,
+              2
+            )}
+          </pre>
+        </>
+      )}
+      {analytics && (
+        <>
+          <div className="font-bold text-green-400 mt-2 mb-1">Analytics queue</div>
+          <pre className="whitespace-pre-wrap break-all">
+            {JSON.stringify(
+              {
+                depth: `${analytics.depth}/${analytics.capacity}`,
+                delivered: analytics.delivered,
+                dropped: analytics.dropped,
+                p50: `${analytics.p50LatencyUs}µs`,
+                p95: `${analytics.p95LatencyUs}µs`,
+                max: `${analytics.maxLatencyUs}µs`,
+                journal: `${analytics.journalBytes}B`,
+                sinkFailures: analytics.sinkFailures,
+                ready: analytics.ready,
+              },
+              null,
+              2
+            )}
+          </pre>
+        </>
+      )}
     </div>
   );
 };
@@ -7,6 +7,7 @@ import { Progress } from '@/components/ui/progress';
 import { cn } from '@/lib/utils';
 import { BodyPart } from '@/contexts/UserDataContext';
 import { UploadItem } from '@/hooks/useBatchUpload';
+import type { PhotoSource } from '@/utils/imageCompression';
 
 interface BatchUploadModalProps {
   open: boolean;
@@ -28,7 +29,7 @@ interface BatchUploadModalProps {
   onRetryFailed: () => void;
   onCancel: () => void;
   onClose: () => void;
-  selectedFiles: File[];
+  selectedFiles: PhotoSource[];
 }
 
 const bodyParts: { value: BodyPart; label: string }[] = [
@@ -174,7 +175,7 @@ export const BatchUploadModal = ({
                     {/* File info */}
                     <div className="flex-1 min-w-0">
                       <p className="text-sm font-medium truncate">
-                        {item.file.name}
+                        {item.source.name ?? 'Photo'}
                         {item.isHeic && <span className="text-xs text-muted-foreground ml-1">(HEIC)</span>}
                       </p>
                       {item.status === 'converting' && (
@@ -10,6 +10,7 @@ const MAX_CONCURRENT_LOADS = typeof navigator !== 'undefined' && /Mobi|Android/i
 
 interface PhotoItemProps {
   photo: VirtualPhoto;
+  index: number;
   isSelected: boolean;
   compareMode: boolean;
   priority: boolean;
@@ -21,6 +22,7 @@ interface PhotoItemProps {
 // Memoized photo item to prevent unnecessary re-renders
 const PhotoItem = memo(({ 
   photo, 
+  index,
   isSelected, 
   compareMode, 
   priority, 
@@ -70,6 +72,7 @@ const PhotoItem = memo(({
   return (
     <div
       ref={imgRef}
+      data-index={index}
       className={cn(
         'glass-card overflow-hidden group relative cursor-pointer transition-all duration-300 hover:shadow-warm hover:-translate-y-1',
         compareMode && isSelected && 'ring-2 ring-coral shadow-glow-coral',
@@ -173,6 +176,8 @@ interface VirtualizedPhotoGridProps {
   onLoadMore: () => void;
   hasMore: boolean;
   bodyParts: { value: string; label: string }[];
+  /** First and last on-screen cell indexes, reported at most once per frame */
+  onVisibleRangeChange?: (first: number, last: number) => void;
 }
 
 export const VirtualizedPhotoGrid = ({
@@ -183,7 +188,11 @@ export const VirtualizedPhotoGrid = ({
   onLoadMore,
   hasMore,
   bodyParts,
+  onVisibleRangeChange,
 }: VirtualizedPhotoGridProps) => {
+  const gridRef = useRef<HTMLDivElement>(null);
+  const visibleIndexesRef = useRef(new Set<number>());
+  const rangeFrameRef = useRef<number>();
   const loadMoreRef = useRef<HTMLDivElement>(null);
   const loadingCountRef = useRef(0);
   const pendingLoadsRef = useRef<(() => void)[]>([]);
@@ -221,6 +230,47 @@ export const VirtualizedPhotoGrid = ({
     return () => observer.disconnect();
   }, [hasMore, onLoadMore]);
 
+  // Track which cells are on screen so the hook can prefetch just ahead of them
+  useEffect(() => {
+    if (!onVisibleRangeChange || !gridRef.current) return;
+
+    const visible = visibleIndexesRef.current;
+    visible.clear();
+
+    const observer = new IntersectionObserver(
+      (entries) => {
+        entries.forEach((entry) => {
+          const index = Number((entry.target as HTMLElement).dataset.index);
+          if (entry.isIntersecting) {
+            visible.add(index);
+          } else {
+            visible.delete(index);
+          }
+        });
+
+        if (rangeFrameRef.current === undefined) {
+          rangeFrameRef.current = requestAnimationFrame(() => {
+            rangeFrameRef.current = undefined;
+            if (visible.size === 0) return;
+            const indexes = Array.from(visible);
+            onVisibleRangeChange(Math.min(...indexes), Math.max(...indexes));
+          });
+        }
+      },
+      { threshold: 0 }
+    );
+
+    gridRef.current.querySelectorAll<HTMLElement>('[data-index]').forEach((el) => observer.observe(el));
+
+    return () => {
+      observer.disconnect();
+      if (rangeFrameRef.current !== undefined) {
+        cancelAnimationFrame(rangeFrameRef.current);
+        rangeFrameRef.current = undefined;
+      }
+    };
+  }, [photos, onVisibleRangeChange]);
+
   // Memoize body part lookup map for O(1) access during scroll
   const bodyPartMap = useMemo(() => {
     const map = new Map<string, string>();
@@ -234,6 +284,7 @@ export const VirtualizedPhotoGrid = ({
 
   return (
     <div 
+      ref={gridRef}
       className="grid grid-cols-2 md:grid-cols-3 lg:grid-cols-4 gap-4 md:gap-5"
       style={{ 
         contain: 'layout style paint',
@@ -247,6 +298,7 @@ export const VirtualizedPhotoGrid = ({
           <PhotoItem
             key={photo.id}
             photo={photo}
+            index={index}
             isSelected={isSelected}
             compareMode={compareMode}
             priority={index < 4}
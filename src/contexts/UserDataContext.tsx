@@ -1,7 +1,25 @@
-import React, { createContext, useContext, useState, useEffect, useCallback } from 'react';
+import React, { createContext, useContext, useState, useEffect, useCallback, useRef } from 'react';
 import { supabase } from '@/integrations/supabase/client';
 import { useToast } from '@/hooks/use-toast';
-import { processImageForUpload, getPublicUrl } from '@/utils/imageCompression';
+import {
+  processImageForUpload,
+  processImageNative,
+  releaseNativeImages,
+  isNativePhotoProcessorAvailable,
+  getPublicUrl,
+} from '@/utils/imageCompression';
+import { setNativeUploadSession, uploadNativePhoto } from '@/utils/uploadQueue';
+import { recordNativeCheckIn, clearNativeReminderUserState } from '@/utils/notificationScheduler';
+import {
+  isNativeLocalStoreAvailable,
+  queryLocalRows,
+  replaceLocalRows,
+  getLocalSettings,
+  putLocalSettings,
+  clearLocalStore,
+  type LocalRow,
+} from '@/utils/localStore';
+import { isNativeSyncAvailable, syncNow, enqueueSyncMutation } from '@/utils/syncEngine';
 
 export type BodyPart = 'face' | 'neck' | 'arms' | 'hands' | 'legs' | 'feet' | 'torso' | 'back';
 
@@ -69,7 +87,8 @@ interface UserDataContextType {
   isLoading: boolean;
   isSyncing: boolean;
   userId: string | null;
-  addPhoto: (photo: { dataUrl: string; bodyPart: BodyPart; notes?: string }) => Promise<void>;
+  /** uri (file:// or content://) is processed natively on Android; dataUrl is the web path */
+  addPhoto: (photo: { dataUrl?: string; uri?: string; bodyPart: BodyPart; notes?: string }) => Promise<void>;
   deletePhoto: (id: string) => Promise<void>;
   /** Add a check-in. Optional customDate param for backfilling past days. */
   addCheckIn: (checkIn: Omit<CheckIn, 'id' | 'timestamp' | 'loggedAt'>, clientRequestId: string, customDate?: Date) => Promise<void>;
@@ -117,6 +136,23 @@ const parseSymptoms = (data: unknown): SymptomEntry[] | undefined => {
   }).filter((s): s is SymptomEntry => s !== null);
 };
 
+// user_check_ins row (from the backend or the local store) to CheckIn
+const checkInFromRow = (row: LocalRow): CheckIn => ({
+  id: row.id,
+  timestamp: row.created_at,
+  loggedAt: row.logged_at || row.created_at,
+  timeOfDay: row.time_of_day as 'morning' | 'evening',
+  treatments: row.treatments,
+  mood: row.mood,
+  skinFeeling: row.skin_feeling,
+  skinIntensity: row.skin_intensity ?? undefined,
+  painScore: row.pain_score ?? undefined,
+  sleepScore: row.sleep_score ?? undefined,
+  notes: row.notes || undefined,
+  symptomsExperienced: parseSymptoms(row.symptoms_experienced),
+  triggers: row.triggers || undefined,
+});
+
 export const UserDataProvider: React.FC<{ children: React.ReactNode }> = ({ children }) => {
   const [photos, setPhotos] = useState<Photo[]>([]);
   const [checkIns, setCheckIns] = useState<CheckIn[]>([]);
@@ -131,6 +167,8 @@ export const UserDataProvider: React.FC<{ children: React.ReactNode }> = ({ chil
   const [isLoading, setIsLoading] = useState(true);
   const [isSyncing, setIsSyncing] = useState(false);
   const [userId, setUserId] = useState<string | null>(null);
+  // The signed-in user as of the last auth event, for clearing their local copy on sign-out
+  const lastUserIdRef = useRef<string | null>(null);
   const { toast } = useToast();
 
   // OPTIMIZED: Single auth listener - onAuthStateChange fires immediately with current session
@@ -139,6 +177,22 @@ export const UserDataProvider: React.FC<{ children: React.ReactNode }> = ({ chil
     const { data: { subscription } } = supabase.auth.onAuthStateChange((event, session) => {
       const newUserId = session?.user?.id || null;
       setUserId(newUserId);
+
+      // Don't leave the signed-out user's data in the native mirror (no-op on web)
+      const previousUserId = lastUserIdRef.current;
+      lastUserIdRef.current = newUserId;
+      if (event === 'SIGNED_OUT' && previousUserId) {
+        clearLocalStore(previousUserId).catch((error) => {
+          console.error('Failed to clear local data:', error);
+        });
+      }
+      if (event === 'SIGNED_OUT') {
+        // Reminder state isn't per user: the next user's reminders mustn't follow this one's check-ins
+        clearNativeReminderUserState();
+      }
+
+      // Keep the native upload queue's token fresh (no-op on web)
+      setNativeUploadSession(session);
       
       // Load data when we have a user, otherwise stop loading
       if (newUserId) {
@@ -155,6 +209,12 @@ export const UserDataProvider: React.FC<{ children: React.ReactNode }> = ({ chil
     if (!uid) return;
     
     setIsLoading(true);
+
+    // Show the local copy immediately; the cloud load below refreshes it
+    if (await loadLocalData(uid)) {
+      setIsLoading(false);
+    }
+
     try {
       // Check if user has cloud data
       const { data: settings } = await supabase
@@ -166,7 +226,7 @@ export const UserDataProvider: React.FC<{ children: React.ReactNode }> = ({ chil
       if (!settings) {
         // First login - migrate localStorage data to cloud
         await migrateLocalStorageToCloud(uid);
-      } else {
+      } else if (!(await syncLocalData(uid, settings))) {
         // Load from cloud
         await fetchCloudData(uid);
       }
@@ -294,6 +354,104 @@ export const UserDataProvider: React.FC<{ children: React.ReactNode }> = ({ chil
     }
   };
 
+  /**
+   * Map settings and rows (select('*') shape) into state. Shared by the cloud load
+   * and the native local store, which stores rows in the same shape.
+   */
+  // eslint-disable-next-line @typescript-eslint/no-explicit-any
+  const applyData = (settings: any, photoRows: any[] | null, checkInRows: any[] | null, journalRows: any[] | null) => {
+    // Process settings
+    if (settings) {
+      setTswStartDateState(settings.tsw_start_date);
+      setCustomTreatments(settings.custom_treatments || []);
+      setCustomTriggers((settings as any).custom_triggers || []);
+      setReminderSettings({
+        enabled: settings.reminders_enabled,
+        // Use morning_time as the single reminder time (legacy migration)
+        reminderTime: settings.morning_time || '09:00',
+      });
+    }
+
+    // Process photos
+    if (photoRows && photoRows.length > 0) {
+      const photosWithUrls = photoRows.map(photo => ({
+        id: photo.id,
+        photoUrl: photo.medium_url || photo.photo_url || '',
+        thumbnailUrl: photo.thumb_url || photo.medium_url || photo.photo_url || '',
+        originalUrl: photo.original_url || undefined,
+        bodyPart: photo.body_part as BodyPart,
+        timestamp: photo.taken_at || photo.created_at,
+        createdAt: photo.created_at,
+        hasTakenAt: !!photo.taken_at,
+        notes: photo.notes || undefined,
+      }));
+      setPhotos(photosWithUrls);
+    } else {
+      setPhotos([]);
+    }
+
+    // Process check-ins
+    if (checkInRows) {
+      setCheckIns(checkInRows.map(checkInFromRow));
+    }
+
+    // Process journal entries
+    if (journalRows) {
+      setJournalEntries(journalRows.map(j => ({
+        id: j.id,
+        timestamp: j.created_at,
+        content: j.content,
+        mood: j.mood || undefined,
+        photoIds: j.photo_ids || undefined,
+      })));
+    }
+  };
+
+  /**
+   * Render from the native local store (if it has data) before the cloud load finishes.
+   * Returns true if local data was applied.
+   */
+  const loadLocalData = async (uid: string): Promise<boolean> => {
+    if (!isNativeLocalStoreAvailable()) return false;
+
+    try {
+      const [settings, photoRows, checkInRows, journalRows] = await Promise.all([
+        getLocalSettings(uid),
+        queryLocalRows('user_photos', uid),
+        queryLocalRows('user_check_ins', uid),
+        queryLocalRows('user_journal_entries', uid),
+      ]);
+      if (!settings) return false;
+
+      // Same order as the cloud queries (created_at desc)
+      const byCreatedAtDesc = (a: { created_at: string }, b: { created_at: string }) =>
+        b.created_at.localeCompare(a.created_at);
+      applyData(settings, photoRows.sort(byCreatedAtDesc), checkInRows.sort(byCreatedAtDesc), journalRows);
+      return true;
+    } catch (error) {
+      console.error('Error loading local data:', error);
+      return false;
+    }
+  };
+
+  /**
+   * Delta-sync the native local store and render from it. Returns false (so the caller
+   * falls back to a full cloud load) if native sync is unavailable or fails.
+   */
+  const syncLocalData = async (uid: string, settings: Record<string, unknown>): Promise<boolean> => {
+    if (!isNativeSyncAvailable()) return false;
+
+    try {
+      const result = await syncNow();
+      if (!result.synced) return false;
+      await putLocalSettings(uid, settings);
+      return await loadLocalData(uid);
+    } catch (error) {
+      console.error('Error syncing local data:', error);
+      return false;
+    }
+  };
+
   const fetchCloudData = async (uid: string) => {
     if (!uid) return;
 
@@ -326,64 +484,16 @@ export const UserDataProvider: React.FC<{ children: React.ReactNode }> = ({ chil
           .order('created_at', { ascending: false }),
       ]);
 
-      // Process settings
-      if (settingsResult.data) {
-        setTswStartDateState(settingsResult.data.tsw_start_date);
-        setCustomTreatments(settingsResult.data.custom_treatments || []);
-        setCustomTriggers((settingsResult.data as any).custom_triggers || []);
-        setReminderSettings({
-          enabled: settingsResult.data.reminders_enabled,
-          // Use morning_time as the single reminder time (legacy migration)
-          reminderTime: settingsResult.data.morning_time || '09:00',
-        });
-      }
+      applyData(settingsResult.data, photosResult.data, checkInsResult.data, journalResult.data);
 
-      // Process photos
-      if (photosResult.data && photosResult.data.length > 0) {
-        const photosWithUrls = photosResult.data.map(photo => ({
-          id: photo.id,
-          photoUrl: photo.medium_url || photo.photo_url || '',
-          thumbnailUrl: photo.thumb_url || photo.medium_url || photo.photo_url || '',
-          originalUrl: photo.original_url || undefined,
-          bodyPart: photo.body_part as BodyPart,
-          timestamp: photo.taken_at || photo.created_at,
-          createdAt: photo.created_at,
-          hasTakenAt: !!photo.taken_at,
-          notes: photo.notes || undefined,
-        }));
-        setPhotos(photosWithUrls);
-      } else {
-        setPhotos([]);
-      }
-
-      // Process check-ins
-      if (checkInsResult.data) {
-        setCheckIns(checkInsResult.data.map(c => ({
-          id: c.id,
-          timestamp: c.created_at,
-          loggedAt: (c as any).logged_at || c.created_at,
-          timeOfDay: c.time_of_day as 'morning' | 'evening',
-          treatments: c.treatments,
-          mood: c.mood,
-          skinFeeling: c.skin_feeling,
-          skinIntensity: (c as any).skin_intensity ?? undefined,
-          painScore: (c as any).pain_score ?? undefined,
-          sleepScore: (c as any).sleep_score ?? undefined,
-          notes: c.notes || undefined,
-          symptomsExperienced: parseSymptoms(c.symptoms_experienced),
-          triggers: (c as any).triggers || undefined,
-        })));
-      }
-
-      // Process journal entries
-      if (journalResult.data) {
-        setJournalEntries(journalResult.data.map(j => ({
-          id: j.id,
-          timestamp: j.created_at,
-          content: j.content,
-          mood: j.mood || undefined,
-          photoIds: j.photo_ids || undefined,
-        })));
+      // Mirror the snapshot locally so the next launch renders without the network
+      if (isNativeLocalStoreAvailable()) {
+        Promise.all([
+          settingsResult.data ? putLocalSettings(uid, settingsResult.data) : Promise.resolve(),
+          replaceLocalRows('user_photos', uid, photosResult.data || []),
+          replaceLocalRows('user_check_ins', uid, checkInsResult.data || []),
+          replaceLocalRows('user_journal_entries', uid, journalResult.data || []),
+        ]).catch((error) => console.error('Error saving local data:', error));
       }
     } catch (error) {
       console.error('Error fetching cloud data:', error);
@@ -444,42 +554,76 @@ export const UserDataProvider: React.FC<{ children: React.ReactNode }> = ({ chil
       throw new Error('Please sign in to sync your check-ins.');
     }
 
-    const { data: checkInsData, error } = await supabase
-      .from('user_check_ins')
-      .select('*')
-      .eq('user_id', userId)
-      .order('created_at', { ascending: false });
-
-    if (error) throw error;
-
-    setCheckIns(
-      (checkInsData ?? []).map((c) => ({
-        id: c.id,
-        timestamp: c.created_at,
-        loggedAt: (c as any).logged_at || c.created_at,
-        timeOfDay: c.time_of_day as 'morning' | 'evening',
-        treatments: c.treatments,
-        mood: c.mood,
-        skinFeeling: c.skin_feeling,
-        skinIntensity: (c as any).skin_intensity ?? undefined,
-        painScore: (c as any).pain_score ?? undefined,
-        sleepScore: (c as any).sleep_score ?? undefined,
-        notes: c.notes || undefined,
-        symptomsExperienced: parseSymptoms(c.symptoms_experienced),
-        triggers: (c as any).triggers || undefined,
-      }))
-    );
+    let checkInsData: LocalRow[] | null;
+    const synced = isNativeSyncAvailable() && (await syncNow().then((r) => r.synced).catch(() => false));
+    if (synced) {
+      // Only changed rows were pulled; read the full list from the local store
+      checkInsData = (await queryLocalRows('user_check_ins', userId)).sort((a, b) =>
+        b.created_at.localeCompare(a.created_at)
+      );
+    } else {
+      const { data, error } = await supabase
+        .from('user_check_ins')
+        .select('*')
+        .eq('user_id', userId)
+        .order('created_at', { ascending: false });
+
+      if (error) throw error;
+      checkInsData = data;
+    }
+
+    setCheckIns((checkInsData ?? []).map(checkInFromRow));
+  }, [userId]);
+
+  // Android: decode with PhotoProcessor and upload through the WorkManager queue
+  const addPhotoNative = useCallback(async (uri: string, bodyPart: BodyPart, notes?: string) => {
+    if (!userId) return;
+
+    const processed = await processImageNative(uri, userId);
+    try {
+      await uploadNativePhoto(processed.photoId, bodyPart, null, notes || null);
+    } catch (error) {
+      // No-op once the queue has taken the files
+      releaseNativeImages(processed.photoId).catch(() => {});
+      console.error('Error adding photo:', error);
+      throw error;
+    }
+
+    // The worker inserts the row with id = photoId; the original is best-effort, so
+    // originalUrl comes in with the next refreshPhotos
+    const now = new Date().toISOString();
+    const mediumUrl = getPublicUrl(processed.medium.path);
+    const newPhoto: Photo = {
+      id: processed.photoId,
+      photoUrl: mediumUrl,
+      thumbnailUrl: getPublicUrl(processed.thumbnail.path),
+      bodyPart,
+      timestamp: now,
+      createdAt: now,
+      hasTakenAt: false,
+      notes,
+    };
+    setPhotos(prev => [newPhoto, ...prev]);
   }, [userId]);
 
-  const addPhoto = useCallback(async (photo: { dataUrl: string; bodyPart: BodyPart; notes?: string }) => {
+  const addPhoto = useCallback(async (photo: { dataUrl?: string; uri?: string; bodyPart: BodyPart; notes?: string }) => {
     if (!userId) return;
 
+    if (photo.uri && isNativePhotoProcessorAvailable()) {
+      await addPhotoNative(photo.uri, photo.bodyPart, photo.notes);
+      return;
+    }
+    if (!photo.dataUrl) {
+      throw new Error('No photo to upload');
+    }
+    const dataUrl = photo.dataUrl;
+
     let uploadedPaths: string[] = [];
 
     try {
       // Process image: generates UUID + original, medium, and thumbnail versions
       // Paths: {userId}/{photoId}/thumb.webp, medium.webp, original.jpg
-      const processed = await processImageForUpload(photo.dataUrl, userId);
+      const processed = await processImageForUpload(dataUrl, userId);
       
       // Upload all three versions to public "photos" bucket in parallel
       const [thumbResult, mediumResult, originalResult] = await Promise.all([
@@ -571,7 +715,7 @@ export const UserDataProvider: React.FC<{ children: React.ReactNode }> = ({ chil
       console.error('Error adding photo:', error);
       throw error;
     }
-  }, [userId]);
+  }, [userId, addPhotoNative]);
 
   const deletePhoto = useCallback(async (id: string) => {
     if (!userId) return;
@@ -641,6 +785,20 @@ export const UserDataProvider: React.FC<{ children: React.ReactNode }> = ({ chil
     return todayCount;
   }, [checkIns]);
 
+  // Seed the native reminder ledger from loaded check-ins (new install, other devices)
+  useEffect(() => {
+    const latest: Partial<Record<'morning' | 'evening', string>> = {};
+    for (const c of checkIns) {
+      const date = new Date(c.timestamp).toLocaleDateString('en-CA');
+      if (!latest[c.timeOfDay] || date > latest[c.timeOfDay]!) {
+        latest[c.timeOfDay] = date;
+      }
+    }
+    (Object.keys(latest) as Array<'morning' | 'evening'>).forEach((slot) => {
+      recordNativeCheckIn(latest[slot]!, slot);
+    });
+  }, [checkIns]);
+
   // Get check-in for a specific date
   const getCheckInForDate = useCallback((date: string | Date): CheckIn | undefined => {
     const targetDate = typeof date === 'string' ? date : date.toLocaleDateString('en-CA');
@@ -701,6 +859,30 @@ export const UserDataProvider: React.FC<{ children: React.ReactNode }> = ({ chil
           insertData.created_at = createdAt;
         }
 
+        // Android: write the row to the local store and the sync outbox, keyed by
+        // clientRequestId; SyncWorker pushes it (also when offline now) and the UI
+        // renders the local row
+        if (isNativeSyncAvailable()) {
+          const now = new Date().toISOString();
+          const row = { ...insertData, id: crypto.randomUUID(), created_at: createdAt ?? now, logged_at: now };
+          try {
+            const queued = await enqueueSyncMutation('user_check_ins', 'insert', { row, clientRequestId });
+            if (DEBUG_CHECKINS) {
+              console.log('[CHECK-IN] Queued for sync, id:', row.id, queued ? '' : '(already queued)');
+            }
+            // A retry of an already-queued request is a no-op; its row is already shown
+            if (queued) {
+              recordNativeCheckIn(targetDate, checkIn.timeOfDay, createdAt ? undefined : new Date());
+              const newCheckIn = checkInFromRow(row);
+              setCheckIns((prev) => [newCheckIn, ...prev]);
+            }
+            return;
+          } catch (queueError) {
+            // No native session yet; save straight to the backend instead
+            console.warn('[CHECK-IN] Could not queue for sync, saving directly:', queueError);
+          }
+        }
+
         const { data, error } = await supabase
           .from('user_check_ins')
           .insert(insertData)
@@ -724,25 +906,15 @@ export const UserDataProvider: React.FC<{ children: React.ReactNode }> = ({ chil
           console.log('[CHECK-IN] Save successful, id:', data.id);
         }
 
+        // Lets the native alarm skip today's reminder
+        // Backfills say nothing about when the user usually checks in
+        recordNativeCheckIn(targetDate, checkIn.timeOfDay, createdAt ? undefined : new Date());
+
         // Confirm persistence by re-loading latest check-ins from backend
         await reloadCheckIns();
 
         // Keep optimistic UI snappy for slow networks (prepend in case reload is delayed)
-        const newCheckIn: CheckIn = {
-          id: data.id,
-          timestamp: data.created_at,
-          loggedAt: (data as any).logged_at || data.created_at,
-          timeOfDay: data.time_of_day as 'morning' | 'evening',
-          treatments: data.treatments,
-          mood: data.mood,
-          skinFeeling: data.skin_feeling,
-          skinIntensity: (data as any).skin_intensity ?? undefined,
-          painScore: (data as any).pain_score ?? undefined,
-          sleepScore: (data as any).sleep_score ?? undefined,
-          notes: data.notes || undefined,
-          symptomsExperienced: parseSymptoms(data.symptoms_experienced),
-          triggers: (data as any).triggers || undefined,
-        };
+        const newCheckIn = checkInFromRow(data);
 
         setCheckIns((prev) => (prev.some((c) => c.id === newCheckIn.id) ? prev : [newCheckIn, ...prev]));
       } catch (error: any) {
@@ -766,20 +938,43 @@ export const UserDataProvider: React.FC<{ children: React.ReactNode }> = ({ chil
         // Calculate skin_intensity from skinFeeling (1-5 → 4-0)
         const skinIntensity = 5 - checkIn.skinFeeling;
 
+        const changes = {
+          time_of_day: checkIn.timeOfDay,
+          treatments: checkIn.treatments,
+          mood: checkIn.mood,
+          skin_feeling: checkIn.skinFeeling,
+          skin_intensity: skinIntensity,
+          pain_score: checkIn.painScore ?? null,
+          sleep_score: checkIn.sleepScore ?? null,
+          notes: checkIn.notes || null,
+          symptoms_experienced: JSON.parse(JSON.stringify(checkIn.symptomsExperienced || [])),
+          triggers: checkIn.triggers || [],
+        };
+
+        // Android: updates are pushed as an upsert of the whole row, so carry over the
+        // columns the form doesn't edit
+        const existing = checkIns.find((c) => c.id === id);
+        if (isNativeSyncAvailable() && existing) {
+          const row = {
+            ...changes,
+            id,
+            user_id: userId,
+            created_at: existing.timestamp,
+            logged_at: existing.loggedAt,
+          };
+          try {
+            await enqueueSyncMutation('user_check_ins', 'update', { row });
+            const updated = checkInFromRow(row);
+            setCheckIns((prev) => prev.map((c) => (c.id === id ? updated : c)));
+            return;
+          } catch (queueError) {
+            console.warn('[CHECK-IN] Could not queue update for sync, saving directly:', queueError);
+          }
+        }
+
         const { data, error } = await supabase
           .from('user_check_ins')
-          .update({
-            time_of_day: checkIn.timeOfDay,
-            treatments: checkIn.treatments,
-            mood: checkIn.mood,
-            skin_feeling: checkIn.skinFeeling,
-            skin_intensity: skinIntensity,
-            pain_score: checkIn.painScore ?? null,
-            sleep_score: checkIn.sleepScore ?? null,
-            notes: checkIn.notes || null,
-            symptoms_experienced: JSON.parse(JSON.stringify(checkIn.symptomsExperienced || [])),
-            triggers: checkIn.triggers || [],
-          })
+          .update(changes)
           .eq('id', id)
           .select()
           .single();
@@ -814,7 +1009,7 @@ export const UserDataProvider: React.FC<{ children: React.ReactNode }> = ({ chil
         throw error;
       }
     },
-    [userId, reloadCheckIns]
+    [userId, reloadCheckIns, checkIns]
   );
 
   const deleteCheckIn = useCallback(async (id: string) => {
@@ -823,12 +1018,26 @@ export const UserDataProvider: React.FC<{ children: React.ReactNode }> = ({ chil
     }
 
     try {
-      const { error } = await supabase
-        .from('user_check_ins')
-        .delete()
-        .eq('id', id);
+      let queued = false;
+      if (isNativeSyncAvailable()) {
+        // Android: through the outbox, after any queued insert or update of this row,
+        // so a later push can't bring it back; also removes the local mirror row
+        try {
+          await enqueueSyncMutation('user_check_ins', 'delete', { id });
+          queued = true;
+        } catch (queueError) {
+          console.warn('[CHECK-IN] Could not queue delete for sync, deleting directly:', queueError);
+        }
+      }
 
-      if (error) throw error;
+      if (!queued) {
+        const { error } = await supabase
+          .from('user_check_ins')
+          .delete()
+          .eq('id', id);
+
+        if (error) throw error;
+      }
 
       setCheckIns(prev => prev.filter(c => c.id !== id));
       
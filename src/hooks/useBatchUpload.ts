@@ -1,9 +1,17 @@
 import { useState, useCallback, useRef } from 'react';
 import { supabase } from '@/integrations/supabase/client';
-import { processImageForUpload, getPublicUrl } from '@/utils/imageCompression';
+import {
+  processImageForUpload,
+  processImageNative,
+  releaseNativeImages,
+  isNativePickedImage,
+  getPublicUrl,
+  type NativePickedImage,
+  type PhotoSource,
+} from '@/utils/imageCompression';
 import { BodyPart } from '@/contexts/UserDataContext';
-import { isHeicFile, prepareFileForUpload } from '@/utils/heicConverter';
-import { extractExifDate } from '@/utils/exifExtractor';
+import { extractExifDate, extractExifDatesFromUris } from '@/utils/exifExtractor';
+import { uploadNativePhoto, cancelNativeUpload } from '@/utils/uploadQueue';
 import { startOfDay, endOfDay } from 'date-fns';
 import { trackPhotoLogged } from '@/utils/analytics';
 
@@ -11,7 +19,7 @@ const FREE_DAILY_PHOTO_LIMIT = 2;
 
 export interface UploadItem {
   id: string;
-  file: File;
+  source: PhotoSource;
   status: 'pending' | 'converting' | 'uploading' | 'success' | 'error';
   progress: number;
   error?: string;
@@ -36,6 +44,8 @@ export const useBatchUpload = (options: UseBatchUploadOptions = {}) => {
   const [isUploading, setIsUploading] = useState(false);
   const [bodyPart, setBodyPart] = useState<BodyPart>('face');
   const cancelledRef = useRef(false);
+  // Native uploads handed to the queue and not finished yet, cancelled with the batch
+  const queuedPhotoIdsRef = useRef(new Set<string>());
   const activeUploadsRef = useRef(0);
   // Track successful uploads in current batch for limit checking
   const batchSuccessCountRef = useRef(0);
@@ -67,11 +77,76 @@ export const useBatchUpload = (options: UseBatchUploadOptions = {}) => {
     ));
   }, []);
 
-  const uploadSinglePhoto = async (item: UploadItem, userId: string): Promise<boolean> => {
+  // Android: derivatives are made natively and uploaded by the WorkManager queue
+  // (UploadQueue), which keeps going if the app is backgrounded or killed
+  const uploadNativeItem = async (
+    item: UploadItem,
+    image: NativePickedImage,
+    userId: string,
+    takenAt: string | null
+  ): Promise<boolean> => {
+    let photoId: string | null = null;
+
+    try {
+      updateItem(item.id, { status: 'uploading', progress: 5 });
+      const processed = await processImageNative(image.uri, userId);
+      photoId = processed.photoId;
+      updateItem(item.id, { progress: 20 });
+
+      if (cancelledRef.current) {
+        await releaseNativeImages(photoId);
+        return false;
+      }
+
+      queuedPhotoIdsRef.current.add(photoId);
+      const result = await uploadNativePhoto(photoId, bodyPart, takenAt, null, (progress) => {
+        updateItem(item.id, { progress: 20 + Math.round(progress * 0.8) });
+      });
+      queuedPhotoIdsRef.current.delete(photoId);
+
+      if (import.meta.env.DEV) {
+        console.log('[BatchUpload] Native upload', result.state, ':', {
+          photo_id: photoId,
+          file_name: image.name,
+          taken_at: takenAt,
+        });
+      }
+
+      // queued/parked uploads finish in the background; the row appears on the next refresh
+      trackPhotoLogged(bodyPart, 'library');
+      updateItem(item.id, { status: 'success', progress: 100, photoId });
+      onPhotoUploaded?.(photoId);
+      return true;
+    } catch (error) {
+      if (photoId) {
+        queuedPhotoIdsRef.current.delete(photoId);
+        // No-op once the queue has taken the files
+        releaseNativeImages(photoId).catch(() => {});
+      }
+
+      const message = error instanceof Error ? error.message : 'Upload failed';
+      if (import.meta.env.DEV) {
+        console.error('[BatchUpload] Native upload failed for:', image.name, '-', message);
+      }
+      updateItem(item.id, { status: 'error', progress: 0, error: message });
+      return false;
+    }
+  };
+
+  const uploadSinglePhoto = async (
+    item: UploadItem,
+    userId: string,
+    nativeExifDates: Map<string, string | null>
+  ): Promise<boolean> => {
     if (cancelledRef.current) return false;
 
+    const { source } = item;
+    if (isNativePickedImage(source)) {
+      return uploadNativeItem(item, source, userId, nativeExifDates.get(source.uri) ?? null);
+    }
+
     if (import.meta.env.DEV) {
-      console.log('[BatchUpload] Starting upload for:', item.file.name, 'isHeic:', item.isHeic);
+      console.log('[BatchUpload] Starting upload for:', source.name, 'isHeic:', item.isHeic);
     }
 
     let uploadedPaths: string[] = [];
@@ -80,11 +155,11 @@ export const useBatchUpload = (options: UseBatchUploadOptions = {}) => {
       // Extract EXIF date from ORIGINAL file BEFORE any conversion
       // (HEIC conversion strips metadata, so we must do this first)
       // Returns timezone-less "YYYY-MM-DDTHH:MM:SS" or null
-      const exifDate = await extractExifDate(item.file);
+      const exifDate = await extractExifDate(source);
       const dateSource = exifDate ? 'exif' : 'upload_fallback';
       
       if (import.meta.env.DEV) {
-        console.log('[BatchUpload] Date info for', item.file.name + ':', {
+        console.log('[BatchUpload] Date info for', source.name + ':', {
           taken_at: exifDate || null,
           date_source: dateSource,
           exif_present: !!exifDate,
@@ -95,18 +170,19 @@ export const useBatchUpload = (options: UseBatchUploadOptions = {}) => {
       if (item.isHeic) {
         updateItem(item.id, { status: 'converting', progress: 5 });
         if (import.meta.env.DEV) {
-          console.log('[BatchUpload] Converting HEIC:', item.file.name);
+          console.log('[BatchUpload] Converting HEIC:', source.name);
         }
       }
 
       // Prepare file (converts HEIC if needed, returns data URL)
       let dataUrl: string;
       try {
-        dataUrl = await prepareFileForUpload(item.file);
-        console.log('[BatchUpload] File conversion successful:', item.file.name, 'data URL length:', dataUrl.length);
+        const { prepareFileForUpload } = await import('@/utils/heicConverter');
+        dataUrl = await prepareFileForUpload(source);
+        console.log('[BatchUpload] File conversion successful:', source.name, 'data URL length:', dataUrl.length);
       } catch (conversionError) {
         const msg = conversionError instanceof Error ? conversionError.message : 'File conversion failed';
-        console.error('[BatchUpload] File conversion failed:', item.file.name, '-', msg);
+        console.error('[BatchUpload] File conversion failed:', source.name, '-', msg);
         throw new Error(`Could not process image: ${msg}`);
       }
       
@@ -199,7 +275,7 @@ export const useBatchUpload = (options: UseBatchUploadOptions = {}) => {
       if (import.meta.env.DEV) {
         console.log('[BatchUpload] Upload complete:', {
           photo_id: insertedPhoto.id,
-          file_name: item.file.name,
+          file_name: source.name,
           taken_at: exifDate || null,
           date_source: dateSource,
           exif_present: !!exifDate,
@@ -222,7 +298,7 @@ export const useBatchUpload = (options: UseBatchUploadOptions = {}) => {
       
       const message = error instanceof Error ? error.message : 'Upload failed';
       if (import.meta.env.DEV) {
-        console.error('[BatchUpload] Upload failed for:', item.file.name, '-', message);
+        console.error('[BatchUpload] Upload failed for:', source.name, '-', message);
       }
       updateItem(item.id, { status: 'error', progress: 0, error: message });
       return false;
@@ -236,6 +312,19 @@ export const useBatchUpload = (options: UseBatchUploadOptions = {}) => {
     let failedCount = 0;
     let limitReached = false;
 
+    // Android: read every picked photo's date in one native call (metadata only)
+    // instead of parsing each file in JS
+    const nativeExifDates = new Map<string, string | null>();
+    const uris = queue.flatMap(item => isNativePickedImage(item.source) ? [item.source.uri] : []);
+    if (uris.length > 0) {
+      try {
+        const results = await extractExifDatesFromUris(uris);
+        uris.forEach((uri, i) => nativeExifDates.set(uri, results[i]?.date ?? null));
+      } catch (error) {
+        console.warn('[BatchUpload] Native EXIF extraction failed, uploading without dates:', error);
+      }
+    }
+
     for (const item of queue) {
       if (cancelledRef.current) break;
 
@@ -260,7 +349,7 @@ export const useBatchUpload = (options: UseBatchUploadOptions = {}) => {
       }
 
       // Process one at a time - iOS is more reliable this way
-      const success = await uploadSinglePhoto(item, userId);
+      const success = await uploadSinglePhoto(item, userId, nativeExifDates);
 
       if (success) {
         successCount++;
@@ -273,7 +362,7 @@ export const useBatchUpload = (options: UseBatchUploadOptions = {}) => {
     return { success: successCount, failed: failedCount, limitReached };
   };
 
-  const startUpload = useCallback(async (files: File[]) => {
+  const startUpload = useCallback(async (files: PhotoSource[]) => {
     if (import.meta.env.DEV) {
       console.log('[BatchUpload] startUpload called with', files.length, 'files');
     }
@@ -315,18 +404,22 @@ export const useBatchUpload = (options: UseBatchUploadOptions = {}) => {
       }
     }
 
-    // Create upload items with HEIC detection
-    const newItems: UploadItem[] = files.map((file, index) => ({
+    // Create upload items with HEIC detection. The JS converter (heic2any) is only
+    // loaded for File sources on web; picked Android photos are decoded by PhotoProcessor.
+    const heicConverter = files.some(source => !isNativePickedImage(source))
+      ? await import('@/utils/heicConverter')
+      : null;
+    const newItems: UploadItem[] = files.map((source, index) => ({
       id: `upload-${Date.now()}-${index}`,
-      file,
+      source,
       status: 'pending' as const,
       progress: 0,
-      isHeic: isHeicFile(file),
+      isHeic: !isNativePickedImage(source) && !!heicConverter?.isHeicFile(source),
     }));
 
     const heicCount = newItems.filter(i => i.isHeic).length;
     if (import.meta.env.DEV) {
-      console.log('[BatchUpload] Created upload items:', newItems.map(i => i.file.name));
+      console.log('[BatchUpload] Created upload items:', newItems.map(i => i.source.name));
       console.log('[BatchUpload] HEIC files detected:', heicCount);
     }
 
@@ -390,6 +483,9 @@ export const useBatchUpload = (options: UseBatchUploadOptions = {}) => {
 
   const cancel = useCallback(() => {
     cancelledRef.current = true;
+    queuedPhotoIdsRef.current.forEach((photoId) => {
+      cancelNativeUpload(photoId).catch(() => {});
+    });
   }, []);
 
   const reset = useCallback(() => {
@@ -1,7 +1,14 @@
-import { useMemo } from 'react';
+import { useEffect, useMemo, useState } from 'react';
 import { useUserData } from '@/contexts/UserDataContext';
 import { useDemoMode } from '@/contexts/DemoModeContext';
-import { analyzeFlareState, FlareAnalysis, BaselineConfidence, FlareState } from '@/utils/flareStateEngine';
+import {
+  analyzeFlareState,
+  analyzeFlareStateNative,
+  isNativeFlareEngineAvailable,
+  FlareAnalysis,
+  BaselineConfidence,
+  FlareState,
+} from '@/utils/flareStateEngine';
 
 /**
  * Hook to get the current flare state analysis for the logged-in user.
@@ -14,8 +21,46 @@ export function useFlareState(): FlareAnalysis & { isLoading: boolean } {
   // Use effective check-ins which includes demo data when demo mode is active
   const effectiveCheckIns = useMemo(() => getEffectiveCheckIns(checkIns), [checkIns, getEffectiveCheckIns]);
   
+  // Transform check-ins to the format expected by the engine
+  const checkInData = useMemo(() => effectiveCheckIns.map(c => ({
+    id: c.id,
+    created_at: c.timestamp,
+    skinIntensity: c.skinIntensity,
+    skinFeeling: c.skinFeeling,
+    symptomsExperienced: c.symptomsExperienced?.map(s => ({
+      name: s.symptom,
+      severity: s.severity,
+    })),
+    pain_score: c.painScore,
+    sleep_score: c.sleepScore,
+    mood: c.mood,
+  })), [effectiveCheckIns]);
+
+  const useNative = useMemo(() => isNativeFlareEngineAvailable(), []);
+  const [nativeAnalysis, setNativeAnalysis] = useState<FlareAnalysis | null>(null);
+
+  // Android: run the analysis natively off the JS thread
+  useEffect(() => {
+    if (!useNative) return;
+    let cancelled = false;
+    analyzeFlareStateNative(checkInData)
+      .then(result => {
+        if (!cancelled) setNativeAnalysis(result);
+      })
+      .catch(error => {
+        console.error('[FlareState] Native analysis failed, using JS engine:', error);
+        if (!cancelled) setNativeAnalysis(analyzeFlareState(checkInData));
+      });
+    return () => {
+      cancelled = true;
+    };
+  }, [useNative, checkInData]);
+
   const analysis = useMemo(() => {
-    if (effectiveCheckIns.length === 0) {
+    if (useNative && nativeAnalysis) {
+      return nativeAnalysis;
+    }
+    if (useNative || checkInData.length === 0) {
       return {
         dailyBurdens: [],
         baselineBurdenScore: null,
@@ -29,23 +74,8 @@ export function useFlareState(): FlareAnalysis & { isLoading: boolean } {
       };
     }
     
-    // Transform check-ins to the format expected by the engine
-    const checkInData = effectiveCheckIns.map(c => ({
-      id: c.id,
-      created_at: c.timestamp,
-      skinIntensity: c.skinIntensity,
-      skinFeeling: c.skinFeeling,
-      symptomsExperienced: c.symptomsExperienced?.map(s => ({
-        name: s.symptom,
-        severity: s.severity,
-      })),
-      pain_score: c.painScore,
-      sleep_score: c.sleepScore,
-      mood: c.mood,
-    }));
-    
     return analyzeFlareState(checkInData);
-  }, [effectiveCheckIns]);
+  }, [useNative, nativeAnalysis, checkInData]);
   
   return {
     ...analysis,
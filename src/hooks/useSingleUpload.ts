@@ -1,9 +1,16 @@
 import { useState, useCallback } from 'react';
 import { supabase } from '@/integrations/supabase/client';
-import { processImageForUpload, getPublicUrl } from '@/utils/imageCompression';
+import {
+  processImageForUpload,
+  processImageNative,
+  releaseNativeImages,
+  isNativePickedImage,
+  getPublicUrl,
+  type PhotoSource,
+} from '@/utils/imageCompression';
 import { BodyPart } from '@/contexts/UserDataContext';
-import { prepareFileForUpload } from '@/utils/heicConverter';
-import { extractExifDate } from '@/utils/exifExtractor';
+import { extractExifDate, extractExifDatesFromUris } from '@/utils/exifExtractor';
+import { uploadNativePhoto } from '@/utils/uploadQueue';
 import { startOfDay, endOfDay } from 'date-fns';
 import { trackPhotoLogged } from '@/utils/analytics';
 
@@ -42,6 +49,8 @@ interface UseSingleUploadOptions {
 /**
  * Shared upload pipeline for single photo uploads.
  * Handles HEIC conversion, thumbnail/medium/original generation, and database insert.
+ * On Android, photos from pickImagesNative are processed natively and uploaded by the
+ * background queue (UploadQueue) instead.
  */
 export const useSingleUpload = (options: UseSingleUploadOptions = {}) => {
   const { onSuccess, onError, onLimitReached } = options;
@@ -74,14 +83,53 @@ export const useSingleUpload = (options: UseSingleUploadOptions = {}) => {
     return photosToday < FREE_DAILY_PHOTO_LIMIT;
   }, []);
 
+  // Decode natively, then let the WorkManager queue upload the files and insert the row
+  const uploadNative = useCallback(async (
+    uri: string,
+    userId: string,
+    bodyPart: BodyPart,
+    notes: string | null,
+    takenAt: string | null
+  ): Promise<UploadedPhoto> => {
+    setProgress(15);
+    const processed = await processImageNative(uri, userId);
+    setProgress(25);
+
+    try {
+      const result = await uploadNativePhoto(processed.photoId, bodyPart, takenAt, notes, (progress) => {
+        setProgress(25 + Math.round(progress * 0.75));
+      });
+      if (import.meta.env.DEV) {
+        console.log('[SingleUpload] Native upload', result.state, ':', processed.photoId);
+      }
+    } catch (error) {
+      // No-op once the queue has taken the files
+      releaseNativeImages(processed.photoId).catch(() => {});
+      throw error;
+    }
+
+    // The worker inserts the row with id = photoId; a queued or parked upload fills
+    // these URLs in once it runs. The original is best-effort, so refreshPhotos has it.
+    return {
+      id: processed.photoId,
+      thumbUrl: getPublicUrl(processed.thumbnail.path),
+      mediumUrl: getPublicUrl(processed.medium.path),
+      originalUrl: null,
+      bodyPart,
+      takenAt,
+      createdAt: new Date().toISOString(),
+      notes,
+    };
+  }, []);
+
   const processAndUploadFile = useCallback(async (
-    file: File,
+    file: PhotoSource,
     uploadOptions: UploadOptions
   ): Promise<UploadedPhoto | null> => {
     const { bodyPart, notes, takenAtOverride, skipLimitCheck, source = 'library' } = uploadOptions;
 
     // Always log upload attempts for debugging Android issues
-    console.log('[SingleUpload] Starting upload:', file.name, 'type:', file.type, 'size:', file.size);
+    console.log('[SingleUpload] Starting upload:', file.name, 'type:', isNativePickedImage(file) ? file.mimeType : file.type, 'size:', file.size);
 
     setIsUploading(true);
     setProgress(5);
@@ -122,7 +170,9 @@ export const useSingleUpload = (options: UseSingleUploadOptions = {}) => {
         if (import.meta.env.DEV) {
           console.log('[SingleUpload] Extracting EXIF date from original file...');
         }
-        takenAt = await extractExifDate(file);
+        takenAt = isNativePickedImage(file)
+          ? (await extractExifDatesFromUris([file.uri]))[0]?.date ?? null
+          : await extractExifDate(file);
         if (import.meta.env.DEV) {
           console.log('[SingleUpload] EXIF date extracted:', takenAt || 'not found');
           if (!takenAt) {
@@ -131,12 +181,23 @@ export const useSingleUpload = (options: UseSingleUploadOptions = {}) => {
         }
       }
 
+      if (isNativePickedImage(file)) {
+        const uploadedPhoto = await uploadNative(file.uri, user.id, bodyPart, notes || null, takenAt);
+        setProgress(100);
+        setIsUploading(false);
+        trackPhotoLogged(bodyPart, source);
+        onSuccess?.(uploadedPhoto);
+        return uploadedPhoto;
+      }
+
       // Convert HEIC to JPEG if needed, returns data URL
       console.log('[SingleUpload] Converting file to data URL (HEIC if needed)...');
       setProgress(15);
       
+      // Only reached for File sources (web, camera); the converter and heic2any load on demand
       let dataUrl: string;
       try {
+        const { prepareFileForUpload } = await import('@/utils/heicConverter');
         dataUrl = await prepareFileForUpload(file);
         console.log('[SingleUpload] File conversion successful, data URL length:', dataUrl.length);
       } catch (conversionError) {
@@ -271,7 +332,7 @@ export const useSingleUpload = (options: UseSingleUploadOptions = {}) => {
       onError?.(message);
       return null;
     }
-  }, [onSuccess, onError, onLimitReached, checkDailyLimit]);
+  }, [onSuccess, onError, onLimitReached, checkDailyLimit, uploadNative]);
 
   const reset = useCallback(() => {
     setIsUploading(false);
@@ -1,5 +1,8 @@
 import { useState, useEffect, useCallback, useRef, useMemo } from "react";
+import { Capacitor } from "@capacitor/core";
 import { supabase } from "@/integrations/supabase/client";
+import { isNativePickedImage, type PhotoSource } from "@/utils/imageCompression";
+import { prefetchThumbnails, cancelThumbnailPrefetch } from "@/utils/thumbnailCache";
 
 export type BodyPart =
   | "face"
@@ -48,6 +51,10 @@ interface PhotoRow {
 }
 
 const PAGE_SIZE = 40;
+// Thumbnails warmed natively past the last on-screen cell. Each window replaces the
+// previous one, so prefetches the user has scrolled past are cancelled.
+const PREFETCH_AHEAD = 24;
+const PREFETCH_PRIORITY = 10;
 
 interface UseVirtualizedPhotosOptions {
   userId: string | null;
@@ -70,6 +77,10 @@ export const useVirtualizedPhotos = ({
   const cursorRef = useRef<{ timestamp: string; id: string } | null>(null);
   const isLoadingMoreRef = useRef(false);
 
+  // Last reported on-screen range and the prefetch window sent for it
+  const visibleRangeRef = useRef({ first: 0, last: 0 });
+  const prefetchWindowRef = useRef("");
+
   /**
    * Transform DB rows to VirtualPhoto objects.
    * Uses stored public URLs directly - no signing needed for public bucket.
@@ -119,6 +130,7 @@ export const useVirtualizedPhotos = ({
     setIsLoading(true);
     setError(null);
     cursorRef.current = null;
+    visibleRangeRef.current = { first: 0, last: 0 };
 
     try {
       const isAscending = sortOrder === "oldest";
@@ -288,16 +300,18 @@ export const useVirtualizedPhotos = ({
    * Returns the temporary ID for later resolution.
    */
   const addOptimisticPhoto = useCallback((
-    file: File, 
+    file: PhotoSource, 
     bodyPart: BodyPart, 
     timestamp: string
   ): string => {
     const tempId = `optimistic-${Date.now()}-${Math.random().toString(36).slice(2)}`;
-    const objectUrl = URL.createObjectURL(file);
+    // Picked content:// URIs are served to the WebView by Capacitor; no blob to revoke
+    const objectUrl = isNativePickedImage(file) ? undefined : URL.createObjectURL(file);
+    const thumbnailUrl = isNativePickedImage(file) ? Capacitor.convertFileSrc(file.uri) : objectUrl!;
     
     const optimisticPhoto: VirtualPhoto = {
       id: tempId,
-      thumbnailUrl: objectUrl,
+      thumbnailUrl,
       bodyPart,
       takenAt: timestamp,
       uploadedAt: new Date().toISOString(),
@@ -368,10 +382,51 @@ export const useVirtualizedPhotos = ({
     return [...filteredOptimistic, ...photos];
   }, [optimisticPhotos, photos, bodyPartFilter]);
 
+  const allPhotosRef = useRef(allPhotos);
+
+  /**
+   * Warm the thumbnails from the first on-screen cell to PREFETCH_AHEAD past the last.
+   * replace=true cancels anything still queued outside this window.
+   */
+  const prefetchVisibleWindow = useCallback((list: VirtualPhoto[]) => {
+    const { first, last } = visibleRangeRef.current;
+    const urls = list
+      .slice(first, last + 1 + PREFETCH_AHEAD)
+      .filter((p) => !p.isOptimistic && p.thumbnailUrl)
+      .map((p) => p.thumbnailUrl);
+
+    // Range callbacks fire every frame while scrolling; skip unchanged windows
+    const key = `${urls.length}:${urls[0]}:${urls[urls.length - 1]}`;
+    if (urls.length === 0 || key === prefetchWindowRef.current) return;
+    prefetchWindowRef.current = key;
+
+    prefetchThumbnails(urls, PREFETCH_PRIORITY, true);
+  }, []);
+
+  /** Called by the grid with the on-screen cell indexes */
+  const setVisibleRange = useCallback((first: number, last: number) => {
+    visibleRangeRef.current = { first, last };
+    prefetchVisibleWindow(allPhotosRef.current);
+  }, [prefetchVisibleWindow]);
+
+  // New pages, filters and uploads shift what lies ahead of the visible cells
+  useEffect(() => {
+    allPhotosRef.current = allPhotos;
+    prefetchVisibleWindow(allPhotos);
+  }, [allPhotos, prefetchVisibleWindow]);
+
   useEffect(() => {
     loadPhotos();
   }, [loadPhotos]);
 
+  // Leaving the photo diary: nothing queued is going to be shown
+  useEffect(() => {
+    return () => {
+      prefetchWindowRef.current = "";
+      cancelThumbnailPrefetch();
+    };
+  }, []);
+
   return {
     photos: allPhotos,
     isLoading,
@@ -387,5 +442,6 @@ export const useVirtualizedPhotos = ({
     prefetchMediumUrls,
     totalCount: allPhotos.length,
     refresh: loadPhotos,
+    setVisibleRange,
   };
 };
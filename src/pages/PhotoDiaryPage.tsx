@@ -21,7 +21,13 @@ import { usePaymentRouter } from '@/hooks/usePaymentRouter';
 import { getTermsUrl, PRIVACY_POLICY_URL, type Platform } from '@/utils/platformLinks';
 import { useBatchUpload } from '@/hooks/useBatchUpload';
 import { useSingleUpload } from '@/hooks/useSingleUpload';
-import { extractExifDateWithSource } from '@/utils/exifExtractor';
+import { extractExifDateWithSource, extractExifDatesFromUris } from '@/utils/exifExtractor';
+import {
+  isNativePhotoProcessorAvailable,
+  isNativePickedImage,
+  pickImagesNative,
+  type PhotoSource,
+} from '@/utils/imageCompression';
 import { supabase } from '@/integrations/supabase/client';
 import { LeafIllustration, SparkleIllustration } from '@/components/illustrations';
 import { SparkleEffect } from '@/components/SparkleEffect';
@@ -359,7 +365,7 @@ const PhotoDiaryPage = () => {
   const scrollTimeoutRef = useRef<NodeJS.Timeout>();
   
   // Single photo preview state (for date confirmation)
-  const [pendingFile, setPendingFile] = useState<File | null>(null);
+  const [pendingFile, setPendingFile] = useState<PhotoSource | null>(null);
   const [detectedDate, setDetectedDate] = useState<Date | null>(null);
   const [selectedDate, setSelectedDate] = useState<Date>(new Date());
   const [isExifDate, setIsExifDate] = useState(false);
@@ -369,7 +375,7 @@ const PhotoDiaryPage = () => {
   
   // Batch upload state
   const [showBatchUpload, setShowBatchUpload] = useState(false);
-  const [batchFiles, setBatchFiles] = useState<File[]>([]);
+  const [batchFiles, setBatchFiles] = useState<PhotoSource[]>([]);
   
   const cameraInputRef = useRef<HTMLInputElement>(null);
   const galleryInputRef = useRef<HTMLInputElement>(null);
@@ -430,6 +436,7 @@ const PhotoDiaryPage = () => {
     fetchMediumUrl,
     prefetchMediumUrls,
     refresh,
+    setVisibleRange,
   } = useVirtualizedPhotos({
     userId,
     bodyPartFilter: selectedBodyPart,
@@ -558,9 +565,33 @@ const PhotoDiaryPage = () => {
       console.log('[PhotoDiary] Gallery file selected:', file.name, 'type:', file.type, 'size:', file.size);
     }
 
+    await selectGalleryPhoto(file);
+  };
+
+  // Android: the system photo picker returns content:// URIs, decoded by PhotoProcessor
+  const handleNativeGalleryPick = async () => {
+    try {
+      const [image] = await pickImagesNative(1);
+      if (!image) return;
+
+      if (import.meta.env.DEV) {
+        console.log('[PhotoDiary] Gallery photo picked:', image.name, 'type:', image.mimeType, 'size:', image.size);
+      }
+
+      await selectGalleryPhoto(image);
+    } catch (error) {
+      console.error('[PhotoDiary] Photo picker failed:', error);
+      toast.error('Could not open your photos. Please try again.');
+    }
+  };
+
+  const selectGalleryPhoto = async (file: PhotoSource) => {
     // Extract EXIF date for preview (timezone-less local date string)
-    // Use extractExifDateWithSource for detailed logging
-    const exifResult = await extractExifDateWithSource(file);
+    // Picked Android photos: the native Exif plugin reads only the metadata segment;
+    // web files: extractExifDateWithSource for detailed logging
+    const exifResult = isNativePickedImage(file)
+      ? (await extractExifDatesFromUris([file.uri]))[0]
+      : await extractExifDateWithSource(file);
     setDidUserAdjustDate(false);
 
     if (import.meta.env.DEV) {
@@ -703,7 +734,25 @@ const PhotoDiaryPage = () => {
     // Reset input after copying files to allow re-selecting same files
     e.target.value = '';
 
-    let filesToUpload: File[];
+    selectBatchPhotos(filesArray);
+  };
+
+  // Android: pick with the system photo picker so PhotoProcessor decodes natively
+  const handleNativeBatchPick = async () => {
+    try {
+      const images = await pickImagesNative();
+      // An empty result means the picker was dismissed
+      if (images.length > 0) {
+        selectBatchPhotos(images);
+      }
+    } catch (error) {
+      console.error('[BatchUpload] Photo picker failed:', error);
+      toast.error('Could not open your photos. Please try again.');
+    }
+  };
+
+  const selectBatchPhotos = (filesArray: PhotoSource[]) => {
+    let filesToUpload: PhotoSource[];
 
     // Check upload limits for free users
     if (!isPremium) {
@@ -1540,7 +1589,7 @@ const PhotoDiaryPage = () => {
                 <Button variant="default" className="h-11 gap-2" onClick={() => cameraInputRef.current?.click()} disabled={singleUpload.isUploading}>
                   <Camera className="w-5 h-5" />Take Photo
                 </Button>
-                <Button variant="outline" className="h-11 gap-2" onClick={() => galleryInputRef.current?.click()} disabled={singleUpload.isUploading}>
+                <Button variant="outline" className="h-11 gap-2" onClick={() => isNativePhotoProcessorAvailable() ? handleNativeGalleryPick() : galleryInputRef.current?.click()} disabled={singleUpload.isUploading}>
                   <ImagePlus className="w-5 h-5" />Gallery
                 </Button>
               </div>
@@ -1554,7 +1603,11 @@ const PhotoDiaryPage = () => {
                 )}
                 onClick={() => {
                   if (isPremium) {
-                    batchInputRef.current?.click();
+                    if (isNativePhotoProcessorAvailable()) {
+                      handleNativeBatchPick();
+                    } else {
+                      batchInputRef.current?.click();
+                    }
                   } else {
                     setShowUpgradePrompt(true);
                   }
@@ -1618,6 +1671,7 @@ const PhotoDiaryPage = () => {
           onLoadMore={loadMore}
           hasMore={hasMore}
           bodyParts={bodyParts}
+          onVisibleRangeChange={setVisibleRange}
         />
       )}
 
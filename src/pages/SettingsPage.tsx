@@ -16,7 +16,7 @@ import { useAppUpdate } from '@/hooks/useAppUpdate';
 import { useCheckInReminder } from '@/hooks/useCheckInReminder';
 import { useLocalNotifications } from '@/hooks/useLocalNotifications';
 import { useHapticFeedback } from '@/hooks/useHapticFeedback';
-import { scheduleCheckInReminders } from '@/utils/notificationScheduler';
+import { scheduleCheckInReminders, getNativeReminderState, setNativeAdaptiveTiming } from '@/utils/notificationScheduler';
 import { scheduleTestBeliefNotification } from '@/utils/beliefNotificationScheduler';
 import { format } from 'date-fns';
 
@@ -40,6 +40,30 @@ const SettingsPage = () => {
     userId,
   });
 
+  // On Android the alarm's actual trigger time comes from the native scheduler
+  const [nativeNextReminder, setNativeNextReminder] = useState<Date | null>(null);
+  const [adaptiveTiming, setAdaptiveTiming] = useState<boolean | null>(null);
+  const refreshNativeReminderState = useCallback(async () => {
+    const state = await getNativeReminderState();
+    setNativeNextReminder(state && state.nextTriggerAt > 0 ? new Date(state.nextTriggerAt) : null);
+    setAdaptiveTiming(state ? state.adaptive : null);
+  }, []);
+  useEffect(() => {
+    refreshNativeReminderState().catch((error) => console.error('Failed to read native reminder state:', error));
+  }, [reminderSettings, refreshNativeReminderState]);
+  const displayedNextReminder = nativeNextReminder ?? nextReminderTime;
+
+  const handleToggleAdaptiveTiming = async (enabled: boolean) => {
+    selectionChanged();
+    try {
+      await setNativeAdaptiveTiming(enabled);
+      await refreshNativeReminderState();
+    } catch (error) {
+      console.error('Failed to set adaptive timing:', error);
+      toast.error('Failed to update reminder timing');
+    }
+  };
+
   const handleCheckForUpdates = async () => {
     const hasUpdate = await checkForUpdate(true);
     if (hasUpdate) {
@@ -270,11 +294,24 @@ const SettingsPage = () => {
               />
             </div>
             
-            {nextReminderTime && (
+            {adaptiveTiming !== null && (
+              <div className="flex items-center justify-between">
+                <div className="flex items-center gap-2">
+                  <Sparkles className="w-4 h-4 text-muted-foreground" />
+                  <span className="text-sm">Remind me when I usually check in</span>
+                </div>
+                <Switch
+                  checked={adaptiveTiming}
+                  onCheckedChange={handleToggleAdaptiveTiming}
+                />
+              </div>
+            )}
+
+            {displayedNextReminder && (
               <div className="flex items-center gap-2 p-2 bg-primary/5 rounded-lg">
                 <CalendarClock className="w-4 h-4 text-primary" />
                 <span className="text-sm text-foreground">
-                  Next reminder: <span className="font-medium">{format(nextReminderTime, 'EEE, MMM d \'at\' h:mm a')}</span>
+                  Next reminder: <span className="font-medium">{format(displayedNextReminder, 'EEE, MMM d \'at\' h:mm a')}</span>
                 </span>
               </div>
             )}
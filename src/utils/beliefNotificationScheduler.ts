@@ -1,10 +1,14 @@
 import { Capacitor } from '@capacitor/core';
 import { LocalNotifications, Channel } from '@capacitor/local-notifications';
 import { getBeliefMessageAvoidingRecent } from '@/constants/beliefMessages';
+import { isReminderPluginAvailable, removeNativeReminder, setNativeReminder } from '@/utils/notificationScheduler';
 
 // Notification ID for belief reinforcement (different from check-in reminders)
 export const BELIEF_NOTIFICATION_ID = 2;
 
+// Native reminder id (Android), sharing the check-in reminder's alarm
+const NATIVE_REMINDER_ID = 'belief';
+
 // Android notification channel - separate from check-in reminders
 const ANDROID_CHANNEL_ID = 'tsw_beliefs';
 
@@ -164,6 +168,9 @@ export async function scheduleNextBeliefNotification(): Promise<boolean> {
   }
 
   if (!settings.enabled) {
+    if (isReminderPluginAvailable()) {
+      await removeNativeReminder(NATIVE_REMINDER_ID).catch(() => undefined);
+    }
     console.log('[BELIEF NOTIFICATIONS] Disabled, not scheduling');
     return true;
   }
@@ -175,6 +182,32 @@ export async function scheduleNextBeliefNotification(): Promise<boolean> {
     return false;
   }
 
+  // Android: repeat natively from tomorrow at a random time in the window. Reopening the
+  // app calls this again, which moves it past today and rotates the message.
+  if (isReminderPluginAvailable()) {
+    const { message } = getNextMessage();
+    try {
+      const nextAt = await setNativeReminder(
+        {
+          id: NATIVE_REMINDER_ID,
+          kind: 'belief',
+          hour: settings.windowStart,
+          minute: 0,
+          windowMinutes: Math.max(1, settings.windowEnd - settings.windowStart) * 60,
+          title: 'TrackTSW',
+          body: message,
+        },
+        { skipToday: true }
+      );
+      console.log(`[BELIEF NOTIFICATIONS] Scheduled natively for ${new Date(nextAt).toLocaleString()}: "${message}"`);
+      localStorage.setItem(STORAGE_KEY_LAST_SHOWN_DATE, new Date().toDateString());
+      return true;
+    } catch (error) {
+      console.error('[BELIEF NOTIFICATIONS] Error scheduling natively:', error);
+      return false;
+    }
+  }
+
   // Ensure Android channel exists
   await ensureAndroidChannel();
 
@@ -285,6 +318,9 @@ export async function cancelBeliefNotifications(): Promise<boolean> {
 
   try {
     await LocalNotifications.cancel({ notifications: [{ id: BELIEF_NOTIFICATION_ID }] });
+    if (isReminderPluginAvailable()) {
+      await removeNativeReminder(NATIVE_REMINDER_ID);
+    }
     console.log('[BELIEF NOTIFICATIONS] Cancelled');
     return true;
   } catch (error) {
@@ -10,6 +10,7 @@
  */
 
 import exifr from 'exifr';
+import { Capacitor, registerPlugin } from '@capacitor/core';
 
 export type ExifSource = 'exif' | 'user' | 'missing';
 
@@ -22,6 +23,33 @@ export interface ExifResult {
   rawValue?: string | Date;
 }
 
+// Android-only native reader: metadata segment only, batched in one bridge call
+interface ExifPluginInterface {
+  extractDates(options: { uris: string[] }): Promise<{
+    results: Array<{ uri: string; date: string | null; source: ExifSource }>;
+  }>;
+}
+
+const ExifNative = registerPlugin<ExifPluginInterface>('Exif');
+
+export const isNativeExifAvailable = (): boolean => {
+  try {
+    return Capacitor.isNativePlatform() && Capacitor.getPlatform() === 'android' && Capacitor.isPluginAvailable('Exif');
+  } catch {
+    return false;
+  }
+};
+
+/**
+ * Extract dates for many file:// or content:// URIs at once (Android only).
+ * Results are in the same order as the input.
+ */
+export const extractExifDatesFromUris = async (uris: string[]): Promise<ExifResult[]> => {
+  if (uris.length === 0) return [];
+  const { results } = await ExifNative.extractDates({ uris });
+  return results.map(r => ({ date: r.date, source: r.source }));
+};
+
 /**
  * Extract EXIF date from an image file.
  * Returns { date, source } so callers know provenance.
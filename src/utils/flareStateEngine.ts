@@ -9,6 +9,8 @@
  * - Skin severity: GREEN (good) → YELLOW → ORANGE → RED (worst)
  */
 
+import { Capacitor, registerPlugin } from '@capacitor/core';
+
 export type FlareState = 
   | 'stable'         // GREEN or YELLOW, no sustained worsening
   | 'stable_severe'  // RED skin, no change for ≥5-7 days
@@ -562,6 +564,59 @@ export function analyzeFlareState(checkIns: CheckInData[]): FlareAnalysis {
   };
 }
 
+// Android-only native engine (FlareStatePlugin) - incremental, O(1) per day
+interface FlareStatePluginInterface {
+  analyze(options: { checkIns: Array<{ created_at: string; skinFeeling: number }> }): Promise<{
+    baselineConfidence: BaselineConfidence;
+    dailyFlareStates: DailyFlareState[];
+    flareEpisodes: FlareEpisode[];
+    currentState: FlareState;
+    isInActiveFlare: boolean;
+    currentFlareDuration: number | null;
+  }>;
+}
+
+const FlareStatePlugin = registerPlugin<FlareStatePluginInterface>('FlareState');
+
+export function isNativeFlareEngineAvailable(): boolean {
+  try {
+    return Capacitor.isNativePlatform() && Capacitor.getPlatform() === 'android' && Capacitor.isPluginAvailable('FlareState');
+  } catch {
+    return false;
+  }
+}
+
+/**
+ * Same result as analyzeFlareState, with the daily state loop run natively.
+ * Burden/baseline fields are cheap (single pass) and still computed here.
+ */
+export async function analyzeFlareStateNative(checkIns: CheckInData[]): Promise<FlareAnalysis> {
+  if (checkIns.length === 0) {
+    return createEmptyAnalysis();
+  }
+
+  const result = await FlareStatePlugin.analyze({
+    checkIns: checkIns.map(c => ({ created_at: c.created_at, skinFeeling: c.skinFeeling })),
+  });
+
+  const dailyBurdens = calculateDailyBurdens(checkIns);
+  const baselineBurdenScore = dailyBurdens.length >= 7
+    ? dailyBurdens.slice(-7).reduce((s, b) => s + b.score, 0) / Math.min(7, dailyBurdens.length)
+    : null;
+
+  return {
+    dailyBurdens,
+    baselineBurdenScore,
+    baselineConfidence: result.baselineConfidence,
+    flareThreshold: baselineBurdenScore !== null ? baselineBurdenScore + 0.5 : null,
+    flareEpisodes: result.flareEpisodes,
+    dailyFlareStates: result.dailyFlareStates,
+    currentState: result.currentState,
+    isInActiveFlare: result.isInActiveFlare,
+    currentFlareDuration: result.currentFlareDuration,
+  };
+}
+
 function createEmptyAnalysis(): FlareAnalysis {
   return {
     dailyBurdens: [],
@@ -1,4 +1,11 @@
-import heic2any from 'heic2any';
+/**
+ * HEIC/HEIF handling for the web build.
+ *
+ * On Android, photos picked via PhotoProcessor.pickImages are decoded natively by
+ * ImageDecoder (hardware HEVC) inside the derivative pipeline. The upload hooks import
+ * this module on demand for File sources only, and heic2any below is loaded lazily, so
+ * neither is fetched for photos the native pipeline decodes.
+ */
 
 /**
  * Convert blob to data URL
@@ -55,6 +62,7 @@ export const convertHeicToJpeg = async (
   console.log('[HEIC] Converting:', file.name, 'type:', file.type, 'size:', file.size);
 
   try {
+    const { default: heic2any } = await import('heic2any');
     const result = await heic2any({
       blob: file,
       toType: 'image/jpeg',
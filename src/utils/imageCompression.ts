@@ -1,3 +1,5 @@
+import { Capacitor, registerPlugin } from '@capacitor/core';
+
 /**
  * Check if browser supports WebP encoding
  */
@@ -131,6 +133,91 @@ export const processImageForUpload = async (
   };
 };
 
+// Android-only native derivative pipeline: decodes once, returns file paths (no base64)
+interface PhotoProcessorPluginInterface {
+  process(options: { uri: string; photoId?: string }): Promise<{
+    photoId: string;
+    thumbPath: string;
+    mediumPath: string;
+    originalPath: string;
+    width: number;
+    height: number;
+    sourceFormat: 'jpeg' | 'heif' | 'other';
+  }>;
+  release(options: { photoId: string }): Promise<void>;
+  pickImages(options: { limit?: number }): Promise<{ images: NativePickedImage[] }>;
+}
+
+export interface NativePickedImage {
+  uri: string;
+  name?: string;
+  mimeType?: string;
+  size?: number;
+}
+
+/** A photo picked for upload: a File on web, a content:// URI from pickImagesNative on Android */
+export type PhotoSource = File | NativePickedImage;
+
+export const isNativePickedImage = (source: PhotoSource): source is NativePickedImage =>
+  !(source instanceof File);
+
+const PhotoProcessor = registerPlugin<PhotoProcessorPluginInterface>('PhotoProcessor');
+
+export interface NativeProcessedImages {
+  photoId: string;
+  original: { filePath: string; path: string };
+  medium: { filePath: string; path: string };
+  thumbnail: { filePath: string; path: string };
+}
+
+export const isNativePhotoProcessorAvailable = (): boolean => {
+  try {
+    return Capacitor.isNativePlatform() && Capacitor.getPlatform() === 'android' && Capacitor.isPluginAvailable('PhotoProcessor');
+  } catch {
+    return false;
+  }
+};
+
+/**
+ * Native equivalent of processImageForUpload for a file:// or content:// URI.
+ * Derivatives are written to the app cache; call releaseNativeImages once uploaded.
+ */
+export const processImageNative = async (
+  uri: string,
+  userId: string
+): Promise<NativeProcessedImages> => {
+  const result = await PhotoProcessor.process({ uri, photoId: generatePhotoId() });
+  
+  return {
+    photoId: result.photoId,
+    original: {
+      filePath: result.originalPath,
+      path: `${userId}/${result.photoId}/original.jpg`,
+    },
+    medium: {
+      filePath: result.mediumPath,
+      path: `${userId}/${result.photoId}/medium.webp`,
+    },
+    thumbnail: {
+      filePath: result.thumbPath,
+      path: `${userId}/${result.photoId}/thumb.webp`,
+    },
+  };
+};
+
+export const releaseNativeImages = async (photoId: string): Promise<void> => {
+  await PhotoProcessor.release({ photoId });
+};
+
+/**
+ * Open the system photo picker (Android). Returns content:// URIs, so HEIC files are
+ * never read into the WebView and are decoded natively by processImageNative.
+ */
+export const pickImagesNative = async (limit: number = 20): Promise<NativePickedImage[]> => {
+  const { images } = await PhotoProcessor.pickImages({ limit });
+  return images;
+};
+
 /**
  * Convert a data URL to a Blob
  */
@@ -0,0 +1,88 @@
+/**
+ * Native local store (Android): an indexed SQLite mirror of the user's check-ins,
+ * photos and journal entries, so screens can render before the network responds.
+ *
+ * Rows are stored and returned in the same snake_case shape as select('*').
+ */
+
+import { Capacitor, registerPlugin } from '@capacitor/core';
+
+export type LocalTable = 'user_check_ins' | 'user_photos' | 'user_journal_entries';
+
+// eslint-disable-next-line @typescript-eslint/no-explicit-any
+export type LocalRow = Record<string, any>;
+
+export interface LocalQueryOptions {
+  /** Inclusive lower bound (ISO timestamp or YYYY-MM-DD) */
+  from?: string;
+  /** Exclusive upper bound (ISO timestamp or YYYY-MM-DD) */
+  to?: string;
+  order?: 'asc' | 'desc';
+  limit?: number;
+}
+
+interface LocalStorePluginInterface {
+  query(options: { table: LocalTable; userId: string } & LocalQueryOptions): Promise<{ rows: LocalRow[] }>;
+  upsert(options: { table: LocalTable; rows: LocalRow[] }): Promise<{ written: number }>;
+  replaceAll(options: { table: LocalTable; userId: string; rows: LocalRow[] }): Promise<{ written: number }>;
+  remove(options: { table: LocalTable; ids: string[] }): Promise<void>;
+  getSettings(options: { userId: string }): Promise<{ settings: LocalRow | null }>;
+  putSettings(options: { userId: string; settings: LocalRow }): Promise<void>;
+  clear(options: { userId: string }): Promise<void>;
+}
+
+const LocalStore = registerPlugin<LocalStorePluginInterface>('LocalStore');
+
+export const isNativeLocalStoreAvailable = (): boolean => {
+  try {
+    return Capacitor.isNativePlatform() && Capacitor.getPlatform() === 'android' && Capacitor.isPluginAvailable('LocalStore');
+  } catch {
+    return false;
+  }
+};
+
+/**
+ * Rows for a user, filed by check-in day (created_at), photo date (taken_at) or
+ * journal date (created_at). Newest first unless order is 'asc'.
+ */
+export const queryLocalRows = async (
+  table: LocalTable,
+  userId: string,
+  options: LocalQueryOptions = {}
+): Promise<LocalRow[]> => {
+  const { rows } = await LocalStore.query({ table, userId, ...options });
+  return rows;
+};
+
+export const upsertLocalRows = async (table: LocalTable, rows: LocalRow[]): Promise<void> => {
+  if (!isNativeLocalStoreAvailable() || rows.length === 0) return;
+  await LocalStore.upsert({ table, rows });
+};
+
+/**
+ * Replace the user's local rows with a full server snapshot.
+ */
+export const replaceLocalRows = async (table: LocalTable, userId: string, rows: LocalRow[]): Promise<void> => {
+  if (!isNativeLocalStoreAvailable()) return;
+  await LocalStore.replaceAll({ table, userId, rows: rows.map((row) => ({ user_id: userId, ...row })) });
+};
+
+export const removeLocalRows = async (table: LocalTable, ids: string[]): Promise<void> => {
+  if (!isNativeLocalStoreAvailable() || ids.length === 0) return;
+  await LocalStore.remove({ table, ids });
+};
+
+export const getLocalSettings = async (userId: string): Promise<LocalRow | null> => {
+  const { settings } = await LocalStore.getSettings({ userId });
+  return settings;
+};
+
+export const putLocalSettings = async (userId: string, settings: LocalRow): Promise<void> => {
+  if (!isNativeLocalStoreAvailable()) return;
+  await LocalStore.putSettings({ userId, settings });
+};
+
+export const clearLocalStore = async (userId: string): Promise<void> => {
+  if (!isNativeLocalStoreAvailable()) return;
+  await LocalStore.clear({ userId });
+};
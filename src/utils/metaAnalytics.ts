@@ -12,7 +12,7 @@
  * The StartTrial and Subscribe events here supplement that for Meta Ads attribution.
  */
 
-import { Capacitor } from '@capacitor/core';
+import { Capacitor, registerPlugin } from '@capacitor/core';
 
 // Storage keys to prevent duplicate events
 const ONBOARDING_EVENT_SENT_KEY = 'meta_onboarding_complete_sent';
@@ -26,17 +26,101 @@ function isNativePlatform(): boolean {
   return Capacitor.isNativePlatform();
 }
 
+interface MetaAnalyticsEvent {
+  eventName: string;
+  parameters: Record<string, string | number>;
+}
+
+// Payloads cross the bridge as JSON strings: the native side queues them as they are
+// and parses them on its logger thread, not on the bridge thread
+interface MetaAnalyticsPluginInterface {
+  logEvent(options: { eventName: string; parameters?: string }): Promise<void>;
+  logEvents(options: { events: string; count: number }): Promise<void>;
+  getStats(): Promise<MetaAnalyticsStats>;
+}
+
+const MetaAnalytics = registerPlugin<MetaAnalyticsPluginInterface>('MetaAnalytics');
+
+function isMetaAnalyticsPluginAvailable(): boolean {
+  try {
+    return Capacitor.getPlatform() === 'android' && Capacitor.isPluginAvailable('MetaAnalytics');
+  } catch {
+    return false;
+  }
+}
+
+// Android events wait this long so bursts cross the bridge as one logEvents call
+const ANDROID_FLUSH_DELAY_MS = 3000;
+// The native logEvents rejects larger arrays (MAX_EVENTS_PER_CALL)
+const ANDROID_MAX_EVENTS_PER_CALL = 64;
+
+let pendingAndroidEvents: MetaAnalyticsEvent[] = [];
+let androidFlushTimer: ReturnType<typeof setTimeout> | null = null;
+
+/**
+ * Send everything pending. Resolves once the native queue has all of it, rejects if a
+ * call failed.
+ */
+function flushAndroidEvents(): Promise<void> {
+  if (androidFlushTimer !== null) {
+    clearTimeout(androidFlushTimer);
+    androidFlushTimer = null;
+  }
+  if (pendingAndroidEvents.length === 0) return Promise.resolve();
+
+  const events = pendingAndroidEvents;
+  pendingAndroidEvents = [];
+  if (!isMetaAnalyticsPluginAvailable()) return Promise.resolve();
+  // The native side buffers events until the Meta SDK is ready
+  const calls: Promise<void>[] = [];
+  for (let i = 0; i < events.length; i += ANDROID_MAX_EVENTS_PER_CALL) {
+    const batch = events.slice(i, i + ANDROID_MAX_EVENTS_PER_CALL);
+    calls.push(MetaAnalytics.logEvents({ events: JSON.stringify(batch), count: batch.length }));
+  }
+  return Promise.all(calls).then(() => undefined);
+}
+
+function flushAndroidEventsInBackground(): void {
+  flushAndroidEvents().catch((error) => {
+    console.error('[Meta] Failed to send events:', error);
+  });
+}
+
+function queueAndroidEvent(eventName: string, parameters?: Record<string, string | number>): void {
+  pendingAndroidEvents.push({ eventName, parameters: parameters || {} });
+  if (pendingAndroidEvents.length >= ANDROID_MAX_EVENTS_PER_CALL) {
+    flushAndroidEventsInBackground();
+  } else if (androidFlushTimer === null) {
+    androidFlushTimer = setTimeout(flushAndroidEventsInBackground, ANDROID_FLUSH_DELAY_MS);
+  }
+}
+
+if (typeof document !== 'undefined') {
+  // Don't hold events while the app goes to the background and may be killed
+  document.addEventListener('visibilitychange', () => {
+    if (document.visibilityState === 'hidden') flushAndroidEventsInBackground();
+  });
+}
+
 /**
  * Log an event to Meta (Facebook) via native SDK.
  * On web, this is a no-op since Meta SDK is only on native.
+ *
+ * Resolves once the event has left JS; on Android with flush unset that is when it is
+ * batched, with flush set when the native queue has it.
  */
-function logMetaEvent(eventName: string, parameters?: Record<string, string | number>): void {
+function logMetaEvent(
+  eventName: string,
+  parameters?: Record<string, string | number>,
+  options: { flush?: boolean } = {}
+): Promise<void> {
   if (!isNativePlatform()) {
     console.log(`[Meta] Skipping event (web): ${eventName}`, parameters);
-    return;
+    return Promise.resolve();
   }
 
   try {
+    let sent = Promise.resolve();
     // Use the native bridge to call the Facebook SDK
     // The native code in AppDelegate.swift / MainActivity.java handles this
     if (Capacitor.getPlatform() === 'ios') {
@@ -47,16 +131,72 @@ function logMetaEvent(eventName: string, parameters?: Record<string, string | nu
         parameters: parameters || {},
       });
     } else if (Capacitor.getPlatform() === 'android') {
-      // Android: Use the Android bridge
-      (window as any).MetaAnalytics?.logEvent(eventName, JSON.stringify(parameters || {}));
+      // Android: batched, one bridge call per flush
+      queueAndroidEvent(eventName, parameters);
+      if (options.flush) sent = flushAndroidEvents();
     }
     
     console.log(`[Meta] Event logged: ${eventName}`, parameters);
+    return sent;
   } catch (error) {
     console.error(`[Meta] Failed to log event ${eventName}:`, error);
+    return Promise.reject(error);
   }
 }
 
+// Once-only events currently being sent, so a repeat call doesn't send them twice
+const onceEventsInFlight = new Set<string>();
+
+/**
+ * Send an attribution event that must go out once. It is flushed right away and marked
+ * sent (under sentKey) only after the native side has it, so a crash or reload in
+ * between means it is sent again next time rather than never.
+ */
+function logMetaEventOnce(sentKey: string, eventName: string, parameters?: Record<string, string | number>): void {
+  if (onceEventsInFlight.has(sentKey)) return;
+  onceEventsInFlight.add(sentKey);
+
+  logMetaEvent(eventName, parameters, { flush: true })
+    .then(() => {
+      localStorage.setItem(sentKey, 'true');
+    })
+    .catch((error) => {
+      console.error(`[Meta] ${eventName} not sent, will retry next time:`, error);
+    })
+    .finally(() => {
+      onceEventsInFlight.delete(sentKey);
+    });
+}
+
+/** Counted in events; latencies per native logEvent or logEvents call */
+export interface MetaAnalyticsStats {
+  /** Events waiting for the native logger thread */
+  depth: number;
+  capacity: number;
+  enqueued: number;
+  /** Events dropped because the queue was full */
+  dropped: number;
+  delivered: number;
+  /** Time from the call to the native sinks, microseconds */
+  p50LatencyUs: number;
+  p95LatencyUs: number;
+  maxLatencyUs: number;
+  /** Bytes journaled on disk that haven't reached the SDK yet */
+  journalBytes: number;
+  /** Events or flushes a native sink (Meta SDK, debug log file) failed on */
+  sinkFailures: number;
+  /** Meta SDK initialized; until then events are held natively */
+  ready: boolean;
+}
+
+/**
+ * Native event queue statistics (Android only), or null when the plugin isn't there.
+ */
+export async function getMetaAnalyticsStats(): Promise<MetaAnalyticsStats | null> {
+  if (!isMetaAnalyticsPluginAvailable()) return null;
+  return MetaAnalytics.getStats();
+}
+
 /**
  * Track onboarding completion.
  * Called once after successful signup - uses localStorage to prevent duplicates.
@@ -68,10 +208,7 @@ export function trackMetaOnboardingComplete(): void {
     return;
   }
 
-  logMetaEvent('onboarding_complete');
-  
-  // Mark as sent to prevent future duplicates
-  localStorage.setItem(ONBOARDING_EVENT_SENT_KEY, 'true');
+  logMetaEventOnce(ONBOARDING_EVENT_SENT_KEY, 'onboarding_complete');
 }
 
 /**
@@ -79,7 +216,9 @@ export function trackMetaOnboardingComplete(): void {
  * Called after a successful symptom check-in is saved to the database.
  */
 export function trackMetaCheckInCompleted(): void {
-  logMetaEvent('checkin_completed');
+  logMetaEvent('checkin_completed').catch(() => {
+    // Already logged; check-ins aren't retried
+  });
 }
 
 /**
@@ -98,10 +237,7 @@ export function trackMetaStartTrial(userId: string): void {
     return;
   }
 
-  logMetaEvent('StartTrial');
-  
-  // Mark as sent for this user
-  localStorage.setItem(key, 'true');
+  logMetaEventOnce(key, 'StartTrial');
 }
 
 /**
@@ -130,8 +266,5 @@ export function trackMetaSubscribe(userId: string, value?: number, currency?: st
     params.currency = currency;
   }
 
-  logMetaEvent('Subscribe', Object.keys(params).length > 0 ? params : undefined);
-  
-  // Mark as sent for this user
-  localStorage.setItem(key, 'true');
+  logMetaEventOnce(key, 'Subscribe', Object.keys(params).length > 0 ? params : undefined);
 }
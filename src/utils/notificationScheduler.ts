@@ -7,17 +7,86 @@ export const DAILY_NOTIFICATION_ID = 1;
 // Android notification channel ID - must match what we create
 const ANDROID_CHANNEL_ID = 'tsw_reminders';
 
+export type NativeReminderKind = 'check_in' | 'belief' | 'custom';
+
+export interface NativeReminder {
+  id: string;
+  kind: NativeReminderKind;
+  hour: number;
+  minute: number;
+  /** Fire at a random time in [hour:minute, hour:minute + windowMinutes) each day */
+  windowMinutes?: number;
+  title: string;
+  body: string;
+  route?: string;
+}
+
+export interface ReminderBackendStats {
+  count: number;
+  p50DelayMs: number;
+  p95DelayMs: number;
+  missedDays: number;
+}
+
+export interface ReminderDeliveryStats {
+  /** Alarms in the log (last 256) */
+  count: number;
+  p50DelayMs: number;
+  p95DelayMs: number;
+  maxDelayMs: number;
+  /** Share of reminders not armed as exact alarms because they weren't allowed, 0..1 */
+  fallbackShare: number;
+  missedDays: number;
+  exactAlarmsAllowed: boolean;
+  /** Time from the last boot until the alarm was re-armed, -1 if not recorded yet */
+  bootArmLatencyMs: number;
+  /** Re-armed on LOCKED_BOOT_COMPLETED, before the user unlocked */
+  bootArmedBeforeUnlock: boolean;
+  /** Backend the next reminder is armed with */
+  backend: 'exact' | 'work_manager';
+  /** Observed delay per backend; 'inexact' is the alarm fallback older versions used */
+  backends: Partial<Record<'exact' | 'inexact' | 'work_manager', ReminderBackendStats>>;
+}
+
+export interface NativeReminderState {
+  /** Daily check-in reminder is scheduled */
+  enabled: boolean;
+  hasTime: boolean;
+  /** The user's check-in reminder time */
+  hour?: number;
+  minute?: number;
+  /** Check-in reminder follows the learned check-in time */
+  adaptive: boolean;
+  /** Learned reminder time as minutes after midnight, -1 until there is a clear habit */
+  learnedMinute: number;
+  /** Next check-in reminder (epoch ms), 0 if none */
+  nextTriggerAt: number;
+  /** When the shared alarm fires next for any reminder (epoch ms), 0 if none */
+  nextAlarmAt: number;
+  reminderCount: number;
+  exactAlarmsAllowed: boolean;
+}
+
 // Register Android-only ReminderPlugin for WorkManager-based scheduling
 interface ReminderPluginInterface {
   scheduleReminder(options: { hour: number; minute: number }): Promise<{ success: boolean }>;
   cancelReminder(): Promise<{ success: boolean }>;
   isReminderEnabled(): Promise<{ enabled: boolean }>;
   getReminderTime(): Promise<{ hasTime: boolean; hour?: number; minute?: number }>;
+  setReminder(options: NativeReminder & { skipToday?: boolean }): Promise<{ id: string; nextAt: number }>;
+  removeReminder(options: { id: string }): Promise<void>;
+  getReminders(): Promise<{ reminders: (NativeReminder & { nextAt: number })[] }>;
+  recordCheckIn(options: { date: string; slot: 'morning' | 'evening'; minuteOfDay?: number }): Promise<void>;
+  clearUserState(): Promise<void>;
+  setAdaptiveTiming(options: { enabled: boolean }): Promise<void>;
+  getSuppressionStats(): Promise<{ delivered: number; suppressed: number }>;
+  getDeliveryStats(): Promise<ReminderDeliveryStats>;
+  getState(): Promise<NativeReminderState>;
 }
 
 const ReminderPlugin = registerPlugin<ReminderPluginInterface>('ReminderPlugin');
 
-function isReminderPluginAvailable(): boolean {
+export function isReminderPluginAvailable(): boolean {
   try {
     return Capacitor.isNativePlatform() && Capacitor.getPlatform() === 'android' && Capacitor.isPluginAvailable('ReminderPlugin');
   } catch {
@@ -25,6 +94,78 @@ function isReminderPluginAvailable(): boolean {
   }
 }
 
+/**
+ * Add or replace a native daily reminder (Android). All native reminders share one
+ * alarm; reminders due close together are delivered from the same wakeup.
+ */
+export async function setNativeReminder(
+  reminder: NativeReminder,
+  options: { skipToday?: boolean } = {}
+): Promise<number> {
+  const { nextAt } = await ReminderPlugin.setReminder({ ...reminder, ...options });
+  return nextAt;
+}
+
+export async function removeNativeReminder(id: string): Promise<void> {
+  await ReminderPlugin.removeReminder({ id });
+}
+
+/**
+ * Tell the native reminder that the user checked in on this local date (YYYY-MM-DD),
+ * so the alarm skips today's check-in notification without starting the app.
+ * Pass loggedAt for a check-in made just now so adaptive timing can learn from it.
+ */
+export async function recordNativeCheckIn(date: string, slot: 'morning' | 'evening', loggedAt?: Date): Promise<void> {
+  if (!isReminderPluginAvailable()) return;
+  try {
+    const minuteOfDay = loggedAt ? loggedAt.getHours() * 60 + loggedAt.getMinutes() : undefined;
+    await ReminderPlugin.recordCheckIn({ date, slot, minuteOfDay });
+  } catch (error) {
+    console.error('[NOTIFICATIONS] Error recording check-in:', error);
+  }
+}
+
+/**
+ * Forget the signed-out user's check-ins and learned check-in time (Android), so the
+ * next user's reminders aren't skipped or moved because of them.
+ */
+export async function clearNativeReminderUserState(): Promise<void> {
+  if (!isReminderPluginAvailable()) return;
+  try {
+    await ReminderPlugin.clearUserState();
+  } catch (error) {
+    console.error('[NOTIFICATIONS] Error clearing reminder state:', error);
+  }
+}
+
+/** Reminders shown vs. skipped because the user had already checked in (Android). */
+export async function getReminderSuppressionStats(): Promise<{ delivered: number; suppressed: number } | null> {
+  if (!isReminderPluginAvailable()) return null;
+  return ReminderPlugin.getSuppressionStats();
+}
+
+/** How late reminder alarms actually fire (Android). */
+export async function getReminderDeliveryStats(): Promise<ReminderDeliveryStats | null> {
+  if (!isReminderPluginAvailable()) return null;
+  return ReminderPlugin.getDeliveryStats();
+}
+
+/**
+ * Move the check-in reminder to the user's usual check-in time once one is learned (Android).
+ */
+export async function setNativeAdaptiveTiming(enabled: boolean): Promise<void> {
+  if (!isReminderPluginAvailable()) return;
+  await ReminderPlugin.setAdaptiveTiming({ enabled });
+}
+
+/**
+ * Native reminder state in a single bridge call (Android only).
+ */
+export async function getNativeReminderState(): Promise<NativeReminderState | null> {
+  if (!isReminderPluginAvailable()) return null;
+  return ReminderPlugin.getState();
+}
+
 // Parse time string "HH:MM" to hours and minutes
 function parseTime(timeStr: string): { hour: number; minute: number } {
   const [hourStr, minuteStr] = timeStr.split(':');
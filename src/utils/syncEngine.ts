@@ -0,0 +1,67 @@
+/**
+ * Native delta sync (Android): pulls only rows changed since the last sync into the
+ * local store and pushes queued mutations from a durable outbox, retrying in the
+ * background (WorkManager) when offline.
+ *
+ * Requires the native session from setNativeUploadSession.
+ */
+
+import { Capacitor, registerPlugin } from '@capacitor/core';
+import type { LocalRow, LocalTable } from '@/utils/localStore';
+
+export interface SyncResult {
+  /** False when there is no native session yet */
+  synced: boolean;
+  pushed?: number;
+  pulled?: number;
+  deleted?: number;
+  rejected?: number;
+}
+
+export type SyncOp = 'insert' | 'update' | 'delete';
+
+interface SyncPluginInterface {
+  syncNow(): Promise<SyncResult>;
+  enqueue(options: {
+    table: LocalTable;
+    op: SyncOp;
+    row?: LocalRow;
+    id?: string;
+    clientRequestId?: string;
+  }): Promise<{ queued: boolean }>;
+  getStatus(): Promise<{ pending: number }>;
+}
+
+const Sync = registerPlugin<SyncPluginInterface>('Sync');
+
+export const isNativeSyncAvailable = (): boolean => {
+  try {
+    return Capacitor.isNativePlatform() && Capacitor.getPlatform() === 'android' && Capacitor.isPluginAvailable('Sync');
+  } catch {
+    return false;
+  }
+};
+
+export const syncNow = async (): Promise<SyncResult> => {
+  if (!isNativeSyncAvailable()) return { synced: false };
+  return Sync.syncNow();
+};
+
+/**
+ * Apply a change to the local store and queue it for upload. Retrying with the same
+ * clientRequestId is a no-op.
+ */
+export const enqueueSyncMutation = async (
+  table: LocalTable,
+  op: SyncOp,
+  options: { row?: LocalRow; id?: string; clientRequestId?: string }
+): Promise<boolean> => {
+  const { queued } = await Sync.enqueue({ table, op, ...options });
+  return queued;
+};
+
+export const getPendingSyncCount = async (): Promise<number> => {
+  if (!isNativeSyncAvailable()) return 0;
+  const { pending } = await Sync.getStatus();
+  return pending;
+};
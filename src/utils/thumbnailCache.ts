@@ -0,0 +1,91 @@
+/**
+ * Native photo cache (Android).
+ *
+ * Photos-bucket thumb/medium images are served to the WebView from a native
+ * memory + disk LRU, so the photo diary loads offline and survives WebView cache
+ * eviction. Nothing needs to change in <img> usage.
+ *
+ * prefetchThumbnails warms the cache for photos about to scroll into view.
+ */
+
+import { Capacitor, registerPlugin } from '@capacitor/core';
+
+export interface ThumbnailCacheStats {
+  memoryHits: number;
+  diskHits: number;
+  misses: number;
+  errors: number;
+  hitRate: number;
+  diskBytes: number;
+  diskEntries: number;
+  memoryBytes: number;
+  prefetch: {
+    requested: number;
+    alreadyCached: number;
+    fetched: number;
+    cancelled: number;
+    failed: number;
+    queued: number;
+    /** Prefetched images that were later displayed */
+    useful: number;
+    /** Prefetched images that aged out without being displayed */
+    wasted: number;
+    /** Prefetched images not displayed yet */
+    pending: number;
+  };
+}
+
+interface ThumbnailCachePluginInterface {
+  getStats(): Promise<ThumbnailCacheStats>;
+  resetStats(): Promise<void>;
+  clear(): Promise<void>;
+  prefetch(options: { urls: string[]; priority?: number; replace?: boolean }): Promise<void>;
+  cancelPrefetch(options: { urls?: string[] }): Promise<void>;
+}
+
+const ThumbnailCache = registerPlugin<ThumbnailCachePluginInterface>('ThumbnailCache');
+
+export const isNativeThumbnailCacheAvailable = (): boolean => {
+  try {
+    return Capacitor.isNativePlatform() && Capacitor.getPlatform() === 'android' && Capacitor.isPluginAvailable('ThumbnailCache');
+  } catch {
+    return false;
+  }
+};
+
+export const getThumbnailCacheStats = async (): Promise<ThumbnailCacheStats | null> => {
+  if (!isNativeThumbnailCacheAvailable()) return null;
+  return ThumbnailCache.getStats();
+};
+
+export const resetThumbnailCacheStats = async (): Promise<void> => {
+  if (!isNativeThumbnailCacheAvailable()) return;
+  await ThumbnailCache.resetStats();
+};
+
+export const clearThumbnailCache = async (): Promise<void> => {
+  if (!isNativeThumbnailCacheAvailable()) return;
+  await ThumbnailCache.clear();
+};
+
+/**
+ * Warm the native cache for the given thumbnail URLs (in order).
+ * Higher priority runs first; replace cancels queued prefetches not in urls.
+ */
+export const prefetchThumbnails = async (
+  urls: string[],
+  priority: number = 0,
+  replace: boolean = false
+): Promise<void> => {
+  if (!isNativeThumbnailCacheAvailable() || urls.length === 0) return;
+  try {
+    await ThumbnailCache.prefetch({ urls, priority, replace });
+  } catch (error) {
+    console.warn('[ThumbnailCache] Prefetch failed:', error);
+  }
+};
+
+export const cancelThumbnailPrefetch = async (urls?: string[]): Promise<void> => {
+  if (!isNativeThumbnailCacheAvailable()) return;
+  await ThumbnailCache.cancelPrefetch({ urls });
+};
@@ -0,0 +1,150 @@
+/**
+ * Native background upload queue (Android).
+ *
+ * Photos processed with processImageNative are handed to WorkManager, so uploads
+ * survive the app being backgrounded or killed and resume interrupted transfers.
+ * The web build keeps uploading from useBatchUpload.
+ */
+
+import { Capacitor, registerPlugin, type PluginListenerHandle } from '@capacitor/core';
+import type { Session } from '@supabase/supabase-js';
+import type { BodyPart } from '@/contexts/UserDataContext';
+
+/** parked: the server refused the session; the upload resumes after the next setNativeUploadSession */
+export type NativeUploadState = 'queued' | 'uploading' | 'succeeded' | 'failed' | 'parked' | 'cancelled';
+
+export interface NativeUploadProgress {
+  photoId: string;
+  state: NativeUploadState;
+  progress: number;
+  error?: string;
+  attempt?: number;
+}
+
+interface UploadQueuePluginInterface {
+  setSession(options: { url?: string; anonKey?: string; accessToken?: string; userId?: string }): Promise<void>;
+  enqueue(options: { photoId: string; bodyPart: string; takenAt?: string | null; notes?: string | null }): Promise<void>;
+  cancel(options: { photoId: string }): Promise<void>;
+  getUploads(): Promise<{ uploads: NativeUploadProgress[] }>;
+  addListener(
+    eventName: 'uploadProgress',
+    listener: (event: NativeUploadProgress) => void
+  ): Promise<PluginListenerHandle>;
+}
+
+const UploadQueue = registerPlugin<UploadQueuePluginInterface>('UploadQueue');
+
+export const isNativeUploadQueueAvailable = (): boolean => {
+  try {
+    return Capacitor.isNativePlatform() && Capacitor.getPlatform() === 'android' && Capacitor.isPluginAvailable('UploadQueue');
+  } catch {
+    return false;
+  }
+};
+
+/**
+ * Give background workers the current session. Call on every auth change
+ * (including token refreshes); a null session clears it.
+ */
+export const setNativeUploadSession = async (session: Session | null): Promise<void> => {
+  if (!isNativeUploadQueueAvailable()) return;
+
+  try {
+    if (!session) {
+      await UploadQueue.setSession({});
+      return;
+    }
+    await UploadQueue.setSession({
+      url: import.meta.env.VITE_SUPABASE_URL,
+      anonKey: import.meta.env.VITE_SUPABASE_PUBLISHABLE_KEY,
+      accessToken: session.access_token,
+      userId: session.user.id,
+    });
+  } catch (error) {
+    console.error('[UploadQueue] Failed to update session:', error);
+  }
+};
+
+/**
+ * Queue a photo already processed by processImageNative, for the user of the current
+ * native session (rejects if there is none). takenAt is the timezone-less EXIF date, or null.
+ */
+export const enqueueNativeUpload = async (
+  photoId: string,
+  bodyPart: BodyPart,
+  takenAt: string | null,
+  notes: string | null = null
+): Promise<void> => {
+  await UploadQueue.enqueue({ photoId, bodyPart, takenAt, notes });
+};
+
+export const cancelNativeUpload = async (photoId: string): Promise<void> => {
+  await UploadQueue.cancel({ photoId });
+};
+
+export const getNativeUploads = async (): Promise<NativeUploadProgress[]> => {
+  const { uploads } = await UploadQueue.getUploads();
+  return uploads;
+};
+
+export const addNativeUploadListener = (
+  listener: (event: NativeUploadProgress) => void
+): Promise<PluginListenerHandle> => {
+  return UploadQueue.addListener('uploadProgress', listener);
+};
+
+/**
+ * Queue a processed photo and follow it until WorkManager is done with it.
+ *
+ * Resolves with 'succeeded' once the user_photos row exists, or early with 'queued'
+ * or 'parked' when the upload has to wait (offline, retry backoff, refused session);
+ * the queue still finishes it in the background. Rejects if it failed or was cancelled.
+ */
+export const uploadNativePhoto = async (
+  photoId: string,
+  bodyPart: BodyPart,
+  takenAt: string | null,
+  notes: string | null,
+  onProgress?: (progress: number) => void
+): Promise<NativeUploadProgress> => {
+  let handle: PluginListenerHandle | undefined;
+  try {
+    return await new Promise<NativeUploadProgress>((resolve, reject) => {
+      const onEvent = (event: NativeUploadProgress) => {
+        if (event.photoId !== photoId) return;
+        switch (event.state) {
+          case 'uploading':
+            onProgress?.(event.progress);
+            break;
+          case 'queued':
+            // A retry backoff can last minutes; don't hold the caller that long
+            if ((event.attempt ?? 0) > 0) resolve(event);
+            break;
+          case 'succeeded':
+          case 'parked':
+            resolve(event);
+            break;
+          case 'failed':
+            reject(new Error(event.error || 'Upload failed'));
+            break;
+          case 'cancelled':
+            reject(new Error('Upload cancelled'));
+            break;
+        }
+      };
+
+      // Listen before enqueueing so a fast upload's events aren't missed
+      addNativeUploadListener(onEvent)
+        .then((h) => {
+          handle = h;
+          return enqueueNativeUpload(photoId, bodyPart, takenAt, notes);
+        })
+        .then(() => {
+          if (!navigator.onLine) resolve({ photoId, state: 'queued', progress: 0 });
+        })
+        .catch(reject);
+    });
+  } finally {
+    handle?.remove();
+  }
+};
@@ -0,0 +1,77 @@
+-- Delta sync: track when rows change so clients can pull only what changed since
+-- their last (updated_at, id) watermark, and record deletes as tombstones.
+-- updated_at and deleted_at are now(), i.e. transaction start, so a row can commit
+-- with a timestamp behind a watermark a client already holds. Clients re-read a few
+-- minutes behind their watermark on every pull (SyncEngine.PULL_OVERLAP).
+
+ALTER TABLE public.user_check_ins ADD COLUMN IF NOT EXISTS updated_at timestamp with time zone NOT NULL DEFAULT now();
+ALTER TABLE public.user_photos ADD COLUMN IF NOT EXISTS updated_at timestamp with time zone NOT NULL DEFAULT now();
+ALTER TABLE public.user_journal_entries ADD COLUMN IF NOT EXISTS updated_at timestamp with time zone NOT NULL DEFAULT now();
+
+CREATE TRIGGER update_user_check_ins_updated_at
+BEFORE UPDATE ON public.user_check_ins
+FOR EACH ROW
+EXECUTE FUNCTION public.update_updated_at_column();
+
+CREATE TRIGGER update_user_photos_updated_at
+BEFORE UPDATE ON public.user_photos
+FOR EACH ROW
+EXECUTE FUNCTION public.update_updated_at_column();
+
+CREATE TRIGGER update_user_journal_entries_updated_at
+BEFORE UPDATE ON public.user_journal_entries
+FOR EACH ROW
+EXECUTE FUNCTION public.update_updated_at_column();
+
+-- Matches the sync cursor: user_id = X AND (updated_at, id) > watermark ORDER BY updated_at, id
+CREATE INDEX IF NOT EXISTS idx_user_check_ins_user_updated ON public.user_check_ins (user_id, updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_user_photos_user_updated ON public.user_photos (user_id, updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_user_journal_entries_user_updated ON public.user_journal_entries (user_id, updated_at, id);
+
+-- Deleted rows, so other devices can remove them from their local copy
+CREATE TABLE public.sync_tombstones (
+  id bigserial PRIMARY KEY,
+  user_id uuid NOT NULL,
+  table_name text NOT NULL,
+  row_id uuid NOT NULL,
+  deleted_at timestamp with time zone NOT NULL DEFAULT now()
+);
+
+-- Matches the tombstone cursor: user_id = X AND (deleted_at, id) > watermark
+CREATE INDEX idx_sync_tombstones_user_deleted ON public.sync_tombstones (user_id, deleted_at, id);
+
+ALTER TABLE public.sync_tombstones ENABLE ROW LEVEL SECURITY;
+
+-- Users can read their own tombstones; only the trigger below writes them
+CREATE POLICY "Users can view their own tombstones"
+ON public.sync_tombstones
+FOR SELECT
+USING (auth.uid() = user_id);
+
+CREATE OR REPLACE FUNCTION public.record_sync_tombstone()
+RETURNS trigger
+LANGUAGE plpgsql
+SECURITY DEFINER
+SET search_path = public
+AS $$
+BEGIN
+  INSERT INTO public.sync_tombstones (user_id, table_name, row_id)
+  VALUES (OLD.user_id, TG_TABLE_NAME, OLD.id);
+  RETURN OLD;
+END;
+$$;
+
+CREATE TRIGGER record_user_check_ins_tombstone
+AFTER DELETE ON public.user_check_ins
+FOR EACH ROW
+EXECUTE FUNCTION public.record_sync_tombstone();
+
+CREATE TRIGGER record_user_photos_tombstone
+AFTER DELETE ON public.user_photos
+FOR EACH ROW
+EXECUTE FUNCTION public.record_sync_tombstone();
+
+CREATE TRIGGER record_user_journal_entries_tombstone
+AFTER DELETE ON public.user_journal_entries
+FOR EACH ROW
+EXECUTE FUNCTION public.record_sync_tombstone();